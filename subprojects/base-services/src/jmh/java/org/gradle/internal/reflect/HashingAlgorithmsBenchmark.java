@@ -23,6 +23,9 @@ import com.google.common.hash.Hashing;
 import org.bouncycastle.jcajce.provider.digest.Blake2b;
 import org.bouncycastle.jcajce.provider.digest.MD5;
 import org.bouncycastle.jcajce.provider.digest.SHA1;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.hash.ChunkedFileHasher;
+import org.gradle.internal.hash.ContentHasherFactory;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Level;
@@ -31,10 +34,17 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Map;
@@ -44,7 +54,6 @@ import java.util.Random;
 @Threads(4)
 @Warmup(iterations = 5)
 @Measurement(iterations = 5)
-@State(Scope.Benchmark)
 public class HashingAlgorithmsBenchmark {
 
     private static MessageDigest getDigest(String name) {
@@ -64,29 +73,102 @@ public class HashingAlgorithmsBenchmark {
         .put("murmur3.guava", new GuavaProcessorFactory(Hashing.murmur3_128()))
         .build();
 
-    Random random = new Random(1234L);
+    @State(Scope.Benchmark)
+    public static class InputState {
+        Random random = new Random(1234L);
 
-    @Param({"16", "1024", "65536"})
-    int hashSize;
+        @Param({"16", "1024", "65536"})
+        int hashSize;
 
-    // @Param({"md5.java", "md5.bc", "sha1.java", "sha1.bc", "blake2b.bc"})
-    @Param({"md5.java", "murmur3.guava"})
-    String type;
+        // @Param({"md5.java", "md5.bc", "sha1.java", "sha1.bc", "blake2b.bc"})
+        @Param({"md5.java", "murmur3.guava"})
+        String type;
 
-    byte[] input;
-    HashProcessorFactory processorFactory;
+        byte[] input;
+        HashProcessorFactory processorFactory;
 
-    @Setup(Level.Iteration)
-    public void setup() throws CloneNotSupportedException {
-        input = new byte[hashSize];
-        random.nextBytes(input);
-        processorFactory = HASHERS.get(type);
+        @Setup(Level.Iteration)
+        public void setup() throws CloneNotSupportedException {
+            input = new byte[hashSize];
+            random.nextBytes(input);
+            processorFactory = HASHERS.get(type);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FileState {
+        @Param({"268435456"})
+        long fileSize;
+
+        @Param({"stream", "chunked"})
+        String mode;
+
+        File file;
+        DefaultExecutorFactory executorFactory;
+        ChunkedFileHasher chunkedFileHasher;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            file = File.createTempFile("hashing", ".bin");
+            byte[] buffer = new byte[1024 * 1024];
+            new Random(1234L).nextBytes(buffer);
+            OutputStream outputStream = new FileOutputStream(file);
+            try {
+                for (long written = 0; written < fileSize; written += buffer.length) {
+                    outputStream.write(buffer, 0, (int) Math.min(buffer.length, fileSize - written));
+                }
+            } finally {
+                outputStream.close();
+            }
+            executorFactory = new DefaultExecutorFactory();
+            System.setProperty(ChunkedFileHasher.ENABLED_PROPERTY, "true");
+            chunkedFileHasher = new ChunkedFileHasher(MD5_CONTENT_HASHER, executorFactory);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.clearProperty(ChunkedFileHasher.ENABLED_PROPERTY);
+            executorFactory.stop();
+            file.delete();
+        }
     }
 
+    private static final ContentHasherFactory MD5_CONTENT_HASHER = new ContentHasherFactory() {
+        @Override
+        public org.gradle.internal.hash.Hasher create() {
+            return org.gradle.internal.hash.Hashing.md5().newHasher();
+        }
+    };
+
+    @Benchmark
+    public void measure(InputState state, Blackhole blackhole) {
+        HashProcessor processor = state.processorFactory.create();
+        processor.process(state.input, blackhole);
+    }
+
+    /**
+     * Compares hashing a large file as a stream with the chunked tree hash used by {@link ChunkedFileHasher}.
+     */
     @Benchmark
-    public void measure(Blackhole blackhole) {
-        HashProcessor processor = processorFactory.create();
-        processor.process(input, blackhole);
+    @Threads(1)
+    public void measureFile(FileState state, Blackhole blackhole) throws IOException {
+        if (state.mode.equals("chunked")) {
+            blackhole.consume(state.chunkedFileHasher.hash(state.file));
+            return;
+        }
+        // Same as DefaultStreamHasher
+        org.gradle.internal.hash.Hasher hasher = MD5_CONTENT_HASHER.create();
+        byte[] buffer = new byte[8192];
+        InputStream inputStream = new FileInputStream(state.file);
+        try {
+            int nread;
+            while ((nread = inputStream.read(buffer)) >= 0) {
+                hasher.putBytes(buffer, 0, nread);
+            }
+        } finally {
+            inputStream.close();
+        }
+        blackhole.consume(hasher.hash());
     }
 
     interface HashProcessor {
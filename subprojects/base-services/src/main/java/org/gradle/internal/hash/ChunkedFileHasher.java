@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.os.OperatingSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Hashes large files by splitting them into fixed-size chunks, hashing the chunks in parallel and combining the chunk hashes into a tree hash.
+ *
+ * <p>The chunks are read through memory mapped regions of the file, except on Windows where a mapped file cannot be deleted until the mapping
+ * is garbage collected. There, the chunks are read with positional reads instead.</p>
+ *
+ * <p>The tree hash of a file is different from the hash of its content produced by a {@link StreamHasher}. It is only used when chunked hashing
+ * is enabled with {@link #ENABLED_PROPERTY}, and it includes a version so that it can be changed in the future.</p>
+ */
+public class ChunkedFileHasher implements Stoppable {
+    /**
+     * Enables chunked hashing of large files when set to {@code true}.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.hash.chunked";
+
+    private static final HashCode SIGNATURE = Hashing.md5().hashString(ChunkedFileHasher.class.getName() + ":1");
+    private static final long DEFAULT_THRESHOLD = 16 * 1024 * 1024;
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ContentHasherFactory hasherFactory;
+    private final ExecutorFactory executorFactory;
+    private final boolean enabled;
+    private final long threshold;
+    private final int chunkSize;
+    private final boolean memoryMapped;
+    private final Object lock = new Object();
+    private ManagedExecutor executor;
+
+    public ChunkedFileHasher(ContentHasherFactory hasherFactory, ExecutorFactory executorFactory) {
+        this(hasherFactory, executorFactory, Boolean.getBoolean(ENABLED_PROPERTY), DEFAULT_THRESHOLD, DEFAULT_CHUNK_SIZE, !OperatingSystem.current().isWindows());
+    }
+
+    ChunkedFileHasher(ContentHasherFactory hasherFactory, ExecutorFactory executorFactory, boolean enabled, long threshold, int chunkSize, boolean memoryMapped) {
+        this.hasherFactory = hasherFactory;
+        this.executorFactory = executorFactory;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Returns true when chunked hashing is enabled. The hashes produced by a {@link FileHasher} differ depending on this setting, so persistent
+     * caches of file hashes need to be kept separate.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns true if a file of the given length should be hashed with {@link #hash(File)}.
+     */
+    public boolean shouldHash(long length) {
+        return enabled && length >= threshold;
+    }
+
+    /**
+     * Returns the tree hash of the current content of the given file.
+     */
+    public HashCode hash(File file) {
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                return hash(randomAccessFile.getChannel());
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s'.", file), e);
+        }
+    }
+
+    private HashCode hash(final FileChannel channel) throws IOException {
+        long length = channel.size();
+        ManagedExecutor executor = getExecutor();
+        List<Future<HashCode>> chunks = new ArrayList<Future<HashCode>>((int) (length / chunkSize) + 1);
+        try {
+            for (long start = 0; start < length; start += chunkSize) {
+                final long chunkStart = start;
+                final int size = (int) Math.min(chunkSize, length - start);
+                chunks.add(executor.submit(new Callable<HashCode>() {
+                    @Override
+                    public HashCode call() throws IOException {
+                        return hashChunk(channel, chunkStart, size);
+                    }
+                }));
+            }
+            Hasher hasher = hasherFactory.create();
+            hasher.putHash(SIGNATURE);
+            hasher.putLong(length);
+            hasher.putInt(chunkSize);
+            for (Future<HashCode> chunk : chunks) {
+                hasher.putHash(chunk.get());
+            }
+            return hasher.hash();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } finally {
+            for (Future<HashCode> chunk : chunks) {
+                chunk.cancel(false);
+            }
+        }
+    }
+
+    private HashCode hashChunk(FileChannel channel, long start, int size) throws IOException {
+        Hasher hasher = Hashing.md5().newHasher();
+        byte[] buffer = new byte[Math.min(BUFFER_SIZE, size)];
+        if (memoryMapped) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            while (mapped.hasRemaining()) {
+                int count = Math.min(buffer.length, mapped.remaining());
+                mapped.get(buffer, 0, count);
+                hasher.putBytes(buffer, 0, count);
+            }
+        } else {
+            ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+            long pos = start;
+            long end = start + size;
+            while (pos < end) {
+                wrapper.clear();
+                wrapper.limit((int) Math.min(buffer.length, end - pos));
+                int count = channel.read(wrapper, pos);
+                if (count < 0) {
+                    throw new IOException("File was truncated while it was being hashed.");
+                }
+                hasher.putBytes(buffer, 0, count);
+                pos += count;
+            }
+        }
+        return hasher.hash();
+    }
+
+    private ManagedExecutor getExecutor() {
+        synchronized (lock) {
+            if (executor == null) {
+                executor = executorFactory.create("File hasher", Runtime.getRuntime().availableProcessors());
+            }
+            return executor;
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            if (executor != null) {
+                executor.stop();
+                executor = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import org.gradle.api.UncheckedIOException
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ChunkedFileHasherTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def executorFactory = new DefaultExecutorFactory()
+    def hasherFactory = { Hashing.md5().newHasher() } as ContentHasherFactory
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    @Unroll
+    def "hashes file with #length bytes as tree of chunk hashes (memory mapped: #memoryMapped)"() {
+        def hasher = new ChunkedFileHasher(hasherFactory, executorFactory, true, 0, 1000, memoryMapped)
+        def content = content(length)
+        def file = tmpDir.file("file")
+        file.bytes = content
+
+        expect:
+        hasher.hash(file) == treeHash(content, 1000)
+
+        where:
+        length | memoryMapped
+        0      | true
+        999    | true
+        1000   | true
+        4567   | true
+        4567   | false
+    }
+
+    def "hash depends on content"() {
+        def hasher = new ChunkedFileHasher(hasherFactory, executorFactory, true, 0, 1000, true)
+        def content = content(4567)
+        def file = tmpDir.file("file")
+        file.bytes = content
+        def original = hasher.hash(file)
+
+        when:
+        content[3456]++
+        file.bytes = content
+
+        then:
+        hasher.hash(file) != original
+    }
+
+    def "only hashes files above the threshold when enabled"() {
+        expect:
+        new ChunkedFileHasher(hasherFactory, executorFactory, true, 1000, 100, true).shouldHash(1000)
+        !new ChunkedFileHasher(hasherFactory, executorFactory, true, 1000, 100, true).shouldHash(999)
+        !new ChunkedFileHasher(hasherFactory, executorFactory, false, 1000, 100, true).shouldHash(1000)
+    }
+
+    def "fails when file does not exist"() {
+        def hasher = new ChunkedFileHasher(hasherFactory, executorFactory, true, 0, 1000, true)
+        def file = tmpDir.file("missing")
+
+        when:
+        hasher.hash(file)
+
+        then:
+        UncheckedIOException e = thrown()
+        e.message == "Failed to create MD5 hash for file '$file'."
+    }
+
+    private static byte[] content(int length) {
+        def content = new byte[length]
+        new Random(1234L).nextBytes(content)
+        content
+    }
+
+    private HashCode treeHash(byte[] content, int chunkSize) {
+        def hasher = hasherFactory.create()
+        hasher.putHash(Hashing.md5().hashString(ChunkedFileHasher.name + ":1"))
+        hasher.putLong(content.length)
+        hasher.putInt(chunkSize)
+        for (int start = 0; start < content.length; start += chunkSize) {
+            hasher.putHash(Hashing.md5().hashBytes(Arrays.copyOfRange(content, start, Math.min(content.length, start + chunkSize))))
+        }
+        hasher.hash()
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+/**
+ * A load command for an entry that refers to blobs.
+ */
+public interface BuildCacheBlobLoadCommand<T> extends BuildCacheLoadCommand<T> {
+    /**
+     * Called after the entry has been read by {@link #load(java.io.InputStream)} to load the blobs it refers to.
+     *
+     * This is called outside of any lock held on the local cache, so it can load blobs from the remote cache and store them locally.
+     */
+    void loadBlobs(BuildCacheBlobs blobs);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.gradle.caching.BuildCacheEntryReader;
+import org.gradle.caching.BuildCacheKey;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides access to blobs, which are build cache entries that hold a single piece of content and are keyed by the hash of the content.
+ * Other entries can refer to blobs instead of including their content, so that content shared between entries is only transferred and stored once.
+ */
+public interface BuildCacheBlobs {
+    /**
+     * Loads each blob with the given keys from the first cache that contains it, and stores blobs loaded from the remote cache in the local cache.
+     * Blobs may be loaded concurrently, so the given readers must not share mutable state.
+     *
+     * @return the keys of the blobs that were not found.
+     */
+    Set<BuildCacheKey> load(Map<BuildCacheKey, ? extends BuildCacheEntryReader> readers);
+
+    /**
+     * Stores the content of each of the given files as a blob in the caches that do not contain it yet. Blobs may be stored concurrently.
+     */
+    void store(Map<BuildCacheKey, File> files);
+}
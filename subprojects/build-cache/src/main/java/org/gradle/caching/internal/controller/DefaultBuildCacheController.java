@@ -17,10 +17,12 @@
 package org.gradle.caching.internal.controller;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.Files;
 import org.apache.commons.io.IOUtils;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.internal.controller.operations.PackOperationDetails;
@@ -45,6 +47,7 @@ import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
 import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 
@@ -55,6 +58,12 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 public class DefaultBuildCacheController implements BuildCacheController {
 
@@ -68,7 +77,11 @@ public class DefaultBuildCacheController implements BuildCacheController {
     final LocalBuildCacheServiceHandle local;
 
     private final BuildCacheTempFileStore tmp;
+    private final File gradleUserHomeDir;
+    // Not guarded by the lock of the local cache, so that blobs can be loaded from the remote cache concurrently
+    private BuildCacheTempFileStore blobTmp;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final BuildCacheBlobs blobs = new Blobs();
 
     private boolean closed;
 
@@ -79,6 +92,7 @@ public class DefaultBuildCacheController implements BuildCacheController {
         boolean logStackTraces
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
+        this.gradleUserHomeDir = gradleUserHomeDir;
 
         if (config.local instanceof LocalBuildCacheService) {
             LocalBuildCacheService castLocal = (LocalBuildCacheService) config.local;
@@ -107,6 +121,7 @@ public class DefaultBuildCacheController implements BuildCacheController {
             }
 
             if (unpack.result != null) {
+                loadBlobs(command, "local");
                 return unpack.result.getMetadata();
             }
         }
@@ -134,6 +149,8 @@ public class DefaultBuildCacheController implements BuildCacheController {
                             @SuppressWarnings("ConstantConditions") String roleDisplayName = loadedRole.getDisplayName();
                             throw new GradleException("Build cache entry " + command.getKey() + " from " + roleDisplayName + " build cache is invalid", e);
                         }
+                        // Load the blobs first, so that the local cache never contains an entry without its blobs
+                        loadBlobs(command, loadedRole.getDisplayName());
                         if (local.canStore()) {
                             local.store(command.getKey(), file);
                         }
@@ -150,6 +167,16 @@ public class DefaultBuildCacheController implements BuildCacheController {
         }
     }
 
+    private void loadBlobs(BuildCacheLoadCommand<?> command, String roleDisplayName) {
+        if (command instanceof BuildCacheBlobLoadCommand) {
+            try {
+                ((BuildCacheBlobLoadCommand<?>) command).loadBlobs(blobs);
+            } catch (Exception e) {
+                throw new GradleException("Could not load the content of build cache entry " + command.getKey() + " from " + roleDisplayName + " build cache", e);
+            }
+        }
+    }
+
     private class Unpack<T> implements Action<File> {
         private final BuildCacheLoadCommand<T> command;
 
@@ -202,6 +229,10 @@ public class DefaultBuildCacheController implements BuildCacheController {
             return;
         }
 
+        if (command instanceof BuildCacheBlobStoreCommand) {
+            ((BuildCacheBlobStoreCommand) command).storeBlobs(blobs);
+        }
+
         final BuildCacheKey key = command.getKey();
         final Pack pack = new Pack(command);
 
@@ -259,6 +290,172 @@ public class DefaultBuildCacheController implements BuildCacheController {
         }
     }
 
+    /**
+     * Creates the temporary directory for blobs loaded from the remote cache when it is first needed, so that builds that do not load any blobs
+     * remotely do not create it.
+     */
+    private synchronized BuildCacheTempFileStore getBlobTmp() {
+        if (blobTmp == null) {
+            blobTmp = new DefaultBuildCacheTempFileStore(new File(gradleUserHomeDir, "build-cache-tmp"));
+        }
+        return blobTmp;
+    }
+
+    /**
+     * Blobs are transferred concurrently with the remote cache, bounded by the number of workers. Blobs are looked up in the local cache on the
+     * calling thread. A blob loaded from the remote cache is stored in the local cache by the worker thread that loaded it, which relies on
+     * the local cache being thread-safe.
+     */
+    private class Blobs implements BuildCacheBlobs {
+        @Override
+        public Set<BuildCacheKey> load(Map<BuildCacheKey, ? extends BuildCacheEntryReader> readers) {
+            final Map<BuildCacheKey, BuildCacheEntryReader> notLoadedLocally = new LinkedHashMap<BuildCacheKey, BuildCacheEntryReader>();
+            for (Map.Entry<BuildCacheKey, ? extends BuildCacheEntryReader> entry : readers.entrySet()) {
+                ReadBlob readBlob = new ReadBlob(entry.getValue());
+                if (local.canLoad()) {
+                    local.load(entry.getKey(), readBlob);
+                }
+                if (!readBlob.loaded) {
+                    notLoadedLocally.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (notLoadedLocally.isEmpty() || !(legacyLocal.canLoad() || remote.canLoad())) {
+                return notLoadedLocally.keySet();
+            }
+
+            final Set<BuildCacheKey> missing = Collections.synchronizedSet(new LinkedHashSet<BuildCacheKey>());
+            transferConcurrently("Load build cache blob", notLoadedLocally.keySet(), new Action<BuildCacheKey>() {
+                @Override
+                public void execute(BuildCacheKey key) {
+                    if (!loadRemotely(key, notLoadedLocally.get(key))) {
+                        missing.add(key);
+                    }
+                }
+            });
+            return missing;
+        }
+
+        private boolean loadRemotely(final BuildCacheKey key, BuildCacheEntryReader reader) {
+            final ReadBlob readBlob = new ReadBlob(reader);
+            getBlobTmp().withTempFile(key, new Action<File>() {
+                @Override
+                public void execute(File file) {
+                    LoadTarget loadTarget = new LoadTarget(file);
+                    if (legacyLocal.canLoad()) {
+                        legacyLocal.load(key, loadTarget);
+                    }
+                    if (remote.canLoad() && !loadTarget.isLoaded()) {
+                        remote.load(key, loadTarget);
+                    }
+                    if (loadTarget.isLoaded()) {
+                        readBlob.execute(file);
+                        if (local.canStore()) {
+                            local.store(key, file);
+                        }
+                    }
+                }
+            });
+            return readBlob.loaded;
+        }
+
+        @Override
+        public void store(final Map<BuildCacheKey, File> files) {
+            // Blobs are keyed by their content, so there is no need to replace a blob that a cache already contains
+            if (legacyLocal.canStore() || remote.canStore()) {
+                transferConcurrently("Store build cache blob", files.keySet(), new Action<BuildCacheKey>() {
+                    @Override
+                    public void execute(BuildCacheKey key) {
+                        File file = files.get(key);
+                        if (legacyLocal.canStore() && !legacyLocal.contains(key)) {
+                            legacyLocal.store(key, new StoreTarget(file));
+                        }
+                        if (remote.canStore() && !remote.contains(key)) {
+                            remote.store(key, new StoreTarget(file));
+                        }
+                    }
+                });
+            }
+            if (local.canStore()) {
+                for (Map.Entry<BuildCacheKey, File> entry : files.entrySet()) {
+                    if (!containsLocally(entry.getKey())) {
+                        storeLocally(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+
+        private void storeLocally(final BuildCacheKey key, final File file) {
+            tmp.withTempFile(key, new Action<File>() {
+                @Override
+                public void execute(File tempFile) {
+                    try {
+                        Files.copy(file, tempFile);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    local.store(key, tempFile);
+                }
+            });
+        }
+
+        private boolean containsLocally(BuildCacheKey key) {
+            // Loading the blob marks it as recently used, so that it is kept as long as the entries referring to it
+            final boolean[] found = new boolean[1];
+            local.load(key, new Action<File>() {
+                @Override
+                public void execute(File file) {
+                    found[0] = true;
+                }
+            });
+            return found[0];
+        }
+
+        private void transferConcurrently(final String displayName, final Collection<BuildCacheKey> keys, final Action<BuildCacheKey> transfer) {
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+                @Override
+                public void execute(BuildOperationQueue<RunnableBuildOperation> queue) {
+                    for (final BuildCacheKey key : keys) {
+                        queue.add(new RunnableBuildOperation() {
+                            @Override
+                            public void run(BuildOperationContext context) {
+                                transfer.execute(key);
+                            }
+
+                            @Override
+                            public BuildOperationDescriptor.Builder description() {
+                                return BuildOperationDescriptor.displayName(displayName + " " + key);
+                            }
+                        });
+                    }
+                }
+            });
+        }
+    }
+
+    private static class ReadBlob implements Action<File> {
+        private final BuildCacheEntryReader reader;
+        private boolean loaded;
+
+        ReadBlob(BuildCacheEntryReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public void execute(File file) {
+            try {
+                InputStream input = new FileInputStream(file);
+                try {
+                    reader.readFrom(input);
+                } finally {
+                    IOUtils.closeQuietly(input);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            loaded = true;
+        }
+    }
+
     @Override
     public void close() {
         if (!closed) {
@@ -21,6 +21,7 @@ import org.gradle.api.logging.Logging;
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.PresenceCheckingBuildCacheService;
 
 import javax.annotation.Nullable;
 
@@ -34,7 +35,7 @@ public class BaseBuildCacheServiceHandle implements BuildCacheServiceHandle {
     private final boolean pushEnabled;
     private final boolean logStackTraces;
 
-    private boolean disabled;
+    private volatile boolean disabled;
 
     public BaseBuildCacheServiceHandle(BuildCacheService service, boolean push, BuildCacheServiceRole role, boolean logStackTraces) {
         this.role = role;
@@ -73,6 +74,20 @@ public class BaseBuildCacheServiceHandle implements BuildCacheServiceHandle {
         service.load(key, entryReader);
     }
 
+    @Override
+    public boolean contains(BuildCacheKey key) {
+        if (disabled || !(service instanceof PresenceCheckingBuildCacheService)) {
+            return false;
+        }
+        LOGGER.debug("Check entry {} in {} build cache", key.getHashCode(), role.getDisplayName());
+        try {
+            return ((PresenceCheckingBuildCacheService) service).contains(key);
+        } catch (Exception e) {
+            failure("check", "in", key, e);
+            return false;
+        }
+    }
+
     @Override
     public boolean canStore() {
         return pushEnabled && !disabled;
@@ -33,6 +33,11 @@ public interface BuildCacheServiceHandle extends Closeable {
 
     void load(BuildCacheKey key, LoadTarget loadTarget);
 
+    /**
+     * Returns true if the service is known to contain an entry for the given key. Returns false when the service cannot tell without loading the entry.
+     */
+    boolean contains(BuildCacheKey key);
+
     boolean canStore();
 
     void store(BuildCacheKey key, StoreTarget storeTarget);
@@ -41,6 +41,11 @@ public class NullBuildCacheServiceHandle implements BuildCacheServiceHandle {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean contains(BuildCacheKey key) {
+        return false;
+    }
+
     @Override
     public boolean canStore() {
         return false;
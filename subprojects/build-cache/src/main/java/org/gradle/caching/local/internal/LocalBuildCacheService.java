@@ -26,6 +26,8 @@ import java.io.File;
  * A build cache service that is capable of handling local files directly. The direct access
  * allows more optimized implementations than the more general {@link org.gradle.caching.BuildCacheService}
  * interface.
+ *
+ * <p>Implementations must be thread-safe. Blobs loaded from the remote cache are stored locally by the worker threads that load them.</p>
  */
 public interface LocalBuildCacheService extends BuildCacheTempFileStore, Closeable {
 
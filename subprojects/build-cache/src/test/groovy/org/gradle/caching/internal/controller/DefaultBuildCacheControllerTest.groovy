@@ -21,6 +21,7 @@ import org.gradle.caching.BuildCacheEntryReader
 import org.gradle.caching.BuildCacheEntryWriter
 import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
+import org.gradle.caching.internal.PresenceCheckingBuildCacheService
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration
 import org.gradle.caching.local.internal.LocalBuildCacheService
 import org.gradle.internal.operations.TestBuildOperationExecutor
@@ -237,6 +238,77 @@ class DefaultBuildCacheControllerTest extends Specification {
         0 * remote.store(key, _)
     }
 
+    def "stores blobs that caches do not contain before storing entry"() {
+        given:
+        remote = Mock(PresenceCheckingBuildCacheService)
+        def blobKey = Mock(BuildCacheKey) {
+            getHashCode() >> "blob"
+        }
+        def blobFile = tmpDir.file("blob")
+        blobFile.text = "content"
+        def blobStoreCommand = Stub(BuildCacheBlobStoreCommand) {
+            getKey() >> key
+            storeBlobs(_) >> { BuildCacheBlobs blobs ->
+                blobs.store([(blobKey): blobFile])
+            }
+            store(_) >> { OutputStream output ->
+                storeCommand.store(output)
+            }
+        }
+
+        when:
+        controller.store(blobStoreCommand)
+
+        then:
+        1 * local.loadLocally(blobKey, _) // miss
+        1 * remote.contains(blobKey) >> true
+        0 * remote.store(blobKey, _)
+        1 * local.storeLocally(blobKey, _) >> { BuildCacheKey key, File file ->
+            assert file.text == "content"
+        }
+
+        then:
+        1 * remote.store(key, _)
+        1 * local.storeLocally(key, _)
+    }
+
+    def "loads blobs from remote after loading entry from local"() {
+        given:
+        def blobKey = Mock(BuildCacheKey) {
+            getHashCode() >> "blob"
+        }
+        def content = null
+        def blobLoadCommand = Stub(BuildCacheBlobLoadCommand) {
+            getKey() >> key
+            load(_) >> { InputStream input ->
+                loadCommand.load(input)
+            }
+            loadBlobs(_) >> { BuildCacheBlobs blobs ->
+                assert blobs.load([(blobKey): { InputStream input -> content = input.text } as BuildCacheEntryReader]).empty
+            }
+        }
+
+        when:
+        controller.load(blobLoadCommand)
+
+        then:
+        1 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
+            def file = tmpDir.file("file")
+            file.text = "manifest"
+            action.execute(file)
+        }
+
+        then:
+        1 * local.loadLocally(blobKey, _) // miss
+        1 * remote.load(blobKey, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("content".bytes))
+            true
+        }
+        1 * local.storeLocally(blobKey, _)
+        0 * local.storeLocally(key, _)
+        content == "content"
+    }
+
     def "close only closes once"() {
         when:
         def controller = getController()
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.internal.tasks
+
+import com.google.common.collect.ImmutableSortedSet
+import org.gradle.api.Task
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.file.TemporaryFileProvider
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.tasks.GenericFileNormalizer
+import org.gradle.api.internal.tasks.TaskInputFilePropertySpec
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec
+import org.gradle.api.internal.tasks.execution.TaskProperties
+import org.gradle.api.tasks.ClasspathNormalizer
+import org.gradle.api.tasks.TaskDependency
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testing.internal.util.Specification
+import org.junit.Rule
+import spock.lang.Unroll
+
+@CleanupTestDirectory
+class DeferredTaskOutputsTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+
+    def temporaryFileProvider = Mock(TemporaryFileProvider)
+    def deferredTaskOutputs = new DeferredTaskOutputs(temporaryFileProvider, true)
+    def taskProperties = Stub(TaskProperties)
+
+    File outputDir
+    DeferredTaskOutputs.DeferredOutput output
+
+    def setup() {
+        outputDir = temporaryFolder.file("build/classes")
+        output = Mock(DeferredTaskOutputs.DeferredOutput) {
+            getRoots() >> [outputDir]
+        }
+    }
+
+    def "is disabled unless requested"() {
+        expect:
+        !new DeferredTaskOutputs(temporaryFileProvider).enabled
+        deferredTaskOutputs.enabled
+    }
+
+    def "does not defer requested tasks or the tasks behind requested lifecycle tasks"() {
+        def compile = task(true)
+        def jar = task(true, compile)
+        def assemble = task(false, jar)
+        def test = task(true, compile)
+
+        expect:
+        !deferredTaskOutputs.shouldDefer(test, [test])
+        !deferredTaskOutputs.shouldDefer(jar, [assemble])
+        deferredTaskOutputs.shouldDefer(compile, [assemble])
+        deferredTaskOutputs.shouldDefer(compile, [test])
+    }
+
+    def "creates the entry file in the build cache temporary directory"() {
+        def entryFile = temporaryFolder.file("entry.bin")
+
+        when:
+        def file = deferredTaskOutputs.createEntryFile()
+
+        then:
+        1 * temporaryFileProvider.createTemporaryFile("deferred-", ".bin", "build-cache") >> entryFile
+        file == entryFile
+    }
+
+    def "does not unpack outputs before snapshotting when their snapshots suffice"() {
+        given:
+        deferredTaskOutputs.add(output)
+        taskHasProperties([inputProperty(outputDir)])
+
+        when:
+        deferredTaskOutputs.beforeSnapshot(taskProperties)
+
+        then:
+        0 * output.materialize()
+    }
+
+    @Unroll
+    def "unpacks outputs before snapshotting when #description"() {
+        given:
+        deferredTaskOutputs.add(output)
+        taskHasProperties([inputProperty(inputFile.call(outputDir), normalizer, skipWhenEmpty)])
+
+        when:
+        deferredTaskOutputs.beforeSnapshot(taskProperties)
+
+        then:
+        1 * output.materialize()
+
+        where:
+        description                                 | inputFile                                | normalizer            | skipWhenEmpty
+        "the input is normalized as a classpath"    | { File dir -> dir }                      | ClasspathNormalizer   | false
+        "the input skips the task when empty"       | { File dir -> dir }                      | GenericFileNormalizer | true
+        "the input is a file inside the output"     | { File dir -> new File(dir, "A.class") } | GenericFileNormalizer | false
+        "the input is a directory above the output" | { File dir -> dir.parentFile }           | GenericFileNormalizer | false
+    }
+
+    def "does not unpack outputs that the task does not read"() {
+        given:
+        deferredTaskOutputs.add(output)
+        taskHasProperties([inputProperty(temporaryFolder.file("build/classes-other"), ClasspathNormalizer)])
+
+        when:
+        deferredTaskOutputs.beforeSnapshot(taskProperties)
+        deferredTaskOutputs.beforeExecution(taskProperties)
+
+        then:
+        0 * output.materialize()
+    }
+
+    def "unpacks outputs that are read when the task executes"() {
+        given:
+        deferredTaskOutputs.add(output)
+        taskHasProperties([inputProperty(outputDir)])
+
+        when:
+        deferredTaskOutputs.beforeExecution(taskProperties)
+
+        then:
+        1 * output.materialize()
+    }
+
+    def "unpacks outputs that overlap the outputs of the task when it executes"() {
+        given:
+        deferredTaskOutputs.add(output)
+        taskHasProperties([], [outputProperty(new File(outputDir, "META-INF"))])
+
+        when:
+        deferredTaskOutputs.beforeExecution(taskProperties)
+
+        then:
+        1 * output.materialize()
+    }
+
+    def "unpacks outputs only once"() {
+        given:
+        deferredTaskOutputs.add(output)
+        taskHasProperties([inputProperty(outputDir)])
+
+        when:
+        deferredTaskOutputs.beforeExecution(taskProperties)
+        deferredTaskOutputs.beforeExecution(taskProperties)
+        deferredTaskOutputs.close()
+
+        then:
+        1 * output.materialize()
+        0 * output.discard()
+    }
+
+    def "discards outputs that were never needed"() {
+        def other = Mock(DeferredTaskOutputs.DeferredOutput) {
+            getRoots() >> [temporaryFolder.file("build/libs/lib.jar")]
+        }
+
+        given:
+        deferredTaskOutputs.add(output)
+        deferredTaskOutputs.add(other)
+        taskHasProperties([inputProperty(outputDir)])
+        deferredTaskOutputs.beforeExecution(taskProperties)
+
+        when:
+        deferredTaskOutputs.close()
+
+        then:
+        1 * other.discard()
+        0 * output.discard()
+        0 * other.materialize()
+    }
+
+    private TaskInternal task(boolean hasActions, Task... dependencies) {
+        def taskDependency = Stub(TaskDependency) {
+            getDependencies(_) >> (dependencies as Set)
+        }
+        return Stub(TaskInternal) {
+            hasTaskActions() >> hasActions
+            getTaskDependencies() >> taskDependency
+        }
+    }
+
+    private TaskInputFilePropertySpec inputProperty(File file, Class normalizer = GenericFileNormalizer, boolean skipWhenEmpty = false) {
+        return Stub(TaskInputFilePropertySpec) {
+            getPropertyFiles() >> files(file)
+            getNormalizer() >> normalizer
+            isSkipWhenEmpty() >> skipWhenEmpty
+        }
+    }
+
+    private TaskOutputFilePropertySpec outputProperty(File file) {
+        return Stub(TaskOutputFilePropertySpec) {
+            getPropertyFiles() >> files(file)
+        }
+    }
+
+    private void taskHasProperties(List<TaskInputFilePropertySpec> inputs, List<TaskOutputFilePropertySpec> outputs = []) {
+        interaction {
+            taskProperties.getInputFileProperties() >> ImmutableSortedSet.copyOf(inputs)
+            taskProperties.getOutputFileProperties() >> ImmutableSortedSet.copyOf(outputs)
+        }
+    }
+
+    private static FileCollection files(File file) {
+        new SimpleFileCollection(file)
+    }
+}
@@ -23,8 +23,12 @@ import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot
 import org.gradle.api.internal.changedetection.state.FileHashSnapshot
 import org.gradle.api.internal.tasks.OutputType
 import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec
+import org.gradle.caching.BuildCacheEntryReader
+import org.gradle.caching.BuildCacheKey
+import org.gradle.caching.internal.controller.BuildCacheBlobs
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter
+import org.gradle.internal.hash.DefaultFileHasher
 import org.gradle.internal.hash.DefaultStreamHasher
 import org.gradle.internal.hash.Hashing
 import org.gradle.internal.nativeplatform.filesystem.FileSystem
@@ -52,7 +56,8 @@ class TarTaskOutputPackerTest extends Specification {
     def fileSystem = Mock(FileSystem)
     def streamHasher = new DefaultStreamHasher({ Hashing.md5().newHasher() })
     def stringInterner = new StringInterner()
-    def packer = new TarTaskOutputPacker(fileSystem, streamHasher, stringInterner)
+    def fileHasher = new DefaultFileHasher(streamHasher)
+    def packer = new TarTaskOutputPacker(fileSystem, streamHasher, fileHasher, stringInterner)
 
     @Unroll
     def "can pack single task output file with file mode #mode"() {
@@ -115,6 +120,151 @@ class TarTaskOutputPackerTest extends Specification {
         0 * _
     }
 
+    def "can read task output directory without unpacking it"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        def sourceDataFile = sourceOutputDir.file("data.txt")
+        sourceDataFile << "output"
+        def targetOutputDir = temporaryFolder.file("target")
+        def targetDataFile = targetOutputDir.file("data.txt")
+        def output = new ByteArrayOutputStream()
+        when:
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        then:
+        1 * fileSystem.getUnixMode(sourceDataFile) >> 0644
+        0 * _
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        def result = packer.read([prop(DIRECTORY, targetOutputDir).property] as SortedSet, input, readOrigin)
+
+        then:
+        result.snapshots.get("test")*.path == [targetOutputDir.path, targetDataFile.path]
+        result.snapshots.get("test")[1].content.contentMd5 == TestFile.md5(sourceDataFile)
+        !targetOutputDir.exists()
+        0 * _
+    }
+
+    def "can pack task output directory as manifest referring to blobs"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        def sourceDataFile = sourceOutputDir.file("data.txt")
+        sourceDataFile << "output"
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        def targetDataFile = targetOutputDir.file("data.txt")
+        def output = new ByteArrayOutputStream()
+        def blobs = Mock(BuildCacheBlobs)
+        when:
+        packManifest output, prop(DIRECTORY, sourceOutputDir)
+
+        then:
+        1 * fileSystem.getUnixMode(sourceDataFile) >> 0644
+        0 * _
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        packer.unpack([prop(DIRECTORY, targetOutputDir).property] as SortedSet, input, readOrigin, blobs)
+
+        then:
+        1 * blobs.load(_) >> { Map<BuildCacheKey, BuildCacheEntryReader> readers ->
+            assert readers.keySet() == [BlobBuildCacheKey.forContent(TestFile.md5(sourceDataFile))] as Set
+            readers.values().first().readFrom(new ByteArrayInputStream("output".bytes))
+            [] as Set
+        }
+        1 * fileSystem.chmod(targetOutputDir, 0755)
+        1 * fileSystem.chmod(targetDataFile, 0644)
+        then:
+        targetDataFile.text == "output"
+        0 * _
+    }
+
+    def "fails to unpack manifest when blob is missing"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def output = new ByteArrayOutputStream()
+        def blobs = Stub(BuildCacheBlobs) {
+            load(_) >> { Map<BuildCacheKey, BuildCacheEntryReader> readers -> readers.keySet() }
+        }
+        packManifest output, prop(FILE, sourceOutputFile)
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        packer.unpack([prop(FILE, targetOutputFile).property] as SortedSet, input, readOrigin, blobs)
+
+        then:
+        def ex = thrown IllegalStateException
+        ex.message == "Content with hash ${TestFile.md5(sourceOutputFile)} for '${targetOutputFile}' was not found in the build cache."
+    }
+
+    def "loads content shared by several files of a manifest once"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("a.txt") << "output"
+        sourceOutputDir.file("b.txt") << "output"
+        sourceOutputDir.file("c.txt") << "other"
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        def output = new ByteArrayOutputStream()
+        def blobs = Mock(BuildCacheBlobs)
+        fileSystem.getUnixMode(_) >> 0644
+        packManifest output, prop(DIRECTORY, sourceOutputDir)
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        def result = packer.unpack([prop(DIRECTORY, targetOutputDir).property] as SortedSet, input, readOrigin, blobs)
+
+        then:
+        1 * blobs.load(_) >> { Map<BuildCacheKey, BuildCacheEntryReader> readers ->
+            assert readers.size() == 2
+            readers[BlobBuildCacheKey.forContent(TestFile.md5(sourceOutputDir.file("a.txt")))].readFrom(new ByteArrayInputStream("output".bytes))
+            readers[BlobBuildCacheKey.forContent(TestFile.md5(sourceOutputDir.file("c.txt")))].readFrom(new ByteArrayInputStream("other".bytes))
+            [] as Set
+        }
+        targetOutputDir.file("a.txt").text == "output"
+        targetOutputDir.file("b.txt").text == "output"
+        targetOutputDir.file("c.txt").text == "other"
+
+        result.snapshots.get("test")*.path == [targetOutputDir, targetOutputDir.file("a.txt"), targetOutputDir.file("b.txt"), targetOutputDir.file("c.txt")]*.path
+        result.snapshots.get("test")[1].content.contentMd5 == fileHasher.hash(targetOutputDir.file("a.txt"))
+        result.snapshots.get("test")[2].content.contentMd5 == fileHasher.hash(targetOutputDir.file("b.txt"))
+    }
+
+    def "fails to unpack manifest when loaded content has a different hash"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def output = new ByteArrayOutputStream()
+        def blobs = Stub(BuildCacheBlobs) {
+            load(_) >> { Map<BuildCacheKey, BuildCacheEntryReader> readers ->
+                readers.values().first().readFrom(new ByteArrayInputStream("corrupt".bytes))
+                [] as Set
+            }
+        }
+        packManifest output, prop(FILE, sourceOutputFile)
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        packer.unpack([prop(FILE, targetOutputFile).property] as SortedSet, input, readOrigin, blobs)
+
+        then:
+        def ex = thrown IllegalStateException
+        ex.message == "Content loaded for '${targetOutputFile}' has hash ${TestFile.md5(targetOutputFile)}, expected ${TestFile.md5(sourceOutputFile)}."
+    }
+
+    def "cannot unpack manifest without blobs"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def output = new ByteArrayOutputStream()
+        packManifest output, prop(FILE, sourceOutputFile)
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        unpack input, prop(FILE, targetOutputFile)
+
+        then:
+        thrown IllegalStateException
+        !targetOutputFile.exists()
+    }
+
     @Unroll
     def "can pack task output with missing #type (pre-existing as: #preExistsAs)"() {
         def sourceOutput = temporaryFolder.file("source")
@@ -339,6 +489,14 @@ class TarTaskOutputPackerTest extends Specification {
         packer.pack(propertySpecs, outputSnapshots, output, writeOrigin)
     }
 
+    def packManifest(OutputStream output, PropertyDefinition... propertyDefs) {
+        def propertySpecs = propertyDefs*.property as SortedSet
+        def outputSnapshots = propertyDefs.collectEntries { propertyDef ->
+            return [(propertyDef.property.propertyName): propertyDef.outputSnapshots()]
+        }
+        packer.packManifest(propertySpecs, outputSnapshots, output, writeOrigin)
+    }
+
     def unpack(InputStream input, TaskOutputOriginReader readOrigin = this.readOrigin, PropertyDefinition... propertyDefs) {
         def propertySpecs = propertyDefs*.property as SortedSet
         packer.unpack(propertySpecs, input, readOrigin)
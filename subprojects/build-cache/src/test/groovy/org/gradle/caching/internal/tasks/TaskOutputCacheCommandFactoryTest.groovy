@@ -51,7 +51,8 @@ class TaskOutputCacheCommandFactoryTest extends Specification {
     def originFactory = Mock(TaskOutputOriginFactory)
     def fileSystemMirror = Mock(FileSystemMirror)
     def stringInterner = new StringInterner()
-    def commandFactory = new TaskOutputCacheCommandFactory(packer, originFactory, fileSystemMirror, stringInterner)
+    def deferredTaskOutputs = Mock(DeferredTaskOutputs)
+    def commandFactory = new TaskOutputCacheCommandFactory(packer, originFactory, fileSystemMirror, stringInterner, deferredTaskOutputs, false, false)
 
     def key = Mock(TaskOutputCachingBuildCacheKey)
     def taskProperties = Mock(TaskProperties)
@@ -76,7 +77,7 @@ class TaskOutputCacheCommandFactoryTest extends Specification {
             prop("outputDir", DIRECTORY, outputDir),
             prop("outputFile", FILE, outputFile),
         ] as SortedSet
-        def load = commandFactory.createLoad(key, outputProperties, task, taskProperties, taskOutputsGenerationListener, taskArtifactState)
+        def load = commandFactory.createLoad(key, outputProperties, task, taskProperties, taskOutputsGenerationListener, taskArtifactState, false)
 
         def outputDirSnapshot = new DirectoryFileSnapshot(outputDir.path, RelativePath.EMPTY_ROOT, true)
         def outputDirFileContent = new FileHashSnapshot(HashCode.fromInt(123))
@@ -124,11 +125,70 @@ class TaskOutputCacheCommandFactoryTest extends Specification {
         !localStateFile.exists()
     }
 
+    def "deferred load reads entry without unpacking and unpacks it when materialized"() {
+        def outputFile = temporaryFolder.file("output.txt")
+        outputFile << "stale output"
+        def entryFile = temporaryFolder.file("entry.bin")
+        def input = new ByteArrayInputStream("entry".bytes)
+        def outputProperties = props("outputFile", FILE, outputFile)
+        def load = commandFactory.createLoad(key, outputProperties, task, taskProperties, taskOutputsGenerationListener, taskArtifactState, true)
+
+        def outputFileSnapshot = new RegularFileSnapshot(outputFile.path, RelativePath.EMPTY_ROOT, true, new FileHashSnapshot(HashCode.fromInt(234)))
+        def fileSnapshots = ImmutableListMultimap.builder()
+            .putAll("outputFile", outputFileSnapshot)
+            .build()
+        DeferredTaskOutputs.DeferredOutput deferredOutput = null
+
+        when:
+        def result = load.load(input)
+
+        then:
+        1 * taskOutputsGenerationListener.beforeTaskOutputChanged()
+        1 * deferredTaskOutputs.createEntryFile() >> entryFile
+        1 * originFactory.createReader(task)
+
+        then:
+        1 * packer.read(outputProperties, _, _) >> new TaskOutputPacker.UnpackResult(originMetadata, 1, fileSnapshots)
+
+        then:
+        1 * fileSystemMirror.putDeferredFile(outputFileSnapshot)
+        1 * taskArtifactState.snapshotAfterLoadedFromCache(_, originMetadata)
+        1 * deferredTaskOutputs.add(_) >> { DeferredTaskOutputs.DeferredOutput output -> deferredOutput = output }
+
+        then:
+        1 * taskProperties.getLocalStateFiles() >> localStateFiles
+
+        then:
+        result.metadata == originMetadata
+        entryFile.text == "entry"
+        !outputFile.exists()
+        deferredOutput.roots == [outputFile]
+        0 * _
+
+        when:
+        deferredOutput.materialize()
+
+        then:
+        1 * taskOutputsGenerationListener.beforeTaskOutputChanged()
+        1 * originFactory.createReader(task)
+
+        then:
+        1 * packer.unpack(outputProperties, _, _) >> { SortedSet<ResolvedTaskOutputFilePropertySpec> properties, InputStream entryInput, reader ->
+            assert entryInput.text == "entry"
+            new TaskOutputPacker.UnpackResult(originMetadata, 1, fileSnapshots)
+        }
+
+        then:
+        1 * fileSystemMirror.removeDeferred(outputFile.path)
+        !entryFile.exists()
+        0 * _
+    }
+
     def "after failed unpacking output is cleaned up"() {
         def input = Mock(InputStream)
         def outputFile = temporaryFolder.file("output.txt")
         def outputProperties = props("output", FILE, outputFile)
-        def command = commandFactory.createLoad(key, outputProperties, task, taskProperties, taskOutputsGenerationListener, taskArtifactState)
+        def command = commandFactory.createLoad(key, outputProperties, task, taskProperties, taskOutputsGenerationListener, taskArtifactState, false)
 
         when:
         command.load(input)
@@ -163,7 +223,7 @@ class TaskOutputCacheCommandFactoryTest extends Specification {
     def "error during cleanup of failed unpacking is reported"() {
         def input = Mock(InputStream)
         def outputProperties = Mock(SortedSet)
-        def command = commandFactory.createLoad(key, outputProperties, task, taskProperties, taskOutputsGenerationListener, taskArtifactState)
+        def command = commandFactory.createLoad(key, outputProperties, task, taskProperties, taskOutputsGenerationListener, taskArtifactState, false)
 
         when:
         command.load(input)
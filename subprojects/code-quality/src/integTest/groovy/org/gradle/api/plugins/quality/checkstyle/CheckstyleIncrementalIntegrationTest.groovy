@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.plugins.quality.checkstyle
+
+import org.gradle.api.plugins.quality.internal.IncrementalCheckstyleInvoker
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+class CheckstyleIncrementalIntegrationTest extends AbstractIntegrationSpec {
+
+    def setup() {
+        buildFile << """
+            apply plugin: "java"
+            apply plugin: "checkstyle"
+
+            ${mavenCentralRepository()}
+
+            checkstyle {
+                ignoreFailures = true
+            }
+        """
+        writeConfig("Line has trailing spaces.", "")
+        file("src/main/java/org/gradle/Class1.java") << "package org.gradle; class Class1 { }  "
+        file("src/main/java/org/gradle/Class2.java") << "package org.gradle; class Class2 { }"
+        file("src/main/java/org/gradle/Class3.java") << "package org.gradle; class Class3 { }\t"
+        file("gradle.properties") << "systemProp.${IncrementalCheckstyleInvoker.INCREMENTAL_PROPERTY}=true\n"
+        executer.withArgument("--info")
+    }
+
+    def "analyzes only the source files that changed"() {
+        when:
+        succeeds "checkstyleMain"
+
+        then:
+        outputContains("Analyzing 3 of 3 source files with Checkstyle.")
+        violations() == [["Class1.java", "1", "Line has trailing spaces."], ["Class3.java", "1", "Line has trailing spaces."]] as Set
+
+        when:
+        file("src/main/java/org/gradle/Class2.java").text = "package org.gradle; class Class2 { }   "
+        executer.withArgument("--info")
+        succeeds "checkstyleMain"
+
+        then:
+        outputContains("Analyzing 1 of 3 source files with Checkstyle.")
+        violations() == [["Class1.java", "1", "Line has trailing spaces."], ["Class2.java", "1", "Line has trailing spaces."], ["Class3.java", "1", "Line has trailing spaces."]] as Set
+    }
+
+    def "analyzes all source files again when the configuration changes"() {
+        succeeds "checkstyleMain"
+
+        when:
+        writeConfig("Trailing spaces.", "")
+        executer.withArgument("--info")
+        succeeds "checkstyleMain"
+
+        then:
+        outputContains("Analyzing 3 of 3 source files with Checkstyle.")
+        violations() == [["Class1.java", "1", "Trailing spaces."], ["Class3.java", "1", "Trailing spaces."]] as Set
+    }
+
+    def "analyzes all source files again when a suppression file outside of the configuration directory changes"() {
+        file("shared/suppressions.xml").text = suppressions("Class1.java")
+        writeConfig("Line has trailing spaces.", """
+            <module name="SuppressionFilter">
+                <property name="file" value="\${suppressions}"/>
+            </module>
+        """)
+        buildFile << """
+            checkstyle {
+                configProperties = [suppressions: file("shared/suppressions.xml")]
+            }
+        """
+        succeeds "checkstyleMain"
+
+        when:
+        file("shared/suppressions.xml").text = suppressions("Class3.java")
+        executer.withArgument("--info")
+        succeeds "checkstyleMain"
+
+        then:
+        executedAndNotSkipped(":checkstyleMain")
+        outputContains("Analyzing 3 of 3 source files with Checkstyle.")
+        violations() == [["Class1.java", "1", "Line has trailing spaces."]] as Set
+    }
+
+    def "reports the same violations as the analysis of all source files"() {
+        writeConfig("Line has trailing spaces.", """
+            <module name="TreeWalker">
+                <module name="TypeName">
+                    <property name="format" value="^[a-z]+\$"/>
+                </module>
+            </module>
+        """)
+
+        when:
+        file("gradle.properties").delete()
+        succeeds "checkstyleMain"
+        def expectedViolations = violations()
+
+        and:
+        file("gradle.properties") << "systemProp.${IncrementalCheckstyleInvoker.INCREMENTAL_PROPERTY}=true\n"
+        executer.withArguments("--info", "--rerun-tasks")
+        succeeds "checkstyleMain"
+
+        then:
+        outputContains("Analyzing 3 of 3 source files with Checkstyle.")
+        expectedViolations.size() == 5
+        violations() == expectedViolations
+    }
+
+    def "analyzes all source files when the configuration compares several files"() {
+        writeConfig("Line has trailing spaces.", """
+            <module name="Translation"/>
+        """)
+
+        when:
+        succeeds "checkstyleMain"
+
+        then:
+        outputContains("Analyzing all source files with Checkstyle, as the configuration uses Translation, which compares several files.")
+        violations() == [["Class1.java", "1", "Line has trailing spaces."], ["Class3.java", "1", "Line has trailing spaces."]] as Set
+    }
+
+    private static String suppressions(String fileName) {
+        """<?xml version="1.0"?>
+<!DOCTYPE suppressions PUBLIC
+          "-//Puppy Crawl//DTD Suppressions 1.1//EN"
+          "http://www.puppycrawl.com/dtds/suppressions_1_1.dtd">
+<suppressions>
+    <suppress checks=".*" files="${fileName}"/>
+</suppressions>
+"""
+    }
+
+    private void writeConfig(String message, String otherModules) {
+        file("config/checkstyle/checkstyle.xml").text = """<?xml version="1.0"?>
+<!DOCTYPE module PUBLIC
+          "-//Puppy Crawl//DTD Check Configuration 1.3//EN"
+          "http://www.puppycrawl.com/dtds/configuration_1_3.dtd">
+<module name="Checker">
+    <module name="RegexpSingleline">
+       <property name="format" value="\\s+\$"/>
+       <property name="minimum" value="0"/>
+       <property name="maximum" value="0"/>
+       <property name="message" value="${message}"/>
+    </module>
+    ${otherModules}
+</module>
+"""
+    }
+
+    private Set<List<String>> violations() {
+        def report = new XmlSlurper().parse(file("build/reports/checkstyle/main.xml"))
+        def result = [] as Set
+        report.file.each { sourceFile ->
+            String name = new File(sourceFile.@name.text()).name
+            sourceFile.error.each { error ->
+                result << [name, error.@line.text(), error.@message.text()]
+            }
+        }
+        return result
+    }
+}
@@ -22,10 +22,13 @@ import org.gradle.api.Incubating;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.ClosureBackedAction;
+import org.gradle.api.internal.changedetection.state.FileSystemSnapshotter;
 import org.gradle.api.internal.project.IsolatedAntBuilder;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.plugins.quality.internal.CheckstyleConfigFiles;
 import org.gradle.api.plugins.quality.internal.CheckstyleInvoker;
 import org.gradle.api.plugins.quality.internal.CheckstyleReportsImpl;
+import org.gradle.api.plugins.quality.internal.IncrementalCheckstyleInvoker;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.reporting.Reporting;
@@ -43,12 +46,15 @@ import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.SourceTask;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.VerificationTask;
+import org.gradle.workers.WorkerExecutor;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * Runs Checkstyle against some source files.
@@ -85,6 +91,13 @@ public class Checkstyle extends SourceTask implements VerificationTask, Reportin
     public Checkstyle() {
         configDir = getObjectFactory().property(File.class);
         reports = getObjectFactory().newInstance(CheckstyleReportsImpl.class, this);
+        // Files such as suppression filters can be referenced from anywhere, not only from the configuration directory
+        getInputs().files(new Callable<Set<File>>() {
+            @Override
+            public Set<File> call() {
+                return CheckstyleConfigFiles.getReferencedFiles(Checkstyle.this);
+            }
+        }).withPropertyName("configReferencedFiles").withPathSensitivity(PathSensitivity.RELATIVE);
     }
 
     /**
@@ -103,6 +116,21 @@ public class Checkstyle extends SourceTask implements VerificationTask, Reportin
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Injects and returns an instance of {@link org.gradle.workers.WorkerExecutor}.
+     *
+     * @since 4.7
+     */
+    @Inject
+    protected WorkerExecutor getWorkerExecutor() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected FileSystemSnapshotter getFileSystemSnapshotter() {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Configures the reports to be generated by this task.
      *
@@ -151,6 +179,10 @@ public class Checkstyle extends SourceTask implements VerificationTask, Reportin
 
     @TaskAction
     public void run() {
+        if (IncrementalCheckstyleInvoker.isEnabled(this)) {
+            IncrementalCheckstyleInvoker.invoke(this, getWorkerExecutor(), getFileSystemSnapshotter());
+            return;
+        }
         CheckstyleInvoker.invoke(this);
     }
 
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.plugins.quality.internal;
+
+import org.gradle.internal.UncheckedException;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Runs Checkstyle over some source files and writes the results as an XML report. Runs in a worker whose classpath contains the Checkstyle
+ * library, which is used through reflection as this class is not compiled against it.
+ */
+public class CheckstyleAction implements Runnable {
+    private static final String PACKAGE = "com.puppycrawl.tools.checkstyle.";
+
+    private final File configFile;
+    private final Map<String, String> configProperties;
+    private final List<File> files;
+    private final File xmlReport;
+
+    @Inject
+    public CheckstyleAction(File configFile, Map<String, String> configProperties, List<File> files, File xmlReport) {
+        this.configFile = configFile;
+        this.configProperties = configProperties;
+        this.files = files;
+        this.xmlReport = xmlReport;
+    }
+
+    @Override
+    public void run() {
+        try {
+            analyze();
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void analyze() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        Properties properties = new Properties();
+        properties.putAll(configProperties);
+        Object propertyResolver = classLoader.loadClass(PACKAGE + "PropertiesExpander").getConstructor(Properties.class).newInstance(properties);
+        Object configuration = classLoader.loadClass(PACKAGE + "ConfigurationLoader")
+            .getMethod("loadConfiguration", String.class, classLoader.loadClass(PACKAGE + "PropertyResolver"))
+            .invoke(null, configFile.getAbsolutePath(), propertyResolver);
+
+        Class<?> checkerClass = classLoader.loadClass(PACKAGE + "Checker");
+        Object checker = checkerClass.newInstance();
+        checkerClass.getMethod("setModuleClassLoader", ClassLoader.class).invoke(checker, classLoader);
+        checkerClass.getMethod("configure", classLoader.loadClass(PACKAGE + "api.Configuration")).invoke(checker, configuration);
+        OutputStream outputStream = new FileOutputStream(xmlReport);
+        try {
+            checkerClass.getMethod("addListener", classLoader.loadClass(PACKAGE + "api.AuditListener")).invoke(checker, createXmlLogger(classLoader, outputStream));
+            checkerClass.getMethod("process", List.class).invoke(checker, files);
+        } finally {
+            checkerClass.getMethod("destroy").invoke(checker);
+            outputStream.close();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object createXmlLogger(ClassLoader classLoader, OutputStream outputStream) throws Exception {
+        Class<?> loggerClass = classLoader.loadClass(PACKAGE + "XMLLogger");
+        Class optionsClass = findOutputStreamOptions(classLoader);
+        if (optionsClass != null) {
+            return loggerClass.getConstructor(OutputStream.class, optionsClass).newInstance(outputStream, Enum.valueOf(optionsClass, "NONE"));
+        }
+        // Older versions take a flag that tells whether to close the stream
+        return loggerClass.getConstructor(OutputStream.class, boolean.class).newInstance(outputStream, false);
+    }
+
+    private static Class<?> findOutputStreamOptions(ClassLoader classLoader) {
+        for (String name : new String[]{PACKAGE + "AbstractAutomaticBean$OutputStreamOptions", PACKAGE + "api.AutomaticBean$OutputStreamOptions"}) {
+            try {
+                return classLoader.loadClass(name);
+            } catch (ClassNotFoundException e) {
+                // Try the next location
+            }
+        }
+        return null;
+    }
+}
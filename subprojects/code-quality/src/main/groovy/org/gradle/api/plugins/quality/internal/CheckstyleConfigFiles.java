@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.plugins.quality.internal;
+
+import org.gradle.api.plugins.quality.Checkstyle;
+import org.gradle.api.resources.TextResource;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the files that a Checkstyle configuration references outside of its configuration directory, such as suppression filters, import
+ * control files and headers. Their content affects the results, so they are inputs of the task.
+ */
+public class CheckstyleConfigFiles {
+    private static final String CONFIG_LOC_PROPERTY = "config_loc";
+    private static final Pattern FILE_PROPERTY = Pattern.compile("<property\\s+name\\s*=\\s*[\"'](?:file|headerFile)[\"']\\s+value\\s*=\\s*[\"']([^\"']+)[\"']");
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{([^}]+)}");
+
+    /**
+     * Returns the properties that are substituted into the configuration of the given task, including {@code config_loc}.
+     */
+    public static Map<String, String> getConfigProperties(Checkstyle task) {
+        Map<String, String> properties = new TreeMap<String, String>();
+        Map<String, Object> configProperties = task.getConfigProperties();
+        if (task.getConfigDir() != null && (configProperties == null || configProperties.get(CONFIG_LOC_PROPERTY) == null)) {
+            properties.put(CONFIG_LOC_PROPERTY, task.getConfigDir().toString());
+        }
+        if (configProperties != null) {
+            for (Map.Entry<String, Object> entry : configProperties.entrySet()) {
+                properties.put(entry.getKey(), entry.getValue().toString());
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the existing files that the configuration of the given task references outside of its configuration directory.
+     */
+    public static Set<File> getReferencedFiles(Checkstyle task) {
+        TextResource config = task.getConfig();
+        if (config == null) {
+            return new LinkedHashSet<File>();
+        }
+        return getReferencedFiles(config.asString(), getConfigProperties(task), task.getConfigDir(), task.getProject().getProjectDir());
+    }
+
+    static Set<File> getReferencedFiles(String config, Map<String, String> properties, @Nullable File configDir, File baseDir) {
+        Set<File> files = new LinkedHashSet<File>();
+        Matcher matcher = FILE_PROPERTY.matcher(config);
+        while (matcher.find()) {
+            String path = substitute(matcher.group(1), properties);
+            if (path == null) {
+                continue;
+            }
+            File file = new File(path);
+            if (!file.isAbsolute()) {
+                file = new File(baseDir, path);
+            }
+            if (file.isFile() && !isInDirectory(file, configDir)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    // Returns null when a variable is not defined, as the path then cannot be resolved
+    @Nullable
+    private static String substitute(String value, Map<String, String> properties) {
+        Matcher matcher = VARIABLE.matcher(value);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String replacement = properties.get(matcher.group(1));
+            if (replacement == null) {
+                return null;
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static boolean isInDirectory(File file, @Nullable File dir) {
+        if (dir == null) {
+            return false;
+        }
+        String dirPath = dir.getAbsolutePath() + File.separator;
+        return file.getAbsolutePath().startsWith(dirPath);
+    }
+}
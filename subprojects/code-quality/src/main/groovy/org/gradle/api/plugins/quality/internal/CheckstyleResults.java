@@ -0,0 +1,318 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.plugins.quality.internal;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.annotation.Nullable;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Checkstyle results of source files, keyed by a hash of the content and path of each file. The results are only valid for the
+ * Checkstyle version and configuration they were created with, which are identified by the tool key.
+ */
+public class CheckstyleResults {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckstyleResults.class);
+
+    private final HashCode toolKey;
+    private final Map<HashCode, List<Violation>> results;
+    private String version;
+
+    public CheckstyleResults(HashCode toolKey) {
+        this(toolKey, null, new HashMap<HashCode, List<Violation>>());
+    }
+
+    private CheckstyleResults(HashCode toolKey, @Nullable String version, Map<HashCode, List<Violation>> results) {
+        this.toolKey = toolKey;
+        this.version = version;
+        this.results = results;
+    }
+
+    /**
+     * Loads the results stored in the given file, or returns empty results when the file does not exist, cannot be read, or holds the
+     * results of a different tool key.
+     */
+    public static CheckstyleResults load(File file, HashCode toolKey) {
+        if (!file.isFile()) {
+            return new CheckstyleResults(toolKey);
+        }
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (!HashCode.fromString(decoder.readString()).equals(toolKey)) {
+                    return new CheckstyleResults(toolKey);
+                }
+                String version = decoder.readNullableString();
+                int count = decoder.readSmallInt();
+                Map<HashCode, List<Violation>> results = new HashMap<HashCode, List<Violation>>(count);
+                for (int i = 0; i < count; i++) {
+                    HashCode fileKey = HashCode.fromString(decoder.readString());
+                    results.put(fileKey, readViolations(decoder));
+                }
+                return new CheckstyleResults(toolKey, version, results);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read Checkstyle results from {}.", file, e);
+            return new CheckstyleResults(toolKey);
+        }
+    }
+
+    private static List<Violation> readViolations(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        ImmutableList.Builder<Violation> violations = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            violations.add(new Violation(decoder.readNullableString(), decoder.readNullableString(), decoder.readString(), decoder.readString(), decoder.readNullableString()));
+        }
+        return violations.build();
+    }
+
+    /**
+     * Stores the results of the given files, dropping the results of all other files.
+     */
+    public void store(File file, Collection<HashCode> retainedFileKeys) {
+        try {
+            KryoBackedEncoder encoder = new KryoBackedEncoder(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                encoder.writeString(toolKey.toString());
+                encoder.writeNullableString(version);
+                Map<HashCode, List<Violation>> retained = new LinkedHashMap<HashCode, List<Violation>>();
+                for (HashCode fileKey : retainedFileKeys) {
+                    List<Violation> violations = results.get(fileKey);
+                    if (violations != null) {
+                        retained.put(fileKey, violations);
+                    }
+                }
+                encoder.writeSmallInt(retained.size());
+                for (Map.Entry<HashCode, List<Violation>> entry : retained.entrySet()) {
+                    encoder.writeString(entry.getKey().toString());
+                    writeViolations(encoder, entry.getValue());
+                }
+            } finally {
+                encoder.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static void writeViolations(Encoder encoder, List<Violation> violations) throws IOException {
+        encoder.writeSmallInt(violations.size());
+        for (Violation violation : violations) {
+            encoder.writeNullableString(violation.getLine());
+            encoder.writeNullableString(violation.getColumn());
+            encoder.writeString(violation.getSeverity());
+            encoder.writeString(violation.getMessage());
+            encoder.writeNullableString(violation.getSource());
+        }
+    }
+
+    @Nullable
+    public List<Violation> get(HashCode fileKey) {
+        return results.get(fileKey);
+    }
+
+    public void put(HashCode fileKey, List<Violation> violations) {
+        results.put(fileKey, violations);
+    }
+
+    @Nullable
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(@Nullable String version) {
+        if (version != null) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Reads the violations of each file from a Checkstyle XML report.
+     */
+    public static Report readXmlReport(File xmlReport) {
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(xmlReport);
+            Element root = document.getDocumentElement();
+            Map<String, List<Violation>> violations = new HashMap<String, List<Violation>>();
+            NodeList files = root.getElementsByTagName("file");
+            for (int i = 0; i < files.getLength(); i++) {
+                Element file = (Element) files.item(i);
+                String path = new File(file.getAttribute("name")).getAbsolutePath();
+                List<Violation> fileViolations = violations.get(path);
+                if (fileViolations == null) {
+                    fileViolations = new ArrayList<Violation>();
+                    violations.put(path, fileViolations);
+                }
+                NodeList errors = file.getElementsByTagName("error");
+                for (int j = 0; j < errors.getLength(); j++) {
+                    Element error = (Element) errors.item(j);
+                    fileViolations.add(new Violation(attribute(error, "line"), attribute(error, "column"), error.getAttribute("severity"), error.getAttribute("message"), attribute(error, "source")));
+                }
+            }
+            return new Report(attribute(root, "version"), violations);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Nullable
+    private static String attribute(Element element, String name) {
+        return element.hasAttribute(name) ? element.getAttribute(name) : null;
+    }
+
+    /**
+     * Writes a Checkstyle XML report with the violations of the given files, in the same format as Checkstyle.
+     */
+    public static void writeXmlReport(@Nullable String version, Map<File, List<Violation>> violations, File xmlReport) {
+        try {
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(xmlReport));
+            try {
+                XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeCharacters("\n");
+                writer.writeStartElement("checkstyle");
+                if (version != null) {
+                    writer.writeAttribute("version", version);
+                }
+                writer.writeCharacters("\n");
+                for (Map.Entry<File, List<Violation>> entry : violations.entrySet()) {
+                    writer.writeStartElement("file");
+                    writer.writeAttribute("name", entry.getKey().getAbsolutePath());
+                    writer.writeCharacters("\n");
+                    for (Violation violation : entry.getValue()) {
+                        writer.writeEmptyElement("error");
+                        writeAttribute(writer, "line", violation.getLine());
+                        writeAttribute(writer, "column", violation.getColumn());
+                        writeAttribute(writer, "severity", violation.getSeverity());
+                        writeAttribute(writer, "message", violation.getMessage());
+                        writeAttribute(writer, "source", violation.getSource());
+                        writer.writeCharacters("\n");
+                    }
+                    writer.writeEndElement();
+                    writer.writeCharacters("\n");
+                }
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.close();
+            } finally {
+                outputStream.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static void writeAttribute(XMLStreamWriter writer, String name, @Nullable String value) throws Exception {
+        if (value != null) {
+            writer.writeAttribute(name, value);
+        }
+    }
+
+    /**
+     * The violations read from a Checkstyle XML report.
+     */
+    public static class Report {
+        private final String version;
+        private final Map<String, List<Violation>> violations;
+
+        Report(@Nullable String version, Map<String, List<Violation>> violations) {
+            this.version = version;
+            this.violations = violations;
+        }
+
+        @Nullable
+        public String getVersion() {
+            return version;
+        }
+
+        public List<Violation> getViolations(File file) {
+            List<Violation> fileViolations = violations.get(file.getAbsolutePath());
+            return fileViolations == null ? ImmutableList.<Violation>of() : ImmutableList.copyOf(fileViolations);
+        }
+    }
+
+    /**
+     * A violation found by Checkstyle in a source file.
+     */
+    public static class Violation {
+        private final String line;
+        private final String column;
+        private final String severity;
+        private final String message;
+        private final String source;
+
+        public Violation(@Nullable String line, @Nullable String column, String severity, String message, @Nullable String source) {
+            this.line = line;
+            this.column = column;
+            this.severity = severity;
+            this.message = message;
+            this.source = source;
+        }
+
+        @Nullable
+        public String getLine() {
+            return line;
+        }
+
+        @Nullable
+        public String getColumn() {
+            return column;
+        }
+
+        public String getSeverity() {
+            return severity;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Nullable
+        public String getSource() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.plugins.quality.internal;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.changedetection.state.FileSystemSnapshotter;
+import org.gradle.api.plugins.quality.Checkstyle;
+import org.gradle.api.plugins.quality.CheckstyleReports;
+import org.gradle.api.reporting.CustomizableHtmlReport;
+import org.gradle.api.reporting.SingleFileReport;
+import org.gradle.api.resources.TextResource;
+import org.gradle.caching.internal.BuildCacheHasher;
+import org.gradle.caching.internal.DefaultBuildCacheHasher;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.logging.ConsoleRenderer;
+import org.gradle.util.GFileUtils;
+import org.gradle.workers.IsolationMode;
+import org.gradle.workers.WorkerConfiguration;
+import org.gradle.workers.WorkerExecutor;
+
+import javax.annotation.Nullable;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs Checkstyle only on the source files whose results are not known, and merges the results of all source files into the reports.
+ *
+ * <p>The results of each file are kept in the temporary directory of the task, keyed by a hash of the path and content of the file. They are
+ * discarded when the Checkstyle library, the configuration, the configuration properties, the files in the configuration directory or the files
+ * that the configuration references elsewhere change.
+ * The classpath of the task is not taken into account, as current versions of Checkstyle do not load the classes of the analyzed code.
+ * The hashes are taken from the file system snapshots that the task inputs were fingerprinted with, so unchanged files are not read again.</p>
+ *
+ * <p>The files are analyzed in parallel by workers that load Checkstyle in an isolated class loader.</p>
+ *
+ * <p>Checks that compare several files with each other, such as {@code TranslationCheck} and {@code JavadocPackageCheck}, only see the files
+ * of a single batch, and their results for a file depend on files that may not be analyzed again. When the configuration uses one of them,
+ * the task analyzes all the files in one run, like without this option.</p>
+ */
+public class IncrementalCheckstyleInvoker {
+    /**
+     * Enables incremental analysis when set to {@code true}.
+     */
+    public static final String INCREMENTAL_PROPERTY = "org.gradle.checkstyle.incremental";
+
+    private static final int MIN_FILES_PER_WORKER = 50;
+    private static final Set<String> MULTI_FILE_CHECKS = ImmutableSet.of("Translation", "JavadocPackage");
+    private static final Pattern MODULE_NAME = Pattern.compile("<module\\s+name\\s*=\\s*[\"']([^\"']+)[\"']");
+
+    /**
+     * Returns whether the given task can be run incrementally, that is whether it is enabled and the configuration does not use checks that compare several files.
+     */
+    public static boolean isEnabled(Checkstyle task) {
+        if (!Boolean.getBoolean(INCREMENTAL_PROPERTY)) {
+            return false;
+        }
+        String multiFileCheck = findMultiFileCheck(task.getConfig().asString());
+        if (multiFileCheck != null) {
+            task.getLogger().info("Analyzing all source files with Checkstyle, as the configuration uses {}, which compares several files.", multiFileCheck);
+            return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    static String findMultiFileCheck(String config) {
+        Matcher matcher = MODULE_NAME.matcher(config);
+        while (matcher.find()) {
+            String module = matcher.group(1);
+            String simpleName = module.substring(module.lastIndexOf('.') + 1);
+            if (simpleName.endsWith("Check")) {
+                simpleName = simpleName.substring(0, simpleName.length() - "Check".length());
+            }
+            if (MULTI_FILE_CHECKS.contains(simpleName)) {
+                return module;
+            }
+        }
+        return null;
+    }
+
+    public static void invoke(Checkstyle task, WorkerExecutor workerExecutor, FileSystemSnapshotter fileSystemSnapshotter) {
+        TextResource config = task.getConfig();
+        Map<String, String> configProperties = CheckstyleConfigFiles.getConfigProperties(task);
+        List<File> sourceFiles = new ArrayList<File>(task.getSource().getFiles());
+        Collections.sort(sourceFiles, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return o1.getPath().compareTo(o2.getPath());
+            }
+        });
+
+        File resultsFile = new File(task.getTemporaryDir(), "results.bin");
+        CheckstyleResults results = CheckstyleResults.load(resultsFile, toolKey(task, config, configProperties, fileSystemSnapshotter));
+        Map<File, HashCode> fileKeys = new LinkedHashMap<File, HashCode>();
+        List<File> changedFiles = new ArrayList<File>();
+        for (File sourceFile : sourceFiles) {
+            HashCode fileKey = fileKey(sourceFile, fileSystemSnapshotter);
+            fileKeys.put(sourceFile, fileKey);
+            if (results.get(fileKey) == null) {
+                changedFiles.add(sourceFile);
+            }
+        }
+
+        task.getLogger().info("Analyzing {} of {} source files with Checkstyle.", changedFiles.size(), sourceFiles.size());
+        analyze(task, workerExecutor, config.asFile(), configProperties, changedFiles, fileKeys, results);
+        results.store(resultsFile, fileKeys.values());
+
+        Map<File, List<CheckstyleResults.Violation>> violations = new LinkedHashMap<File, List<CheckstyleResults.Violation>>();
+        for (Map.Entry<File, HashCode> entry : fileKeys.entrySet()) {
+            violations.put(entry.getKey(), results.get(entry.getValue()));
+        }
+        writeReports(task, results.getVersion(), violations);
+        checkViolations(task, violations);
+    }
+
+    private static HashCode toolKey(Checkstyle task, TextResource config, Map<String, String> configProperties, FileSystemSnapshotter fileSystemSnapshotter) {
+        BuildCacheHasher hasher = new DefaultBuildCacheHasher();
+        hasher.putString(IncrementalCheckstyleInvoker.class.getName() + ":3");
+        for (File file : task.getCheckstyleClasspath()) {
+            fileSystemSnapshotter.snapshotAll(file).appendToHasher(hasher);
+        }
+        hasher.putString(config.asString());
+        for (Map.Entry<String, String> entry : configProperties.entrySet()) {
+            hasher.putString(entry.getKey());
+            hasher.putString(entry.getValue());
+        }
+        if (task.getConfigDir() != null) {
+            fileSystemSnapshotter.snapshotAll(task.getConfigDir()).appendToHasher(hasher);
+        }
+        for (File file : CheckstyleConfigFiles.getReferencedFiles(task)) {
+            hasher.putString(file.getAbsolutePath());
+            fileSystemSnapshotter.snapshotAll(file).appendToHasher(hasher);
+        }
+        return hasher.hash();
+    }
+
+    private static HashCode fileKey(File sourceFile, FileSystemSnapshotter fileSystemSnapshotter) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(sourceFile.getAbsolutePath());
+        hasher.putHash(fileSystemSnapshotter.snapshotSelf(sourceFile).getContent().getContentMd5());
+        return hasher.hash();
+    }
+
+    private static void analyze(Checkstyle task, WorkerExecutor workerExecutor, final File configFile, final Map<String, String> configProperties, List<File> changedFiles, Map<File, HashCode> fileKeys, CheckstyleResults results) {
+        if (changedFiles.isEmpty()) {
+            return;
+        }
+        int maxWorkers = task.getProject().getGradle().getStartParameter().getMaxWorkerCount();
+        int workers = Math.max(1, Math.min(maxWorkers, changedFiles.size() / MIN_FILES_PER_WORKER));
+        List<List<File>> batches = Lists.partition(changedFiles, (changedFiles.size() + workers - 1) / workers);
+        Map<File, List<File>> reports = new HashMap<File, List<File>>();
+        for (int i = 0; i < batches.size(); i++) {
+            final List<File> batch = new ArrayList<File>(batches.get(i));
+            final File xmlReport = new File(task.getTemporaryDir(), "results-" + i + ".xml");
+            reports.put(xmlReport, batch);
+            final Iterable<File> checkstyleClasspath = task.getCheckstyleClasspath();
+            workerExecutor.submit(CheckstyleAction.class, new Action<WorkerConfiguration>() {
+                @Override
+                public void execute(WorkerConfiguration workerConfiguration) {
+                    workerConfiguration.setIsolationMode(IsolationMode.CLASSLOADER);
+                    workerConfiguration.setClasspath(checkstyleClasspath);
+                    workerConfiguration.setDisplayName("Checkstyle analysis of " + batch.size() + " files");
+                    workerConfiguration.setParams(configFile, new HashMap<String, String>(configProperties), batch, xmlReport);
+                }
+            });
+        }
+        workerExecutor.await();
+
+        for (Map.Entry<File, List<File>> entry : reports.entrySet()) {
+            CheckstyleResults.Report report = CheckstyleResults.readXmlReport(entry.getKey());
+            results.setVersion(report.getVersion());
+            for (File file : entry.getValue()) {
+                results.put(fileKeys.get(file), report.getViolations(file));
+            }
+            GFileUtils.deleteQuietly(entry.getKey());
+        }
+    }
+
+    private static void writeReports(Checkstyle task, String version, Map<File, List<CheckstyleResults.Violation>> violations) {
+        CheckstyleReports reports = task.getReports();
+        if (!reports.getXml().isEnabled() && !reports.getHtml().isEnabled()) {
+            return;
+        }
+        boolean htmlOnly = !reports.getXml().isEnabled();
+        File xmlDestination = htmlOnly ? new File(task.getTemporaryDir(), reports.getXml().getDestination().getName()) : reports.getXml().getDestination();
+        CheckstyleResults.writeXmlReport(version, violations, xmlDestination);
+        if (reports.getHtml().isEnabled()) {
+            writeHtmlReport(reports.getHtml(), xmlDestination);
+        }
+        if (htmlOnly) {
+            GFileUtils.deleteQuietly(xmlDestination);
+        }
+    }
+
+    private static void writeHtmlReport(SingleFileReport html, File xmlReport) {
+        try {
+            TextResource stylesheet = html instanceof CustomizableHtmlReport ? ((CustomizableHtmlReport) html).getStylesheet() : null;
+            StreamSource stylesheetSource = stylesheet != null
+                ? new StreamSource(new StringReader(stylesheet.asString()))
+                : new StreamSource(Checkstyle.class.getClassLoader().getResource("checkstyle-noframes-sorted.xsl").toString());
+            html.getDestination().getParentFile().mkdirs();
+            TransformerFactory.newInstance().newTransformer(stylesheetSource).transform(new StreamSource(xmlReport), new StreamResult(html.getDestination()));
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static void checkViolations(Checkstyle task, Map<File, List<CheckstyleResults.Violation>> violations) {
+        int errors = 0;
+        int warnings = 0;
+        for (Map.Entry<File, List<CheckstyleResults.Violation>> entry : violations.entrySet()) {
+            for (CheckstyleResults.Violation violation : entry.getValue()) {
+                if (violation.getSeverity().equals("error")) {
+                    errors++;
+                } else if (violation.getSeverity().equals("warning")) {
+                    warnings++;
+                }
+                if (task.isShowViolations() && !violation.getSeverity().equals("ignore")) {
+                    task.getLogger().error(format(entry.getKey(), violation));
+                }
+            }
+        }
+        if (errors <= task.getMaxErrors() && warnings <= task.getMaxWarnings()) {
+            return;
+        }
+        String message = "Checkstyle rule violations were found.";
+        CheckstyleReports reports = task.getReports();
+        SingleFileReport report = reports.getHtml().isEnabled() ? reports.getHtml() : reports.getXml().isEnabled() ? reports.getXml() : null;
+        if (report != null) {
+            message += " See the report at: " + new ConsoleRenderer().asClickableFileUrl(report.getDestination());
+        }
+        if (task.getIgnoreFailures()) {
+            task.getLogger().warn(message);
+        } else {
+            throw new GradleException(message);
+        }
+    }
+
+    // Same format as the plain formatter of Checkstyle
+    private static String format(File file, CheckstyleResults.Violation violation) {
+        StringBuilder builder = new StringBuilder();
+        builder.append('[').append(violation.getSeverity().equals("warning") ? "WARN" : violation.getSeverity().toUpperCase()).append("] ");
+        builder.append(file.getAbsolutePath());
+        if (violation.getLine() != null) {
+            builder.append(':').append(violation.getLine());
+        }
+        if (violation.getColumn() != null) {
+            builder.append(':').append(violation.getColumn());
+        }
+        builder.append(": ").append(violation.getMessage());
+        if (violation.getSource() != null) {
+            String checkName = violation.getSource().substring(violation.getSource().lastIndexOf('.') + 1);
+            if (checkName.endsWith("Check")) {
+                checkName = checkName.substring(0, checkName.length() - "Check".length());
+            }
+            builder.append(" [").append(checkName).append(']');
+        }
+        return builder.toString();
+    }
+}
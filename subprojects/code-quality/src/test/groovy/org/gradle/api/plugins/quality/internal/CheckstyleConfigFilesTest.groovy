@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.plugins.quality.internal
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class CheckstyleConfigFilesTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def "finds files referenced outside of the configuration directory"() {
+        def configDir = tmpDir.createDir("config")
+        def inConfigDir = configDir.createFile("suppressions.xml")
+        def external = tmpDir.createFile("shared/suppressions.xml")
+        def header = tmpDir.createFile("project/header.txt")
+        def config = """<module name="Checker">
+            <module name="SuppressionFilter"><property name="file" value="\${config_loc}/suppressions.xml"/></module>
+            <module name="SuppressionFilter"><property name = 'file' value = '\${shared}/suppressions.xml'/></module>
+            <module name="Header"><property name="headerFile" value="header.txt"/></module>
+            <module name="SuppressionFilter"><property name="file" value="\${undefined}/suppressions.xml"/></module>
+            <module name="SuppressionFilter"><property name="file" value="missing.xml"/></module>
+            <property name="cacheFile" value="${external}"/>
+        </module>"""
+
+        expect:
+        CheckstyleConfigFiles.getReferencedFiles(config, [config_loc: configDir.path, shared: external.parentFile.path], configDir, header.parentFile) == [external, header] as Set
+        CheckstyleConfigFiles.getReferencedFiles(config, [config_loc: configDir.path, shared: external.parentFile.path], null, header.parentFile) == [inConfigDir, external, header] as Set
+    }
+}
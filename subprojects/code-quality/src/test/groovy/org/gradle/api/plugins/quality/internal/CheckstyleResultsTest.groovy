@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.plugins.quality.internal
+
+import org.gradle.internal.hash.Hashing
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class CheckstyleResultsTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def toolKey = Hashing.md5().hashString("tool")
+    def fileKey1 = Hashing.md5().hashString("file1")
+    def fileKey2 = Hashing.md5().hashString("file2")
+
+    def "stores and loads the retained results"() {
+        def file = tmpDir.file("results.bin")
+        def results = new CheckstyleResults(toolKey)
+        results.version = "8.8"
+        results.put(fileKey1, [new CheckstyleResults.Violation("12", null, "error", "Line is too long", "com.example.LineLengthCheck")])
+        results.put(fileKey2, [])
+
+        when:
+        results.store(file, [fileKey1])
+        def loaded = CheckstyleResults.load(file, toolKey)
+
+        then:
+        loaded.version == "8.8"
+        loaded.get(fileKey1).size() == 1
+        with(loaded.get(fileKey1)[0]) {
+            line == "12"
+            column == null
+            severity == "error"
+            message == "Line is too long"
+            source == "com.example.LineLengthCheck"
+        }
+        loaded.get(fileKey2) == null
+    }
+
+    def "discards results of a different tool key"() {
+        def file = tmpDir.file("results.bin")
+        def results = new CheckstyleResults(toolKey)
+        results.put(fileKey1, [])
+        results.store(file, [fileKey1])
+
+        expect:
+        CheckstyleResults.load(file, Hashing.md5().hashString("other")).get(fileKey1) == null
+        CheckstyleResults.load(tmpDir.file("missing.bin"), toolKey).get(fileKey1) == null
+    }
+
+    def "writes a report that can be read back"() {
+        def report = tmpDir.file("report.xml")
+        def source1 = tmpDir.file("src/Foo.java")
+        def source2 = tmpDir.file("src/Bar.java")
+        def violation = new CheckstyleResults.Violation("3", "7", "warning", "Name <foo> is invalid", "com.example.NameCheck")
+
+        when:
+        CheckstyleResults.writeXmlReport("8.8", [(source1): [violation], (source2): []], report)
+        def read = CheckstyleResults.readXmlReport(report)
+
+        then:
+        read.version == "8.8"
+        read.getViolations(source2).empty
+        read.getViolations(source1).size() == 1
+        with(read.getViolations(source1)[0]) {
+            line == "3"
+            column == "7"
+            severity == "warning"
+            message == "Name <foo> is invalid"
+            source == "com.example.NameCheck"
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.plugins.quality.internal
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class IncrementalCheckstyleInvokerTest extends Specification {
+
+    @Unroll
+    def "finds check comparing several files in '#module'"() {
+        def config = """<module name="Checker">
+            <module name="RegexpSingleline"/>
+            ${module}
+        </module>"""
+
+        expect:
+        IncrementalCheckstyleInvoker.findMultiFileCheck(config) == found
+
+        where:
+        module                                                                   | found
+        '<module name="Translation"/>'                                           | "Translation"
+        "<module name = 'TranslationCheck'/>"                                    | "TranslationCheck"
+        '<module name="com.puppycrawl.tools.checkstyle.checks.TranslationCheck">' | "com.puppycrawl.tools.checkstyle.checks.TranslationCheck"
+        '<module name="JavadocPackage"/>'                                        | "JavadocPackage"
+        '<module name="TreeWalker"><module name="TypeName"/></module>'           | null
+        ''                                                                       | null
+    }
+}
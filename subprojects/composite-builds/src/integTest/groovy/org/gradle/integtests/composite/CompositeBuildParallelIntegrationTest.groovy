@@ -71,6 +71,44 @@ class CompositeBuildParallelIntegrationTest extends AbstractCompositeBuildIntegr
         execute(buildA, "jar", "--max-workers=1")
     }
 
+    def "populates task graphs of included builds that depend on each other in parallel"() {
+        given:
+        def buildB = multiProjectBuild("buildB", ['b1', 'b2']) {
+            buildFile << """
+                allprojects {
+                    apply plugin: 'java'
+                }
+                project(':b1') {
+                    dependencies {
+                        compile 'org.test:c2:1.0'
+                    }
+                }
+"""
+        }
+        def buildC = multiProjectBuild("buildC", ['c1', 'c2']) {
+            buildFile << """
+                allprojects {
+                    apply plugin: 'java'
+                }
+                project(':c1') {
+                    dependencies {
+                        compile 'org.test:b2:1.0'
+                    }
+                }
+"""
+        }
+        includedBuilds << buildB << buildC
+        dependency "org.test:b1:1.0"
+        dependency "org.test:c1:1.0"
+
+        expect:
+        execute(buildA, "jar", ["--max-workers=4", "-Dorg.gradle.composite.parallelTaskGraphs=true"])
+        assertTaskExecutedOnce(":buildB", ":b1:jar")
+        assertTaskExecutedOnce(":buildB", ":b2:jar")
+        assertTaskExecutedOnce(":buildC", ":c1:jar")
+        assertTaskExecutedOnce(":buildC", ":c2:jar")
+    }
+
     def "constructs included build artifacts in parallel"() {
         given:
         server.start()
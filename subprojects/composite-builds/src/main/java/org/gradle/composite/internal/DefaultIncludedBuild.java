@@ -58,6 +58,11 @@ public class DefaultIncludedBuild implements IncludedBuildInternal, Configurable
 
     private boolean resolvedDependencySubstitutions;
 
+    // Other builds may use this build concurrently. The launcher lock guards the creation and replacement of the launcher and is never held while
+    // calling into a launcher. The configuration lock serializes loading and configuring this build, which may in turn configure other builds,
+    // and is not held while the task graph of this build is populated or its tasks run, so that builds that depend on each other cannot deadlock
+    private final Object launcherLock = new Object();
+    private final Object configurationLock = new Object();
     private GradleLauncher gradleLauncher;
     private boolean discardLauncher;
     private String name;
@@ -87,10 +92,12 @@ public class DefaultIncludedBuild implements IncludedBuildInternal, Configurable
 
     @Override
     public String getName() {
-        if (name == null) {
-            name = getLoadedSettings().getRootProject().getName();
+        synchronized (configurationLock) {
+            if (name == null) {
+                name = getLoadedSettings().getRootProject().getName();
+            }
+            return name;
         }
-        return name;
     }
 
     @Override
@@ -109,15 +116,16 @@ public class DefaultIncludedBuild implements IncludedBuildInternal, Configurable
 
     @Override
     public Set<Pair<ModuleVersionIdentifier, ProjectComponentIdentifier>> getAvailableModules() {
-        // TODO: Synchronization
-        if (availableModules == null) {
-            Gradle gradle = getConfiguredBuild();
-            availableModules = Sets.newLinkedHashSet();
-            for (Project project : gradle.getRootProject().getAllprojects()) {
-                registerProject(availableModules, (ProjectInternal) project);
+        synchronized (configurationLock) {
+            if (availableModules == null) {
+                Gradle gradle = getConfiguredBuild();
+                availableModules = Sets.newLinkedHashSet();
+                for (Project project : gradle.getRootProject().getAllprojects()) {
+                    registerProject(availableModules, (ProjectInternal) project);
+                }
             }
+            return availableModules;
         }
-        return availableModules;
     }
 
     private void registerProject(Set<Pair<ModuleVersionIdentifier, ProjectComponentIdentifier>> availableModules, ProjectInternal project) {
@@ -132,53 +140,85 @@ public class DefaultIncludedBuild implements IncludedBuildInternal, Configurable
 
     @Override
     public SettingsInternal getLoadedSettings() {
-        return getGradleLauncher().getLoadedSettings();
+        synchronized (configurationLock) {
+            return getGradleLauncher().getLoadedSettings();
+        }
     }
 
     @Override
     public GradleInternal getConfiguredBuild() {
-        return getGradleLauncher().getConfiguredBuild();
+        return configure(getGradleLauncher());
+    }
+
+    private GradleInternal configure(GradleLauncher launcher) {
+        synchronized (configurationLock) {
+            return launcher.getConfiguredBuild();
+        }
     }
 
     @Override
     public void finishBuild() {
-        if (gradleLauncher == null || discardLauncher) {
-            return;
+        GradleLauncher launcher;
+        synchronized (launcherLock) {
+            if (gradleLauncher == null || discardLauncher) {
+                return;
+            }
+            launcher = gradleLauncher;
         }
-        gradleLauncher.finishBuild();
+        launcher.finishBuild();
     }
 
-    public synchronized void addTasks(Iterable<String> taskPaths) {
-        getGradleLauncher().scheduleTasks(taskPaths);
+    public synchronized void addTasks(final Iterable<String> taskPaths) {
+        final GradleLauncher launcher = getGradleLauncher();
+        configure(launcher);
+        // The task graphs of included builds may be populated on other threads, so use the lease of the build that included this build
+        withParentLease(launcher, new Runnable() {
+            @Override
+            public void run() {
+                launcher.scheduleTasks(taskPaths);
+            }
+        });
     }
 
     private GradleLauncher getGradleLauncher() {
-        if (gradleLauncher == null) {
-            gradleLauncher = gradleLauncherFactory.nestedInstance(buildDefinition.newInstance());
+        synchronized (launcherLock) {
+            if (gradleLauncher == null) {
+                gradleLauncher = gradleLauncherFactory.nestedInstance(buildDefinition.newInstance());
+            }
+            return gradleLauncher;
         }
-        return gradleLauncher;
     }
 
     @Override
     public synchronized void execute(final Iterable<String> tasks, final Object listener) {
-        cleanupLauncherIfRequired();
+        final GradleLauncher launcher;
+        synchronized (launcherLock) {
+            cleanupLauncherIfRequired();
+            launcher = getGradleLauncher();
+        }
 
-        final GradleLauncher launcher = getGradleLauncher();
         launcher.addListener(listener);
+        configure(launcher);
         launcher.scheduleTasks(tasks);
-        WorkerLeaseService workerLeaseService = launcher.getGradle().getServices().get(WorkerLeaseService.class);
         try {
-            workerLeaseService.withSharedLease(parentLease, new Runnable() {
+            withParentLease(launcher, new Runnable() {
                 @Override
                 public void run() {
                     launcher.executeTasks();
                 }
             });
         } finally {
-            markAsNotReusable();
+            synchronized (launcherLock) {
+                markAsNotReusable();
+            }
         }
     }
 
+    private void withParentLease(GradleLauncher launcher, Runnable action) {
+        WorkerLeaseService workerLeaseService = launcher.getGradle().getServices().get(WorkerLeaseService.class);
+        workerLeaseService.withSharedLease(parentLease, action);
+    }
+
     private void cleanupLauncherIfRequired() {
         if (gradleLauncher != null && discardLauncher) {
             // Have already used the launcher to run tasks, need to replace it
@@ -203,13 +243,15 @@ public class DefaultIncludedBuild implements IncludedBuildInternal, Configurable
 
     @Override
     public void stop() {
-        try {
-            if (gradleLauncher != null) {
-                gradleLauncher.stop();
+        synchronized (launcherLock) {
+            try {
+                if (gradleLauncher != null) {
+                    gradleLauncher.stop();
+                }
+            } finally {
+                gradleLauncher = null;
+                discardLauncher = false;
             }
-        } finally {
-            gradleLauncher = null;
-            discardLauncher = false;
         }
     }
 }
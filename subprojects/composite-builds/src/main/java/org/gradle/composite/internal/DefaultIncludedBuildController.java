@@ -65,13 +65,19 @@ class DefaultIncludedBuildController implements Runnable, Stoppable, IncludedBui
     @Override
     public boolean populateTaskGraph() {
         Set<String> tasksToExecute = Sets.newLinkedHashSet();
-        for (Map.Entry<String, TaskState> taskEntry : tasks.entrySet()) {
-            if (taskEntry.getValue().status == TaskStatus.QUEUED) {
-                String taskName = taskEntry.getKey();
-                if (tasksAdded.add(taskName)) {
-                    tasksToExecute.add(taskName);
+        lock.lock();
+        try {
+            // Other builds may queue tasks for this build while its task graph is populated
+            for (Map.Entry<String, TaskState> taskEntry : tasks.entrySet()) {
+                if (taskEntry.getValue().status == TaskStatus.QUEUED) {
+                    String taskName = taskEntry.getKey();
+                    if (tasksAdded.add(taskName)) {
+                        tasksToExecute.add(taskName);
+                    }
                 }
             }
+        } finally {
+            lock.unlock();
         }
         if (tasksToExecute.isEmpty()) {
             return false;
@@ -16,26 +16,46 @@
 
 package org.gradle.composite.internal;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.gradle.api.artifacts.component.BuildIdentifier;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.CurrentBuildOperationPreservingRunnable;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 class DefaultIncludedBuildControllers implements Stoppable, IncludedBuildControllers {
+    /**
+     * Populates the task graphs of the included builds in parallel when set to {@code true}. The included builds that tasks are scheduled for
+     * are configured concurrently, one round of task discovery at a time, instead of one build after the other before any task can start.
+     */
+    public static final String PARALLEL_POPULATION_PROPERTY = "org.gradle.composite.parallelTaskGraphs";
+
     private final Map<BuildIdentifier, IncludedBuildController> buildControllers = Maps.newHashMap();
     private final ManagedExecutor executorService;
     private final IncludedBuildRegistry includedBuildRegistry;
+    private final boolean parallelPopulation;
 
     DefaultIncludedBuildControllers(ExecutorFactory executorFactory, IncludedBuildRegistry includedBuildRegistry) {
+        this(executorFactory, includedBuildRegistry, Boolean.getBoolean(PARALLEL_POPULATION_PROPERTY));
+    }
+
+    DefaultIncludedBuildControllers(ExecutorFactory executorFactory, IncludedBuildRegistry includedBuildRegistry, boolean parallelPopulation) {
         this.includedBuildRegistry = includedBuildRegistry;
         this.executorService = executorFactory.create("included builds");
+        this.parallelPopulation = parallelPopulation;
     }
 
-    public IncludedBuildController getBuildController(BuildIdentifier buildId) {
+    public synchronized IncludedBuildController getBuildController(BuildIdentifier buildId) {
         IncludedBuildController buildController = buildControllers.get(buildId);
         if (buildController != null) {
             return buildController;
@@ -51,7 +71,7 @@ class DefaultIncludedBuildControllers implements Stoppable, IncludedBuildControl
     @Override
     public void startTaskExecution() {
         populateTaskGraphs();
-        for (IncludedBuildController buildController : buildControllers.values()) {
+        for (IncludedBuildController buildController : getBuildControllers()) {
             buildController.startTaskExecution();
         }
     }
@@ -59,21 +79,65 @@ class DefaultIncludedBuildControllers implements Stoppable, IncludedBuildControl
     private void populateTaskGraphs() {
         boolean tasksDiscovered = true;
         while (tasksDiscovered) {
-            tasksDiscovered = false;
-            for (IncludedBuildController buildController : buildControllers.values()) {
-                if (buildController.populateTaskGraph()) {
-                    tasksDiscovered = true;
+            tasksDiscovered = parallelPopulation ? populateTaskGraphsInParallel() : populateTaskGraphsInSequence();
+        }
+    }
+
+    private boolean populateTaskGraphsInSequence() {
+        boolean tasksDiscovered = false;
+        for (IncludedBuildController buildController : getBuildControllers()) {
+            if (buildController.populateTaskGraph()) {
+                tasksDiscovered = true;
+            }
+        }
+        return tasksDiscovered;
+    }
+
+    private boolean populateTaskGraphsInParallel() {
+        // Populating a task graph can queue tasks for other builds, including builds that have no controller yet: these are picked up by the next round
+        // Each build is populated as part of the current build operation, using the worker lease of the build that included it
+        final AtomicBoolean tasksDiscovered = new AtomicBoolean();
+        List<Future<?>> results = Lists.newArrayList();
+        for (final IncludedBuildController buildController : getBuildControllers()) {
+            results.add(executorService.submit(new CurrentBuildOperationPreservingRunnable(new Runnable() {
+                @Override
+                public void run() {
+                    if (buildController.populateTaskGraph()) {
+                        tasksDiscovered.set(true);
+                    }
+                }
+            })));
+        }
+        Throwable failure = null;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
                 }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
             }
         }
+        if (failure != null) {
+            throw UncheckedException.throwAsUncheckedException(failure);
+        }
+        return tasksDiscovered.get();
+    }
+
+    private synchronized List<IncludedBuildController> getBuildControllers() {
+        return ImmutableList.copyOf(buildControllers.values());
     }
 
     @Override
     public void stopTaskExecution() {
-        for (IncludedBuildController buildController : buildControllers.values()) {
+        for (IncludedBuildController buildController : getBuildControllers()) {
             buildController.stopTaskExecution();
         }
-        buildControllers.clear();
+        synchronized (this) {
+            buildControllers.clear();
+        }
         for (IncludedBuildInternal includedBuild : includedBuildRegistry.getIncludedBuilds()) {
             includedBuild.finishBuild();
         }
@@ -81,7 +145,7 @@ class DefaultIncludedBuildControllers implements Stoppable, IncludedBuildControl
 
     @Override
     public void stop() {
-        CompositeStoppable.stoppable(buildControllers.values()).stop();
+        CompositeStoppable.stoppable(getBuildControllers()).stop();
         executorService.stop();
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.composite.internal
+
+import org.gradle.api.internal.artifacts.DefaultBuildIdentifier
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.internal.operations.CurrentBuildOperationRef
+import org.gradle.internal.operations.DefaultBuildOperationRef
+import org.gradle.internal.operations.OperationIdentifier
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class DefaultIncludedBuildControllersTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def registry = Mock(IncludedBuildRegistry)
+    def buildA = Mock(IncludedBuildInternal)
+    def buildB = Mock(IncludedBuildInternal)
+    def idA = new DefaultBuildIdentifier("a")
+    def idB = new DefaultBuildIdentifier("b")
+
+    def setup() {
+        registry.getBuild(idA) >> buildA
+        registry.getBuild(idB) >> buildB
+        registry.includedBuilds >> [buildA, buildB]
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    @Unroll
+    def "populates task graphs until no more tasks are discovered (parallel: #parallel)"() {
+        def controllers = new DefaultIncludedBuildControllers(executorFactory, registry, parallel)
+
+        given:
+        controllers.getBuildController(idA).queueForExecution(":a")
+
+        when:
+        controllers.startTaskExecution()
+
+        then:
+        1 * buildA.addTasks([":a"] as Set) >> { controllers.getBuildController(idB).queueForExecution(":b") }
+        1 * buildB.addTasks([":b"] as Set)
+
+        cleanup:
+        controllers.stopTaskExecution()
+        controllers.stop()
+
+        where:
+        parallel << [false, true]
+    }
+
+    def "populates task graphs in parallel as part of the current build operation"() {
+        def controllers = new DefaultIncludedBuildControllers(executorFactory, registry, true)
+        def operation = new DefaultBuildOperationRef(new OperationIdentifier(42), new OperationIdentifier(1))
+        def operations = new CopyOnWriteArrayList<BuildOperationRef>()
+
+        given:
+        controllers.getBuildController(idA).queueForExecution(":a")
+        controllers.getBuildController(idB).queueForExecution(":b")
+        CurrentBuildOperationRef.instance().set(operation)
+
+        when:
+        controllers.startTaskExecution()
+
+        then:
+        1 * buildA.addTasks(_) >> { operations << CurrentBuildOperationRef.instance().get() }
+        1 * buildB.addTasks(_) >> { operations << CurrentBuildOperationRef.instance().get() }
+        operations == [operation, operation]
+
+        cleanup:
+        CurrentBuildOperationRef.instance().clear()
+        controllers.stopTaskExecution()
+        controllers.stop()
+    }
+
+    def "rethrows failure to populate a task graph in parallel"() {
+        def controllers = new DefaultIncludedBuildControllers(executorFactory, registry, true)
+        def failure = new RuntimeException("broken")
+
+        given:
+        controllers.getBuildController(idA).queueForExecution(":a")
+        controllers.getBuildController(idB).queueForExecution(":b")
+        buildA.addTasks(_) >> { throw failure }
+
+        when:
+        controllers.startTaskExecution()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        cleanup:
+        controllers.stopTaskExecution()
+        controllers.stop()
+    }
+}
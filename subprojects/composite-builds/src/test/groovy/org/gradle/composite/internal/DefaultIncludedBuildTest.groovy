@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.composite.internal
+
+import org.gradle.StartParameter
+import org.gradle.api.internal.BuildDefinition
+import org.gradle.api.internal.GradleInternal
+import org.gradle.initialization.GradleLauncher
+import org.gradle.initialization.NestedBuildFactory
+import org.gradle.internal.service.ServiceRegistry
+import org.gradle.internal.work.WorkerLeaseRegistry
+import org.gradle.internal.work.WorkerLeaseService
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class DefaultIncludedBuildTest extends ConcurrentSpec {
+    def launcherFactory = Mock(NestedBuildFactory)
+    def launcher = Mock(GradleLauncher)
+    def gradle = Stub(GradleInternal)
+    def services = Stub(ServiceRegistry)
+    def workerLeaseService = Mock(WorkerLeaseService)
+    def parentLease = Stub(WorkerLeaseRegistry.WorkerLease)
+    def build = new DefaultIncludedBuild(BuildDefinition.fromStartParameter(new StartParameter()), launcherFactory, parentLease)
+
+    def setup() {
+        launcher.gradle >> gradle
+        gradle.services >> services
+        services.get(WorkerLeaseService) >> workerLeaseService
+    }
+
+    def "creates and configures a single launcher when the build is requested concurrently"() {
+        def configuring = new AtomicInteger()
+
+        when:
+        async {
+            5.times {
+                start {
+                    assert build.configuredBuild.is(gradle)
+                }
+            }
+        }
+
+        then:
+        1 * launcherFactory.nestedInstance(_) >> launcher
+        5 * launcher.configuredBuild >> {
+            assert configuring.incrementAndGet() == 1
+            Thread.sleep(20)
+            configuring.decrementAndGet()
+            gradle
+        }
+    }
+
+    def "builds that depend on each other can populate their task graphs concurrently"() {
+        def otherLauncherFactory = Mock(NestedBuildFactory)
+        def otherLauncher = Mock(GradleLauncher)
+        def otherGradle = Stub(GradleInternal)
+        def otherBuild = new DefaultIncludedBuild(BuildDefinition.fromStartParameter(new StartParameter()), otherLauncherFactory, parentLease)
+        otherLauncher.gradle >> gradle
+        workerLeaseService.withSharedLease(parentLease, _) >> { lease, Runnable action -> action.run() }
+
+        when:
+        async {
+            start {
+                build.addTasks([":a"])
+            }
+            start {
+                otherBuild.addTasks([":b"])
+            }
+        }
+
+        then:
+        1 * launcherFactory.nestedInstance(_) >> launcher
+        1 * otherLauncherFactory.nestedInstance(_) >> otherLauncher
+        _ * launcher.configuredBuild >> gradle
+        _ * otherLauncher.configuredBuild >> otherGradle
+        1 * launcher.scheduleTasks([":a"]) >> {
+            instant.aScheduling
+            thread.blockUntil.bScheduling
+            assert otherBuild.configuredBuild.is(otherGradle)
+        }
+        1 * otherLauncher.scheduleTasks([":b"]) >> {
+            instant.bScheduling
+            thread.blockUntil.aScheduling
+            assert build.configuredBuild.is(gradle)
+        }
+    }
+
+    def "schedules tasks using the worker lease of the including build"() {
+        def tasks = [":a"]
+
+        when:
+        build.addTasks(tasks)
+
+        then:
+        1 * launcherFactory.nestedInstance(_) >> launcher
+        1 * workerLeaseService.withSharedLease(parentLease, _) >> { lease, Runnable action -> action.run() }
+
+        then:
+        1 * launcher.scheduleTasks(tasks)
+    }
+}
@@ -19,6 +19,8 @@ import org.apache.commons.lang.StringUtils;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.specs.Spec;
 
+import java.util.Collection;
+
 public class PatternMatcherFactory {
 
     private static final EndOfPathMatcher END_OF_PATH_MATCHER = new EndOfPathMatcher();
@@ -29,6 +31,13 @@ public class PatternMatcherFactory {
         return new PathMatcherBackedSpec(partialMatchDirs, pathMatcher);
     }
 
+    /**
+     * Returns a spec that is satisfied by paths that match any of the given patterns. The patterns are compiled into a single {@link PatternTrie}.
+     */
+    public static Spec<RelativePath> getPatternsMatcher(boolean partialMatchDirs, boolean caseSensitive, Collection<String> patterns) {
+        return new PatternTrieBackedSpec(partialMatchDirs, PatternTrie.compile(caseSensitive, patterns));
+    }
+
     public static PathMatcher compile(boolean caseSensitive, String pattern) {
         if (pattern.length() == 0) {
             return END_OF_PATH_MATCHER;
@@ -80,4 +89,27 @@ public class PatternMatcherFactory {
             }
         }
     }
+
+    static class PatternTrieBackedSpec implements Spec<RelativePath> {
+        private final boolean partialMatchDirs;
+        private final PatternTrie trie;
+
+        PatternTrieBackedSpec(boolean partialMatchDirs, PatternTrie trie) {
+            this.partialMatchDirs = partialMatchDirs;
+            this.trie = trie;
+        }
+
+        public boolean isSatisfiedBy(RelativePath element) {
+            if (element.isFile() || !partialMatchDirs) {
+                return trie.matches(element.getSegments());
+            } else {
+                return trie.isPrefix(element.getSegments());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return trie.toString();
+        }
+    }
 }
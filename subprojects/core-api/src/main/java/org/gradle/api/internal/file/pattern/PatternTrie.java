@@ -0,0 +1,262 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of Ant-style patterns compiled into a single trie of path segments.
+ *
+ * <p>Patterns that start with the same segments share the nodes for those segments, and literal segments are looked up by
+ * hash instead of being tested one pattern at a time. A path is matched against all patterns in a single pass over its
+ * segments, by tracking the set of trie nodes that the path prefix can reach.</p>
+ *
+ * <p>The matching is equivalent to the union of the {@link PathMatcher}s created by {@link PatternMatcherFactory#compile(boolean, String)}
+ * for each of the patterns.</p>
+ */
+public class PatternTrie {
+    private static final String PATH_SEPARATORS = "\\/";
+
+    private final Node root = new Node(false);
+    private final boolean caseSensitive;
+
+    private PatternTrie(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    public static PatternTrie compile(boolean caseSensitive, Collection<String> patterns) {
+        PatternTrie trie = new PatternTrie(caseSensitive);
+        for (String pattern : patterns) {
+            trie.add(pattern);
+        }
+        return trie;
+    }
+
+    private void add(String pattern) {
+        // trailing / or \ assumes **
+        if (pattern.endsWith("/") || pattern.endsWith("\\")) {
+            pattern = pattern + "**";
+        }
+        String[] parts = StringUtils.split(pattern, PATH_SEPARATORS);
+        Node node = root;
+        int pos = 0;
+        while (pos < parts.length) {
+            if (parts[pos].equals("**")) {
+                while (pos < parts.length && parts[pos].equals("**")) {
+                    pos++;
+                }
+                if (pos == parts.length) {
+                    node.anything = true;
+                    return;
+                }
+                if (node.greedy == null) {
+                    node.greedy = new Node(true);
+                }
+                node = node.greedy;
+            } else {
+                node = node.child(parts[pos], caseSensitive);
+                pos++;
+            }
+        }
+        node.terminal = true;
+    }
+
+    /**
+     * Returns true if the given path matches one of the patterns.
+     */
+    public boolean matches(String[] segments) {
+        List<Node> states = initialStates();
+        for (String segment : segments) {
+            if (matchesAnything(states)) {
+                return true;
+            }
+            states = next(states, segment);
+            if (states.isEmpty()) {
+                return false;
+            }
+        }
+        for (Node state : states) {
+            if (state.terminal || state.anything) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the given path could match one of the patterns if it contained additional segments at the end. When this
+     * returns false for a directory, none of the files below the directory can match and the directory does not need to be visited.
+     */
+    public boolean isPrefix(String[] segments) {
+        if (segments.length == 0) {
+            return root.anything || root.greedy != null || root.fixed != null || root.steps != null;
+        }
+        List<Node> states = initialStates();
+        for (String segment : segments) {
+            if (matchesAnything(states)) {
+                return true;
+            }
+            states = next(states, segment);
+            if (states.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Node> initialStates() {
+        List<Node> states = new ArrayList<Node>(2);
+        addState(states, root);
+        return states;
+    }
+
+    private static boolean matchesAnything(List<Node> states) {
+        for (Node state : states) {
+            if (state.anything) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Node> next(List<Node> states, String segment) {
+        List<Node> next = new ArrayList<Node>(states.size() + 1);
+        for (Node state : states) {
+            if (state.loops) {
+                addState(next, state);
+            }
+            if (state.fixed != null) {
+                Node target = state.fixed.get(segment);
+                if (target != null) {
+                    addState(next, target);
+                }
+            }
+            if (state.steps != null) {
+                for (Edge edge : state.steps) {
+                    if (edge.step.matches(segment)) {
+                        addState(next, edge.target);
+                    }
+                }
+            }
+        }
+        return next;
+    }
+
+    private static void addState(List<Node> states, Node node) {
+        for (Node state : states) {
+            if (state == node) {
+                return;
+            }
+        }
+        states.add(node);
+        if (node.greedy != null) {
+            // '**' can match zero segments
+            addState(states, node.greedy);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{trie: " + root + "}";
+    }
+
+    private static class Node {
+        // True for the node following a '**', which matches any number of segments
+        private final boolean loops;
+        // True when a pattern ends at this node
+        private boolean terminal;
+        // True when a pattern ends with '**' at this node
+        private boolean anything;
+        private Node greedy;
+        private Map<String, Node> fixed;
+        private List<Edge> steps;
+
+        Node(boolean loops) {
+            this.loops = loops;
+        }
+
+        Node child(String part, boolean caseSensitive) {
+            PatternStep step = PatternStepFactory.getStep(part, caseSensitive);
+            if (caseSensitive && step instanceof FixedPatternStep) {
+                if (fixed == null) {
+                    fixed = new HashMap<String, Node>();
+                }
+                Node child = fixed.get(part);
+                if (child == null) {
+                    child = new Node(false);
+                    fixed.put(part, child);
+                }
+                return child;
+            }
+            if (steps == null) {
+                steps = new ArrayList<Edge>();
+            }
+            for (Edge edge : steps) {
+                if (edge.source.equals(part)) {
+                    return edge.target;
+                }
+            }
+            Edge edge = new Edge(part, step, new Node(false));
+            steps.add(edge);
+            return edge.target;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("{");
+            if (terminal) {
+                builder.append("end ");
+            }
+            if (anything) {
+                builder.append("anything ");
+            }
+            if (fixed != null) {
+                builder.append(fixed).append(' ');
+            }
+            if (steps != null) {
+                builder.append(steps).append(' ');
+            }
+            if (greedy != null) {
+                builder.append("greedy: ").append(greedy);
+            }
+            return builder.append('}').toString();
+        }
+    }
+
+    private static class Edge {
+        private final String source;
+        private final PatternStep step;
+        private final Node target;
+
+        Edge(String source, PatternStep step, Node target) {
+            this.source = source;
+            this.step = step;
+            this.target = target;
+        }
+
+        @Override
+        public String toString() {
+            return step + "=" + target;
+        }
+    }
+}
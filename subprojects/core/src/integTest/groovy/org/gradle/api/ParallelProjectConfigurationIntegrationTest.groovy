@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+import static org.hamcrest.Matchers.startsWith
+
+class ParallelProjectConfigurationIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        settingsFile << "include 'a', 'b', 'c'"
+        file("gradle.properties") << """
+            org.gradle.parallel=true
+            org.gradle.parallel.configuration=true
+        """
+    }
+
+    def "projects can depend on the evaluation of a project that is being evaluated by another thread"() {
+        file("a/build.gradle") << """
+            evaluationDependsOn(':c')
+            println "a sees " + project(':c').value
+        """
+        file("b/build.gradle") << """
+            evaluationDependsOn(':c')
+            println "b sees " + project(':c').value
+        """
+        file("c/build.gradle") << """
+            Thread.sleep(500)
+            ext.value = 'c'
+        """
+
+        when:
+        run("help")
+
+        then:
+        outputContains("a sees c")
+        outputContains("b sees c")
+    }
+
+    def "reports projects that depend on the evaluation of each other"() {
+        file("a/build.gradle") << "evaluationDependsOn(':b')"
+        file("b/build.gradle") << "evaluationDependsOn(':a')"
+
+        when:
+        fails("help")
+
+        then:
+        failure.assertThatCause(startsWith("Circular referencing during evaluation for project "))
+    }
+
+    def "reports lookup of a project that is being configured by another thread"() {
+        file("a/build.gradle") << """
+            def started = file('../c-started')
+            while (!started.exists()) { Thread.sleep(10) }
+            try {
+                project(':c')
+            } finally {
+                file('../a-done').createNewFile()
+            }
+        """
+        file("c/build.gradle") << """
+            file('../c-started').createNewFile()
+            def done = file('../a-done')
+            while (!done.exists()) { Thread.sleep(10) }
+        """
+
+        when:
+        executer.withArgument("--max-workers=4")
+        fails("help")
+
+        then:
+        failure.assertHasCause("Cannot access project ':c' as it is being configured by another thread. When projects are configured in parallel, use evaluationDependsOn(':c') to make sure the project is configured before accessing it.")
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.tasks
+
+import org.gradle.caching.internal.tasks.DeferredTaskOutputs
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.DirectoryBuildCacheFixture
+
+class DeferredCacheUnpackingIntegrationTest extends AbstractIntegrationSpec implements DirectoryBuildCacheFixture {
+    def setup() {
+        executer.beforeExecute {
+            withArgument("-D${DeferredTaskOutputs.ENABLED_PROPERTY}=true")
+        }
+        buildFile << """
+            @CacheableTask
+            class Producer extends DefaultTask {
+                @OutputDirectory
+                File outputDir
+
+                @TaskAction
+                void produce() {
+                    new File(outputDir, "out.txt").text = "produced"
+                }
+            }
+
+            @CacheableTask
+            class Consumer extends DefaultTask {
+                @InputDirectory
+                @PathSensitive(PathSensitivity.RELATIVE)
+                File inputDir
+
+                @OutputFile
+                File outputFile
+
+                @TaskAction
+                void consume() {
+                    outputFile.text = new File(inputDir, "out.txt").text
+                }
+            }
+
+            task producer(type: Producer) {
+                outputDir = file("build/produced")
+            }
+
+            task cacheableConsumer(type: Consumer) {
+                dependsOn producer
+                inputDir = producer.outputDir
+                outputFile = file("build/cacheable.txt")
+            }
+
+            task nonCacheableConsumer(type: Consumer) {
+                dependsOn producer
+                inputDir = producer.outputDir
+                outputFile = file("build/non-cacheable.txt")
+                outputs.cacheIf { false }
+            }
+
+            task assembleProduced {
+                dependsOn producer
+            }
+        """
+    }
+
+    def "does not unpack outputs that are only consumed by another cache hit"() {
+        given:
+        withBuildCache().run "cacheableConsumer"
+        file("build").deleteDir()
+
+        when:
+        withBuildCache().run "cacheableConsumer"
+
+        then:
+        skipped ":producer", ":cacheableConsumer"
+        file("build/cacheable.txt").text == "produced"
+        !file("build/produced").exists()
+    }
+
+    def "unpacks outputs consumed by a task that is not cacheable"() {
+        given:
+        withBuildCache().run "nonCacheableConsumer"
+        file("build").deleteDir()
+
+        when:
+        withBuildCache().run "nonCacheableConsumer"
+
+        then:
+        skipped ":producer"
+        executedAndNotSkipped ":nonCacheableConsumer"
+        file("build/produced/out.txt").text == "produced"
+        file("build/non-cacheable.txt").text == "produced"
+    }
+
+    def "unpacks outputs of a cache hit that is a final artifact of the build"() {
+        given:
+        withBuildCache().run "producer"
+        file("build").deleteDir()
+
+        when:
+        withBuildCache().run requestedTask
+
+        then:
+        skipped ":producer"
+        file("build/produced/out.txt").text == "produced"
+
+        where:
+        requestedTask << ["producer", "assembleProduced"]
+    }
+
+    def "unpacks outputs that were not needed during an earlier build when a later build needs them"() {
+        given:
+        withBuildCache().run "cacheableConsumer"
+        file("build").deleteDir()
+        withBuildCache().run "cacheableConsumer"
+
+        when:
+        withBuildCache().run "nonCacheableConsumer"
+
+        then:
+        file("build/produced/out.txt").text == "produced"
+        file("build/non-cacheable.txt").text == "produced"
+    }
+}
@@ -34,6 +34,8 @@ import org.gradle.internal.reflect.DirectInstantiator;
 import org.gradle.internal.reflect.JavaReflectionUtil;
 import org.gradle.internal.reflect.PropertyDetails;
 import org.gradle.internal.service.ServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -68,8 +70,22 @@ import java.util.concurrent.locks.ReentrantLock;
 public abstract class AbstractClassGenerator implements ClassGenerator {
     private static final Map<Class<?>, Map<Class<?>, Class<?>>> GENERATED_CLASSES = new HashMap<Class<?>, Map<Class<?>, Class<?>>>();
     private static final Lock CACHE_LOCK = new ReentrantLock();
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractClassGenerator.class);
     private static final Collection<String> SKIP_PROPERTIES = Arrays.asList("class", "metaClass", "conventionMapping", "convention", "asDynamicObject", "extensions");
 
+    private final GeneratedClassCache persistentCache;
+
+    protected AbstractClassGenerator() {
+        this(null);
+    }
+
+    /**
+     * Creates a generator that keeps the classes it generates in the given cache, in addition to the in-memory cache.
+     */
+    protected AbstractClassGenerator(@Nullable GeneratedClassCache persistentCache) {
+        this.persistentCache = persistentCache;
+    }
+
     public <T> T newInstance(Class<T> type, Object... parameters) {
         return DirectInstantiator.instantiate(generate(type), parameters);
     }
@@ -110,8 +126,15 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
             throw new GradleException(String.format("Cannot create a proxy class for final class '%s'.",
                 type.getSimpleName()));
         }
-        Class<? extends T> subclass;
+        String key = persistentCache == null ? null : persistentCache.key(getClass(), type);
+        Class<? extends T> subclass = key == null ? null : defineFromPersistentCache(type, key);
+        if (subclass != null) {
+            cache.put(type, subclass);
+            cache.put(subclass, subclass);
+            return subclass;
+        }
         try {
+
             ClassMetaData classMetaData = inspectType(type);
 
             ClassBuilder<T> builder = start(type, classMetaData);
@@ -224,6 +247,9 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
             }
 
             subclass = builder.generate();
+            if (key != null) {
+                persistentCache.store(key, builder.getBytecode());
+            }
         } catch (Throwable e) {
             throw new GradleException(String.format("Could not generate a proxy class for class %s.", type.getName()), e);
         }
@@ -233,8 +259,29 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
         return subclass;
     }
 
+    @Nullable
+    private <T> Class<? extends T> defineFromPersistentCache(Class<T> type, String key) {
+        byte[] bytecode = persistentCache.load(key);
+        if (bytecode == null) {
+            return null;
+        }
+        try {
+            return define(type, bytecode);
+        } catch (LinkageError e) {
+            // The stored class no longer matches the type, generate it again
+            LOGGER.debug("Could not define generated class for {} from the persistent cache.", type.getName(), e);
+            persistentCache.remove(key);
+            return null;
+        }
+    }
+
     protected abstract <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData);
 
+    /**
+     * Defines the class that was generated for the given type from its bytecode.
+     */
+    protected abstract <T> Class<? extends T> define(Class<T> type, byte[] bytecode);
+
     private ClassMetaData inspectType(Class<?> type) {
         boolean isConventionAware = type.getAnnotation(NoConventionMapping.class) == null;
         boolean extensible = JavaReflectionUtil.getAnnotation(type, NonExtensible.class) == null;
@@ -477,5 +524,10 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
         void generateServiceRegistrySupportMethods() throws Exception;
 
         Class<? extends T> generate() throws Exception;
+
+        /**
+         * Returns the bytecode of the class, once generated.
+         */
+        byte[] getBytecode();
     }
 }
@@ -29,6 +29,7 @@ import org.gradle.api.internal.provider.PropertyInternal;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 import org.gradle.internal.metaobject.AbstractDynamicObject;
 import org.gradle.internal.metaobject.BeanDynamicObject;
 import org.gradle.internal.metaobject.DynamicObject;
@@ -63,11 +64,25 @@ import static org.objectweb.asm.Opcodes.*;
 import static org.objectweb.asm.Type.VOID_TYPE;
 
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
+    private static final String CLASS_NAME_SUFFIX = "_Decorated";
+
+    public AsmBackedClassGenerator() {
+    }
+
+    public AsmBackedClassGenerator(@Nullable GeneratedClassCache persistentCache) {
+        super(persistentCache);
+    }
+
     @Override
     protected <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData) {
         return new ClassBuilderImpl<T>(type, classMetaData);
     }
 
+    @Override
+    protected <T> Class<? extends T> define(Class<T> type, byte[] bytecode) {
+        return ClassLoaderUtils.<T>define(type.getClassLoader(), type.getName() + CLASS_NAME_SUFFIX, bytecode).asSubclass(type);
+    }
+
     private static class ClassBuilderImpl<T> implements ClassBuilder<T> {
         public static final int PV_FINAL_STATIC = Opcodes.ACC_PRIVATE | ACC_STATIC | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC;
         private static final Set<? extends Class<?>> PRIMITIVE_TYPES = ImmutableSet.of(Byte.TYPE, Boolean.TYPE, Character.TYPE, Short.TYPE, Integer.TYPE, Long.TYPE, Float.TYPE, Double.TYPE);
@@ -135,11 +150,12 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final boolean conventionAware;
         private final boolean extensible;
         private final boolean providesOwnDynamicObject;
+        private byte[] bytecode;
 
         private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData) {
             this.type = type;
 
-            classGenerator = new AsmClassGenerator(type, "_Decorated");
+            classGenerator = new AsmClassGenerator(type, CLASS_NAME_SUFFIX);
             visitor = classGenerator.getVisitor();
             generatedType = classGenerator.getGeneratedType();
             superclassType = Type.getType(type);
@@ -964,7 +980,13 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             writeGenericReturnTypeFields();
             visitor.visitEnd();
 
-            return classGenerator.define().asSubclass(type);
+            bytecode = visitor.toByteArray();
+            return ClassLoaderUtils.<T>define(type.getClassLoader(), classGenerator.getGeneratedTypeName(), bytecode).asSubclass(type);
+        }
+
+        @Override
+        public byte[] getBytecode() {
+            return bytecode;
         }
 
         private void writeGenericReturnTypeFields() {
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal;
+
+import com.google.common.io.Files;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Keeps the bytecode of the classes generated by {@link AbstractClassGenerator} in a directory, so that a new process can define a generated
+ * class without inspecting the type and generating the bytecode again.
+ *
+ * <p>An entry is keyed by the generator, the Gradle and Java versions, the name of the type and the hash of the hierarchy of its class loader,
+ * which covers every type that the generator can inspect. Types from class loaders that cannot be hashed are always generated. Each entry
+ * holds a hash of its bytecode, so that an entry that was corrupted is discarded and the class generated again.</p>
+ */
+public class GeneratedClassCache {
+    /**
+     * Enables the persistent cache of generated classes when set to {@code true}.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.generatedClassCache";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneratedClassCache.class);
+    // Change this whenever the bytecode produced for a given type changes
+    private static final int GENERATOR_VERSION = 2;
+    private static final int CHECKSUM_LENGTH = 16;
+
+    private final File cacheDir;
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+
+    public GeneratedClassCache(File cacheDir, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        this.cacheDir = cacheDir;
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns the key for the class that the given generator produces for the given type, or null when the class cannot be cached.
+     */
+    @Nullable
+    public String key(Class<?> generatorType, Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
+        if (classLoaderHash == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(generatorType.getName());
+        hasher.putInt(GENERATOR_VERSION);
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(System.getProperty("java.version"));
+        hasher.putString(type.getName());
+        hasher.putHash(classLoaderHash);
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Returns the bytecode stored for the given key, or null when there is none. An entry whose content does not match its checksum is removed.
+     */
+    @Nullable
+    public byte[] load(String key) {
+        File file = getEntry(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        byte[] content;
+        try {
+            content = Files.toByteArray(file);
+        } catch (IOException e) {
+            LOGGER.debug("Could not load generated class {}.", file, e);
+            return null;
+        }
+        if (content.length > CHECKSUM_LENGTH) {
+            byte[] bytecode = Arrays.copyOfRange(content, CHECKSUM_LENGTH, content.length);
+            if (Arrays.equals(checksum(bytecode), Arrays.copyOf(content, CHECKSUM_LENGTH))) {
+                return bytecode;
+            }
+        }
+        LOGGER.debug("Discarding corrupt generated class {}.", file);
+        remove(key);
+        return null;
+    }
+
+    /**
+     * Stores the bytecode for the given key. The entry is written to a temporary file first, so that other processes never see a partial entry.
+     */
+    public void store(String key, byte[] bytecode) {
+        File file = getEntry(key);
+        try {
+            GFileUtils.mkdirs(cacheDir);
+            File tempFile = File.createTempFile(key, ".tmp", cacheDir);
+            byte[] checksum = checksum(bytecode);
+            byte[] content = Arrays.copyOf(checksum, checksum.length + bytecode.length);
+            System.arraycopy(bytecode, 0, content, checksum.length, bytecode.length);
+            Files.write(content, tempFile);
+            if (!tempFile.renameTo(file)) {
+                // Another process stored the same entry
+                GFileUtils.deleteQuietly(tempFile);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not store generated class {}.", file, e);
+        }
+    }
+
+    /**
+     * Removes the entry for the given key, for example because its bytecode cannot be defined.
+     */
+    public void remove(String key) {
+        GFileUtils.deleteQuietly(getEntry(key));
+    }
+
+    private File getEntry(String key) {
+        return new File(cacheDir, key + ".class");
+    }
+
+    private static byte[] checksum(byte[] bytecode) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putBytes(bytecode);
+        return hasher.hash().toByteArray();
+    }
+}
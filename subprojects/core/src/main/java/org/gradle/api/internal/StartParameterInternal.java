@@ -24,14 +24,30 @@ import java.util.Set;
 
 public class StartParameterInternal extends StartParameter implements Deprecatable {
     private final Deprecatable deprecationHandler = new LoggingDeprecatable();
+    private boolean parallelProjectConfigurationEnabled;
 
     @Override
     public StartParameter newInstance() {
-        return prepareNewInstance(new StartParameterInternal());
+        StartParameterInternal p = (StartParameterInternal) prepareNewInstance(new StartParameterInternal());
+        p.parallelProjectConfigurationEnabled = parallelProjectConfigurationEnabled;
+        return p;
     }
 
     public StartParameter newBuild() {
-        return prepareNewBuild(new StartParameterInternal());
+        StartParameterInternal p = (StartParameterInternal) prepareNewBuild(new StartParameterInternal());
+        p.parallelProjectConfigurationEnabled = parallelProjectConfigurationEnabled;
+        return p;
+    }
+
+    /**
+     * Returns true if the build scripts of the projects of a build may be evaluated concurrently. Only takes effect when parallel project execution is enabled as well.
+     */
+    public boolean isParallelProjectConfigurationEnabled() {
+        return parallelProjectConfigurationEnabled;
+    }
+
+    public void setParallelProjectConfigurationEnabled(boolean parallelProjectConfigurationEnabled) {
+        this.parallelProjectConfigurationEnabled = parallelProjectConfigurationEnabled;
     }
 
     @Override
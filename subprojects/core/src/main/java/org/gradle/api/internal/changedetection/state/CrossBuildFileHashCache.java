@@ -40,7 +40,7 @@ public class CrossBuildFileHashCache implements Closeable, TaskHistoryStore {
         CacheBuilder cacheBuilder = cacheDir != null ? repository.cache(cacheDir) : repository.cache("fileHashes");
         cache = cacheBuilder
             .withDisplayName("file hash cache")
-            .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+            .withLockOptions(mode(FileLockManager.LockMode.None).useSharedReads()) // Lock on demand, processes that only read can share the lock
             .open();
     }
 
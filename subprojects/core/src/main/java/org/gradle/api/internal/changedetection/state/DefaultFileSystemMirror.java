@@ -41,6 +41,9 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputChan
     // Maps from interned absolute path to a snapshot
     private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
     private final Map<String, Snapshot> cacheSnapshots = new ConcurrentHashMap<String, Snapshot>();
+    // Maps from interned absolute path to the snapshot of a task output that has not been written to the file system yet
+    private final Map<String, FileSnapshot> deferredFiles = new ConcurrentHashMap<String, FileSnapshot>();
+    private final Map<String, FileTreeSnapshot> deferredTrees = new ConcurrentHashMap<String, FileTreeSnapshot>();
     private final FileHierarchySet cachedDirectories;
 
     public DefaultFileSystemMirror(List<CachedJarFileStore> fileStores) {
@@ -60,9 +63,12 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputChan
         // Could possibly infer that the path refers to a directory, if we have details for a descendant path (and it's not a missing file)
         if (cachedDirectories.contains(path)) {
             return cacheFiles.get(path);
-        } else {
-            return files.get(path);
         }
+        FileSnapshot deferred = deferredFiles.get(path);
+        if (deferred != null) {
+            return deferred;
+        }
+        return files.get(path);
     }
 
     @Override
@@ -100,9 +106,12 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputChan
         // Could possibly also short-circuit some scanning if we have details for some sub trees
         if (cachedDirectories.contains(path)) {
             return cacheTrees.get(path);
-        } else {
-            return trees.get(path);
         }
+        FileTreeSnapshot deferred = deferredTrees.get(path);
+        if (deferred != null) {
+            return deferred;
+        }
+        return trees.get(path);
     }
 
     @Override
@@ -114,6 +123,22 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputChan
         }
     }
 
+    @Override
+    public void putDeferredFile(FileSnapshot file) {
+        deferredFiles.put(file.getPath(), file);
+    }
+
+    @Override
+    public void putDeferredDirectory(FileTreeSnapshot directory) {
+        deferredTrees.put(directory.getPath(), directory);
+    }
+
+    @Override
+    public void removeDeferred(String path) {
+        deferredFiles.remove(path);
+        deferredTrees.remove(path);
+    }
+
     @Override
     public void beforeTaskOutputChanged() {
         // When the task outputs are generated, throw away all state for files that do not live in an append-only cache.
@@ -136,5 +161,7 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputChan
         cacheTrees.clear();
         snapshots.clear();
         cacheSnapshots.clear();
+        deferredFiles.clear();
+        deferredTrees.clear();
     }
 }
@@ -41,4 +41,20 @@ public interface FileSystemMirror {
     FileTreeSnapshot getDirectoryTree(String path);
 
     void putDirectory(FileTreeSnapshot directory);
+
+    /**
+     * Records the snapshot of a task output that was loaded from the build cache but has not been written to the file system yet.
+     * Deferred snapshots are retained when task outputs change, until they are removed with {@link #removeDeferred(String)} or the build completes.
+     */
+    void putDeferredFile(FileSnapshot file);
+
+    /**
+     * Records the snapshot of a task output directory that has not been written to the file system yet, see {@link #putDeferredFile(FileSnapshot)}.
+     */
+    void putDeferredDirectory(FileTreeSnapshot directory);
+
+    /**
+     * Removes the deferred snapshots for the given root path, once the output has been written to the file system.
+     */
+    void removeDeferred(String path);
 }
@@ -76,6 +76,21 @@ class InMemoryDecoratedCache<K, V> implements MultiProcessSafeAsyncPersistentInd
         }
     }
 
+    @Override
+    public V getIfCached(K key) {
+        Object value = inMemoryCache.getIfPresent(key);
+        if (value == NULL) {
+            return null;
+        } else {
+            return (V) value;
+        }
+    }
+
+    @Override
+    public boolean canGetIfCached() {
+        return true;
+    }
+
     @Override
     public V get(final K key, final Transformer<? extends V, ? super K> producer, final Runnable completion) {
         assert key instanceof String || key instanceof Long || key instanceof File || key instanceof HashCode : "Unsupported key type: " + key;
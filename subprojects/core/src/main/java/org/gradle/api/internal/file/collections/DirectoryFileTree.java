@@ -24,6 +24,8 @@ import org.gradle.api.file.RelativePath;
 import org.gradle.api.file.ReproducibleFileVisitor;
 import org.gradle.api.internal.file.DefaultFileVisitDetails;
 import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker;
+import org.gradle.api.internal.file.collections.jdk7.ParallelDirectoryWalker;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
@@ -51,21 +53,29 @@ public class DirectoryFileTree implements MinimalFileTree, PatternFilterableFile
     private static final Logger LOGGER = Logging.getLogger(DirectoryFileTree.class);
     private static final Factory<DirectoryWalker> DEFAULT_DIRECTORY_WALKER_FACTORY = new DefaultDirectoryWalkerFactory();
     private static final DirectoryWalker REPRODUCIBLE_DIRECTORY_WALKER = new ReproducibleDirectoryWalker(FileSystems.getDefault());
+    // Lists directories using java.nio.file, so it is only used where the default walker does the same
+    private static final DirectoryWalker PARALLEL_DIRECTORY_WALKER = DEFAULT_DIRECTORY_WALKER_FACTORY.create() instanceof Jdk7DirectoryWalker ? new ParallelDirectoryWalker(FileSystems.getDefault()) : null;
 
     private final File dir;
     private final PatternSet patternSet;
     private final boolean postfix;
     private final FileSystem fileSystem;
     private final Factory<DirectoryWalker> directoryWalkerFactory;
+    private final DirectoryWalker parallelDirectoryWalker;
 
     public DirectoryFileTree(File dir, PatternSet patternSet, FileSystem fileSystem) {
         this(dir, patternSet, DEFAULT_DIRECTORY_WALKER_FACTORY, fileSystem, false);
     }
 
     DirectoryFileTree(File dir, PatternSet patternSet, Factory<DirectoryWalker> directoryWalkerFactory, FileSystem fileSystem, boolean postfix) {
+        this(dir, patternSet, directoryWalkerFactory, PARALLEL_DIRECTORY_WALKER, fileSystem, postfix);
+    }
+
+    DirectoryFileTree(File dir, PatternSet patternSet, Factory<DirectoryWalker> directoryWalkerFactory, DirectoryWalker parallelDirectoryWalker, FileSystem fileSystem, boolean postfix) {
         this.patternSet = patternSet;
         this.dir = dir;
         this.directoryWalkerFactory = directoryWalkerFactory;
+        this.parallelDirectoryWalker = parallelDirectoryWalker;
         this.fileSystem = fileSystem;
         this.postfix = postfix;
     }
@@ -96,7 +106,7 @@ public class DirectoryFileTree implements MinimalFileTree, PatternFilterableFile
     public DirectoryFileTree filter(PatternFilterable patterns) {
         PatternSet patternSet = this.patternSet.intersect();
         patternSet.copyFrom(patterns);
-        return new DirectoryFileTree(dir, patternSet, directoryWalkerFactory, fileSystem, postfix);
+        return new DirectoryFileTree(dir, patternSet, directoryWalkerFactory, parallelDirectoryWalker, fileSystem, postfix);
     }
 
     public boolean contains(File file) {
@@ -148,12 +158,22 @@ public class DirectoryFileTree implements MinimalFileTree, PatternFilterableFile
         DirectoryWalker directoryWalker;
         if (visitor instanceof ReproducibleFileVisitor && ((ReproducibleFileVisitor) visitor).isReproducibleFileOrder()) {
             directoryWalker = REPRODUCIBLE_DIRECTORY_WALKER;
+        } else if (parallelDirectoryWalker != null && visitor instanceof ExhaustiveFileVisitor && hasOnlyPatterns(patternSet)) {
+            directoryWalker = parallelDirectoryWalker;
         } else {
             directoryWalker = directoryWalkerFactory.create();
         }
         directoryWalker.walkDir(file, path, visitor, spec, stopFlag, postfix);
     }
 
+    /**
+     * Returns true when the given patterns are only made of include and exclude patterns, which can be matched from any thread. Specs added
+     * to a pattern set, such as closures from a build script, are only evaluated on the thread that visits the tree.
+     */
+    private static boolean hasOnlyPatterns(PatternSet patternSet) {
+        return patternSet.getClass() == PatternSet.class && patternSet.getIncludeSpecs().isEmpty() && patternSet.getExcludeSpecs().isEmpty();
+    }
+
     static boolean isAllowed(FileTreeElement element, Spec<? super FileTreeElement> spec) {
         return spec.isSatisfiedBy(element);
     }
@@ -167,7 +187,7 @@ public class DirectoryFileTree implements MinimalFileTree, PatternFilterableFile
         if (postfix) {
             return this;
         }
-        return new DirectoryFileTree(dir, patternSet, directoryWalkerFactory, fileSystem, true);
+        return new DirectoryFileTree(dir, patternSet, directoryWalkerFactory, parallelDirectoryWalker, fileSystem, true);
     }
 
     public PatternSet getPatternSet() {
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections.jdk7;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.file.UnauthorizedFileVisitDetails;
+import org.gradle.api.internal.file.collections.DirectoryWalker;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link DirectoryWalker} that lists large trees using a fork/join pool, one task per directory.
+ *
+ * <p>The visitor is called on the calling thread, while the pool lists the directories ahead of it. The entries of each directory are visited
+ * in the order of their names, so the visiting order does not depend on the file system or on how the listing was scheduled. When the visitor
+ * reaches a directory that no task has started to list yet, it lists the directory itself. Directories excluded by the spec are not descended
+ * into. Small trees never leave the calling thread: the walk only switches to the pool once more than a threshold number of entries have been
+ * listed.</p>
+ *
+ * <p>The pool stops listing further directories once a given number of entries have been listed but not yet visited, and carries on as the
+ * visitor catches up. Each directory is released once visited, so only the part of the tree between the visitor and the listing is kept in
+ * memory. Failures are reported when the visitor reaches the directory that could not be listed.</p>
+ *
+ * <p>As directories are listed ahead of the visitor, stopping the visit may not save all listing, and the spec may be evaluated from several
+ * threads. This walker is therefore only used for visitors that consume every entry, with specs made of include and exclude patterns. See
+ * {@link org.gradle.api.internal.file.collections.ExhaustiveFileVisitor}.</p>
+ */
+public class ParallelDirectoryWalker implements DirectoryWalker {
+    /**
+     * System property to set the number of entries that are listed on the calling thread before switching to the pool.
+     */
+    public static final String THRESHOLD_PROPERTY = "org.gradle.internal.file.parallelWalkThreshold";
+    private static final int DEFAULT_THRESHOLD = 10000;
+    private static final int DEFAULT_MAX_LISTED_AHEAD = 50000;
+
+    private static final Comparator<Path> BY_NAME = new Comparator<Path>() {
+        @Override
+        public int compare(Path o1, Path o2) {
+            return o1.getFileName().toString().compareTo(o2.getFileName().toString());
+        }
+    };
+
+    private final FileSystem fileSystem;
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int maxListedAhead;
+
+    public ParallelDirectoryWalker(FileSystem fileSystem) {
+        this(fileSystem, WalkerPool.POOL, Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD), DEFAULT_MAX_LISTED_AHEAD);
+    }
+
+    ParallelDirectoryWalker(FileSystem fileSystem, ForkJoinPool pool, int threshold, int maxListedAhead) {
+        this.fileSystem = fileSystem;
+        this.pool = pool;
+        this.threshold = threshold;
+        this.maxListedAhead = maxListedAhead;
+    }
+
+    @Override
+    public void walkDir(File rootDir, RelativePath rootPath, FileVisitor visitor, Spec<? super FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        Walk walk = new Walk(spec, stopFlag);
+        Path rootDirPath = rootDir.toPath();
+        DirectoryNode root = new DirectoryNode(null, null, rootDirPath, rootPath, fileKeyOf(rootDirPath));
+        try {
+            walk.visitChildren(root, visitor, postfix);
+        } finally {
+            // Stop any listing that is still in progress
+            walk.finished.set(true);
+        }
+    }
+
+    private class Walk {
+        private final Spec<? super FileTreeElement> spec;
+        private final AtomicBoolean stopFlag;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final AtomicLong listed = new AtomicLong();
+        private final AtomicLong listedAhead = new AtomicLong();
+
+        Walk(Spec<? super FileTreeElement> spec, AtomicBoolean stopFlag) {
+            this.spec = spec;
+            this.stopFlag = stopFlag;
+        }
+
+        /**
+         * Visits the children of the given directory on the calling thread, in order, listing the directory first when no task has started to.
+         */
+        void visitChildren(DirectoryNode directory, FileVisitor visitor, boolean postfix) {
+            if (directory.claim()) {
+                list(directory);
+            }
+            List<Object> children = directory.awaitChildren();
+            // Release the entries of the directory as they are visited
+            directory.children = null;
+            for (Object child : children) {
+                listedAhead.decrementAndGet();
+                if (stopFlag.get()) {
+                    return;
+                }
+                if (child instanceof DirectoryNode) {
+                    DirectoryNode subdirectory = (DirectoryNode) child;
+                    if (!postfix) {
+                        visitor.visitDir(subdirectory.details);
+                    }
+                    visitChildren(subdirectory, visitor, postfix);
+                    if (stopFlag.get()) {
+                        return;
+                    }
+                    if (postfix) {
+                        visitor.visitDir(subdirectory.details);
+                    }
+                } else {
+                    visitor.visitFile((FileVisitDetails) child);
+                }
+            }
+        }
+
+        /**
+         * Lists the given directory, which has been claimed by the current thread, and schedules the listing of its subdirectories when the
+         * walk has moved to the pool and the listing is not too far ahead of the visitor.
+         */
+        private void list(DirectoryNode directory) {
+            List<DirectoryNode> subdirectories = new ArrayList<DirectoryNode>();
+            try {
+                directory.listed(listChildren(directory, subdirectories));
+            } catch (Throwable t) {
+                directory.failed(t);
+                return;
+            }
+            if (listed.get() <= threshold || pool.getParallelism() < 2) {
+                return;
+            }
+            for (DirectoryNode subdirectory : subdirectories) {
+                if (finished.get() || listedAhead.get() >= maxListedAhead) {
+                    // The visitor lists the remaining subdirectories when it reaches them
+                    return;
+                }
+                pool.execute(new ListDirectoryTask(subdirectory));
+            }
+        }
+
+        /**
+         * Lists the children of the given directory that are accepted by the spec, and adds the subdirectories to the given collection.
+         */
+        private List<Object> listChildren(DirectoryNode directory, List<DirectoryNode> subdirectories) {
+            List<Path> entries;
+            try {
+                entries = readEntries(directory.path);
+            } catch (IOException e) {
+                if (directory.parent == null || isAllowed(new UnauthorizedFileVisitDetails(directory.path.toFile(), new RelativePath(true, directory.relativePath.getSegments())))) {
+                    throw new GradleException(String.format("Could not read path '%s'.", directory.path), e);
+                }
+                return Collections.emptyList();
+            }
+            List<Object> children = new ArrayList<Object>(entries.size());
+            for (Path entry : entries) {
+                if (stopFlag.get() || finished.get()) {
+                    break;
+                }
+                visitEntry(directory, entry, children, subdirectories);
+            }
+            listed.addAndGet(entries.size());
+            listedAhead.addAndGet(children.size());
+            return children;
+        }
+
+        private void visitEntry(DirectoryNode parent, Path entry, List<Object> children, List<DirectoryNode> subdirectories) {
+            File file = entry.toFile();
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+            } catch (IOException e) {
+                try {
+                    // Might be a symbolic link that cannot be followed
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e2) {
+                    if (isAllowed(new UnauthorizedFileVisitDetails(file, parent.relativePath.append(true, file.getName())))) {
+                        throw new GradleException(String.format("Could not read path '%s'.", entry), e2);
+                    }
+                    return;
+                }
+            }
+            boolean isDirectory = attrs.isDirectory();
+            RelativePath childPath = parent.relativePath.append(!isDirectory, file.getName());
+            FileVisitDetails details = new DefaultFileVisitDetails(file, childPath, stopFlag, fileSystem, fileSystem, isDirectory, attrs.lastModifiedTime().toMillis(), attrs.size());
+            if (!isAllowed(details)) {
+                return;
+            }
+            if (!isDirectory) {
+                if (attrs.isSymbolicLink()) {
+                    throw new GradleException(String.format("Could not list contents of '%s'. Couldn't follow symbolic link.", entry));
+                }
+                children.add(details);
+            } else if (!parent.isCycle(entry, attrs.fileKey())) {
+                DirectoryNode directory = new DirectoryNode(parent, details, entry, childPath, attrs.fileKey());
+                children.add(directory);
+                subdirectories.add(directory);
+            }
+        }
+
+        private boolean isAllowed(FileTreeElement element) {
+            return spec.isSatisfiedBy(element);
+        }
+
+        private class ListDirectoryTask implements Runnable {
+            private final DirectoryNode directory;
+
+            ListDirectoryTask(DirectoryNode directory) {
+                this.directory = directory;
+            }
+
+            @Override
+            public void run() {
+                // The visitor may have started to list the directory itself
+                if (!finished.get() && !stopFlag.get() && directory.claim()) {
+                    list(directory);
+                }
+            }
+        }
+    }
+
+    private static Object fileKeyOf(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<Path> readEntries(Path directory) throws IOException {
+        List<Path> entries = new ArrayList<Path>();
+        DirectoryStream<Path> stream = Files.newDirectoryStream(directory);
+        try {
+            for (Path entry : stream) {
+                entries.add(entry);
+            }
+        } catch (DirectoryIteratorException e) {
+            throw e.getCause();
+        } finally {
+            stream.close();
+        }
+        Collections.sort(entries, BY_NAME);
+        return entries;
+    }
+
+    private static class DirectoryNode {
+        private final DirectoryNode parent;
+        private final FileVisitDetails details;
+        private final Path path;
+        private final RelativePath relativePath;
+        private final Object fileKey;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        // Each element is either a FileVisitDetails for a file or a DirectoryNode. Published by the latch
+        private List<Object> children;
+        private Throwable failure;
+
+        DirectoryNode(DirectoryNode parent, FileVisitDetails details, Path path, RelativePath relativePath, Object fileKey) {
+            this.parent = parent;
+            this.details = details;
+            this.path = path;
+            this.relativePath = relativePath;
+            this.fileKey = fileKey;
+        }
+
+        /**
+         * Returns true when the current thread is the first to start listing this directory.
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        void listed(List<Object> children) {
+            this.children = children;
+            done.countDown();
+        }
+
+        void failed(Throwable failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        List<Object> awaitChildren() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+            return children;
+        }
+
+        /**
+         * Returns true when the given directory is this directory or one of its ancestors, which happens when following a symbolic link.
+         */
+        boolean isCycle(Path directory, Object directoryKey) {
+            for (DirectoryNode ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+                if (directoryKey != null && ancestor.fileKey != null) {
+                    if (directoryKey.equals(ancestor.fileKey)) {
+                        return true;
+                    }
+                } else if (isSameFile(directory, ancestor.path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isSameFile(Path first, Path second) {
+            try {
+                return Files.isSameFile(first, second);
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The pool shared by all walks. It is created on first use and its threads are daemon threads that stop when idle.
+     */
+    private static class WalkerPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("Directory walker " + counter.incrementAndGet());
+                return thread;
+            }
+        }, null, false);
+    }
+}
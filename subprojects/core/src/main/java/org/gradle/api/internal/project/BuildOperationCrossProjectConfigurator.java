@@ -31,9 +31,11 @@ import java.util.Collections;
 public class BuildOperationCrossProjectConfigurator implements CrossProjectConfigurator {
 
     private final BuildOperationExecutor buildOperationExecutor;
+    private final ProjectConfigurationLocks projectConfigurationLocks;
 
-    public BuildOperationCrossProjectConfigurator(BuildOperationExecutor buildOperationExecutor) {
+    public BuildOperationCrossProjectConfigurator(BuildOperationExecutor buildOperationExecutor, ProjectConfigurationLocks projectConfigurationLocks) {
         this.buildOperationExecutor = buildOperationExecutor;
+        this.projectConfigurationLocks = projectConfigurationLocks;
     }
 
     @Override
@@ -97,7 +99,12 @@ public class BuildOperationCrossProjectConfigurator implements CrossProjectConfi
 
             @Override
             public void run(BuildOperationContext context) {
-                ConfigureUtil.configure(configureClosure, project);
+                projectConfigurationLocks.withProjectLock((ProjectInternal) project, new Runnable() {
+                    @Override
+                    public void run() {
+                        ConfigureUtil.configure(configureClosure, project);
+                    }
+                });
             }
         });
     }
@@ -106,7 +113,12 @@ public class BuildOperationCrossProjectConfigurator implements CrossProjectConfi
         buildOperationExecutor.run(new CrossConfigureProjectBuildOperation(project) {
             @Override
             public void run(BuildOperationContext context) {
-                Actions.with(project, configureAction);
+                projectConfigurationLocks.withProjectLock((ProjectInternal) project, new Runnable() {
+                    @Override
+                    public void run() {
+                        Actions.with(project, configureAction);
+                    }
+                });
             }
         });
     }
@@ -197,6 +197,7 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     private final Path path;
     private Path identityPath;
+    private Boolean parallelConfigurationEnabled;
 
     public DefaultProject(String name,
                           @Nullable ProjectInternal parent,
@@ -598,15 +599,30 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public ProjectInternal project(String path) {
-        ProjectInternal project = findProject(path);
+        ProjectInternal project = getProject(path);
+        assertCanAccessModel(project);
+        return project;
+    }
+
+    @Override
+    public ProjectInternal findProject(String path) {
+        ProjectInternal project = lookupProject(path);
+        if (project != null) {
+            assertCanAccessModel(project);
+        }
+        return project;
+    }
+
+    private ProjectInternal getProject(String path) {
+        ProjectInternal project = lookupProject(path);
         if (project == null) {
             throw new UnknownProjectException(String.format("Project with path '%s' could not be found in %s.", path, this));
         }
         return project;
     }
 
-    @Override
-    public ProjectInternal findProject(String path) {
+    @Nullable
+    private ProjectInternal lookupProject(String path) {
         if (isNullOrEmpty(path)) {
             throw new InvalidUserDataException("A path must be specified!");
         }
@@ -735,12 +751,15 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         if (isNullOrEmpty(path)) {
             throw new InvalidUserDataException("You must specify a project!");
         }
-        DefaultProject projectToEvaluate = (DefaultProject) project(path);
+        DefaultProject projectToEvaluate = (DefaultProject) getProject(path);
         return evaluationDependsOn(projectToEvaluate);
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
-        if (projectToEvaluate.getState().getExecuting()) {
+        // When projects are configured in parallel, the project may be executing on some other thread. The project evaluator waits for that thread
+        if (isParallelConfigurationEnabled()
+            ? getProjectConfigurationLocks().isEvaluatedByCurrentThread(projectToEvaluate)
+            : projectToEvaluate.getState().getExecuting()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
         }
@@ -808,6 +827,29 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
         return foundTasks;
     }
 
+    @Inject
+    protected ProjectConfigurationLocks getProjectConfigurationLocks() {
+        // Decoration takes care of the implementation
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Fails when some other project is being configured by another thread, as the properties of that project are being mutated by that thread.
+     * This is checked when this project looks up the other project, rather than on each access to the properties of the other project.
+     */
+    private void assertCanAccessModel(ProjectInternal project) {
+        if (project != this && isParallelConfigurationEnabled()) {
+            getProjectConfigurationLocks().assertCanAccessModel(project);
+        }
+    }
+
+    private boolean isParallelConfigurationEnabled() {
+        if (parallelConfigurationEnabled == null) {
+            parallelConfigurationEnabled = ProjectConfigurationLocks.isParallelConfigurationEnabled(gradle.getStartParameter());
+        }
+        return parallelConfigurationEnabled;
+    }
+
     @Inject
     protected FileOperations getFileOperations() {
         // Decoration takes care of the implementation
@@ -1126,12 +1168,12 @@ public class DefaultProject extends AbstractPluginAware implements ProjectIntern
 
     @Override
     public Project project(String path, Closure configureClosure) {
-        return getProjectConfigurator().project(project(path), configureClosure);
+        return getProjectConfigurator().project(getProject(path), configureClosure);
     }
 
     @Override
     public Project project(String path, Action<? super Project> configureAction) {
-        return getProjectConfigurator().project(project(path), configureAction);
+        return getProjectConfigurator().project(getProject(path), configureAction);
     }
 
     @Override
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+import org.gradle.StartParameter;
+import org.gradle.api.CircularReferenceException;
+import org.gradle.api.InvalidUserCodeException;
+import org.gradle.api.Transformer;
+import org.gradle.api.internal.StartParameterInternal;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.resources.ResourceLock;
+import org.gradle.internal.resources.ResourceLockCoordinationService;
+import org.gradle.internal.resources.ResourceLockState;
+import org.gradle.internal.work.WorkerLeaseService;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.gradle.internal.resources.ResourceLockState.Disposition.FINISHED;
+
+/**
+ * Guards access to the mutable state of a project while the projects of a build are configured in parallel.
+ *
+ * <p>When parallel project configuration is enabled, each project is configured while holding the project lock of that project.
+ * Any access from one project to the configuration of another project, such as {@code evaluationDependsOn()} or {@code project(':other') { }},
+ * is serialized through the project lock of the target project. The lock of the accessing project is released while waiting, so that two projects
+ * that access each other cannot deadlock.</p>
+ *
+ * <p>Each project is evaluated by a single thread. A thread that needs a project that is being evaluated by some other thread waits for that
+ * evaluation to complete, and only fails when the threads involved wait for each other.</p>
+ */
+public class ProjectConfigurationLocks {
+    private final WorkerLeaseService workerLeaseService;
+    private final ResourceLockCoordinationService coordinationService;
+    private final Object evaluationLock = new Object();
+    // Guarded by evaluationLock
+    private final Map<String, Thread> evaluatingThreads = new HashMap<String, Thread>();
+    private final Map<Thread, String> awaitedEvaluations = new HashMap<Thread, String>();
+
+    public ProjectConfigurationLocks(WorkerLeaseService workerLeaseService, ResourceLockCoordinationService coordinationService) {
+        this.workerLeaseService = workerLeaseService;
+        this.coordinationService = coordinationService;
+    }
+
+    /**
+     * Returns true if the projects of the build with the given start parameter are configured in parallel.
+     */
+    public static boolean isParallelConfigurationEnabled(StartParameter startParameter) {
+        return startParameter.isParallelProjectExecutionEnabled()
+            && startParameter instanceof StartParameterInternal
+            && ((StartParameterInternal) startParameter).isParallelProjectConfigurationEnabled();
+    }
+
+    public boolean isParallelConfigurationEnabled(ProjectInternal project) {
+        return isParallelConfigurationEnabled(project.getGradle().getStartParameter());
+    }
+
+    /**
+     * Returns true if the current thread holds the lock of the given project.
+     */
+    public boolean isLockedByCurrentThread(ProjectInternal project) {
+        return isLockedByCurrentThread(getProjectLock(project));
+    }
+
+    /**
+     * Runs the given action while holding the lock of the given project. Does nothing special when parallel project configuration is not enabled
+     * or when the current thread already holds the lock. Otherwise, any project lock held by the current thread is released while waiting for the
+     * lock of the target project and reacquired once the action has completed.
+     */
+    public void withProjectLock(ProjectInternal project, final Runnable action) {
+        if (!isParallelConfigurationEnabled(project)) {
+            action.run();
+            return;
+        }
+        final ResourceLock projectLock = getProjectLock(project);
+        if (isLockedByCurrentThread(projectLock)) {
+            action.run();
+            return;
+        }
+        workerLeaseService.withoutProjectLock(new Runnable() {
+            @Override
+            public void run() {
+                workerLeaseService.withLocks(Collections.singleton(projectLock), action);
+            }
+        });
+    }
+
+    /**
+     * Runs the given evaluation of the given project. When parallel project configuration is enabled, the evaluation is run while holding the
+     * lock of the project, unless some other thread is already evaluating the project. In that case, the current thread waits for that evaluation to
+     * complete before running the given evaluation, which is expected to do nothing for a project that has already been evaluated.
+     *
+     * @throws CircularReferenceException when the evaluation of the project waits, directly or indirectly, for the current thread.
+     */
+    public void evaluate(ProjectInternal project, Runnable evaluation) {
+        if (!isParallelConfigurationEnabled(project)) {
+            evaluation.run();
+            return;
+        }
+
+        final String path = project.getIdentityPath().toString();
+        Thread currentThread = Thread.currentThread();
+        boolean claimed = false;
+        boolean await = false;
+        synchronized (evaluationLock) {
+            Thread evaluatingThread = evaluatingThreads.get(path);
+            if (evaluatingThread == null) {
+                evaluatingThreads.put(path, currentThread);
+                claimed = true;
+            } else if (evaluatingThread != currentThread) {
+                assertNotWaitingFor(evaluatingThread, project);
+                awaitedEvaluations.put(currentThread, path);
+                await = true;
+            }
+        }
+
+        if (claimed) {
+            try {
+                withProjectLock(project, evaluation);
+            } finally {
+                synchronized (evaluationLock) {
+                    evaluatingThreads.remove(path);
+                    evaluationLock.notifyAll();
+                }
+            }
+            return;
+        }
+        if (await) {
+            workerLeaseService.withoutProjectLock(new Runnable() {
+                @Override
+                public void run() {
+                    awaitEvaluation(path);
+                }
+            });
+        }
+        // Either the project is part way through its evaluation on the current thread, or its evaluation has completed
+        evaluation.run();
+    }
+
+    /**
+     * Returns true if the given project is being evaluated by the current thread.
+     */
+    public boolean isEvaluatedByCurrentThread(ProjectInternal project) {
+        return isEvaluatedByCurrentThread(project.getIdentityPath().toString());
+    }
+
+    /**
+     * Fails when the current thread accesses the model of a project that is part way through its evaluation on some other thread, as the
+     * model is being mutated by that thread. Access is allowed while the current thread holds the lock of the project, as it does when the
+     * project is configured using {@code project(':other') { }}.
+     *
+     * <p>This is called when one project looks up another project, such as using {@code project(':other')}, and not on each access to the
+     * properties of the other project.</p>
+     */
+    public void assertCanAccessModel(ProjectInternal project) {
+        if (!isParallelConfigurationEnabled(project)) {
+            return;
+        }
+        Thread evaluatingThread;
+        synchronized (evaluationLock) {
+            evaluatingThread = evaluatingThreads.get(project.getIdentityPath().toString());
+        }
+        if (evaluatingThread == null || evaluatingThread == Thread.currentThread() || isLockedByCurrentThread(project)) {
+            return;
+        }
+        throw new InvalidUserCodeException(String.format("Cannot access %s as it is being configured by another thread. "
+            + "When projects are configured in parallel, use evaluationDependsOn('%s') to make sure the project is configured before accessing it.",
+            project.getDisplayName(), project.getPath()));
+    }
+
+    private boolean isEvaluatedByCurrentThread(String path) {
+        synchronized (evaluationLock) {
+            return evaluatingThreads.get(path) == Thread.currentThread();
+        }
+    }
+
+    private void awaitEvaluation(String path) {
+        synchronized (evaluationLock) {
+            try {
+                while (evaluatingThreads.containsKey(path)) {
+                    evaluationLock.wait();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                awaitedEvaluations.remove(Thread.currentThread());
+            }
+        }
+    }
+
+    /**
+     * Follows the chain of evaluations that the given thread waits for, and fails if the chain leads back to the current thread.
+     */
+    private void assertNotWaitingFor(Thread evaluatingThread, ProjectInternal project) {
+        Thread thread = evaluatingThread;
+        while (thread != null) {
+            if (thread == Thread.currentThread()) {
+                throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", project.getDisplayName()));
+            }
+            String awaitedPath = awaitedEvaluations.get(thread);
+            thread = awaitedPath == null ? null : evaluatingThreads.get(awaitedPath);
+        }
+    }
+
+    private ResourceLock getProjectLock(ProjectInternal project) {
+        return workerLeaseService.getProjectLock(project.getGradle().getIdentityPath().toString(), project.getIdentityPath().toString());
+    }
+
+    private boolean isLockedByCurrentThread(final ResourceLock projectLock) {
+        final AtomicBoolean locked = new AtomicBoolean();
+        coordinationService.withStateLock(new Transformer<ResourceLockState.Disposition, ResourceLockState>() {
+            @Override
+            public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                locked.set(projectLock.isLockedByCurrentThread());
+                return FINISHED;
+            }
+        });
+        return locked.get();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.caching.internal.tasks.DeferredTaskOutputs;
+
+/**
+ * Unpacks the outputs of tasks loaded from the build cache that are needed to snapshot the inputs of the task, before the inputs are snapshotted.
+ */
+public class MaterializeDeferredOutputsTaskExecuter implements TaskExecuter {
+    private final DeferredTaskOutputs deferredTaskOutputs;
+    private final TaskExecuter executer;
+
+    public MaterializeDeferredOutputsTaskExecuter(DeferredTaskOutputs deferredTaskOutputs, TaskExecuter executer) {
+        this.deferredTaskOutputs = deferredTaskOutputs;
+        this.executer = executer;
+    }
+
+    @Override
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        deferredTaskOutputs.beforeSnapshot(context.getTaskProperties());
+        executer.execute(task, state, context);
+    }
+}
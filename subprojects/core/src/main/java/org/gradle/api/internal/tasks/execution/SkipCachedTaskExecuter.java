@@ -29,9 +29,11 @@ import org.gradle.api.internal.tasks.TaskExecutionOutcome;
 import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec;
 import org.gradle.api.internal.tasks.TaskStateInternal;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.caching.internal.tasks.DeferredTaskOutputs;
 import org.gradle.caching.internal.tasks.TaskOutputCacheCommandFactory;
 import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey;
 import org.gradle.caching.internal.tasks.UnrecoverableTaskOutputUnpackingException;
+import org.gradle.execution.TaskGraphExecuter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,15 +47,21 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
     private final TaskExecuter delegate;
     private final TaskOutputChangesListener taskOutputChangesListener;
     private final TaskOutputCacheCommandFactory buildCacheCommandFactory;
+    private final DeferredTaskOutputs deferredTaskOutputs;
+    private final TaskGraphExecuter taskGraph;
 
     public SkipCachedTaskExecuter(
         BuildCacheController buildCache,
         TaskOutputChangesListener taskOutputChangesListener,
         TaskOutputCacheCommandFactory buildCacheCommandFactory,
+        DeferredTaskOutputs deferredTaskOutputs,
+        TaskGraphExecuter taskGraph,
         TaskExecuter delegate
     ) {
         this.taskOutputChangesListener = taskOutputChangesListener;
         this.buildCacheCommandFactory = buildCacheCommandFactory;
+        this.deferredTaskOutputs = deferredTaskOutputs;
+        this.taskGraph = taskGraph;
         this.buildCache = buildCache;
         this.delegate = delegate;
     }
@@ -78,8 +86,9 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
                 outputProperties = resolveProperties(taskProperties.getOutputFileProperties());
                 if (taskState.isAllowedToUseCachedResults()) {
                     try {
+                        boolean deferUnpacking = deferredTaskOutputs.isEnabled() && deferredTaskOutputs.shouldDefer(task, taskGraph.getRequestedTasks());
                         OriginTaskExecutionMetadata originMetadata = buildCache.load(
-                            buildCacheCommandFactory.createLoad(cacheKey, outputProperties, task, taskProperties, taskOutputChangesListener, taskState)
+                            buildCacheCommandFactory.createLoad(cacheKey, outputProperties, task, taskProperties, taskOutputChangesListener, taskState, deferUnpacking)
                         );
                         if (originMetadata != null) {
                             state.setOutcome(TaskExecutionOutcome.FROM_CACHE);
@@ -102,6 +111,8 @@ public class SkipCachedTaskExecuter implements TaskExecuter {
             }
         }
 
+        // The task may read or overwrite outputs of other tasks that were loaded from the cache without being unpacked
+        deferredTaskOutputs.beforeExecution(taskProperties);
         delegate.execute(task, state, context);
 
         if (taskOutputCachingEnabled) {
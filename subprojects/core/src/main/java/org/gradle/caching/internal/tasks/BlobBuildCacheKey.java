@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+/**
+ * Keys for the entries of deduplicated task output caching: the manifest of a task's outputs and the blobs holding the content of its files.
+ */
+public class BlobBuildCacheKey implements BuildCacheKey {
+    private final String hashCode;
+    private final String displayName;
+
+    private BlobBuildCacheKey(HashCode hashCode, String displayName) {
+        this.hashCode = hashCode.toString();
+        this.displayName = displayName;
+    }
+
+    /**
+     * Returns the key of the blob holding content with the given hash.
+     */
+    public static BuildCacheKey forContent(HashCode contentHash) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString("blob");
+        hasher.putHash(contentHash);
+        return new BlobBuildCacheKey(hasher.hash(), "content " + contentHash);
+    }
+
+    /**
+     * Returns the key of the manifest stored for the given task output cache key. It is different from the key of the cache entry,
+     * so that manifests and entries with inline content are never confused. Manifests referring to chunked content hashes have
+     * different keys, so that clients hashing files differently never read each other's manifests.
+     */
+    public static BuildCacheKey forManifest(BuildCacheKey entryKey, boolean chunkedContentHashes) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(chunkedContentHashes ? "chunked-manifest" : "manifest");
+        hasher.putString(entryKey.getHashCode());
+        return new BlobBuildCacheKey(hasher.hash(), "manifest for " + entryKey.getDisplayName());
+    }
+
+    @Override
+    public String getHashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return hashCode.equals(((BlobBuildCacheKey) o).hashCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -32,6 +32,8 @@ import org.gradle.caching.internal.controller.RootBuildCacheControllerRef;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginFactory;
 import org.gradle.initialization.buildsrc.BuildSourceBuilder;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.hash.ChunkedFileHasher;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -55,8 +57,8 @@ public class BuildCacheTaskServices {
 
     private static final Path ROOT_BUILD_SRC_PATH = Path.path(":" + BuildSourceBuilder.BUILD_SRC);
 
-    TaskOutputPacker createTaskResultPacker(FileSystem fileSystem, StreamHasher fileHasher, StringInterner stringInterner) {
-        return new GZipTaskOutputPacker(new TarTaskOutputPacker(fileSystem, fileHasher, stringInterner));
+    TaskOutputPacker createTaskResultPacker(FileSystem fileSystem, StreamHasher streamHasher, FileHasher fileHasher, StringInterner stringInterner) {
+        return new GZipTaskOutputPacker(new TarTaskOutputPacker(fileSystem, streamHasher, fileHasher, stringInterner));
     }
 
     TaskOutputOriginFactory createTaskOutputOriginFactory(
@@ -73,9 +75,11 @@ public class BuildCacheTaskServices {
         TaskOutputPacker taskOutputPacker,
         TaskOutputOriginFactory taskOutputOriginFactory,
         FileSystemMirror fileSystemMirror,
-        StringInterner stringInterner
+        StringInterner stringInterner,
+        DeferredTaskOutputs deferredTaskOutputs,
+        ChunkedFileHasher chunkedFileHasher
     ) {
-        return new TaskOutputCacheCommandFactory(taskOutputPacker, taskOutputOriginFactory, fileSystemMirror, stringInterner);
+        return new TaskOutputCacheCommandFactory(taskOutputPacker, taskOutputOriginFactory, fileSystemMirror, stringInterner, deferredTaskOutputs, Boolean.getBoolean(TaskOutputCacheCommandFactory.DEDUPLICATE_PROPERTY), chunkedFileHasher.isEnabled());
     }
 
     BuildCacheController createBuildCacheController(
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.gradle.api.Task;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.file.FileCollectionInternal;
+import org.gradle.api.internal.file.FileCollectionVisitor;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.tasks.GenericFileNormalizer;
+import org.gradle.api.internal.tasks.TaskInputFilePropertySpec;
+import org.gradle.api.internal.tasks.TaskOutputFilePropertySpec;
+import org.gradle.api.internal.tasks.execution.TaskProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps track of task outputs that were loaded from the build cache without being unpacked.
+ *
+ * <p>When enabled with {@link #ENABLED_PROPERTY}, a cache hit only records the snapshots of the task's outputs, unless the outputs are a final
+ * artifact of the build. The cache entry is kept in a temporary file, and the outputs are unpacked when something needs their contents: before
+ * a task that consumes them executes, or before an input snapshot needs more than their content hashes, for example to normalize a classpath.
+ * Outputs that are only consumed by other cache hits are never written to the file system.</p>
+ *
+ * <p>This requires that everything that reads the outputs of a task declares them as inputs.</p>
+ */
+public class DeferredTaskOutputs implements Closeable {
+    /**
+     * Enables deferred unpacking of cache hits when set to {@code true}.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.caching.deferUnpacking";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeferredTaskOutputs.class);
+
+    private final TemporaryFileProvider temporaryFileProvider;
+    private final boolean enabled;
+    private final List<Entry> pending = new CopyOnWriteArrayList<Entry>();
+
+    public DeferredTaskOutputs(TemporaryFileProvider temporaryFileProvider) {
+        this(temporaryFileProvider, Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+    DeferredTaskOutputs(TemporaryFileProvider temporaryFileProvider, boolean enabled) {
+        this.temporaryFileProvider = temporaryFileProvider;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns true if unpacking the outputs of the given task should be deferred, when enabled. The outputs of requested tasks are always unpacked,
+     * as are the outputs of tasks that requested tasks without actions depend on, such as the jar behind {@code assemble}.
+     */
+    public boolean shouldDefer(TaskInternal task, Collection<? extends Task> requestedTasks) {
+        Set<Task> seen = new HashSet<Task>();
+        Deque<Task> queue = new ArrayDeque<Task>(requestedTasks);
+        while (!queue.isEmpty()) {
+            Task candidate = queue.removeFirst();
+            if (!seen.add(candidate)) {
+                continue;
+            }
+            if (candidate == task) {
+                return false;
+            }
+            if (!((TaskInternal) candidate).hasTaskActions()) {
+                queue.addAll(candidate.getTaskDependencies().getDependencies(candidate));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a temporary file to hold a cache entry until its outputs are unpacked.
+     */
+    public File createEntryFile() {
+        return temporaryFileProvider.createTemporaryFile("deferred-", ".bin", "build-cache");
+    }
+
+    /**
+     * Records outputs that have not been unpacked yet.
+     */
+    public void add(DeferredOutput output) {
+        pending.add(new Entry(output));
+    }
+
+    /**
+     * Unpacks the deferred outputs that would be read when snapshotting the inputs of the given task. Outputs that are used as the
+     * root of an input property with the default normalization are left alone, as their snapshots are already known.
+     */
+    public void beforeSnapshot(TaskProperties taskProperties) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<Entry> required = new LinkedHashSet<Entry>();
+        for (TaskInputFilePropertySpec property : taskProperties.getInputFileProperties()) {
+            boolean snapshotsSuffice = !property.isSkipWhenEmpty() && property.getNormalizer() == GenericFileNormalizer.class;
+            collectOverlapping(property.getPropertyFiles(), snapshotsSuffice, required);
+        }
+        materialize(required);
+    }
+
+    /**
+     * Unpacks the deferred outputs that the given task may read or write when it executes.
+     */
+    public void beforeExecution(TaskProperties taskProperties) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<Entry> required = new LinkedHashSet<Entry>();
+        for (TaskInputFilePropertySpec property : taskProperties.getInputFileProperties()) {
+            collectOverlapping(property.getPropertyFiles(), false, required);
+        }
+        for (TaskOutputFilePropertySpec property : taskProperties.getOutputFileProperties()) {
+            collectOverlapping(property.getPropertyFiles(), false, required);
+        }
+        materialize(required);
+    }
+
+    private void collectOverlapping(FileCollection files, final boolean snapshotsSuffice, final Set<Entry> required) {
+        ((FileCollectionInternal) files).visitRootElements(new FileCollectionVisitor() {
+            @Override
+            public void visitCollection(FileCollectionInternal fileCollection) {
+                for (File file : fileCollection) {
+                    collectOverlapping(file, snapshotsSuffice, required);
+                }
+            }
+
+            @Override
+            public void visitTree(FileTreeInternal fileTree) {
+                // Cannot tell which files an arbitrary tree reads
+                required.addAll(pending);
+            }
+
+            @Override
+            public void visitDirectoryTree(DirectoryFileTree directoryTree) {
+                collectOverlapping(directoryTree.getDir(), snapshotsSuffice, required);
+            }
+        });
+    }
+
+    private void collectOverlapping(File file, boolean snapshotsSuffice, Set<Entry> required) {
+        for (Entry entry : pending) {
+            for (File root : entry.output.getRoots()) {
+                if (root.equals(file) ? !snapshotsSuffice : isAncestor(root, file) || isAncestor(file, root)) {
+                    required.add(entry);
+                }
+            }
+        }
+    }
+
+    private static boolean isAncestor(File ancestor, File file) {
+        return file.getPath().startsWith(ancestor.getPath() + File.separator);
+    }
+
+    private void materialize(Collection<Entry> entries) {
+        for (Entry entry : entries) {
+            entry.materialize();
+        }
+    }
+
+    /**
+     * Discards the outputs that were never needed.
+     */
+    @Override
+    public void close() {
+        for (Entry entry : pending) {
+            entry.discard();
+        }
+    }
+
+    /**
+     * Outputs of a task that have not been unpacked yet.
+     */
+    public interface DeferredOutput {
+        /**
+         * The output files and directories.
+         */
+        Collection<File> getRoots();
+
+        /**
+         * Writes the outputs to the file system.
+         */
+        void materialize();
+
+        /**
+         * Releases the resources held for the outputs without writing them.
+         */
+        void discard();
+    }
+
+    private class Entry {
+        private final DeferredOutput output;
+        private boolean done;
+
+        Entry(DeferredOutput output) {
+            this.output = output;
+        }
+
+        synchronized void materialize() {
+            if (done) {
+                return;
+            }
+            done = true;
+            pending.remove(this);
+            LOGGER.info("Unpacking deferred outputs {}.", output);
+            output.materialize();
+        }
+
+        synchronized void discard() {
+            if (done) {
+                return;
+            }
+            done = true;
+            pending.remove(this);
+            output.discard();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.apache.commons.io.IOUtils;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.changedetection.state.FileContentSnapshot;
 import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
+import org.gradle.caching.internal.controller.BuildCacheBlobs;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
 
@@ -51,6 +52,16 @@ public class GZipTaskOutputPacker implements TaskOutputPacker {
         }
     }
 
+    @Override
+    public PackResult packManifest(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputFiles, OutputStream output, TaskOutputOriginWriter writeOrigin) throws IOException {
+        GZIPOutputStream gzipOutput = createGzipOutputStream(output);
+        try {
+            return delegate.packManifest(propertySpecs, outputFiles, gzipOutput, writeOrigin);
+        } finally {
+            IOUtils.closeQuietly(gzipOutput);
+        }
+    }
+
     private GZIPOutputStream createGzipOutputStream(OutputStream output) {
         try {
             return new GZIPOutputStream(output);
@@ -69,6 +80,26 @@ public class GZipTaskOutputPacker implements TaskOutputPacker {
         }
     }
 
+    @Override
+    public UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin, BuildCacheBlobs blobs) throws IOException {
+        GZIPInputStream gzipInput = createGzipInputStream(input);
+        try {
+            return delegate.unpack(propertySpecs, gzipInput, readOrigin, blobs);
+        } finally {
+            IOUtils.closeQuietly(gzipInput);
+        }
+    }
+
+    @Override
+    public UnpackResult read(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) throws IOException {
+        GZIPInputStream gzipInput = createGzipInputStream(input);
+        try {
+            return delegate.read(propertySpecs, gzipInput, readOrigin);
+        } finally {
+            IOUtils.closeQuietly(gzipInput);
+        }
+    }
+
     private GZIPInputStream createGzipInputStream(InputStream input) {
         try {
             return new GZIPInputStream(input);
@@ -18,9 +18,13 @@ package org.gradle.caching.internal.tasks;
 
 import com.google.common.base.Function;
 import com.google.common.base.Strings;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
@@ -41,12 +45,18 @@ import org.gradle.api.internal.tasks.CacheableTaskOutputFilePropertySpec;
 import org.gradle.api.internal.tasks.OutputType;
 import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
 import org.gradle.api.internal.tasks.TaskFilePropertySpec;
+import org.gradle.caching.BuildCacheEntryReader;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.BuildCacheBlobs;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 
+import javax.annotation.Nullable;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -60,7 +70,9 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -70,10 +82,14 @@ import static org.gradle.caching.internal.tasks.TaskOutputPackerUtils.makeDirect
 
 /**
  * Packages task output to a POSIX TAR file.
+ *
+ * <p>A manifest is a TAR file with the same layout, where the entry of each regular file contains the hash of the file's content instead of
+ * the content itself. Its {@code BLOBS} entry marks it as a manifest. The content is stored as blobs keyed by {@link BlobBuildCacheKey#forContent(HashCode)}.</p>
  */
 @SuppressWarnings("Since15")
 public class TarTaskOutputPacker implements TaskOutputPacker {
     private static final String METADATA_PATH = "METADATA";
+    private static final String BLOBS_PATH = "BLOBS";
     private static final Pattern PROPERTY_PATH = Pattern.compile("(missing-)?property-([^/]+)(?:/(.*))?");
     @SuppressWarnings("OctalInteger")
     private static final int FILE_PERMISSION_MASK = 0777;
@@ -87,16 +103,30 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
 
     private final FileSystem fileSystem;
     private final StreamHasher streamHasher;
+    private final FileHasher fileHasher;
     private final StringInterner stringInterner;
 
-    public TarTaskOutputPacker(FileSystem fileSystem, StreamHasher streamHasher, StringInterner stringInterner) {
+    /**
+     * @param fileHasher hashes files the same way as file snapshots, whose content hashes key the blobs.
+     */
+    public TarTaskOutputPacker(FileSystem fileSystem, StreamHasher streamHasher, FileHasher fileHasher, StringInterner stringInterner) {
         this.fileSystem = fileSystem;
         this.streamHasher = streamHasher;
+        this.fileHasher = fileHasher;
         this.stringInterner = stringInterner;
     }
 
     @Override
     public PackResult pack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, OutputStream output, TaskOutputOriginWriter writeOrigin) throws IOException {
+        return pack(propertySpecs, outputSnapshots, output, writeOrigin, false);
+    }
+
+    @Override
+    public PackResult packManifest(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, OutputStream output, TaskOutputOriginWriter writeOrigin) throws IOException {
+        return pack(propertySpecs, outputSnapshots, output, writeOrigin, true);
+    }
+
+    private PackResult pack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, OutputStream output, TaskOutputOriginWriter writeOrigin, boolean manifest) throws IOException {
         BufferedOutputStream bufferedOutput;
         if (output instanceof BufferedOutputStream) {
             bufferedOutput = (BufferedOutputStream) output;
@@ -109,8 +139,14 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
             tarOutput.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
             tarOutput.setAddPaxHeadersForNonAsciiNames(true);
             packMetadata(writeOrigin, tarOutput);
-            long entryCount = pack(propertySpecs, outputSnapshots, tarOutput);
-            return new PackResult(entryCount + 1);
+            long entryCount = 1;
+            if (manifest) {
+                createTarEntry(BLOBS_PATH, 0, UnixStat.FILE_FLAG | UnixStat.DEFAULT_FILE_PERM, tarOutput);
+                tarOutput.closeArchiveEntry();
+                entryCount++;
+            }
+            entryCount += pack(propertySpecs, outputSnapshots, tarOutput, manifest);
+            return new PackResult(entryCount);
         } finally {
             IOUtils.closeQuietly(tarOutput);
         }
@@ -124,13 +160,13 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         tarOutput.closeArchiveEntry();
     }
 
-    private long pack(Collection<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, TarArchiveOutputStream tarOutput) {
+    private long pack(Collection<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, TarArchiveOutputStream tarOutput, boolean manifest) {
         long entries = 0;
         for (ResolvedTaskOutputFilePropertySpec propertySpec : propertySpecs) {
             String propertyName = propertySpec.getPropertyName();
             Map<String, FileContentSnapshot> outputs = outputSnapshots.get(propertyName);
             try {
-                entries += packProperty(propertySpec, outputs, tarOutput);
+                entries += packProperty(propertySpec, outputs, tarOutput, manifest);
             } catch (Exception ex) {
                 throw new GradleException(String.format("Could not pack property '%s': %s", propertyName, ex.getMessage()), ex);
             }
@@ -138,7 +174,7 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         return entries;
     }
 
-    private long packProperty(CacheableTaskOutputFilePropertySpec propertySpec, Map<String, FileContentSnapshot> outputSnapshots, TarArchiveOutputStream tarOutput) throws IOException {
+    private long packProperty(CacheableTaskOutputFilePropertySpec propertySpec, Map<String, FileContentSnapshot> outputSnapshots, TarArchiveOutputStream tarOutput, boolean manifest) throws IOException {
         String propertyName = propertySpec.getPropertyName();
         File root = propertySpec.getOutputFile();
         if (root == null) {
@@ -151,16 +187,16 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         }
         switch (propertySpec.getOutputType()) {
             case DIRECTORY:
-                return storeDirectoryProperty(propertyPath, root, outputSnapshots, tarOutput);
+                return storeDirectoryProperty(propertyPath, root, outputSnapshots, tarOutput, manifest);
             case FILE:
-                storeFileProperty(propertyPath, root, tarOutput);
+                storeFileProperty(propertyPath, root, outputSnapshots, tarOutput, manifest);
                 return 1;
             default:
                 throw new AssertionError();
         }
     }
 
-    private long storeDirectoryProperty(String propertyPath, File directory, Map<String, FileContentSnapshot> outputSnapshots, final TarArchiveOutputStream tarOutput) throws IOException {
+    private long storeDirectoryProperty(String propertyPath, File directory, Map<String, FileContentSnapshot> outputSnapshots, final TarArchiveOutputStream tarOutput, boolean manifest) throws IOException {
         if (!directory.isDirectory()) {
             throw new IllegalArgumentException(String.format("Expected '%s' to be a directory", directory));
         }
@@ -187,7 +223,11 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
             int mode = fileSystem.getUnixMode(file);
             switch (entry.getValue().getType()) {
                 case RegularFile:
-                    storeFileEntry(file, targetPath, file.length(), mode, tarOutput);
+                    if (manifest) {
+                        storeBlobReference(targetPath, entry.getValue().getContentMd5(), mode, tarOutput);
+                    } else {
+                        storeFileEntry(file, targetPath, file.length(), mode, tarOutput);
+                    }
                     break;
                 case Directory:
                     storeDirectoryEntry(targetPath, mode, tarOutput);
@@ -202,11 +242,19 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         return entries;
     }
 
-    private void storeFileProperty(String propertyPath, File file, TarArchiveOutputStream tarOutput) throws IOException {
+    private void storeFileProperty(String propertyPath, File file, Map<String, FileContentSnapshot> outputSnapshots, TarArchiveOutputStream tarOutput, boolean manifest) throws IOException {
         if (!file.isFile()) {
             throw new IllegalArgumentException(String.format("Expected '%s' to be a file", file));
         }
-        storeFileEntry(file, propertyPath, file.length(), fileSystem.getUnixMode(file), tarOutput);
+        if (manifest) {
+            FileContentSnapshot snapshot = outputSnapshots.get(file.getAbsolutePath());
+            if (snapshot == null) {
+                throw new IllegalStateException("No snapshot found for file: " + file);
+            }
+            storeBlobReference(propertyPath, snapshot.getContentMd5(), fileSystem.getUnixMode(file), tarOutput);
+        } else {
+            storeFileEntry(file, propertyPath, file.length(), fileSystem.getUnixMode(file), tarOutput);
+        }
     }
 
     private void storeMissingProperty(String propertyPath, TarArchiveOutputStream tarOutput) throws IOException {
@@ -230,6 +278,13 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         tarOutput.closeArchiveEntry();
     }
 
+    private static void storeBlobReference(String path, HashCode contentHash, int mode, TarArchiveOutputStream tarOutput) throws IOException {
+        byte[] hashBytes = contentHash.toByteArray();
+        createTarEntry(path, hashBytes.length, UnixStat.FILE_FLAG | mode, tarOutput);
+        tarOutput.write(hashBytes);
+        tarOutput.closeArchiveEntry();
+    }
+
     private static void createTarEntry(String path, long size, int mode, TarArchiveOutputStream tarOutput) throws IOException {
         TarArchiveEntry entry = new TarArchiveEntry(path, true);
         entry.setSize(size);
@@ -241,13 +296,33 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
     public UnpackResult unpack(final SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, final InputStream input, final TaskOutputOriginReader readOrigin) throws IOException {
         TarArchiveInputStream tarInput = new TarArchiveInputStream(input);
         try {
-            return unpack(propertySpecs, tarInput, readOrigin);
+            return unpack(propertySpecs, tarInput, readOrigin, true, null);
         } finally {
             IOUtils.closeQuietly(tarInput);
         }
     }
 
-    private UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, TarArchiveInputStream tarInput, TaskOutputOriginReader readOriginAction) throws IOException {
+    @Override
+    public UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin, BuildCacheBlobs blobs) throws IOException {
+        TarArchiveInputStream tarInput = new TarArchiveInputStream(input);
+        try {
+            return unpack(propertySpecs, tarInput, readOrigin, true, blobs);
+        } finally {
+            IOUtils.closeQuietly(tarInput);
+        }
+    }
+
+    @Override
+    public UnpackResult read(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) throws IOException {
+        TarArchiveInputStream tarInput = new TarArchiveInputStream(input);
+        try {
+            return unpack(propertySpecs, tarInput, readOrigin, false, null);
+        } finally {
+            IOUtils.closeQuietly(tarInput);
+        }
+    }
+
+    private UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, TarArchiveInputStream tarInput, TaskOutputOriginReader readOriginAction, boolean materialize, @Nullable BuildCacheBlobs blobs) throws IOException {
         Map<String, ResolvedTaskOutputFilePropertySpec> propertySpecsMap = Maps.uniqueIndex(propertySpecs, new Function<TaskFilePropertySpec, String>() {
             @Override
             public String apply(TaskFilePropertySpec propertySpec) {
@@ -259,6 +334,8 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         ImmutableListMultimap.Builder<String, FileSnapshot> propertyFileSnapshots = ImmutableListMultimap.builder();
 
         long entries = 0;
+        boolean manifest = false;
+        ListMultimap<HashCode, BlobFile> blobFiles = ArrayListMultimap.create();
         while ((tarEntry = tarInput.getNextTarEntry()) != null) {
             ++entries;
             String path = tarEntry.getName();
@@ -266,6 +343,12 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
             if (path.equals(METADATA_PATH)) {
                 // handle origin metadata
                 originMetadata = readOriginAction.execute(new CloseShieldInputStream(tarInput));
+            } else if (path.equals(BLOBS_PATH)) {
+                // the content of files is stored in blobs
+                if (materialize && blobs == null) {
+                    throw new IllegalStateException("Cached result format error, the content of the outputs is stored separately.");
+                }
+                manifest = true;
             } else {
                 // handle output property
                 Matcher matcher = PROPERTY_PATH.matcher(path);
@@ -281,17 +364,22 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
 
                 boolean outputMissing = matcher.group(1) != null;
                 String childPath = matcher.group(3);
-                unpackPropertyEntry(propertySpec, tarInput, tarEntry, childPath, outputMissing, propertyFileSnapshots);
+                unpackPropertyEntry(propertySpec, tarInput, tarEntry, childPath, outputMissing, propertyFileSnapshots, materialize, blobFiles, manifest);
             }
         }
         if (originMetadata == null) {
             throw new IllegalStateException("Cached result format error, no origin metadata was found.");
         }
+        if (blobFiles.isEmpty()) {
+            return new UnpackResult(originMetadata, entries, propertyFileSnapshots.build());
+        }
 
-        return new UnpackResult(originMetadata, entries, propertyFileSnapshots.build());
+        // Load all blobs at once, so that they can be transferred concurrently
+        unpackBlobs(blobFiles, blobs);
+        return new UnpackResult(originMetadata, entries, withModificationTimes(propertyFileSnapshots.build(), blobFiles.values()));
     }
 
-    private void unpackPropertyEntry(ResolvedTaskOutputFilePropertySpec propertySpec, InputStream input, TarArchiveEntry entry, String childPath, boolean missing, ImmutableMultimap.Builder<String, FileSnapshot> fileSnapshots) throws IOException {
+    private void unpackPropertyEntry(ResolvedTaskOutputFilePropertySpec propertySpec, InputStream input, TarArchiveEntry entry, String childPath, boolean missing, ImmutableMultimap.Builder<String, FileSnapshot> fileSnapshots, boolean materialize, ListMultimap<HashCode, BlobFile> blobFiles, boolean blobReference) throws IOException {
         File propertyRoot = propertySpec.getOutputFile();
         String propertyName = propertySpec.getPropertyName();
         if (propertyRoot == null) {
@@ -304,7 +392,7 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         if (root) {
             // We are handling the root of the property here
             if (missing) {
-                if (!makeDirectory(propertyRoot.getParentFile())) {
+                if (materialize && !makeDirectory(propertyRoot.getParentFile())) {
                     // Make sure output is removed if it exists already
                     if (propertyRoot.exists()) {
                         FileUtils.forceDelete(propertyRoot);
@@ -323,7 +411,9 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
                     throw new IllegalStateException("Property should be an output file property: " + propertyName);
                 }
             }
-            ensureDirectoryForProperty(outputType, propertyRoot);
+            if (materialize) {
+                ensureDirectoryForProperty(outputType, propertyRoot);
+            }
             outputFile = propertyRoot;
         } else {
             outputFile = new File(propertyRoot, childPath);
@@ -331,12 +421,30 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
 
         String internedPath = stringInterner.intern(outputFile.getAbsolutePath());
         RelativePath relativePath = root ? RelativePath.parse(!isDirEntry, outputFile.getName()) : RelativePath.parse(!isDirEntry, childPath);
+        if (!materialize) {
+            if (isDirEntry) {
+                fileSnapshots.put(propertyName, new DirectoryFileSnapshot(internedPath, relativePath, root));
+            } else {
+                // The file has not been written, so it has no modification time yet
+                HashCode hash = blobReference ? HashCode.fromBytes(IOUtils.toByteArray(input)) : streamHasher.hash(input);
+                FileHashSnapshot contentSnapshot = new FileHashSnapshot(hash, 0);
+                fileSnapshots.put(propertyName, new RegularFileSnapshot(internedPath, relativePath, root, contentSnapshot));
+            }
+            return;
+        }
+
         if (isDirEntry) {
             FileUtils.forceMkdir(outputFile);
             fileSnapshots.put(propertyName, new DirectoryFileSnapshot(internedPath, relativePath, root));
+        } else if (blobReference) {
+            // The content is written once all blobs have been loaded, which also sets the modification time of the snapshot
+            HashCode contentHash = HashCode.fromBytes(IOUtils.toByteArray(input));
+            blobFiles.put(contentHash, new BlobFile(outputFile, entry.getMode() & FILE_PERMISSION_MASK));
+            fileSnapshots.put(propertyName, new RegularFileSnapshot(internedPath, relativePath, root, new FileHashSnapshot(contentHash, 0)));
+            return;
         } else {
-            OutputStream output = new FileOutputStream(outputFile);
             HashCode hash;
+            OutputStream output = new FileOutputStream(outputFile);
             try {
                 hash = streamHasher.hashCopy(input, output);
             } finally {
@@ -349,6 +457,85 @@ public class TarTaskOutputPacker implements TaskOutputPacker {
         fileSystem.chmod(outputFile, entry.getMode() & FILE_PERMISSION_MASK);
     }
 
+    /**
+     * Writes the content of each blob to the first file that refers to it, and copies it to the other files with the same content.
+     */
+    private void unpackBlobs(ListMultimap<HashCode, BlobFile> blobFiles, BuildCacheBlobs blobs) throws IOException {
+        Map<BuildCacheKey, BuildCacheEntryReader> readers = Maps.newLinkedHashMap();
+        Map<BuildCacheKey, HashCode> contentHashes = Maps.newHashMap();
+        for (HashCode contentHash : blobFiles.keySet()) {
+            BuildCacheKey key = BlobBuildCacheKey.forContent(contentHash);
+            readers.put(key, new WriteBlob(blobFiles.get(contentHash).get(0).outputFile));
+            contentHashes.put(key, contentHash);
+        }
+        Set<BuildCacheKey> missing = blobs.load(readers);
+        if (!missing.isEmpty()) {
+            HashCode contentHash = contentHashes.get(missing.iterator().next());
+            throw new IllegalStateException(String.format("Content with hash %s for '%s' was not found in the build cache.", contentHash, blobFiles.get(contentHash).get(0).outputFile));
+        }
+
+        for (HashCode contentHash : blobFiles.keySet()) {
+            List<BlobFile> files = blobFiles.get(contentHash);
+            File loadedFile = files.get(0).outputFile;
+            // Use the same hash function as the file snapshots, which may hash large files in chunks
+            HashCode hash = fileHasher.hash(loadedFile);
+            if (!contentHash.equals(hash)) {
+                throw new IllegalStateException(String.format("Content loaded for '%s' has hash %s, expected %s.", loadedFile, hash, contentHash));
+            }
+            for (BlobFile file : files) {
+                if (file.outputFile != loadedFile) {
+                    Files.copy(loadedFile, file.outputFile);
+                }
+                fileSystem.chmod(file.outputFile, file.mode);
+            }
+        }
+    }
+
+    private static ImmutableListMultimap<String, FileSnapshot> withModificationTimes(ImmutableListMultimap<String, FileSnapshot> snapshots, Collection<BlobFile> blobFiles) {
+        Set<String> blobPaths = Sets.newHashSet();
+        for (BlobFile blobFile : blobFiles) {
+            blobPaths.add(blobFile.outputFile.getAbsolutePath());
+        }
+        ImmutableListMultimap.Builder<String, FileSnapshot> builder = ImmutableListMultimap.builder();
+        for (Map.Entry<String, FileSnapshot> entry : snapshots.entries()) {
+            FileSnapshot snapshot = entry.getValue();
+            if (snapshot.getType() == FileType.RegularFile && blobPaths.contains(snapshot.getPath())) {
+                FileHashSnapshot content = new FileHashSnapshot(snapshot.getContent().getContentMd5(), new File(snapshot.getPath()).lastModified());
+                snapshot = new RegularFileSnapshot(snapshot.getPath(), snapshot.getRelativePath(), snapshot.isRoot(), content);
+            }
+            builder.put(entry.getKey(), snapshot);
+        }
+        return builder.build();
+    }
+
+    private static class BlobFile {
+        private final File outputFile;
+        private final int mode;
+
+        BlobFile(File outputFile, int mode) {
+            this.outputFile = outputFile;
+            this.mode = mode;
+        }
+    }
+
+    private static class WriteBlob implements BuildCacheEntryReader {
+        private final File outputFile;
+
+        WriteBlob(File outputFile) {
+            this.outputFile = outputFile;
+        }
+
+        @Override
+        public void readFrom(InputStream input) throws IOException {
+            OutputStream output = new FileOutputStream(outputFile);
+            try {
+                IOUtils.copyLarge(input, output, COPY_BUFFERS.get());
+            } finally {
+                IOUtils.closeQuietly(output);
+            }
+        }
+    }
+
     private static String escape(String name) {
         try {
             return URLEncoder.encode(name, "utf-8");
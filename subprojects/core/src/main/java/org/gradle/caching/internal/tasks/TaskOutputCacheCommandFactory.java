@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterables;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.RelativePath;
@@ -44,16 +45,26 @@ import org.gradle.api.internal.tasks.execution.TaskProperties;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.BuildCacheBlobLoadCommand;
+import org.gradle.caching.internal.controller.BuildCacheBlobStoreCommand;
+import org.gradle.caching.internal.controller.BuildCacheBlobs;
 import org.gradle.caching.internal.controller.BuildCacheLoadCommand;
 import org.gradle.caching.internal.controller.BuildCacheStoreCommand;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginFactory;
 import org.gradle.internal.file.FileType;
 
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -61,6 +72,10 @@ import java.util.SortedSet;
 import static org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareStrategy.UNORDERED;
 
 public class TaskOutputCacheCommandFactory {
+    /**
+     * Stores task outputs as a manifest and one blob per distinct file content when set to {@code true}, see {@link BlobBuildCacheKey}.
+     */
+    public static final String DEDUPLICATE_PROPERTY = "org.gradle.caching.deduplicate";
 
     private static final Logger LOGGER = Logging.getLogger(TaskOutputCacheCommandFactory.class);
     private static final Predicate<? super FileSnapshot> EXCLUDE_ROOT_SNAPSHOTS = new Predicate<FileSnapshot>() {
@@ -74,38 +89,59 @@ public class TaskOutputCacheCommandFactory {
     private final TaskOutputOriginFactory taskOutputOriginFactory;
     private final FileSystemMirror fileSystemMirror;
     private final StringInterner stringInterner;
+    private final DeferredTaskOutputs deferredTaskOutputs;
+    private final boolean deduplicate;
+    private final boolean chunkedContentHashes;
 
-    public TaskOutputCacheCommandFactory(TaskOutputPacker packer, TaskOutputOriginFactory taskOutputOriginFactory, FileSystemMirror fileSystemMirror, StringInterner stringInterner) {
+    /**
+     * @param chunkedContentHashes whether the content of large files is hashed in chunks, which changes the hashes that manifests refer to.
+     */
+    public TaskOutputCacheCommandFactory(TaskOutputPacker packer, TaskOutputOriginFactory taskOutputOriginFactory, FileSystemMirror fileSystemMirror, StringInterner stringInterner, DeferredTaskOutputs deferredTaskOutputs, boolean deduplicate, boolean chunkedContentHashes) {
         this.packer = packer;
         this.taskOutputOriginFactory = taskOutputOriginFactory;
         this.fileSystemMirror = fileSystemMirror;
         this.stringInterner = stringInterner;
+        this.deferredTaskOutputs = deferredTaskOutputs;
+        this.deduplicate = deduplicate;
+        this.chunkedContentHashes = chunkedContentHashes;
     }
 
-    public BuildCacheLoadCommand<OriginTaskExecutionMetadata> createLoad(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, TaskInternal task, TaskProperties taskProperties, TaskOutputChangesListener taskOutputChangesListener, TaskArtifactState taskArtifactState) {
-        return new LoadCommand(cacheKey, outputProperties, task, taskProperties, taskOutputChangesListener, taskArtifactState);
+    /**
+     * Creates a command that loads the outputs of the given task from the cache. When {@code deferUnpacking} is true, the outputs are only
+     * snapshotted and are unpacked later by {@link DeferredTaskOutputs} when they are needed.
+     */
+    public BuildCacheLoadCommand<OriginTaskExecutionMetadata> createLoad(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, TaskInternal task, TaskProperties taskProperties, TaskOutputChangesListener taskOutputChangesListener, TaskArtifactState taskArtifactState, boolean deferUnpacking) {
+        if (deduplicate) {
+            return new ManifestLoadCommand(cacheKey, outputProperties, task, taskProperties, taskOutputChangesListener, taskArtifactState, deferUnpacking);
+        }
+        return new LoadCommand(cacheKey, outputProperties, task, taskProperties, taskOutputChangesListener, taskArtifactState, deferUnpacking);
     }
 
     public BuildCacheStoreCommand createStore(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, TaskInternal task, long taskExecutionTime) {
+        if (deduplicate) {
+            return new ManifestStoreCommand(cacheKey, outputProperties, outputSnapshots, task, taskExecutionTime);
+        }
         return new StoreCommand(cacheKey, outputProperties, outputSnapshots, task, taskExecutionTime);
     }
 
     private class LoadCommand implements BuildCacheLoadCommand<OriginTaskExecutionMetadata> {
 
         private final TaskOutputCachingBuildCacheKey cacheKey;
-        private final SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties;
-        private final TaskInternal task;
+        protected final SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties;
+        protected final TaskInternal task;
         private final TaskProperties taskProperties;
         private final TaskOutputChangesListener taskOutputChangesListener;
         private final TaskArtifactState taskArtifactState;
+        private final boolean deferUnpacking;
 
-        private LoadCommand(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, TaskInternal task, TaskProperties taskProperties, TaskOutputChangesListener taskOutputChangesListener, TaskArtifactState taskArtifactState) {
+        private LoadCommand(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, TaskInternal task, TaskProperties taskProperties, TaskOutputChangesListener taskOutputChangesListener, TaskArtifactState taskArtifactState, boolean deferUnpacking) {
             this.cacheKey = cacheKey;
             this.outputProperties = outputProperties;
             this.task = task;
             this.taskProperties = taskProperties;
             this.taskOutputChangesListener = taskOutputChangesListener;
             this.taskArtifactState = taskArtifactState;
+            this.deferUnpacking = deferUnpacking;
         }
 
         @Override
@@ -114,16 +150,37 @@ public class TaskOutputCacheCommandFactory {
         }
 
         @Override
-        public BuildCacheLoadCommand.Result<OriginTaskExecutionMetadata> load(InputStream input) {
+        public BuildCacheLoadCommand.Result<OriginTaskExecutionMetadata> load(InputStream input) throws IOException {
+            return toResult(loadOutputs(input, null));
+        }
+
+        /**
+         * Unpacks the outputs from the given entry, or records them to be unpacked later. The content that the entry refers to is loaded from
+         * the given blobs.
+         */
+        protected TaskOutputPacker.UnpackResult loadOutputs(InputStream input, @Nullable BuildCacheBlobs blobs) {
             taskOutputChangesListener.beforeTaskOutputChanged();
             final TaskOutputPacker.UnpackResult unpackResult;
+            File entryFile = null;
             try {
-                unpackResult = packer.unpack(outputProperties, input, taskOutputOriginFactory.createReader(task));
-                updateSnapshots(unpackResult.getSnapshots(), unpackResult.getOriginMetadata());
+                if (deferUnpacking) {
+                    entryFile = deferredTaskOutputs.createEntryFile();
+                    copy(input, entryFile);
+                    unpackResult = read(entryFile);
+                    cleanupOutputs();
+                    updateSnapshots(unpackResult.getSnapshots(), unpackResult.getOriginMetadata(), true);
+                    deferredTaskOutputs.add(new DeferredLoad(entryFile, blobs));
+                } else {
+                    unpackResult = unpack(input, blobs);
+                    updateSnapshots(unpackResult.getSnapshots(), unpackResult.getOriginMetadata(), false);
+                }
             } catch (Exception e) {
+                if (entryFile != null) {
+                    FileUtils.deleteQuietly(entryFile);
+                }
                 LOGGER.warn("Cleaning outputs for {} after failed load from cache.", task);
                 try {
-                    cleanupOutputsAfterUnpackFailure();
+                    cleanupOutputs();
                     taskArtifactState.afterOutputsRemovedBeforeTask();
                 } catch (Exception eCleanup) {
                     LOGGER.warn("Unrecoverable error during cleaning up after task output unpack failure", eCleanup);
@@ -133,8 +190,18 @@ public class TaskOutputCacheCommandFactory {
             } finally {
                 cleanLocalState();
             }
-            LOGGER.info("Unpacked output for {} from cache.", task);
+            LOGGER.info(deferUnpacking ? "Loaded output for {} from cache, deferred unpacking." : "Unpacked output for {} from cache.", task);
+            return unpackResult;
+        }
+
+        private TaskOutputPacker.UnpackResult unpack(InputStream input, @Nullable BuildCacheBlobs blobs) throws IOException {
+            if (blobs == null) {
+                return packer.unpack(outputProperties, input, taskOutputOriginFactory.createReader(task));
+            }
+            return packer.unpack(outputProperties, input, taskOutputOriginFactory.createReader(task), blobs);
+        }
 
+        protected BuildCacheLoadCommand.Result<OriginTaskExecutionMetadata> toResult(final TaskOutputPacker.UnpackResult unpackResult) {
             return new BuildCacheLoadCommand.Result<OriginTaskExecutionMetadata>() {
                 @Override
                 public long getArtifactEntryCount() {
@@ -148,7 +215,20 @@ public class TaskOutputCacheCommandFactory {
             };
         }
 
-        private void updateSnapshots(ImmutableListMultimap<String, FileSnapshot> propertiesFileSnapshots, OriginTaskExecutionMetadata originMetadata) {
+        private TaskOutputPacker.UnpackResult read(File entryFile) throws IOException {
+            InputStream entryInput = new BufferedInputStream(new FileInputStream(entryFile));
+            try {
+                return read(entryInput);
+            } finally {
+                entryInput.close();
+            }
+        }
+
+        protected TaskOutputPacker.UnpackResult read(InputStream input) throws IOException {
+            return packer.read(outputProperties, input, taskOutputOriginFactory.createReader(task));
+        }
+
+        private void updateSnapshots(ImmutableListMultimap<String, FileSnapshot> propertiesFileSnapshots, OriginTaskExecutionMetadata originMetadata, boolean deferred) {
             ImmutableSortedMap.Builder<String, FileCollectionSnapshot> propertySnapshotsBuilder = ImmutableSortedMap.naturalOrder();
             for (ResolvedTaskOutputFilePropertySpec property : outputProperties) {
                 String propertyName = property.getPropertyName();
@@ -172,14 +252,24 @@ public class TaskOutputCacheCommandFactory {
                             if (singleSnapshot.getType() != FileType.RegularFile) {
                                 throw new IllegalStateException(String.format("Only a regular file should be produced by unpacking property '%s', but saw a %s", propertyName, singleSnapshot.getType()));
                             }
-                            fileSystemMirror.putFile(singleSnapshot);
+                            putFile(singleSnapshot, deferred);
                         } else {
-                            fileSystemMirror.putFile(new MissingFileSnapshot(internedAbsolutePath(outputFile), RelativePath.EMPTY_ROOT));
+                            putFile(new MissingFileSnapshot(internedAbsolutePath(outputFile), RelativePath.EMPTY_ROOT), deferred);
                         }
                         break;
                     case DIRECTORY:
                         Collection<FileSnapshot> descendants = Collections2.filter(fileSnapshots, EXCLUDE_ROOT_SNAPSHOTS);
-                        fileSystemMirror.putDirectory(new DirectoryTreeDetails(internedAbsolutePath(outputFile), descendants));
+                        DirectoryTreeDetails tree = new DirectoryTreeDetails(internedAbsolutePath(outputFile), descendants);
+                        if (deferred) {
+                            for (FileSnapshot fileSnapshot : fileSnapshots) {
+                                if (fileSnapshot.isRoot()) {
+                                    fileSystemMirror.putDeferredFile(fileSnapshot);
+                                }
+                            }
+                            fileSystemMirror.putDeferredDirectory(tree);
+                        } else {
+                            fileSystemMirror.putDirectory(tree);
+                        }
                         break;
                     default:
                         throw new AssertionError();
@@ -188,6 +278,14 @@ public class TaskOutputCacheCommandFactory {
             taskArtifactState.snapshotAfterLoadedFromCache(propertySnapshotsBuilder.build(), originMetadata);
         }
 
+        private void putFile(FileSnapshot fileSnapshot, boolean deferred) {
+            if (deferred) {
+                fileSystemMirror.putDeferredFile(fileSnapshot);
+            } else {
+                fileSystemMirror.putFile(fileSnapshot);
+            }
+        }
+
         private void cleanLocalState() {
             for (File localStateFile : taskProperties.getLocalStateFiles()) {
                 try {
@@ -198,7 +296,7 @@ public class TaskOutputCacheCommandFactory {
             }
         }
 
-        private void cleanupOutputsAfterUnpackFailure() {
+        private void cleanupOutputs() {
             for (ResolvedTaskOutputFilePropertySpec outputProperty : outputProperties) {
                 File outputFile = outputProperty.getOutputFile();
                 try {
@@ -218,6 +316,102 @@ public class TaskOutputCacheCommandFactory {
                 }
             }
         }
+
+        private class DeferredLoad implements DeferredTaskOutputs.DeferredOutput {
+            private final File entryFile;
+            private final BuildCacheBlobs blobs;
+
+            DeferredLoad(File entryFile, @Nullable BuildCacheBlobs blobs) {
+                this.entryFile = entryFile;
+                this.blobs = blobs;
+            }
+
+            @Override
+            public Collection<File> getRoots() {
+                List<File> roots = new ArrayList<File>(outputProperties.size());
+                for (ResolvedTaskOutputFilePropertySpec property : outputProperties) {
+                    if (property.getOutputFile() != null) {
+                        roots.add(property.getOutputFile());
+                    }
+                }
+                return roots;
+            }
+
+            @Override
+            public void materialize() {
+                taskOutputChangesListener.beforeTaskOutputChanged();
+                try {
+                    InputStream entryInput = new BufferedInputStream(new FileInputStream(entryFile));
+                    try {
+                        unpack(entryInput, blobs);
+                    } finally {
+                        entryInput.close();
+                    }
+                } catch (Exception e) {
+                    throw new GradleException(String.format("Failed to unpack deferred outputs for %s", task), e);
+                } finally {
+                    for (File root : getRoots()) {
+                        fileSystemMirror.removeDeferred(internedAbsolutePath(root));
+                    }
+                    FileUtils.deleteQuietly(entryFile);
+                }
+                LOGGER.info("Unpacked deferred output for {} from cache.", task);
+            }
+
+            @Override
+            public void discard() {
+                FileUtils.deleteQuietly(entryFile);
+            }
+
+            @Override
+            public String toString() {
+                return task.toString();
+            }
+        }
+    }
+
+    private static void copy(InputStream input, File file) throws IOException {
+        OutputStream output = new FileOutputStream(file);
+        try {
+            IOUtils.copyLarge(input, output);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Loads a manifest, which refers to the content of the output files by hash. The manifest is read by {@link #load(InputStream)} while the
+     * local cache is locked, and the outputs are unpacked by {@link #loadBlobs(BuildCacheBlobs)} afterwards, as that may need to copy blobs from
+     * the remote cache to the local cache.
+     */
+    private class ManifestLoadCommand extends LoadCommand implements BuildCacheBlobLoadCommand<OriginTaskExecutionMetadata> {
+        private final BuildCacheKey manifestKey;
+        private byte[] manifest;
+
+        private ManifestLoadCommand(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, TaskInternal task, TaskProperties taskProperties, TaskOutputChangesListener taskOutputChangesListener, TaskArtifactState taskArtifactState, boolean deferUnpacking) {
+            super(cacheKey, outputProperties, task, taskProperties, taskOutputChangesListener, taskArtifactState, deferUnpacking);
+            this.manifestKey = BlobBuildCacheKey.forManifest(cacheKey, chunkedContentHashes);
+        }
+
+        @Override
+        public BuildCacheKey getKey() {
+            return manifestKey;
+        }
+
+        @Override
+        public BuildCacheLoadCommand.Result<OriginTaskExecutionMetadata> load(InputStream input) throws IOException {
+            try {
+                manifest = IOUtils.toByteArray(input);
+            } finally {
+                input.close();
+            }
+            return toResult(read(new ByteArrayInputStream(manifest)));
+        }
+
+        @Override
+        public void loadBlobs(BuildCacheBlobs blobs) {
+            loadOutputs(new ByteArrayInputStream(manifest), blobs);
+        }
     }
 
     private String internedAbsolutePath(File outputFile) {
@@ -227,10 +421,10 @@ public class TaskOutputCacheCommandFactory {
     private class StoreCommand implements BuildCacheStoreCommand {
 
         private final TaskOutputCachingBuildCacheKey cacheKey;
-        private final SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties;
-        private final Map<String, Map<String, FileContentSnapshot>> outputSnapshots;
-        private final TaskInternal task;
-        private final long taskExecutionTime;
+        protected final SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties;
+        protected final Map<String, Map<String, FileContentSnapshot>> outputSnapshots;
+        protected final TaskInternal task;
+        protected final long taskExecutionTime;
 
         private StoreCommand(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, TaskInternal task, long taskExecutionTime) {
             this.cacheKey = cacheKey;
@@ -248,7 +442,10 @@ public class TaskOutputCacheCommandFactory {
         @Override
         public BuildCacheStoreCommand.Result store(OutputStream output) throws IOException {
             LOGGER.info("Packing {}", task);
-            final TaskOutputPacker.PackResult packResult = packer.pack(outputProperties, outputSnapshots, output, taskOutputOriginFactory.createWriter(task, taskExecutionTime));
+            return toResult(packer.pack(outputProperties, outputSnapshots, output, taskOutputOriginFactory.createWriter(task, taskExecutionTime)));
+        }
+
+        protected BuildCacheStoreCommand.Result toResult(final TaskOutputPacker.PackResult packResult) {
             return new BuildCacheStoreCommand.Result() {
                 @Override
                 public long getArtifactEntryCount() {
@@ -257,4 +454,48 @@ public class TaskOutputCacheCommandFactory {
             };
         }
     }
+
+    /**
+     * Stores the content of each distinct output file as a blob, and a manifest that refers to the blobs.
+     */
+    private class ManifestStoreCommand extends StoreCommand implements BuildCacheBlobStoreCommand {
+        private final BuildCacheKey manifestKey;
+
+        private ManifestStoreCommand(TaskOutputCachingBuildCacheKey cacheKey, SortedSet<ResolvedTaskOutputFilePropertySpec> outputProperties, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, TaskInternal task, long taskExecutionTime) {
+            super(cacheKey, outputProperties, outputSnapshots, task, taskExecutionTime);
+            this.manifestKey = BlobBuildCacheKey.forManifest(cacheKey, chunkedContentHashes);
+        }
+
+        @Override
+        public BuildCacheKey getKey() {
+            return manifestKey;
+        }
+
+        @Override
+        public void storeBlobs(BuildCacheBlobs blobs) {
+            Map<BuildCacheKey, File> files = new LinkedHashMap<BuildCacheKey, File>();
+            for (ResolvedTaskOutputFilePropertySpec property : outputProperties) {
+                Map<String, FileContentSnapshot> propertySnapshots = outputSnapshots.get(property.getPropertyName());
+                if (propertySnapshots == null) {
+                    continue;
+                }
+                for (Map.Entry<String, FileContentSnapshot> entry : propertySnapshots.entrySet()) {
+                    FileContentSnapshot snapshot = entry.getValue();
+                    if (snapshot.getType() == FileType.RegularFile) {
+                        BuildCacheKey key = BlobBuildCacheKey.forContent(snapshot.getContentMd5());
+                        if (!files.containsKey(key)) {
+                            files.put(key, new File(entry.getKey()));
+                        }
+                    }
+                }
+            }
+            blobs.store(files);
+        }
+
+        @Override
+        public BuildCacheStoreCommand.Result store(OutputStream output) throws IOException {
+            LOGGER.info("Packing manifest for {}", task);
+            return toResult(packer.packManifest(outputProperties, outputSnapshots, output, taskOutputOriginFactory.createWriter(task, taskExecutionTime)));
+        }
+    }
 }
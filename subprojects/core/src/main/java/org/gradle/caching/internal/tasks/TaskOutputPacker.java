@@ -21,6 +21,7 @@ import org.gradle.api.internal.changedetection.state.FileContentSnapshot;
 import org.gradle.api.internal.changedetection.state.FileSnapshot;
 import org.gradle.api.internal.tasks.OriginTaskExecutionMetadata;
 import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
+import org.gradle.caching.internal.controller.BuildCacheBlobs;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
 import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
 
@@ -41,6 +42,12 @@ public interface TaskOutputPacker {
 
     PackResult pack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, OutputStream output, TaskOutputOriginWriter writeOrigin) throws IOException;
 
+    /**
+     * Packs a manifest of the outputs, which refers to the content of each regular file by its hash instead of including the content.
+     * The content is stored separately as blobs.
+     */
+    PackResult packManifest(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, Map<String, FileContentSnapshot>> outputSnapshots, OutputStream output, TaskOutputOriginWriter writeOrigin) throws IOException;
+
     class PackResult {
         private final long entries;
 
@@ -55,6 +62,16 @@ public interface TaskOutputPacker {
 
     UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) throws IOException;
 
+    /**
+     * Unpacks the outputs from a cache entry or a manifest, loading the content that a manifest refers to from the given blobs.
+     */
+    UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin, BuildCacheBlobs blobs) throws IOException;
+
+    /**
+     * Reads the origin metadata and the snapshots of the outputs in a cache entry, without writing the outputs to the file system.
+     */
+    UnpackResult read(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) throws IOException;
+
     class UnpackResult {
         private final OriginTaskExecutionMetadata originMetadata;
         private final long entries;
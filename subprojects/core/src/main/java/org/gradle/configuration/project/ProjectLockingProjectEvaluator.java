@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project;
+
+import org.gradle.api.internal.project.ProjectConfigurationLocks;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
+
+/**
+ * Evaluates a project while holding its project lock, when the projects of the build are configured in parallel. A project that is being evaluated
+ * by another thread is not evaluated again; instead, the current thread waits for that evaluation to complete.
+ */
+public class ProjectLockingProjectEvaluator implements ProjectEvaluator {
+    private final ProjectConfigurationLocks projectConfigurationLocks;
+    private final ProjectEvaluator delegate;
+
+    public ProjectLockingProjectEvaluator(ProjectConfigurationLocks projectConfigurationLocks, ProjectEvaluator delegate) {
+        this.projectConfigurationLocks = projectConfigurationLocks;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void evaluate(final ProjectInternal project, final ProjectStateInternal state) {
+        if (state.getExecuted()) {
+            delegate.evaluate(project, state);
+            return;
+        }
+
+        projectConfigurationLocks.evaluate(project, new Runnable() {
+            @Override
+            public void run() {
+                delegate.evaluate(project, state);
+            }
+        });
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectConfigurationLocks;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+/**
+ * Configures the projects of a hierarchy concurrently, when parallel project configuration is enabled. A project is always configured
+ * before its child projects, so that configuration injected by a parent project is visible to its children.
+ */
+public class ParallelProjectConfigurer implements ProjectConfigurer {
+    private final ProjectConfigurer delegate;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final ProjectConfigurationLocks projectConfigurationLocks;
+
+    public ParallelProjectConfigurer(ProjectConfigurer delegate, BuildOperationExecutor buildOperationExecutor, ProjectConfigurationLocks projectConfigurationLocks) {
+        this.delegate = delegate;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.projectConfigurationLocks = projectConfigurationLocks;
+    }
+
+    @Override
+    public void configure(ProjectInternal project) {
+        delegate.configure(project);
+    }
+
+    @Override
+    public void configureFully(ProjectInternal project) {
+        delegate.configureFully(project);
+    }
+
+    @Override
+    public void configureHierarchy(ProjectInternal project) {
+        if (!projectConfigurationLocks.isParallelConfigurationEnabled(project)) {
+            delegate.configureHierarchy(project);
+            return;
+        }
+        delegate.configure(project);
+        configureChildProjects(project, false);
+    }
+
+    @Override
+    public void configureHierarchyFully(ProjectInternal project) {
+        if (!projectConfigurationLocks.isParallelConfigurationEnabled(project)) {
+            delegate.configureHierarchyFully(project);
+            return;
+        }
+        delegate.configureFully(project);
+        configureChildProjects(project, true);
+    }
+
+    private void configureChildProjects(final ProjectInternal parent, final boolean fully) {
+        try {
+            buildOperationExecutor.runAll(new Action<BuildOperationQueue<ConfigureProjectHierarchy>>() {
+                @Override
+                public void execute(BuildOperationQueue<ConfigureProjectHierarchy> queue) {
+                    scheduleChildProjects(queue, parent, fully);
+                }
+            });
+        } catch (MultipleBuildOperationFailures e) {
+            if (e.getCauses().size() == 1) {
+                throw UncheckedException.throwAsUncheckedException(e.getCauses().get(0));
+            }
+            throw e;
+        }
+    }
+
+    private void scheduleChildProjects(BuildOperationQueue<ConfigureProjectHierarchy> queue, ProjectInternal parent, boolean fully) {
+        for (Project child : parent.getChildProjects().values()) {
+            queue.add(new ConfigureProjectHierarchy(queue, (ProjectInternal) child, fully));
+        }
+    }
+
+    private class ConfigureProjectHierarchy implements RunnableBuildOperation {
+        private final BuildOperationQueue<ConfigureProjectHierarchy> queue;
+        private final ProjectInternal project;
+        private final boolean fully;
+
+        ConfigureProjectHierarchy(BuildOperationQueue<ConfigureProjectHierarchy> queue, ProjectInternal project, boolean fully) {
+            this.queue = queue;
+            this.project = project;
+            this.fully = fully;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            projectConfigurationLocks.withProjectLock(project, new Runnable() {
+                @Override
+                public void run() {
+                    if (fully) {
+                        delegate.configureFully(project);
+                    } else {
+                        delegate.configure(project);
+                    }
+                }
+            });
+            // Children are scheduled once the project has been configured successfully
+            scheduleChildProjects(queue, project, fully);
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Configure project hierarchy " + project.getIdentityPath());
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.internal.file.FileMetadataSnapshot;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -27,13 +28,46 @@ import java.io.InputStream;
 
 public class DefaultFileHasher implements FileHasher {
     private final StreamHasher streamHasher;
+    private final ChunkedFileHasher chunkedFileHasher;
 
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, null);
+    }
+
+    public DefaultFileHasher(StreamHasher streamHasher, @Nullable ChunkedFileHasher chunkedFileHasher) {
         this.streamHasher = streamHasher;
+        this.chunkedFileHasher = chunkedFileHasher;
     }
 
     @Override
     public HashCode hash(File file) {
+        if (isChunked() && chunkedFileHasher.shouldHash(file.length())) {
+            return chunkedFileHasher.hash(file);
+        }
+        return hashContent(file);
+    }
+
+    @Override
+    public HashCode hash(File file, FileMetadataSnapshot fileDetails) {
+        if (isChunked() && chunkedFileHasher.shouldHash(fileDetails.getLength())) {
+            return chunkedFileHasher.hash(file);
+        }
+        return hashContent(file);
+    }
+
+    @Override
+    public HashCode hash(FileTreeElement fileDetails) {
+        if (isChunked() && chunkedFileHasher.shouldHash(fileDetails.getSize())) {
+            return chunkedFileHasher.hash(fileDetails.getFile());
+        }
+        return hashContent(fileDetails.getFile());
+    }
+
+    private boolean isChunked() {
+        return chunkedFileHasher != null && chunkedFileHasher.isEnabled();
+    }
+
+    private HashCode hashContent(File file) {
         try {
             InputStream inputStream = new FileInputStream(file);
             try {
@@ -45,14 +79,4 @@ public class DefaultFileHasher implements FileHasher {
             throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
         }
     }
-
-    @Override
-    public HashCode hash(File file, FileMetadataSnapshot fileDetails) {
-        return hash(file);
-    }
-
-    @Override
-    public HashCode hash(FileTreeElement fileDetails) {
-        return hash(fileDetails.getFile());
-    }
 }
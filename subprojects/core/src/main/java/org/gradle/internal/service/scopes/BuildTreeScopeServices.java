@@ -18,8 +18,10 @@ package org.gradle.internal.service.scopes;
 
 import org.gradle.api.Action;
 import org.gradle.api.internal.ExceptionAnalyser;
+import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.logging.configuration.LoggingConfiguration;
 import org.gradle.api.logging.configuration.ShowStacktrace;
+import org.gradle.caching.internal.tasks.DeferredTaskOutputs;
 import org.gradle.initialization.DefaultExceptionAnalyser;
 import org.gradle.initialization.MultipleBuildFailuresExceptionAnalyser;
 import org.gradle.initialization.StackTraceSanitizingExceptionAnalyser;
@@ -50,4 +52,8 @@ public class BuildTreeScopeServices extends DefaultServiceRegistry {
         }
         return exceptionAnalyser;
     }
+
+    protected DeferredTaskOutputs createDeferredTaskOutputs(TemporaryFileProvider temporaryFileProvider) {
+        return new DeferredTaskOutputs(temporaryFileProvider);
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.service.scopes;
+
+import org.gradle.api.internal.AsmBackedClassGenerator;
+import org.gradle.api.internal.ClassGenerator;
+import org.gradle.api.internal.DefaultInstantiatorFactory;
+import org.gradle.api.internal.GeneratedClassCache;
+import org.gradle.api.internal.InstantiatorFactory;
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
+import org.gradle.initialization.GradleUserHomeDirProvider;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.reflect.Instantiator;
+import org.gradle.util.GradleVersion;
+
+import java.io.File;
+
+/**
+ * Replaces the class generator of the global scope with one that keeps the generated classes in the Gradle user home, for the builds that use this
+ * Gradle user home.
+ */
+class GeneratedClassCacheServices {
+    GeneratedClassCache createGeneratedClassCache(GradleUserHomeDirProvider userHomeDirProvider, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        File cacheDir = new File(userHomeDirProvider.getGradleUserHomeDirectory(), "caches/" + GradleVersion.current().getVersion() + "/generated-classes");
+        return new GeneratedClassCache(cacheDir, classLoaderHierarchyHasher);
+    }
+
+    ClassGenerator createClassGenerator(GeneratedClassCache generatedClassCache) {
+        return new AsmBackedClassGenerator(generatedClassCache);
+    }
+
+    InstantiatorFactory createInstantiatorFactory(ClassGenerator classGenerator, CrossBuildInMemoryCacheFactory cacheFactory) {
+        return new DefaultInstantiatorFactory(classGenerator, cacheFactory);
+    }
+
+    Instantiator createInstantiator(InstantiatorFactory instantiatorFactory) {
+        return instantiatorFactory.decorate();
+    }
+}
@@ -75,6 +75,7 @@ import org.gradle.internal.environment.GradleBuildEnvironment;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.filewatch.DefaultFileWatcherFactory;
 import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.hash.ChunkedFileHasher;
 import org.gradle.internal.hash.ContentHasherFactory;
 import org.gradle.internal.hash.DefaultContentHasherFactory;
 import org.gradle.internal.hash.DefaultStreamHasher;
@@ -361,6 +362,10 @@ public class GlobalScopeServices extends BasicGlobalScopeServices {
         return new DefaultStreamHasher(hasherFactory);
     }
 
+    ChunkedFileHasher createChunkedFileHasher(ContentHasherFactory hasherFactory, ExecutorFactory executorFactory) {
+        return new ChunkedFileHasher(hasherFactory, executorFactory);
+    }
+
     Clock createClock() {
         return Time.clock();
     }
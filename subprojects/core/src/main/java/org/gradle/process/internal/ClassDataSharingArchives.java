@@ -0,0 +1,314 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.process.internal;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.jvm.Jvm;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates and reuses application class-data sharing archives for the JVMs that Gradle starts, so that the classes these JVMs load
+ * from their class path are mapped from an archive instead of being parsed and verified again by each process.
+ *
+ * <p>When enabled with {@link #ENABLED_PROPERTY}, the first JVM started with a given class path records the classes it loads. The next
+ * time a JVM is started with that class path, an archive is created from the recorded classes with {@code -Xshare:dump}, and that JVM and
+ * the JVMs started after it use the archive. Only one process creates an archive at a time, guarded by a file lock that is released when
+ * the process exits. On Java 19 and later, the JVM creates and validates the archive itself.</p>
+ *
+ * <p>An archive is keyed by the Gradle version, the JVM and the path, size and modification time of each class path entry. Archives are only
+ * used for JVMs of the same installation as the current JVM, and for class paths made of jars. The JVM falls back to loading classes normally
+ * when it cannot use an archive.</p>
+ *
+ * <p>Archives and the files used to create them are deleted once they have not been used for {@link #MAX_UNUSED_DAYS} days, for the archive
+ * directories of all Gradle versions. The directory of another Gradle version is deleted once it is empty.</p>
+ */
+public class ClassDataSharingArchives {
+    /**
+     * Enables class-data sharing archives when set to {@code true}.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.cds";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassDataSharingArchives.class);
+
+    // The first version that supports archives of application classes, the first one that enables them by default, and the first one that
+    // creates or updates an archive automatically
+    private static final int APP_CDS_VERSION = 10;
+    private static final int DEFAULT_APP_CDS_VERSION = 11;
+    private static final int AUTO_CREATE_ARCHIVE_VERSION = 19;
+    private static final String CLASS_LIST_SUFFIX = ".classlist";
+    private static final String CLEANUP_MARKER = "cleanup.marker";
+    // Files are touched when used and the archive directories are cleaned up at most once per this interval
+    private static final long USAGE_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1);
+    static final long MAX_UNUSED_DAYS = 7;
+
+    private final File archivesDir;
+    private final boolean enabled;
+    private final int javaMajorVersion;
+
+    public ClassDataSharingArchives(File gradleUserHomeDir) {
+        this(gradleUserHomeDir, Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+    public ClassDataSharingArchives(File gradleUserHomeDir, boolean enabled) {
+        this(new File(gradleUserHomeDir, "caches/" + GradleVersion.current().getVersion() + "/cds"), enabled, currentJavaMajorVersion());
+    }
+
+    ClassDataSharingArchives(File archivesDir, boolean enabled, int javaMajorVersion) {
+        this.archivesDir = archivesDir;
+        this.enabled = enabled;
+        this.javaMajorVersion = javaMajorVersion;
+    }
+
+    /**
+     * Returns the JVM arguments that make a JVM with the given executable and class path use or create an archive, or an empty list
+     * when no archive should be used. May create the archive.
+     */
+    public List<String> getJvmArgs(File javaExecutable, Collection<File> classpath) {
+        if (!enabled || javaMajorVersion < APP_CDS_VERSION || classpath.isEmpty() || !isCurrentJvm(javaExecutable)) {
+            return Collections.emptyList();
+        }
+        for (File file : classpath) {
+            if (!file.isFile()) {
+                // Classes cannot be archived from directories
+                return Collections.emptyList();
+            }
+        }
+
+        String key = key(classpath);
+        File archive = new File(archivesDir, key + ".jsa");
+        GFileUtils.mkdirs(archivesDir);
+        if (archive.isFile()) {
+            markUsed(archive);
+        } else {
+            maybeCleanUp();
+        }
+        if (javaMajorVersion >= AUTO_CREATE_ARCHIVE_VERSION) {
+            return ImmutableList.of("-XX:+AutoCreateSharedArchive", "-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        }
+        if (!archive.isFile()) {
+            if (getFailureMarker(key).isFile()) {
+                return Collections.emptyList();
+            }
+            List<File> classLists = findClassLists(key);
+            if (classLists.isEmpty()) {
+                // Each process records to its own file, so that processes started at the same time do not write to the same file
+                File classList = new File(archivesDir, key + "-" + UUID.randomUUID() + CLASS_LIST_SUFFIX);
+                return withAppCds("-XX:DumpLoadedClassList=" + classList.getAbsolutePath());
+            }
+            createArchive(javaExecutable, classpath, key, archive, classLists);
+            if (!archive.isFile()) {
+                return Collections.emptyList();
+            }
+        }
+        return withAppCds("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+    }
+
+    private static void markUsed(File file) {
+        long now = System.currentTimeMillis();
+        if (file.lastModified() < now - USAGE_INTERVAL_MILLIS) {
+            file.setLastModified(now);
+        }
+    }
+
+    /**
+     * Deletes the files that have not been used for {@link #MAX_UNUSED_DAYS} days from the archive directory of each Gradle version under the
+     * caches directory, at most once per day.
+     */
+    private void maybeCleanUp() {
+        File marker = new File(archivesDir, CLEANUP_MARKER);
+        long now = System.currentTimeMillis();
+        if (marker.isFile() && marker.lastModified() >= now - USAGE_INTERVAL_MILLIS) {
+            return;
+        }
+        GFileUtils.touch(marker);
+        File[] versionDirs = archivesDir.getAbsoluteFile().getParentFile().getParentFile().listFiles();
+        if (versionDirs == null) {
+            return;
+        }
+        long minLastModified = now - TimeUnit.DAYS.toMillis(MAX_UNUSED_DAYS);
+        for (File versionDir : versionDirs) {
+            File dir = new File(versionDir, archivesDir.getName());
+            File[] files = dir.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isFile() && file.lastModified() < minLastModified) {
+                    GFileUtils.deleteQuietly(file);
+                }
+            }
+            if (!dir.equals(archivesDir.getAbsoluteFile())) {
+                // Only succeeds when the directory is empty
+                dir.delete();
+            }
+        }
+    }
+
+    private List<String> withAppCds(String... args) {
+        ImmutableList.Builder<String> builder = ImmutableList.builder();
+        if (javaMajorVersion < DEFAULT_APP_CDS_VERSION) {
+            builder.add("-XX:+UseAppCDS");
+        }
+        return builder.add(args).build();
+    }
+
+    private File getFailureMarker(String key) {
+        return new File(archivesDir, key + ".failed");
+    }
+
+    private List<File> findClassLists(String key) {
+        List<File> classLists = new ArrayList<File>();
+        File[] files = archivesDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(key + "-") && file.getName().endsWith(CLASS_LIST_SUFFIX) && file.length() > 0) {
+                    classLists.add(file);
+                }
+            }
+        }
+        return classLists;
+    }
+
+    private void createArchive(File javaExecutable, Collection<File> classpath, String key, File archive, List<File> classLists) {
+        try {
+            File lockFileLocation = new File(archivesDir, key + ".lock");
+            RandomAccessFile lockFile = new RandomAccessFile(lockFileLocation, "rw");
+            try {
+                // The operating system releases the lock when this process exits, so a lock cannot be left behind by a process that was killed
+                FileLock lock = lockFile.getChannel().tryLock();
+                if (lock == null) {
+                    // Another process is creating the archive
+                    return;
+                }
+                // Keep the lock file from being cleaned up while it is held
+                lockFileLocation.setLastModified(System.currentTimeMillis());
+                try {
+                    if (!archive.isFile() && !getFailureMarker(key).isFile()) {
+                        createArchiveWhileLocked(javaExecutable, classpath, key, archive, classLists);
+                    }
+                } finally {
+                    lock.release();
+                }
+            } finally {
+                lockFile.close();
+            }
+        } catch (OverlappingFileLockException e) {
+            // Another thread of this process is creating the archive
+        } catch (IOException e) {
+            LOGGER.debug("Could not create class-data sharing archive {}.", archive, e);
+        }
+    }
+
+    private void createArchiveWhileLocked(File javaExecutable, Collection<File> classpath, String key, File archive, List<File> classLists) throws IOException {
+        // Use the most complete list, in case a process recording its classes is still running
+        File classList = classLists.get(0);
+        for (File candidate : classLists) {
+            if (candidate.length() > classList.length()) {
+                classList = candidate;
+            }
+        }
+        File tmpArchive = new File(archivesDir, key + ".jsa.tmp");
+        List<String> command = new ArrayList<String>();
+        command.add(javaExecutable.getAbsolutePath());
+        command.addAll(withAppCds("-Xshare:dump", "-XX:SharedClassListFile=" + classList.getAbsolutePath(), "-XX:SharedArchiveFile=" + tmpArchive.getAbsolutePath()));
+        // The class path must be the same as the class path of the processes that use the archive
+        command.add("-cp");
+        command.add(Joiner.on(File.pathSeparator).join(classpath));
+
+        if (dump(command) && tmpArchive.isFile() && tmpArchive.renameTo(archive)) {
+            LOGGER.info("Created class-data sharing archive {}.", archive);
+        } else {
+            // Do not try again for this class path, as this would most likely fail again
+            GFileUtils.deleteQuietly(tmpArchive);
+            GFileUtils.touch(getFailureMarker(key));
+        }
+        for (File file : classLists) {
+            GFileUtils.deleteQuietly(file);
+        }
+    }
+
+    /**
+     * Runs the given command that creates an archive, and returns whether it succeeded.
+     */
+    boolean dump(List<String> command) throws IOException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        process.getOutputStream().close();
+        String output = new String(ByteStreams.toByteArray(process.getInputStream()));
+        try {
+            int exitValue = process.waitFor();
+            if (exitValue != 0) {
+                LOGGER.info("Could not create class-data sharing archive, {} exited with {}:{}{}", command, exitValue, System.getProperty("line.separator"), output);
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean isCurrentJvm(File javaExecutable) {
+        try {
+            return javaExecutable.getAbsoluteFile().equals(Jvm.current().getJavaExecutable().getAbsoluteFile());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static String key(Collection<File> classpath) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(System.getProperty("java.home"));
+        hasher.putString(System.getProperty("java.vm.version"));
+        for (File file : classpath) {
+            hasher.putString(file.getAbsolutePath());
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+        return hasher.hash().toString();
+    }
+
+    private static int currentJavaMajorVersion() {
+        String version = System.getProperty("java.specification.version");
+        try {
+            return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -27,9 +27,10 @@ import org.gradle.internal.io.StreamByteBuffer;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.process.ArgWriter;
 import org.gradle.internal.remote.Address;
-import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
-import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
+import org.gradle.internal.remote.internal.inet.InetEndpoint;
+import org.gradle.internal.remote.internal.inet.LocalAddressSerializer;
 import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.streams.EncodedStream;
 import org.gradle.process.internal.worker.DefaultWorkerProcessBuilder;
@@ -94,8 +95,12 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
         if (useOptionsFile) {
             // Use an options file to pass across application classpath
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
-            List<String> jvmArgs = writeOptionsFile(workerMainClassPath.getAsFiles(), applicationClasspath, optionsFile);
+            List<File> classpath = new ArrayList<File>(workerMainClassPath.getAsFiles().size() + applicationClasspath.size());
+            classpath.addAll(workerMainClassPath.getAsFiles());
+            classpath.addAll(applicationClasspath);
+            List<String> jvmArgs = writeOptionsFile(classpath, optionsFile);
             execSpec.jvmArgs(jvmArgs);
+            execSpec.jvmArgs(new ClassDataSharingArchives(gradleUserHomeDir).getJvmArgs(new File(execSpec.getExecutable()), classpath));
         } else {
             // Use a dummy security manager, which hacks the application classpath into the system ClassLoader
             execSpec.classpath(workerMainClassPath.getAsFiles());
@@ -134,7 +139,7 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
             encoder.writeSmallInt(logLevel.ordinal());
             encoder.writeBoolean(publishProcessInfo);
             encoder.writeString(gradleUserHomeDir.getAbsolutePath());
-            new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
+            new LocalAddressSerializer().write(encoder, (InetEndpoint) serverAddress);
 
             // Serialize the worker, this is consumed by SystemApplicationClassLoaderWorker
             ActionExecutionWorker worker = new ActionExecutionWorker(processBuilder.getWorker(), workerId, displayName, gradleUserHomeDir);
@@ -153,10 +158,7 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
         return executableVersion != null && executableVersion.isJava9Compatible();
     }
 
-    private List<String> writeOptionsFile(Collection<File> workerMainClassPath, Collection<File> applicationClasspath, File optionsFile) {
-        List<File> classpath = new ArrayList<File>(workerMainClassPath.size() + applicationClasspath.size());
-        classpath.addAll(workerMainClassPath);
-        classpath.addAll(applicationClasspath);
+    private List<String> writeOptionsFile(List<File> classpath, File optionsFile) {
         List<String> argumentList = Arrays.asList("-cp", Joiner.on(File.pathSeparator).join(classpath));
         return ArgWriter.argsFileGenerator(optionsFile, ArgWriter.unixStyleFactory()).transform(argumentList);
     }
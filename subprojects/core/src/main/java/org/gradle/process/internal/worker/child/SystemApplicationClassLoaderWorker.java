@@ -28,8 +28,8 @@ import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.services.LoggingServiceRegistry;
 import org.gradle.internal.remote.MessagingClient;
 import org.gradle.internal.remote.ObjectConnection;
-import org.gradle.internal.remote.internal.inet.MultiChoiceAddress;
-import org.gradle.internal.remote.internal.inet.MultiChoiceAddressSerializer;
+import org.gradle.internal.remote.internal.inet.InetEndpoint;
+import org.gradle.internal.remote.internal.inet.LocalAddressSerializer;
 import org.gradle.internal.remote.services.MessagingServices;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.InputStreamBackedDecoder;
@@ -90,7 +90,7 @@ public class SystemApplicationClassLoaderWorker implements Callable<Void> {
         File gradleUserHomeDir = new File(gradleUserHomeDirPath);
 
         // Read server address and start connecting
-        MultiChoiceAddress serverAddress = new MultiChoiceAddressSerializer().read(decoder);
+        InetEndpoint serverAddress = new LocalAddressSerializer().read(decoder);
         MessagingServices messagingServices = new MessagingServices();
         final WorkerServices workerServices = new WorkerServices(messagingServices, gradleUserHomeDir);
 
@@ -51,6 +51,10 @@ public class InMemoryCacheFactory implements CacheFactory {
         return cache;
     }
 
+    @Override
+    public void compactCaches() {
+    }
+
     public PersistentCache open(File cacheDir, String displayName) {
         return new InMemoryCache(cacheDir, displayName, CleanupAction.NO_OP);
     }
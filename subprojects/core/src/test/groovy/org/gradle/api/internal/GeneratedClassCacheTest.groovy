@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal
+
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class GeneratedClassCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def classLoaderHash = HashCode.fromInt(123)
+    def classLoaderHierarchyHasher = Stub(ClassLoaderHierarchyHasher) {
+        getClassLoaderHash(_) >> { classLoaderHash }
+    }
+    def cache = new GeneratedClassCache(tmpDir.file("cache"), classLoaderHierarchyHasher)
+
+    def "stores and loads bytecode"() {
+        def key = cache.key(AsmBackedClassGenerator, Bean)
+
+        expect:
+        cache.load(key) == null
+
+        when:
+        cache.store(key, [1, 2, 3] as byte[])
+
+        then:
+        cache.load(key) == [1, 2, 3] as byte[]
+    }
+
+    def "key depends on the generator, the type and the class loader hierarchy"() {
+        def key = cache.key(AsmBackedClassGenerator, Bean)
+
+        expect:
+        cache.key(AsmBackedClassGenerator, Bean) == key
+        cache.key(AsmBackedClassGenerator, OtherBean) != key
+        cache.key(AbstractClassGenerator, Bean) != key
+
+        when:
+        classLoaderHash = HashCode.fromInt(456)
+
+        then:
+        cache.key(AsmBackedClassGenerator, Bean) != key
+    }
+
+    def "does not cache classes whose class loader cannot be hashed"() {
+        classLoaderHash = null
+
+        expect:
+        cache.key(AsmBackedClassGenerator, String) == null
+        cache.key(AsmBackedClassGenerator, Bean) == null
+    }
+
+    def "discards corrupt entries"() {
+        def key = cache.key(AsmBackedClassGenerator, Bean)
+        cache.store(key, [1, 2, 3] as byte[])
+        def entry = tmpDir.file("cache/${key}.class")
+        def content = entry.bytes
+        content[-1] = 4
+        entry.bytes = content
+
+        expect:
+        cache.load(key) == null
+        !entry.exists()
+    }
+
+    def "generator stores the classes it generates"() {
+        when:
+        def generated = new AsmBackedClassGenerator(cache).generate(CachedBean)
+
+        then:
+        generated.name == CachedBean.name + "_Decorated"
+        cache.load(cache.key(AsmBackedClassGenerator, CachedBean)) != null
+    }
+
+    def "generator generates the class again when the stored class cannot be defined"() {
+        def type = new GroovyClassLoader(getClass().classLoader).parseClass("class Parsed { String prop }")
+        def key = cache.key(AsmBackedClassGenerator, type)
+        cache.store(key, [1, 2, 3] as byte[])
+
+        when:
+        def generated = new AsmBackedClassGenerator(cache).generate(type)
+
+        then:
+        generated.name == "Parsed_Decorated"
+        cache.load(key) != [1, 2, 3] as byte[]
+    }
+
+    static class Bean {
+        String prop
+    }
+
+    static class OtherBean {
+        String prop
+    }
+
+    static class CachedBean {
+        String prop
+    }
+}
@@ -102,6 +102,30 @@ class DefaultFileSystemMirrorTest extends Specification {
         mirror.getContent(file.path) == null
     }
 
+    def "keeps deferred state about a file when task outputs are generated until it is removed"() {
+        def file = tmpDir.file("a")
+        def fileSnapshot = Stub(FileSnapshot)
+        def fileTreeSnapshot = Stub(FileTreeSnapshot)
+
+        given:
+        _ * fileSnapshot.path >> file.path
+        _ * fileTreeSnapshot.path >> file.path
+
+        expect:
+        mirror.putDeferredFile(fileSnapshot)
+        mirror.putDeferredDirectory(fileTreeSnapshot)
+
+        mirror.beforeTaskOutputChanged()
+
+        mirror.getFile(file.path) == fileSnapshot
+        mirror.getDirectoryTree(file.path) == fileTreeSnapshot
+
+        mirror.removeDeferred(file.path)
+
+        mirror.getFile(file.path) == null
+        mirror.getDirectoryTree(file.path) == null
+    }
+
     def "does not discard state about a file that lives in the caches when task outputs are generated"() {
         def file = cacheDir.file("some/dir/a")
         def fileSnapshot = Stub(FileSnapshot)
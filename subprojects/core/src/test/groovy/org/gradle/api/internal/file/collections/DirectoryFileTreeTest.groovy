@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.file.collections
+
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker
+import org.gradle.api.internal.file.collections.jdk7.ParallelDirectoryWalker
+import org.gradle.api.specs.Spec
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArraySet
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.AtomicInteger
+
+@UsesNativeServices
+class DirectoryFileTreeTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def pool = new ForkJoinPool(4)
+
+    def cleanup() {
+        pool.shutdown()
+    }
+
+    def "lists the tree in parallel only for exhaustive visitors and patterns"() {
+        def rootDir = tmpDir.createDir("root")
+        def walker = Mock(DirectoryWalker)
+        def parallelWalker = Mock(DirectoryWalker)
+
+        when:
+        tree(rootDir, new PatternSet().include("**/*.txt"), walker, parallelWalker).visit(Mock(ExhaustiveFileVisitor))
+
+        then:
+        1 * parallelWalker.walkDir(rootDir, _, _, _, _, false)
+        0 * walker._
+
+        when:
+        tree(rootDir, new PatternSet().include("**/*.txt"), walker, parallelWalker).visit(Mock(FileVisitor))
+
+        then:
+        1 * walker.walkDir(rootDir, _, _, _, _, false)
+        0 * parallelWalker._
+
+        when:
+        tree(rootDir, new PatternSet().include({ true } as Spec), walker, parallelWalker).visit(Mock(ExhaustiveFileVisitor))
+
+        then:
+        1 * walker.walkDir(rootDir, _, _, _, _, false)
+        0 * parallelWalker._
+    }
+
+    def "stops listing the tree as soon as the visitor stops"() {
+        def rootDir = tmpDir.createDir("root")
+        100.times { rootDir.createFile("dir${it % 10}/file${it}.txt") }
+        def evaluations = new AtomicInteger()
+        def patterns = new PatternSet().include({ evaluations.incrementAndGet(); true } as Spec)
+        def visited = []
+        def visitor = [
+            visitDir: {},
+            visitFile: { FileVisitDetails details ->
+                visited << details.relativePath.pathString
+                details.stopVisiting()
+            }
+        ] as FileVisitor
+
+        when:
+        tree(rootDir, patterns, new Jdk7DirectoryWalker(TestFiles.fileSystem()), new ParallelDirectoryWalker(TestFiles.fileSystem(), pool, 0)).visit(visitor)
+
+        then:
+        visited.size() == 1
+        evaluations.get() < 20
+    }
+
+    def "evaluates the specs of a pattern set on the visiting thread"() {
+        def rootDir = tmpDir.createDir("root")
+        100.times { rootDir.createFile("dir${it % 10}/file${it}.txt") }
+        def threads = new CopyOnWriteArraySet<Thread>()
+        def patterns = new PatternSet().include({ FileTreeElement element -> threads << Thread.currentThread(); true } as Spec)
+        def visited = []
+        def visitor = [
+            visitDir: {},
+            visitFile: { FileVisitDetails details -> visited << details.relativePath.pathString }
+        ] as ExhaustiveFileVisitor
+
+        when:
+        tree(rootDir, patterns, new Jdk7DirectoryWalker(TestFiles.fileSystem()), new ParallelDirectoryWalker(TestFiles.fileSystem(), pool, 0)).visit(visitor)
+
+        then:
+        visited.size() == 100
+        threads == [Thread.currentThread()] as Set
+    }
+
+    private static DirectoryFileTree tree(File rootDir, PatternSet patterns, DirectoryWalker walker, DirectoryWalker parallelWalker) {
+        new DirectoryFileTree(rootDir, patterns, { walker } as Factory, parallelWalker, TestFiles.fileSystem(), false)
+    }
+}
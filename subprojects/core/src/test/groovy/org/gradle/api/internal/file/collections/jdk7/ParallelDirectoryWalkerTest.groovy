@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections.jdk7
+
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.DirectoryWalker
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.ForkJoinPool
+
+@UsesNativeServices
+class ParallelDirectoryWalkerTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def pool = new ForkJoinPool(4)
+
+    def cleanup() {
+        pool.shutdown()
+    }
+
+    @Unroll
+    def "visits entries in name order with threshold #threshold"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateTree(rootDir, 3)
+
+        when:
+        def visited = walk(rootDir, new ParallelDirectoryWalker(TestFiles.fileSystem(), pool, threshold, Integer.MAX_VALUE), new PatternSet(), false)
+
+        then:
+        visited == expectedPrefixOrder(rootDir)
+
+        where:
+        threshold << [0, 1, 10, Integer.MAX_VALUE]
+    }
+
+    @Unroll
+    def "visits entries in name order when at most #maxListedAhead entries are listed ahead of the visitor"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateTree(rootDir, 3)
+
+        when:
+        def visited = walk(rootDir, new ParallelDirectoryWalker(TestFiles.fileSystem(), pool, 0, maxListedAhead), new PatternSet(), false)
+
+        then:
+        visited == expectedPrefixOrder(rootDir)
+
+        where:
+        maxListedAhead << [0, 1, 10]
+    }
+
+    def "visits the same files as the sequential walker"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateTree(rootDir, 3)
+        def patterns = new PatternSet().include("**/*1*").exclude("d2/**")
+
+        when:
+        def parallel = walk(rootDir, new ParallelDirectoryWalker(TestFiles.fileSystem(), pool, 0, Integer.MAX_VALUE), patterns, false)
+        def sequential = walk(rootDir, new Jdk7DirectoryWalker(TestFiles.fileSystem()), patterns, false)
+
+        then:
+        !parallel.empty
+        parallel.every { !it.startsWith("d2/") }
+        parallel as Set == sequential as Set
+    }
+
+    def "visits directories after their contents in postfix mode"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/b/c.txt")
+        rootDir.createFile("a/d.txt")
+
+        when:
+        def visited = walk(rootDir, new ParallelDirectoryWalker(TestFiles.fileSystem(), pool, 0, Integer.MAX_VALUE), new PatternSet(), true)
+
+        then:
+        visited == ["a/b/c.txt", "a/b", "a/d.txt", "a"]
+    }
+
+    def "stops listing directories excluded by the spec"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/b.txt")
+        rootDir.createFile("excluded/c.txt")
+        def patterns = new PatternSet().exclude("excluded")
+
+        when:
+        def visited = walk(rootDir, new ParallelDirectoryWalker(TestFiles.fileSystem(), pool, 0, Integer.MAX_VALUE), patterns, false)
+
+        then:
+        visited == ["a", "a/b.txt"]
+    }
+
+    private static List<String> walk(File rootDir, DirectoryWalker walker, PatternSet patterns, boolean postfix) {
+        def fileTree = new DirectoryFileTree(rootDir, patterns, { walker } as Factory, TestFiles.fileSystem(), postfix)
+        def visited = []
+        def visitClosure = { visited << it.relativePath.pathString }
+        fileTree.visit([visitFile: visitClosure, visitDir: visitClosure] as FileVisitor)
+        visited
+    }
+
+    private static List<String> expectedPrefixOrder(File dir, String prefix = "") {
+        def result = []
+        dir.listFiles().sort { it.name }.each { child ->
+            result << prefix + child.name
+            if (child.directory) {
+                result.addAll(expectedPrefixOrder(child, prefix + child.name + "/"))
+            }
+        }
+        result
+    }
+
+    private static void generateTree(TestFile dir, int depth) {
+        5.times { dir.createFile("f${it}.txt") << "content ${it}" }
+        if (depth > 0) {
+            3.times { generateTree(dir.createDir("d${it}"), depth - 1) }
+        }
+    }
+}
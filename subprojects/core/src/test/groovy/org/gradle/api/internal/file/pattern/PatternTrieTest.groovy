@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class PatternTrieTest extends Specification {
+    static final List<List<String>> PATTERN_SETS = [
+        [""],
+        ["a/b/c"],
+        ["a\\b\\c", "a/b/"],
+        ["**"],
+        ["**/*.java", "**/*.groovy", "**/package-info.java"],
+        ["**/a/b/**", "a/**/b", "**/a"],
+        ["src/main/**/*.java", "src/main/resources/**", "src/test/*.txt"],
+        ["?b??e*", "a*b", "*a*/**", "**/**/abc/**/**"],
+        ["**/.git", "**/.git/**", "**/CVS", "**/CVS/**", "**/.DS_Store", "**/*~", "**/#*#"],
+    ]
+    static final List<String> PATHS = [
+        "", "a", "b", "a/b", "a/b/c", "a/b/c/d", "a/B/c", "c/a/b", "c/a/b/d", "a/x/b", "x/y/a",
+        "src", "src/main", "src/main/java/Foo.java", "src/main/resources/a/b.txt", "src/test/a.txt", "src/test/x/a.txt",
+        "Foo.java", "x/Foo.groovy", "x/package-info.java", "abcde", "abxxe", "xab", "q/abc/r", ".git", "x/.git/HEAD", "x/CVS", "a~",
+    ]
+
+    @Unroll
+    def "matches the same paths as the individual pattern matchers for #patterns"() {
+        expect:
+        [true, false].each { caseSensitive ->
+            def trie = PatternTrie.compile(caseSensitive, patterns)
+            def matchers = patterns.collect { PatternMatcherFactory.compile(caseSensitive, it) }
+            PATHS.each { path ->
+                String[] segments = path.empty ? new String[0] : path.split("/")
+                assert trie.matches(segments) == matchers.any { it.matches(segments, 0) }: path
+                assert trie.isPrefix(segments) == matchers.any { it.isPrefix(segments, 0) }: path
+            }
+        }
+
+        where:
+        patterns << PATTERN_SETS
+    }
+
+    def "directories that cannot contain matches are not prefixes"() {
+        def trie = PatternTrie.compile(true, ["src/main/**/*.java", "src/test/resources/**"])
+
+        expect:
+        trie.isPrefix(segments("src"))
+        trie.isPrefix(segments("src/main/a/b"))
+        trie.isPrefix(segments("src/test/resources/x"))
+        !trie.isPrefix(segments("build"))
+        !trie.isPrefix(segments("src/test/java"))
+    }
+
+    def "matches literal segments case insensitively"() {
+        def trie = PatternTrie.compile(false, ["A/b/**", "**/*.JAVA"])
+
+        expect:
+        trie.matches(segments("a/B/c"))
+        trie.matches(segments("x/Foo.java"))
+        !trie.matches(segments("a/c"))
+    }
+
+    private static String[] segments(String path) {
+        return path.split("/")
+    }
+}
@@ -40,6 +40,7 @@ import org.gradle.api.internal.AsmBackedClassGenerator
 import org.gradle.api.internal.FactoryNamedDomainObjectContainer
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.ProcessOperations
+import org.gradle.api.internal.StartParameterInternal
 import org.gradle.api.internal.artifacts.Module
 import org.gradle.api.internal.artifacts.ProjectBackedModule
 import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvider
@@ -73,9 +74,11 @@ import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.reflect.Instantiator
 import org.gradle.internal.resource.StringTextResource
+import org.gradle.internal.resources.ResourceLockCoordinationService
 import org.gradle.internal.resource.TextResourceLoader
 import org.gradle.internal.service.ServiceRegistry
 import org.gradle.internal.service.scopes.ServiceRegistryFactory
+import org.gradle.internal.work.WorkerLeaseService
 import org.gradle.model.internal.manage.instance.ManagedProxyFactory
 import org.gradle.model.internal.manage.schema.ModelSchemaStore
 import org.gradle.model.internal.registry.ModelRegistry
@@ -150,7 +153,7 @@ class DefaultProjectTest {
     AttributesSchema attributesSchema = context.mock(AttributesSchema)
     TextResourceLoader textResourceLoader = context.mock(TextResourceLoader)
     BuildOperationExecutor buildOperationExecutor = new TestBuildOperationExecutor()
-    CrossProjectConfigurator crossProjectConfigurator = new BuildOperationCrossProjectConfigurator(buildOperationExecutor)
+    CrossProjectConfigurator crossProjectConfigurator = new BuildOperationCrossProjectConfigurator(buildOperationExecutor, new ProjectConfigurationLocks(context.mock(WorkerLeaseService), context.mock(ResourceLockCoordinationService)))
 
     ClassLoaderScope baseClassLoaderScope = new RootClassLoaderScope(getClass().classLoader, getClass().classLoader, new DummyClassLoaderCache())
     ClassLoaderScope rootProjectClassLoaderScope = baseClassLoaderScope.createChild("root-project")
@@ -244,6 +247,8 @@ class DefaultProjectTest {
             will(returnValue(Path.ROOT))
             allowing(build).getIdentityPath()
             will(returnValue(Path.ROOT))
+            allowing(build).getStartParameter()
+            will(returnValue(new StartParameterInternal()))
             allowing(attributesSchema).attribute(withParam(notNullValue()), withParam(notNullValue()));
 
             allowing(serviceRegistryMock).get((Type) ObjectFactory); will(returnValue(context.mock(ObjectFactory)))
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.project
+
+import org.gradle.api.CircularReferenceException
+import org.gradle.api.InvalidUserCodeException
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.StartParameterInternal
+import org.gradle.internal.concurrent.ParallelismConfigurationManagerFixture
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.work.DefaultWorkerLeaseService
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.util.Path
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ProjectConfigurationLocksTest extends ConcurrentSpec {
+    def coordinationService = new DefaultResourceLockCoordinationService()
+    def workerLeaseService = new DefaultWorkerLeaseService(coordinationService, new ParallelismConfigurationManagerFixture(true, 2))
+    def locks = new ProjectConfigurationLocks(workerLeaseService, coordinationService)
+    def startParameter = new StartParameterInternal()
+    def gradle = Stub(GradleInternal)
+    def a = project(":a")
+    def b = project(":b")
+
+    def setup() {
+        startParameter.parallelProjectExecutionEnabled = true
+        startParameter.parallelProjectConfigurationEnabled = true
+        gradle.startParameter >> startParameter
+        gradle.identityPath >> Path.ROOT
+    }
+
+    def "runs evaluation when parallel configuration is not enabled"() {
+        def evaluation = Mock(Runnable)
+
+        given:
+        startParameter.parallelProjectConfigurationEnabled = false
+
+        when:
+        locks.evaluate(a, evaluation)
+
+        then:
+        1 * evaluation.run()
+        !locks.isEvaluatedByCurrentThread(a)
+    }
+
+    def "evaluates project while holding its lock"() {
+        def evaluation = Mock(Runnable)
+
+        when:
+        locks.evaluate(a, evaluation)
+
+        then:
+        1 * evaluation.run() >> {
+            assert locks.isLockedByCurrentThread(a)
+            assert locks.isEvaluatedByCurrentThread(a)
+        }
+
+        and:
+        !locks.isLockedByCurrentThread(a)
+        !locks.isEvaluatedByCurrentThread(a)
+    }
+
+    def "runs nested evaluation of project that is being evaluated by the current thread"() {
+        def nested = Mock(Runnable)
+
+        when:
+        locks.evaluate(a) {
+            locks.evaluate(b) {
+                locks.evaluate(a, nested)
+            }
+        }
+
+        then:
+        1 * nested.run() >> {
+            assert locks.isEvaluatedByCurrentThread(a)
+            assert locks.isEvaluatedByCurrentThread(b)
+        }
+    }
+
+    def "waits for evaluation of project by another thread to complete"() {
+        when:
+        async {
+            start {
+                locks.evaluate(a) {
+                    instant.evaluating
+                    thread.block()
+                    instant.evaluated
+                }
+            }
+            start {
+                thread.blockUntil.evaluating
+                locks.evaluate(a) {
+                    assert !locks.isEvaluatedByCurrentThread(a)
+                    instant.waited
+                }
+            }
+        }
+
+        then:
+        instant.waited > instant.evaluated
+    }
+
+    def "threads that evaluate projects depending on each other without a cycle do not fail"() {
+        when:
+        async {
+            start {
+                locks.evaluate(a) {
+                    instant.evaluatingA
+                    thread.blockUntil.evaluatingB
+                    locks.evaluate(b) {
+                        instant.waitedForB
+                    }
+                }
+            }
+            start {
+                locks.evaluate(b) {
+                    instant.evaluatingB
+                    thread.block()
+                    instant.evaluatedB
+                }
+            }
+        }
+
+        then:
+        instant.waitedForB > instant.evaluatedB
+    }
+
+    def "fails when threads evaluate projects that depend on each other"() {
+        def failures = new CopyOnWriteArrayList<Throwable>()
+
+        when:
+        async {
+            start {
+                try {
+                    locks.evaluate(a) {
+                        instant.evaluatingA
+                        thread.blockUntil.evaluatingB
+                        locks.evaluate(b) {}
+                    }
+                } catch (CircularReferenceException e) {
+                    failures << e
+                }
+            }
+            start {
+                try {
+                    locks.evaluate(b) {
+                        instant.evaluatingB
+                        thread.blockUntil.evaluatingA
+                        thread.block()
+                        locks.evaluate(a) {}
+                    }
+                } catch (CircularReferenceException e) {
+                    failures << e
+                }
+            }
+        }
+
+        then:
+        failures.size() == 1
+        failures[0].message.startsWith("Circular referencing during evaluation for project ")
+    }
+
+    def "fails when model of project is accessed while it is being configured by another thread"() {
+        def failures = new CopyOnWriteArrayList<Throwable>()
+
+        when:
+        async {
+            start {
+                locks.evaluate(a) {
+                    locks.assertCanAccessModel(a)
+                    instant.evaluating
+                    thread.blockUntil.accessed
+                }
+            }
+            start {
+                thread.blockUntil.evaluating
+                try {
+                    locks.assertCanAccessModel(a)
+                } catch (InvalidUserCodeException e) {
+                    failures << e
+                }
+                instant.accessed
+            }
+        }
+
+        then:
+        failures.size() == 1
+        failures[0].message == "Cannot access project ':a' as it is being configured by another thread. When projects are configured in parallel, use evaluationDependsOn(':a') to make sure the project is configured before accessing it."
+
+        when:
+        locks.assertCanAccessModel(a)
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "can access model of project that is being configured by another thread while holding its lock"() {
+        when:
+        async {
+            start {
+                locks.evaluate(a) {
+                    instant.evaluating
+                    locks.evaluate(b) {
+                        thread.blockUntil.accessed
+                    }
+                }
+            }
+            start {
+                thread.blockUntil.evaluating
+                locks.withProjectLock(a) {
+                    locks.assertCanAccessModel(a)
+                }
+                instant.accessed
+            }
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    private ProjectInternal project(String path) {
+        def project = Stub(ProjectInternal)
+        project.gradle >> gradle
+        project.path >> path
+        project.identityPath >> Path.path(path)
+        project.displayName >> "project '${path}'".toString()
+        return project
+    }
+}
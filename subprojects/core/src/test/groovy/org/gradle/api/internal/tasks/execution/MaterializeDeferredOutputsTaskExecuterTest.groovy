@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.execution
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.caching.internal.tasks.DeferredTaskOutputs
+import spock.lang.Specification
+
+class MaterializeDeferredOutputsTaskExecuterTest extends Specification {
+    def deferredTaskOutputs = Mock(DeferredTaskOutputs)
+    def delegate = Mock(TaskExecuter)
+    def task = Mock(TaskInternal)
+    def state = Mock(TaskStateInternal)
+    def context = Mock(TaskExecutionContext)
+    def taskProperties = Mock(TaskProperties)
+    def executer = new MaterializeDeferredOutputsTaskExecuter(deferredTaskOutputs, delegate)
+
+    def "unpacks the deferred outputs needed to snapshot the inputs before executing the task"() {
+        when:
+        executer.execute(task, state, context)
+
+        then:
+        1 * context.getTaskProperties() >> taskProperties
+        1 * deferredTaskOutputs.beforeSnapshot(taskProperties)
+
+        then:
+        1 * delegate.execute(task, state, context)
+        0 * _
+    }
+
+    def "does not execute the task when the outputs cannot be unpacked"() {
+        def failure = new RuntimeException()
+
+        when:
+        executer.execute(task, state, context)
+
+        then:
+        1 * context.getTaskProperties() >> taskProperties
+        1 * deferredTaskOutputs.beforeSnapshot(taskProperties) >> { throw failure }
+        0 * delegate._
+
+        and:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+}
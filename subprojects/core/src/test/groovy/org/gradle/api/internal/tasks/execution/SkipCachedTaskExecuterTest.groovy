@@ -21,6 +21,7 @@ import org.gradle.api.Project
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputCachingState
 import org.gradle.api.internal.changedetection.TaskArtifactState
+import org.gradle.api.internal.file.TemporaryFileProvider
 import org.gradle.api.internal.tasks.OriginTaskExecutionMetadata
 import org.gradle.api.internal.tasks.TaskExecuter
 import org.gradle.api.internal.tasks.TaskExecutionContext
@@ -29,9 +30,11 @@ import org.gradle.api.internal.tasks.TaskStateInternal
 import org.gradle.caching.internal.controller.BuildCacheController
 import org.gradle.caching.internal.controller.BuildCacheLoadCommand
 import org.gradle.caching.internal.controller.BuildCacheStoreCommand
+import org.gradle.caching.internal.tasks.DeferredTaskOutputs
 import org.gradle.caching.internal.tasks.TaskOutputCacheCommandFactory
 import org.gradle.caching.internal.tasks.TaskOutputCachingBuildCacheKey
 import org.gradle.caching.internal.tasks.UnrecoverableTaskOutputUnpackingException
+import org.gradle.execution.TaskGraphExecuter
 import org.gradle.internal.id.UniqueId
 import spock.lang.Specification
 
@@ -52,8 +55,10 @@ class SkipCachedTaskExecuterTest extends Specification {
     def storeCommand = Mock(BuildCacheStoreCommand)
     def buildCacheCommandFactory = Mock(TaskOutputCacheCommandFactory)
     def outputContentSnapshots = [:]
+    def deferredTaskOutputs = new DeferredTaskOutputs(Stub(TemporaryFileProvider), false)
+    def taskGraph = Stub(TaskGraphExecuter)
 
-    def executer = new SkipCachedTaskExecuter(buildCacheController, taskOutputGenerationListener, buildCacheCommandFactory, delegate)
+    def executer = new SkipCachedTaskExecuter(buildCacheController, taskOutputGenerationListener, buildCacheCommandFactory, deferredTaskOutputs, taskGraph, delegate)
 
     def "skip task when cached results exist"() {
         def originId = UniqueId.generate()
@@ -75,7 +80,39 @@ class SkipCachedTaskExecuterTest extends Specification {
         1 * cacheKey.isValid() >> true
 
         then:
-        1 * buildCacheCommandFactory.createLoad(cacheKey, _, task, taskProperties, taskOutputGenerationListener, _) >> loadCommand
+        1 * buildCacheCommandFactory.createLoad(cacheKey, _, task, taskProperties, taskOutputGenerationListener, _, false) >> loadCommand
+
+        then:
+        1 * buildCacheController.load(loadCommand) >> metadata
+
+        then:
+        1 * taskState.setOutcome(TaskExecutionOutcome.FROM_CACHE)
+        1 * taskContext.setOriginExecutionMetadata(metadata)
+        0 * _
+    }
+
+    def "defers unpacking of cached results that were not requested"() {
+        def metadata = new OriginTaskExecutionMetadata(UniqueId.generate(), 1234L)
+        deferredTaskOutputs = new DeferredTaskOutputs(Stub(TemporaryFileProvider), true)
+        executer = new SkipCachedTaskExecuter(buildCacheController, taskOutputGenerationListener, buildCacheCommandFactory, deferredTaskOutputs, taskGraph, delegate)
+        taskGraph.getRequestedTasks() >> ([Stub(TaskInternal)] as Set)
+
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * taskContext.getTaskProperties() >> taskProperties
+        1 * taskContext.buildCacheKey >> cacheKey
+        interaction { cachingEnabled() }
+
+        then:
+        1 * taskProperties.getOutputFileProperties() >> ImmutableSortedSet.of()
+        1 * taskContext.getTaskArtifactState() >> taskArtifactState
+        1 * taskArtifactState.isAllowedToUseCachedResults() >> true
+        1 * cacheKey.isValid() >> true
+
+        then:
+        1 * buildCacheCommandFactory.createLoad(cacheKey, _, task, taskProperties, taskOutputGenerationListener, _, true) >> loadCommand
 
         then:
         1 * buildCacheController.load(loadCommand) >> metadata
@@ -102,7 +139,7 @@ class SkipCachedTaskExecuterTest extends Specification {
         1 * cacheKey.isValid() >> true
 
         then:
-        1 * buildCacheCommandFactory.createLoad(cacheKey, _, task, taskProperties, taskOutputGenerationListener, _) >> loadCommand
+        1 * buildCacheCommandFactory.createLoad(cacheKey, _, task, taskProperties, taskOutputGenerationListener, _, false) >> loadCommand
 
         then:
         1 * buildCacheController.load(loadCommand) >> null
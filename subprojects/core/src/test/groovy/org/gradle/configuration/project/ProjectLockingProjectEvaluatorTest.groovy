@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project
+
+import org.gradle.api.CircularReferenceException
+import org.gradle.api.internal.project.ProjectConfigurationLocks
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import spock.lang.Specification
+
+class ProjectLockingProjectEvaluatorTest extends Specification {
+    def locks = Mock(ProjectConfigurationLocks)
+    def delegate = Mock(ProjectEvaluator)
+    def project = Mock(ProjectInternal)
+    def state = new ProjectStateInternal()
+    def evaluator = new ProjectLockingProjectEvaluator(locks, delegate)
+
+    def "delegates when project has already been evaluated"() {
+        given:
+        state.executed()
+
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        1 * delegate.evaluate(project, state)
+        0 * locks._
+    }
+
+    def "evaluates project through project configuration locks"() {
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        1 * locks.evaluate(project, _) >> { ProjectInternal p, Runnable action -> action.run() }
+        1 * delegate.evaluate(project, state)
+    }
+
+    def "does not evaluate project when project configuration locks do not run the evaluation"() {
+        def failure = new CircularReferenceException("broken")
+
+        when:
+        evaluator.evaluate(project, state)
+
+        then:
+        1 * locks.evaluate(project, _) >> { throw failure }
+        0 * delegate._
+
+        and:
+        def e = thrown(CircularReferenceException)
+        e.is(failure)
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.api.internal.project.ProjectConfigurationLocks
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.util.Path
+import spock.lang.Specification
+
+class ParallelProjectConfigurerTest extends Specification {
+    def delegate = Mock(ProjectConfigurer)
+    def locks = Mock(ProjectConfigurationLocks)
+    def configurer = new ParallelProjectConfigurer(delegate, new TestBuildOperationExecutor(), locks)
+    def root = project(":")
+    def child = project(":child")
+    def grandChild = project(":child:grandChild")
+
+    def setup() {
+        root.childProjects >> [child: child]
+        child.childProjects >> [grandChild: grandChild]
+        grandChild.childProjects >> [:]
+    }
+
+    def "delegates when parallel configuration is not enabled"() {
+        given:
+        locks.isParallelConfigurationEnabled(root) >> false
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configureHierarchy(root)
+        0 * delegate._
+    }
+
+    def "configures each project while holding its lock and before its children"() {
+        given:
+        locks.isParallelConfigurationEnabled(root) >> true
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configure(root)
+
+        then:
+        1 * locks.withProjectLock(child, _) >> { ProjectInternal project, Runnable action -> action.run() }
+        1 * delegate.configure(child)
+
+        then:
+        1 * locks.withProjectLock(grandChild, _) >> { ProjectInternal project, Runnable action -> action.run() }
+        1 * delegate.configure(grandChild)
+        0 * delegate._
+    }
+
+    def "fully configures each project of the hierarchy"() {
+        given:
+        locks.isParallelConfigurationEnabled(root) >> true
+        locks.withProjectLock(_, _) >> { ProjectInternal project, Runnable action -> action.run() }
+
+        when:
+        configurer.configureHierarchyFully(root)
+
+        then:
+        1 * delegate.configureFully(root)
+        1 * delegate.configureFully(child)
+        1 * delegate.configureFully(grandChild)
+        0 * delegate._
+    }
+
+    def "does not configure children of a project that failed to configure"() {
+        def failure = new RuntimeException()
+
+        given:
+        locks.isParallelConfigurationEnabled(root) >> true
+        locks.withProjectLock(_, _) >> { ProjectInternal project, Runnable action -> action.run() }
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        and:
+        1 * delegate.configure(root)
+        1 * delegate.configure(child) >> { throw failure }
+        0 * delegate._
+    }
+
+    private ProjectInternal project(String path) {
+        def project = Stub(ProjectInternal)
+        project.identityPath >> Path.path(path)
+        return project
+    }
+}
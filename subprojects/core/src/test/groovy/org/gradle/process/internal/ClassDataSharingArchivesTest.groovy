@@ -0,0 +1,234 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.process.internal
+
+import org.gradle.internal.jvm.Jvm
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.TimeUnit
+
+class ClassDataSharingArchivesTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def archivesDir = tmpDir.file("caches/1.0/cds")
+    def java = Jvm.current().javaExecutable
+    def classpath = [tmpDir.createFile("a.jar"), tmpDir.createFile("b.jar")]
+    def commands = []
+    def dumpSucceeds = true
+
+    def "records loaded classes from first process and creates archive from them for the next process"() {
+        def archives = archives(11)
+
+        when:
+        def args = archives.getJvmArgs(java, classpath)
+
+        then:
+        args.size() == 1
+        args[0].startsWith("-XX:DumpLoadedClassList=")
+        commands.empty
+
+        when:
+        def classList = new File(args[0].substring("-XX:DumpLoadedClassList=".length()))
+        classList.text = "org/gradle/Foo"
+        args = archives.getJvmArgs(java, classpath)
+
+        then:
+        commands.size() == 1
+        commands[0][0] == java.absolutePath
+        commands[0].contains("-Xshare:dump")
+        commands[0].contains("-XX:SharedClassListFile=${classList.absolutePath}".toString())
+        commands[0][-2..-1] == ["-cp", classpath*.absolutePath.join(File.pathSeparator)]
+        args.size() == 1
+        args[0].startsWith("-XX:SharedArchiveFile=")
+        new File(args[0].substring("-XX:SharedArchiveFile=".length())).file
+        !classList.exists()
+
+        when:
+        def next = archives.getJvmArgs(java, classpath)
+
+        then:
+        next == args
+        commands.size() == 1
+    }
+
+    def "uses UseAppCDS option on Java 10"() {
+        def archives = archives(10)
+
+        when:
+        def args = archives.getJvmArgs(java, classpath)
+
+        then:
+        args[0] == "-XX:+UseAppCDS"
+        args[1].startsWith("-XX:DumpLoadedClassList=")
+    }
+
+    def "does not create archive while another process holds the lock"() {
+        def archives = archives(11)
+        def args = archives.getJvmArgs(java, classpath)
+        def classList = new File(args[0].substring("-XX:DumpLoadedClassList=".length()))
+        classList.text = "org/gradle/Foo"
+        def key = classList.name.substring(0, classList.name.indexOf('-'))
+        def lockFile = new RandomAccessFile(archivesDir.file("${key}.lock"), "rw")
+        def lock = lockFile.channel.lock()
+
+        when:
+        args = archives.getJvmArgs(java, classpath)
+
+        then:
+        args.empty
+        commands.empty
+
+        when:
+        lock.release()
+        lockFile.close()
+        args = archives.getJvmArgs(java, classpath)
+
+        then:
+        commands.size() == 1
+        args[0].startsWith("-XX:SharedArchiveFile=")
+    }
+
+    def "does not use archive or try again when archive cannot be created"() {
+        def archives = archives(11)
+        dumpSucceeds = false
+        def args = archives.getJvmArgs(java, classpath)
+        new File(args[0].substring("-XX:DumpLoadedClassList=".length())).text = "org/gradle/Foo"
+
+        when:
+        args = archives.getJvmArgs(java, classpath)
+
+        then:
+        args.empty
+        commands.size() == 1
+
+        when:
+        args = archives.getJvmArgs(java, classpath)
+
+        then:
+        args.empty
+        commands.size() == 1
+    }
+
+    def "uses separate archives for different class paths"() {
+        def archives = archives(19)
+
+        when:
+        def args = archives.getJvmArgs(java, classpath)
+
+        then:
+        args[0] == "-XX:+AutoCreateSharedArchive"
+        args[1].startsWith("-XX:SharedArchiveFile=")
+        archives.getJvmArgs(java, classpath) == args
+        archives.getJvmArgs(java, classpath.take(1)) != args
+
+        when:
+        classpath[0].text = "changed"
+
+        then:
+        archives.getJvmArgs(java, classpath) != args
+    }
+
+    def "deletes unused files of all versions when creating a new archive"() {
+        def archives = archives(11)
+        def unused = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ClassDataSharingArchives.MAX_UNUSED_DAYS + 1)
+        def oldArchive = archivesDir.createFile("old.jsa")
+        oldArchive.lastModified = unused
+        def recentArchive = archivesDir.createFile("recent.jsa")
+        def otherVersionArchive = tmpDir.createFile("caches/0.9/cds/old.jsa")
+        otherVersionArchive.lastModified = unused
+        def otherVersionRecentArchive = tmpDir.createFile("caches/0.8/cds/recent.jsa")
+        def otherCache = tmpDir.createFile("caches/0.9/other/old.bin")
+        otherCache.lastModified = unused
+
+        when:
+        archives.getJvmArgs(java, classpath)
+
+        then:
+        !oldArchive.exists()
+        recentArchive.exists()
+        !tmpDir.file("caches/0.9/cds").exists()
+        otherVersionRecentArchive.exists()
+        otherCache.exists()
+    }
+
+    def "cleans up at most once per day"() {
+        def archives = archives(11)
+        archives.getJvmArgs(java, classpath)
+        def unused = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ClassDataSharingArchives.MAX_UNUSED_DAYS + 1)
+        def oldArchive = archivesDir.createFile("old.jsa")
+        oldArchive.lastModified = unused
+
+        when:
+        archives.getJvmArgs(java, classpath.take(1))
+
+        then:
+        oldArchive.exists()
+    }
+
+    def "keeps archives that are in use"() {
+        def archives = archives(11)
+        def args = archives.getJvmArgs(java, classpath)
+        new File(args[0].substring("-XX:DumpLoadedClassList=".length())).text = "org/gradle/Foo"
+        args = archives.getJvmArgs(java, classpath)
+        def archive = new File(args[0].substring("-XX:SharedArchiveFile=".length()))
+        archive.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ClassDataSharingArchives.MAX_UNUSED_DAYS + 1)
+        archivesDir.file("cleanup.marker").lastModified = 0
+
+        when:
+        archives.getJvmArgs(java, classpath)
+        archives.getJvmArgs(java, classpath.take(1))
+
+        then:
+        archive.exists()
+        archive.lastModified() > System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1)
+    }
+
+    @Unroll
+    def "does not use archives when #reason"() {
+        def executable = currentJvm ? java : new File("bin/java")
+        def files = entries.collect { it == "dir" ? tmpDir.createDir("classes") : tmpDir.createFile(it) }
+
+        expect:
+        new ClassDataSharingArchives(archivesDir, enabled, version).getJvmArgs(executable, files).empty
+
+        where:
+        reason                                  | enabled | version | currentJvm | entries
+        "disabled"                              | false   | 19      | true       | ["a.jar"]
+        "JVM does not support application CDS"  | true    | 9       | true       | ["a.jar"]
+        "JVM is not the current JVM"            | true    | 19      | false      | ["a.jar"]
+        "class path is empty"                   | true    | 19      | true       | []
+        "class path contains a directory"       | true    | 19      | true       | ["a.jar", "dir"]
+    }
+
+    private ClassDataSharingArchives archives(int version) {
+        return new ClassDataSharingArchives(archivesDir, true, version) {
+            @Override
+            boolean dump(List<String> command) {
+                commands << command
+                if (dumpSucceeds) {
+                    def archive = command.find { it.startsWith("-XX:SharedArchiveFile=") }.substring("-XX:SharedArchiveFile=".length())
+                    new File(archive).text = "archive"
+                }
+                return dumpSucceeds
+            }
+        }
+    }
+}
@@ -16,10 +16,14 @@
 
 package org.gradle.cache.internal.locklistener;
 
+import org.gradle.internal.Factory;
+
 public class NoOpFileLockContentionHandler implements FileLockContentionHandler {
 
     public void start(long lockId, Runnable whenContended) {}
 
+    public void startPolling(long lockId, Runnable whenContended, Factory<Boolean> isRequested) {}
+
     public void stop(long lockId) {}
 
     public int reservePort() {
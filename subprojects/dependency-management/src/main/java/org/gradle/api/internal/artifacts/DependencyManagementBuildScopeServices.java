@@ -33,7 +33,9 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolverProviderF
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.StartParameterResolutionOverride;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultMissingModuleIndex;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.DefaultModuleMetadataCache;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryMissingModuleIndex;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.InMemoryModuleMetadataCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleRepositoryCacheProvider;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleRepositoryCaches;
@@ -193,13 +195,18 @@ class DependencyManagementBuildScopeServices {
                 "module-artifact",
                 timeProvider,
                 cacheLockingManager
+            ),
+            new DefaultMissingModuleIndex(
+                timeProvider,
+                cacheLockingManager
             )
         );
         ModuleRepositoryCaches inMemoryCaches = new ModuleRepositoryCaches(
             new InMemoryModuleVersionsCache(timeProvider),
             new InMemoryModuleMetadataCache(timeProvider),
             new InMemoryModuleArtifactsCache(timeProvider),
-            new InMemoryModuleArtifactCache(timeProvider)
+            new InMemoryModuleArtifactCache(timeProvider),
+            new InMemoryMissingModuleIndex(timeProvider)
         );
         return new ModuleRepositoryCacheProvider(caches, inMemoryCaches);
     }
@@ -27,6 +27,7 @@ import org.gradle.api.internal.artifacts.ComponentMetadataProcessor;
 import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.MissingModuleIndex;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataCache;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleRepositoryCaches;
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts.ArtifactAtRepositoryKey;
@@ -80,6 +81,7 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
     private final ModuleMetadataCache moduleMetadataCache;
     private final ModuleArtifactsCache moduleArtifactsCache;
     private final ModuleArtifactCache moduleArtifactCache;
+    private final MissingModuleIndex missingModuleIndex;
 
     private final CachePolicy cachePolicy;
 
@@ -99,6 +101,7 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
         this.moduleVersionsCache = caches.moduleVersionsCache;
         this.moduleArtifactsCache = caches.moduleArtifactsCache;
         this.moduleArtifactCache = caches.moduleArtifactCache;
+        this.missingModuleIndex = caches.missingModuleIndex;
         this.timeProvider = timeProvider;
         this.cachePolicy = cachePolicy;
         this.metadataProcessor = metadataProcessor;
@@ -189,6 +192,15 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
         }
 
         private void resolveComponentMetaDataFromCache(ModuleComponentIdentifier moduleComponentIdentifier, ComponentOverrideMetadata requestMetaData, BuildableModuleComponentMetaDataResolveResult result) {
+            // Check the index of missing modules first, which avoids looking up the cached meta-data for a module that is known to be missing
+            long missingAgeMillis = missingModuleIndex.getMissingAgeMillis(delegate, moduleComponentIdentifier);
+            if (missingAgeMillis >= 0 && !cachePolicy.mustRefreshMissingModule(moduleComponentIdentifier, missingAgeMillis)) {
+                LOGGER.debug("Detected non-existence of module '{}' in missing module index for '{}'", moduleComponentIdentifier, delegate.getName());
+                result.missing();
+                result.setAuthoritative(missingAgeMillis == 0);
+                return;
+            }
+
             ModuleMetadataCache.CachedMetadata cachedMetadata = moduleMetadataCache.getCachedModuleDescriptor(delegate, moduleComponentIdentifier);
             if (cachedMetadata == null) {
                 return;
@@ -295,6 +307,10 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
 
         @Override
         public MetadataFetchingCost estimateMetadataFetchingCost(ModuleComponentIdentifier moduleComponentIdentifier) {
+            long missingAgeMillis = missingModuleIndex.getMissingAgeMillis(delegate, moduleComponentIdentifier);
+            if (missingAgeMillis >= 0 && !cachePolicy.mustRefreshMissingModule(moduleComponentIdentifier, missingAgeMillis)) {
+                return MetadataFetchingCost.CHEAP;
+            }
             ModuleMetadataCache.CachedMetadata cachedMetadata = moduleMetadataCache.getCachedModuleDescriptor(delegate, moduleComponentIdentifier);
             if (cachedMetadata == null) {
                 return estimateCostViaRemoteAccess(moduleComponentIdentifier);
@@ -377,9 +393,11 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
             delegate.getRemoteAccess().resolveComponentMetaData(moduleComponentIdentifier, forced, result);
             switch (result.getState()) {
                 case Missing:
-                    moduleMetadataCache.cacheMissing(delegate, moduleComponentIdentifier);
+                    // The missing module index replaces the missing entry of the module meta-data cache
+                    missingModuleIndex.recordMissing(delegate, moduleComponentIdentifier);
                     break;
                 case Resolved:
+                    missingModuleIndex.recordPresent(delegate, moduleComponentIdentifier);
                     ModuleComponentResolveMetadata resolvedMetadata = result.getMetaData();
                     ModuleSource moduleSource = resolvedMetadata.getSource();
                     ModuleMetadataCache.CachedMetadata cachedMetadata = moduleMetadataCache.cacheMetaData(delegate, moduleComponentIdentifier, resolvedMetadata);
@@ -433,6 +451,10 @@ public class CachingModuleComponentRepository implements ModuleComponentReposito
 
         @Override
         public MetadataFetchingCost estimateMetadataFetchingCost(ModuleComponentIdentifier moduleComponentIdentifier) {
+            long missingAgeMillis = missingModuleIndex.getMissingAgeMillis(delegate, moduleComponentIdentifier);
+            if (missingAgeMillis >= 0 && !cachePolicy.mustRefreshMissingModule(moduleComponentIdentifier, missingAgeMillis)) {
+                return MetadataFetchingCost.CHEAP;
+            }
             return delegate.getLocalAccess().estimateMetadataFetchingCost(moduleComponentIdentifier);
         }
     }
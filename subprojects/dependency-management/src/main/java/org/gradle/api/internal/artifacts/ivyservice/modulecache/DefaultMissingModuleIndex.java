@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentIdentifierSerializer;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.util.BuildCommencedTimeProvider;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link MissingModuleIndex} that is persisted across builds. Entries are discarded once they are older than the retention period,
+ * which is independent of the cache policy used by any particular resolution.
+ *
+ * <p>The whole index is persisted as a single entry, which is read once per build. Looking up a module, whether missing or not, does not access
+ * the persistent cache after that. The entry is only written when a module becomes missing from a repository or is found again.</p>
+ */
+public class DefaultMissingModuleIndex extends InMemoryMissingModuleIndex {
+    private static final long RETENTION_MILLIS = Long.getLong("org.gradle.api.internal.artifacts.ivyservice.modulecache.missingModuleRetentionMs", TimeUnit.DAYS.toMillis(1));
+    private static final String INDEX_KEY = "index";
+
+    private final CacheLockingManager cacheLockingManager;
+    private PersistentIndexedCache<String, Map<ModuleComponentIdentifier, MissingModuleRepositories>> cache;
+    private Map<ModuleComponentIdentifier, MissingModuleRepositories> persistedIndex;
+
+    public DefaultMissingModuleIndex(BuildCommencedTimeProvider timeProvider, CacheLockingManager cacheLockingManager) {
+        super(timeProvider);
+        this.cacheLockingManager = cacheLockingManager;
+    }
+
+    private PersistentIndexedCache<String, Map<ModuleComponentIdentifier, MissingModuleRepositories>> getCache() {
+        if (cache == null) {
+            cache = initCache();
+        }
+        return cache;
+    }
+
+    private PersistentIndexedCache<String, Map<ModuleComponentIdentifier, MissingModuleRepositories>> initCache() {
+        return cacheLockingManager.createCache("missing-modules", BaseSerializerFactory.STRING_SERIALIZER, new IndexSerializer());
+    }
+
+    @Override
+    protected MissingModuleRepositories load(ModuleComponentIdentifier id) {
+        MissingModuleRepositories persisted = getPersistedIndex().get(id);
+        return persisted == null ? MissingModuleRepositories.NONE : persisted;
+    }
+
+    private synchronized Map<ModuleComponentIdentifier, MissingModuleRepositories> getPersistedIndex() {
+        if (persistedIndex == null) {
+            persistedIndex = readIndex();
+        }
+        return persistedIndex;
+    }
+
+    @Override
+    protected void store(ModuleComponentIdentifier id, MissingModuleRepositories repositories) {
+        // Read the index again, to keep the changes made by other processes since it was first read
+        Map<ModuleComponentIdentifier, MissingModuleRepositories> index = readIndex();
+        if (repositories.isEmpty()) {
+            index.remove(id);
+        } else {
+            index.put(id, repositories);
+        }
+        getCache().put(INDEX_KEY, index);
+    }
+
+    private Map<ModuleComponentIdentifier, MissingModuleRepositories> readIndex() {
+        Map<ModuleComponentIdentifier, MissingModuleRepositories> persisted = getCache().get(INDEX_KEY);
+        Map<ModuleComponentIdentifier, MissingModuleRepositories> index = Maps.newHashMap();
+        if (persisted == null) {
+            return index;
+        }
+        long retainedSince = timeProvider.getCurrentTime() - RETENTION_MILLIS;
+        for (Map.Entry<ModuleComponentIdentifier, MissingModuleRepositories> entry : persisted.entrySet()) {
+            MissingModuleRepositories repositories = entry.getValue().withoutEntriesBefore(retainedSince);
+            if (!repositories.isEmpty()) {
+                index.put(entry.getKey(), repositories);
+            }
+        }
+        return index;
+    }
+
+    private static class IndexSerializer extends AbstractSerializer<Map<ModuleComponentIdentifier, MissingModuleRepositories>> {
+        private final ModuleComponentIdentifierSerializer idSerializer = new ModuleComponentIdentifierSerializer();
+        private final MissingModuleRepositories.Serializer repositoriesSerializer = new MissingModuleRepositories.Serializer();
+
+        @Override
+        public Map<ModuleComponentIdentifier, MissingModuleRepositories> read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            Map<ModuleComponentIdentifier, MissingModuleRepositories> index = Maps.newHashMapWithExpectedSize(count);
+            for (int i = 0; i < count; i++) {
+                index.put(idSerializer.read(decoder), repositoriesSerializer.read(decoder));
+            }
+            return index;
+        }
+
+        @Override
+        public void write(Encoder encoder, Map<ModuleComponentIdentifier, MissingModuleRepositories> value) throws Exception {
+            encoder.writeSmallInt(value.size());
+            for (Map.Entry<ModuleComponentIdentifier, MissingModuleRepositories> entry : value.entrySet()) {
+                idSerializer.write(encoder, entry.getKey());
+                repositoriesSerializer.write(encoder, entry.getValue());
+            }
+        }
+    }
+
+    private static class ModuleComponentIdentifierSerializer extends AbstractSerializer<ModuleComponentIdentifier> {
+        private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
+
+        @Override
+        public ModuleComponentIdentifier read(Decoder decoder) throws Exception {
+            return (ModuleComponentIdentifier) componentIdSerializer.read(decoder);
+        }
+
+        @Override
+        public void write(Encoder encoder, ModuleComponentIdentifier value) throws Exception {
+            componentIdSerializer.write(encoder, value);
+        }
+    }
+}
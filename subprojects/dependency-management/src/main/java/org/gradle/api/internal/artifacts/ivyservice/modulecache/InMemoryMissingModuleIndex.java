@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.util.BuildCommencedTimeProvider;
+
+import java.util.concurrent.ConcurrentMap;
+
+public class InMemoryMissingModuleIndex implements MissingModuleIndex {
+    protected final BuildCommencedTimeProvider timeProvider;
+    private final ConcurrentMap<ModuleComponentIdentifier, MissingModuleRepositories> inMemoryIndex = Maps.newConcurrentMap();
+    private final Object storeLock = new Object();
+
+    public InMemoryMissingModuleIndex(BuildCommencedTimeProvider timeProvider) {
+        this.timeProvider = timeProvider;
+    }
+
+    @Override
+    public long getMissingAgeMillis(ModuleComponentRepository repository, ModuleComponentIdentifier id) {
+        long missingSince = get(id).getMissingSince(repository.getId());
+        if (missingSince < 0) {
+            return -1;
+        }
+        return Math.max(0, timeProvider.getCurrentTime() - missingSince);
+    }
+
+    @Override
+    public void recordMissing(ModuleComponentRepository repository, ModuleComponentIdentifier id) {
+        String repositoryId = repository.getId();
+        long timestamp = timeProvider.getCurrentTime();
+        while (true) {
+            MissingModuleRepositories current = get(id);
+            if (replace(id, current, current.withMissing(repositoryId, timestamp))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void recordPresent(ModuleComponentRepository repository, ModuleComponentIdentifier id) {
+        String repositoryId = repository.getId();
+        while (true) {
+            MissingModuleRepositories current = get(id);
+            MissingModuleRepositories updated = current.without(repositoryId);
+            if (replace(id, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private MissingModuleRepositories get(ModuleComponentIdentifier id) {
+        MissingModuleRepositories repositories = inMemoryIndex.get(id);
+        if (repositories == null) {
+            // Remember when nothing is known about the module as well, so that it is loaded at most once
+            repositories = load(id);
+            MissingModuleRepositories existing = inMemoryIndex.putIfAbsent(id, repositories);
+            if (existing != null) {
+                repositories = existing;
+            }
+        }
+        return repositories;
+    }
+
+    private boolean replace(ModuleComponentIdentifier id, MissingModuleRepositories current, MissingModuleRepositories updated) {
+        if (updated.equals(current)) {
+            // Nothing has changed, so there is nothing to store
+            return true;
+        }
+        if (!inMemoryIndex.replace(id, current, updated)) {
+            return false;
+        }
+        // Another thread may have replaced the entry again since, so store the latest entry. As the stores are serialized, the last one
+        // to run stores the entry that is kept in memory
+        synchronized (storeLock) {
+            store(id, inMemoryIndex.get(id));
+        }
+        return true;
+    }
+
+    protected MissingModuleRepositories load(ModuleComponentIdentifier id) {
+        return MissingModuleRepositories.NONE;
+    }
+
+    protected void store(ModuleComponentIdentifier id, MissingModuleRepositories repositories) {
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+
+/**
+ * An index of the modules that are known to be missing from repositories. All repositories share the index, so that the absence of a module
+ * from every repository is determined with a single lookup.
+ */
+public interface MissingModuleIndex {
+    /**
+     * Returns the age in milliseconds of the record that the given module is missing from the given repository, or -1 when the module is not known to be missing.
+     */
+    long getMissingAgeMillis(ModuleComponentRepository repository, ModuleComponentIdentifier id);
+
+    void recordMissing(ModuleComponentRepository repository, ModuleComponentIdentifier id);
+
+    void recordPresent(ModuleComponentRepository repository, ModuleComponentIdentifier id);
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.util.Arrays;
+
+/**
+ * The repositories that a module is missing from, along with the time at which the module was found to be missing from each of them.
+ * Instances are immutable, and hold the entries in parallel arrays to keep the index compact.
+ */
+class MissingModuleRepositories {
+    static final MissingModuleRepositories NONE = new MissingModuleRepositories(new String[0], new long[0]);
+
+    private final String[] repositoryIds;
+    private final long[] missingSince;
+
+    private MissingModuleRepositories(String[] repositoryIds, long[] missingSince) {
+        this.repositoryIds = repositoryIds;
+        this.missingSince = missingSince;
+    }
+
+    boolean isEmpty() {
+        return repositoryIds.length == 0;
+    }
+
+    /**
+     * Returns the time at which the module was found to be missing from the given repository, or -1 when not known to be missing.
+     */
+    long getMissingSince(String repositoryId) {
+        int index = indexOf(repositoryId);
+        return index < 0 ? -1 : missingSince[index];
+    }
+
+    MissingModuleRepositories withMissing(String repositoryId, long timestamp) {
+        int index = indexOf(repositoryId);
+        if (index >= 0) {
+            long[] newMissingSince = missingSince.clone();
+            newMissingSince[index] = timestamp;
+            return new MissingModuleRepositories(repositoryIds, newMissingSince);
+        }
+        String[] newRepositoryIds = Arrays.copyOf(repositoryIds, repositoryIds.length + 1);
+        long[] newMissingSince = Arrays.copyOf(missingSince, missingSince.length + 1);
+        newRepositoryIds[repositoryIds.length] = repositoryId;
+        newMissingSince[missingSince.length] = timestamp;
+        return new MissingModuleRepositories(newRepositoryIds, newMissingSince);
+    }
+
+    MissingModuleRepositories without(String repositoryId) {
+        int index = indexOf(repositoryId);
+        if (index < 0) {
+            return this;
+        }
+        if (repositoryIds.length == 1) {
+            return NONE;
+        }
+        String[] newRepositoryIds = new String[repositoryIds.length - 1];
+        long[] newMissingSince = new long[missingSince.length - 1];
+        System.arraycopy(repositoryIds, 0, newRepositoryIds, 0, index);
+        System.arraycopy(repositoryIds, index + 1, newRepositoryIds, index, newRepositoryIds.length - index);
+        System.arraycopy(missingSince, 0, newMissingSince, 0, index);
+        System.arraycopy(missingSince, index + 1, newMissingSince, index, newMissingSince.length - index);
+        return new MissingModuleRepositories(newRepositoryIds, newMissingSince);
+    }
+
+    /**
+     * Discards the entries recorded before the given time.
+     */
+    MissingModuleRepositories withoutEntriesBefore(long timestamp) {
+        MissingModuleRepositories result = this;
+        for (int i = 0; i < repositoryIds.length; i++) {
+            if (missingSince[i] < timestamp) {
+                result = result.without(repositoryIds[i]);
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(String repositoryId) {
+        for (int i = 0; i < repositoryIds.length; i++) {
+            if (repositoryIds[i].equals(repositoryId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        MissingModuleRepositories other = (MissingModuleRepositories) obj;
+        return Arrays.equals(repositoryIds, other.repositoryIds) && Arrays.equals(missingSince, other.missingSince);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(repositoryIds) ^ Arrays.hashCode(missingSince);
+    }
+
+    static class Serializer extends AbstractSerializer<MissingModuleRepositories> {
+        @Override
+        public MissingModuleRepositories read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            if (count == 0) {
+                return NONE;
+            }
+            String[] repositoryIds = new String[count];
+            long[] missingSince = new long[count];
+            for (int i = 0; i < count; i++) {
+                repositoryIds[i] = decoder.readString();
+                missingSince[i] = decoder.readLong();
+            }
+            return new MissingModuleRepositories(repositoryIds, missingSince);
+        }
+
+        @Override
+        public void write(Encoder encoder, MissingModuleRepositories value) throws Exception {
+            encoder.writeSmallInt(value.repositoryIds.length);
+            for (int i = 0; i < value.repositoryIds.length; i++) {
+                encoder.writeString(value.repositoryIds[i]);
+                encoder.writeLong(value.missingSince[i]);
+            }
+        }
+    }
+}
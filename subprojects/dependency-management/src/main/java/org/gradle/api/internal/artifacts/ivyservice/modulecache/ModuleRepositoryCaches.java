@@ -24,11 +24,13 @@ public class ModuleRepositoryCaches {
     public final ModuleMetadataCache moduleMetadataCache;
     public final ModuleArtifactsCache moduleArtifactsCache;
     public final ModuleArtifactCache moduleArtifactCache;
+    public final MissingModuleIndex missingModuleIndex;
 
-    public ModuleRepositoryCaches(ModuleVersionsCache moduleVersionsCache, ModuleMetadataCache moduleMetadataCache, ModuleArtifactsCache moduleArtifactsCache, ModuleArtifactCache moduleArtifactCache) {
+    public ModuleRepositoryCaches(ModuleVersionsCache moduleVersionsCache, ModuleMetadataCache moduleMetadataCache, ModuleArtifactsCache moduleArtifactsCache, ModuleArtifactCache moduleArtifactCache, MissingModuleIndex missingModuleIndex) {
         this.moduleVersionsCache = moduleVersionsCache;
         this.moduleMetadataCache = moduleMetadataCache;
         this.moduleArtifactsCache = moduleArtifactsCache;
         this.moduleArtifactCache = moduleArtifactCache;
+        this.missingModuleIndex = missingModuleIndex;
     }
 }
@@ -31,8 +31,8 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.AbstractModuleExclusion.isWildcard;
 
@@ -57,15 +57,15 @@ public class ModuleExclusions {
 
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
 
-    private final Map<MergeOperation, AbstractModuleExclusion> mergeCache = Maps.newConcurrentMap();
-    private final Map<ImmutableList<ExcludeMetadata>, AbstractModuleExclusion> excludeAnyCache = Maps.newConcurrentMap();
-    private final Map<ImmutableSet<AbstractModuleExclusion>, IntersectionExclusion> intersectionCache = Maps.newConcurrentMap();
-    private final Map<AbstractModuleExclusion[], Map<AbstractModuleExclusion[], MergeOperation>> mergeOperationCache = Maps.newIdentityHashMap();
-    private final Map<ModuleIdentifier, ModuleIdExcludeSpec> moduleIdSpecs = Maps.newConcurrentMap();
-    private final Map<String, ModuleNameExcludeSpec> moduleNameSpecs = Maps.newConcurrentMap();
-    private final Map<String, GroupNameExcludeSpec> groupNameSpecs = Maps.newConcurrentMap();
-
-    private final Object mergeOperationLock = new Object();
+    // Every spec handed out by this instance is canonical, so that operations on specs can be memoized by identity
+    private final ConcurrentMap<AbstractModuleExclusion, AbstractModuleExclusion> canonicalSpecs = Maps.newConcurrentMap();
+    private final ConcurrentMap<ImmutableList<ExcludeMetadata>, AbstractModuleExclusion> excludeAnyCache = Maps.newConcurrentMap();
+    private final ConcurrentMap<ImmutableSet<AbstractModuleExclusion>, IntersectionExclusion> intersectionCache = Maps.newConcurrentMap();
+    private final ConcurrentMap<OperationKey, AbstractModuleExclusion> mergeCache = Maps.newConcurrentMap();
+    private final ConcurrentMap<OperationKey, AbstractModuleExclusion> intersectCache = Maps.newConcurrentMap();
+    private final ConcurrentMap<ModuleIdentifier, ModuleIdExcludeSpec> moduleIdSpecs = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, ModuleNameExcludeSpec> moduleNameSpecs = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, GroupNameExcludeSpec> groupNameSpecs = Maps.newConcurrentMap();
 
     public ModuleExclusions(ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
         this.moduleIdentifierFactory = moduleIdentifierFactory;
@@ -104,14 +104,14 @@ public class ModuleExclusions {
             exclusions.add(forExclude(exclude));
         }
         exclusion = asIntersection(exclusions.build());
-        excludeAnyCache.put(excludes, exclusion);
-        return exclusion;
+        AbstractModuleExclusion existing = excludeAnyCache.putIfAbsent(excludes, exclusion);
+        return existing != null ? existing : exclusion;
     }
 
     private AbstractModuleExclusion forExclude(ExcludeMetadata rule) {
         // For custom ivy pattern matchers, don't inspect the rule any more deeply: this prevents us from doing smart merging later
         if (!PatternMatchers.isExactMatcher(rule.getMatcher())) {
-            return new IvyPatternMatcherExcludeRuleSpec(rule);
+            return canonical(new IvyPatternMatcherExcludeRuleSpec(rule));
         }
 
         ModuleIdentifier moduleId = rule.getModuleId();
@@ -131,7 +131,7 @@ public class ModuleExclusions {
                 return EXCLUDE_ALL_MODULES_SPEC;
             }
         } else {
-            return new ArtifactExcludeSpec(moduleId, artifact);
+            return canonical(new ArtifactExcludeSpec(moduleId, artifact));
         }
     }
 
@@ -139,7 +139,10 @@ public class ModuleExclusions {
         ModuleIdExcludeSpec spec = moduleIdSpecs.get(id);
         if (spec == null) {
             spec = new ModuleIdExcludeSpec(id);
-            moduleIdSpecs.put(id, spec);
+            ModuleIdExcludeSpec existing = moduleIdSpecs.putIfAbsent(id, spec);
+            if (existing != null) {
+                return existing;
+            }
         }
         return spec;
     }
@@ -148,7 +151,10 @@ public class ModuleExclusions {
         ModuleNameExcludeSpec spec = moduleNameSpecs.get(id);
         if (spec == null) {
             spec = new ModuleNameExcludeSpec(id);
-            moduleNameSpecs.put(id, spec);
+            ModuleNameExcludeSpec existing = moduleNameSpecs.putIfAbsent(id, spec);
+            if (existing != null) {
+                return existing;
+            }
         }
         return spec;
     }
@@ -157,11 +163,19 @@ public class ModuleExclusions {
         GroupNameExcludeSpec spec = groupNameSpecs.get(id);
         if (spec == null) {
             spec = new GroupNameExcludeSpec(id);
-            groupNameSpecs.put(id, spec);
+            GroupNameExcludeSpec existing = groupNameSpecs.putIfAbsent(id, spec);
+            if (existing != null) {
+                return existing;
+            }
         }
         return spec;
     }
 
+    private AbstractModuleExclusion canonical(AbstractModuleExclusion spec) {
+        AbstractModuleExclusion existing = canonicalSpecs.putIfAbsent(spec, spec);
+        return existing != null ? existing : spec;
+    }
+
     /**
      * Returns a spec that excludes those modules and artifacts that are excluded by _either_ of the given exclude rules.
      */
@@ -188,12 +202,20 @@ public class ModuleExclusions {
         AbstractModuleExclusion aOne = (AbstractModuleExclusion) one;
         AbstractModuleExclusion aTwo = (AbstractModuleExclusion) two;
 
+        OperationKey key = new OperationKey(aOne, aTwo);
+        AbstractModuleExclusion intersection = intersectCache.get(key);
+        if (intersection != null) {
+            return intersection;
+        }
+
         List<AbstractModuleExclusion> builder = Lists.newArrayListWithExpectedSize(estimateSize(aOne) + estimateSize(aTwo));
 
         aOne.unpackIntersection(builder);
         aTwo.unpackIntersection(builder);
 
-        return asIntersection(ImmutableSet.copyOf(builder));
+        intersection = asIntersection(ImmutableSet.copyOf(builder));
+        intersectCache.putIfAbsent(key, intersection);
+        return intersection;
     }
 
     private static int estimateSize(AbstractModuleExclusion ex) {
@@ -241,7 +263,7 @@ public class ModuleExclusions {
         if (specs.size() == 1) {
             return specs.get(0);
         }
-        return new UnionExclusion(specs);
+        return canonical(new UnionExclusion(specs));
     }
 
     /**
@@ -269,7 +291,7 @@ public class ModuleExclusions {
                 return one;
             }
 
-            MergeOperation merge = mergeOperation(oneFilters, otherFilters);
+            OperationKey merge = new OperationKey(one, other);
             AbstractModuleExclusion exclusion = mergeCache.get(merge);
             if (exclusion != null) {
                 return exclusion;
@@ -279,25 +301,7 @@ public class ModuleExclusions {
         return null;
     }
 
-    private MergeOperation mergeOperation(AbstractModuleExclusion[] one, AbstractModuleExclusion[] two) {
-        synchronized (mergeOperationLock) {
-            Map<AbstractModuleExclusion[], MergeOperation> oneMap = mergeOperationCache.get(one);
-            if (oneMap == null) {
-                oneMap = Maps.newIdentityHashMap();
-                mergeOperationCache.put(one, oneMap);
-
-            }
-            MergeOperation mergeOperation = oneMap.get(two);
-            if (mergeOperation != null) {
-                return mergeOperation;
-            }
-            mergeOperation = new MergeOperation(one, two);
-            oneMap.put(two, mergeOperation);
-            return mergeOperation;
-        }
-    }
-
-    private AbstractModuleExclusion mergeAndCacheResult(MergeOperation merge, AbstractModuleExclusion[] oneFilters, AbstractModuleExclusion[] otherFilters) {
+    private AbstractModuleExclusion mergeAndCacheResult(OperationKey merge, AbstractModuleExclusion[] oneFilters, AbstractModuleExclusion[] otherFilters) {
         AbstractModuleExclusion exclusion; // Merge the exclude rules from both specs into a single union spec.
         final BitSet remaining = new BitSet(otherFilters.length);
         remaining.set(0, otherFilters.length, true);
@@ -317,15 +321,18 @@ public class ModuleExclusions {
         } else {
             exclusion = asIntersection(ImmutableSet.copyOf(merged));
         }
-        mergeCache.put(merge, exclusion);
-        return exclusion;
+        AbstractModuleExclusion existing = mergeCache.putIfAbsent(merge, exclusion);
+        return existing != null ? existing : exclusion;
     }
 
     private IntersectionExclusion asIntersection(ImmutableSet<AbstractModuleExclusion> excludes) {
         IntersectionExclusion cached = intersectionCache.get(excludes);
         if (cached == null) {
             cached = new IntersectionExclusion(new ImmutableModuleExclusionSet(excludes));
-            intersectionCache.put(excludes, cached);
+            IntersectionExclusion existing = intersectionCache.putIfAbsent(excludes, cached);
+            if (existing != null) {
+                return existing;
+            }
         }
         return cached;
     }
@@ -413,16 +420,18 @@ public class ModuleExclusions {
         }
     }
 
-    private static final class MergeOperation {
-        private final AbstractModuleExclusion[] one;
-        private final AbstractModuleExclusion[] two;
+    /**
+     * The operands of a binary operation on canonical specs, compared by identity.
+     */
+    private static final class OperationKey {
+        private final AbstractModuleExclusion one;
+        private final AbstractModuleExclusion two;
         private final int hashCode;
 
-
-        private MergeOperation(AbstractModuleExclusion[] one, AbstractModuleExclusion[] two) {
+        private OperationKey(AbstractModuleExclusion one, AbstractModuleExclusion two) {
             this.one = one;
             this.two = two;
-            this.hashCode = 31 * Arrays.hashCode(one) + Arrays.hashCode(two);
+            this.hashCode = 31 * System.identityHashCode(one) + System.identityHashCode(two);
         }
 
         @Override
@@ -434,8 +443,8 @@ public class ModuleExclusions {
                 return false;
             }
 
-            MergeOperation that = (MergeOperation) o;
-            return Arrays.equals(one, that.one) && Arrays.equals(two, that.two);
+            OperationKey that = (OperationKey) o;
+            return one == that.one && two == that.two;
         }
 
         @Override
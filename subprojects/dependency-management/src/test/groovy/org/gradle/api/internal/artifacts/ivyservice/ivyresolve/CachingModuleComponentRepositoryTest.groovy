@@ -20,6 +20,7 @@ import org.gradle.api.artifacts.component.ModuleComponentIdentifier
 import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
 import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.MissingModuleIndex
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetadataCache
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleRepositoryCaches
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts.ArtifactAtRepositoryKey
@@ -38,6 +39,7 @@ import org.gradle.internal.component.model.ComponentOverrideMetadata
 import org.gradle.internal.component.model.ComponentResolveMetadata
 import org.gradle.internal.component.model.ModuleSource
 import org.gradle.internal.resolve.result.BuildableArtifactResolveResult
+import org.gradle.internal.resolve.result.BuildableModuleComponentMetaDataResolveResult
 import org.gradle.internal.resolve.result.DefaultBuildableArtifactSetResolveResult
 import org.gradle.internal.resolve.result.DefaultBuildableComponentArtifactsResolveResult
 import org.gradle.internal.resolve.result.DefaultBuildableModuleComponentMetaDataResolveResult
@@ -58,10 +60,13 @@ class CachingModuleComponentRepositoryTest extends Specification {
     def moduleDescriptorCache = Mock(ModuleMetadataCache)
     def moduleArtifactsCache = Mock(ModuleArtifactsCache)
     def artifactAtRepositoryCache = Mock(ModuleArtifactCache)
+    def missingModuleIndex = Mock(MissingModuleIndex) {
+        getMissingAgeMillis(_, _) >> -1
+    }
     def cachePolicy = Stub(CachePolicy)
     def metadataProcessor = Stub(ComponentMetadataProcessor)
     def moduleIdentifierFactory = Mock(ImmutableModuleIdentifierFactory)
-    def caches = new ModuleRepositoryCaches(moduleResolutionCache, moduleDescriptorCache, moduleArtifactsCache, artifactAtRepositoryCache)
+    def caches = new ModuleRepositoryCaches(moduleResolutionCache, moduleDescriptorCache, moduleArtifactsCache, artifactAtRepositoryCache, missingModuleIndex)
     def repo = new CachingModuleComponentRepository(realRepo, caches,
         cachePolicy, new BuildCommencedTimeProvider(), metadataProcessor, moduleIdentifierFactory)
 
@@ -163,6 +168,58 @@ class CachingModuleComponentRepositoryTest extends Specification {
         0 * _
     }
 
+    def "uses missing module index before cached meta-data"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def prescribedMetaData = Mock(ComponentOverrideMetadata)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repo.localAccess.resolveComponentMetaData(componentId, prescribedMetaData, result)
+
+        then:
+        1 * realLocalAccess.resolveComponentMetaData(componentId, prescribedMetaData, result)
+        1 * missingModuleIndex.getMissingAgeMillis(realRepo, componentId) >> 0
+        0 * moduleDescriptorCache._
+
+        and:
+        result.state == BuildableModuleComponentMetaDataResolveResult.State.Missing
+        result.authoritative
+    }
+
+    def "uses cached meta-data when missing module index entry has expired"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def prescribedMetaData = Mock(ComponentOverrideMetadata)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+        cachePolicy.mustRefreshMissingModule(componentId, 1000) >> true
+
+        when:
+        repo.localAccess.resolveComponentMetaData(componentId, prescribedMetaData, result)
+
+        then:
+        1 * missingModuleIndex.getMissingAgeMillis(realRepo, componentId) >> 1000
+        1 * moduleDescriptorCache.getCachedModuleDescriptor(realRepo, componentId) >> null
+
+        and:
+        !result.hasResult()
+    }
+
+    def "records missing and present modules in missing module index"() {
+        def componentId = Mock(ModuleComponentIdentifier)
+        def prescribedMetaData = Mock(ComponentOverrideMetadata)
+        def result = new DefaultBuildableModuleComponentMetaDataResolveResult()
+
+        when:
+        repo.remoteAccess.resolveComponentMetaData(componentId, prescribedMetaData, result)
+
+        then:
+        1 * realRemoteAccess.resolveComponentMetaData(componentId, _, result) >> {
+            result.missing()
+        }
+        0 * moduleDescriptorCache.cacheMissing(_, _)
+        1 * missingModuleIndex.recordMissing(realRepo, componentId)
+        0 * missingModuleIndex.recordPresent(_, _)
+    }
+
     @Unroll
     def "delegates estimates for fetching metadata to remote when not found in cache (remote says #remoteAnswer)"() {
         def module = Mock(ModuleComponentIdentifier)
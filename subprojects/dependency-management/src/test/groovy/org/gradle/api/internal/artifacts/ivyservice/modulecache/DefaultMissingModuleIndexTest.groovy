@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.util.BuildCommencedTimeProvider
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class DefaultMissingModuleIndexTest extends Specification {
+    def cache = Mock(PersistentIndexedCache)
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache("missing-modules", _, _) >> cache
+    }
+    def timeProvider = Stub(BuildCommencedTimeProvider) {
+        getCurrentTime() >> { currentTime }
+    }
+    def index = new DefaultMissingModuleIndex(timeProvider, cacheLockingManager)
+    def repo = Stub(ModuleComponentRepository) { getId() >> "repo" }
+    def module1 = Stub(ModuleComponentIdentifier)
+    def module2 = Stub(ModuleComponentIdentifier)
+    long currentTime = TimeUnit.DAYS.toMillis(10)
+
+    def "reads the persisted index once for all modules"() {
+        when:
+        def age1 = index.getMissingAgeMillis(repo, module1)
+        def age2 = index.getMissingAgeMillis(repo, module2)
+        index.recordPresent(repo, module2)
+
+        then:
+        1 * cache.get("index") >> [(module1): MissingModuleRepositories.NONE.withMissing("repo", currentTime - 100)]
+        0 * cache._
+
+        and:
+        age1 == 100
+        age2 == -1
+    }
+
+    def "discards persisted entries older than the retention period"() {
+        when:
+        def age = index.getMissingAgeMillis(repo, module1)
+
+        then:
+        1 * cache.get("index") >> [(module1): MissingModuleRepositories.NONE.withMissing("repo", currentTime - TimeUnit.DAYS.toMillis(2))]
+
+        and:
+        age == -1
+    }
+
+    def "merges changes into the persisted index"() {
+        given:
+        cache.get("index") >> [:] >> [(module2): MissingModuleRepositories.NONE.withMissing("repo", currentTime)]
+
+        when:
+        index.recordMissing(repo, module1)
+
+        then:
+        1 * cache.put("index", [(module1): MissingModuleRepositories.NONE.withMissing("repo", currentTime), (module2): MissingModuleRepositories.NONE.withMissing("repo", currentTime)])
+    }
+}
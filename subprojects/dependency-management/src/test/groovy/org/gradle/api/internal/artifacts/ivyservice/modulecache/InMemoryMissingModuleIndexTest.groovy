@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
+import org.gradle.util.BuildCommencedTimeProvider
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+
+class InMemoryMissingModuleIndexTest extends Specification {
+    def timeProvider = Stub(BuildCommencedTimeProvider) {
+        getCurrentTime() >> { currentTime }
+    }
+    def index = new InMemoryMissingModuleIndex(timeProvider)
+    def repo1 = Stub(ModuleComponentRepository) { getId() >> "repo1" }
+    def repo2 = Stub(ModuleComponentRepository) { getId() >> "repo2" }
+    def module = Stub(ModuleComponentIdentifier)
+    long currentTime = 1000
+
+    def "module is not missing when nothing is recorded"() {
+        expect:
+        index.getMissingAgeMillis(repo1, module) == -1
+    }
+
+    def "tracks missing modules per repository"() {
+        when:
+        index.recordMissing(repo1, module)
+        currentTime = 1500
+
+        then:
+        index.getMissingAgeMillis(repo1, module) == 500
+        index.getMissingAgeMillis(repo2, module) == -1
+
+        when:
+        index.recordMissing(repo2, module)
+
+        then:
+        index.getMissingAgeMillis(repo1, module) == 500
+        index.getMissingAgeMillis(repo2, module) == 0
+    }
+
+    def "module is no longer missing once present in repository"() {
+        given:
+        index.recordMissing(repo1, module)
+        index.recordMissing(repo2, module)
+
+        when:
+        index.recordPresent(repo1, module)
+
+        then:
+        index.getMissingAgeMillis(repo1, module) == -1
+        index.getMissingAgeMillis(repo2, module) == 0
+    }
+
+    def "stores entries only when they change"() {
+        def stored = []
+        index = new InMemoryMissingModuleIndex(timeProvider) {
+            @Override
+            protected void store(ModuleComponentIdentifier id, MissingModuleRepositories repositories) {
+                stored << repositories
+            }
+        }
+
+        when:
+        index.recordPresent(repo1, module)
+        index.recordMissing(repo1, module)
+        index.recordMissing(repo1, module)
+
+        then:
+        stored.size() == 1
+
+        when:
+        currentTime = 2000
+        index.recordMissing(repo1, module)
+        index.recordPresent(repo1, module)
+        index.recordPresent(repo1, module)
+
+        then:
+        stored.size() == 3
+        stored.last().empty
+    }
+
+    def "stores the latest entry when entries are updated concurrently"() {
+        def firstStoreStarted = new CountDownLatch(1)
+        def releaseFirstStore = new CountDownLatch(1)
+        def stored = []
+        index = new InMemoryMissingModuleIndex(timeProvider) {
+            @Override
+            protected void store(ModuleComponentIdentifier id, MissingModuleRepositories repositories) {
+                if (firstStoreStarted.count > 0) {
+                    firstStoreStarted.countDown()
+                    releaseFirstStore.await()
+                }
+                stored << repositories
+            }
+        }
+
+        when:
+        def first = Thread.start { index.recordMissing(repo1, module) }
+        firstStoreStarted.await()
+        def second = Thread.start { index.recordMissing(repo2, module) }
+        while (index.getMissingAgeMillis(repo2, module) < 0) {
+            Thread.sleep(10)
+        }
+        releaseFirstStore.countDown()
+        first.join()
+        second.join()
+
+        then:
+        stored.last().getMissingSince("repo1") == 1000
+        stored.last().getMissingSince("repo2") == 1000
+    }
+
+    def "discards entries recorded before a given time"() {
+        def repositories = MissingModuleRepositories.NONE.withMissing("repo1", 100).withMissing("repo2", 200)
+
+        expect:
+        repositories.withoutEntriesBefore(150).getMissingSince("repo1") == -1
+        repositories.withoutEntriesBefore(150).getMissingSince("repo2") == 200
+        repositories.withoutEntriesBefore(300).empty
+    }
+}
@@ -758,6 +758,28 @@ class DefaultModuleExclusionTest extends Specification {
         union(intersection, simpleExclude)
     }
 
+    def "equal specs are the same instance"() {
+        def rule1 = excludeRule("org", "module")
+        def rule2 = regexpExcludeRule("org", "module2")
+        def rule3 = excludeArtifactRule("a", "jar", "jar")
+
+        expect:
+        excludeAny(rule1, rule2, rule3).is(excludeAny(excludeRule("org", "module"), regexpExcludeRule("org", "module2"), excludeArtifactRule("a", "jar", "jar")))
+        union(excludeAny(rule1), excludeAny(rule2)).is(union(excludeAny(rule1), excludeAny(rule2)))
+    }
+
+    def "results of intersection and union are memoized"() {
+        def spec1 = excludeAny(excludeRule("org", "module"), excludeRule("org", "module2"))
+        def spec2 = excludeAny(excludeRule("org", "module2"), excludeRule("org", "module3"))
+        def spec3 = excludeAny(excludeGroupRule("org"))
+
+        expect:
+        intersect(spec1, spec2).is(intersect(spec1, spec2))
+        intersect(spec1, spec2).is(intersect(spec2, spec1))
+        union(spec1, spec3).is(union(spec1, spec3))
+        union(spec1, spec3) == excludeAny(excludeRule("org", "module"), excludeRule("org", "module2"))
+    }
+
     ModuleExclusion union(ModuleExclusion spec, ModuleExclusion otherRule) {
         moduleExclusions.union(spec, otherRule)
     }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.testing.jacoco.plugins
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.internal.jacoco.IncrementalJacocoReportInvoker
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.testing.jacoco.plugins.fixtures.JavaProjectUnderTest
+
+class JacocoIncrementalReportIntegrationTest extends AbstractIntegrationSpec {
+
+    private final JavaProjectUnderTest javaProjectUnderTest = new JavaProjectUnderTest(testDirectory)
+    private final TestFile reportDir = file("build/reports/jacoco/test")
+    private final TestFile xmlReport = reportDir.file("jacocoTestReport.xml")
+    private final TestFile analysisCacheDir = file("build/tmp/jacocoTestReport/classes")
+
+    def setup() {
+        javaProjectUnderTest.writeBuildScript().writeSourceFiles()
+        file("src/main/java/org/gradle/Other.java") << """
+            package org.gradle;
+
+            public class Other {
+                public int covered(int value) {
+                    return value > 0 ? value : -value;
+                }
+            }
+        """
+        file("src/test/java/org/gradle/OtherTest.java") << """
+            package org.gradle;
+
+            public class OtherTest {
+                @org.junit.Test
+                public void covers() {
+                    new Other().covered(1);
+                }
+            }
+        """
+        buildFile << """
+            jacocoTestReport {
+                dependsOn test
+                reports.xml.enabled = true
+            }
+        """
+    }
+
+    def "generates the same xml report as the ant task"() {
+        when:
+        succeeds "jacocoTestReport"
+        def antReport = coverage(xmlReport)
+        reportDir.deleteDir()
+        incremental()
+        succeeds "jacocoTestReport"
+
+        then:
+        executedAndNotSkipped ":jacocoTestReport"
+        skipped ":test"
+        coverage(xmlReport) == antReport
+        !antReport.isEmpty()
+    }
+
+    def "reuses the analysis of unchanged classes"() {
+        when:
+        incremental()
+        succeeds "jacocoTestReport"
+        def firstReport = coverage(xmlReport)
+        def entries = cacheEntries()
+
+        then:
+        !entries.isEmpty()
+
+        when:
+        entries.values()*.makeOlder()
+        def timestamps = cacheEntries().collectEntries { name, file -> [name, file.lastModified()] }
+        reportDir.deleteDir()
+        incremental()
+        succeeds "jacocoTestReport"
+
+        then:
+        executedAndNotSkipped ":jacocoTestReport"
+        cacheEntries().collectEntries { name, file -> [name, file.lastModified()] } == timestamps
+        coverage(xmlReport) == firstReport
+
+        when:
+        reportDir.deleteDir()
+        succeeds "jacocoTestReport"
+
+        then:
+        coverage(xmlReport) == firstReport
+    }
+
+    private void incremental() {
+        executer.withArgument("-D${IncrementalJacocoReportInvoker.INCREMENTAL_PROPERTY}=true")
+    }
+
+    private Map<String, TestFile> cacheEntries() {
+        def entries = [:]
+        analysisCacheDir.eachFile { entries[it.name] = new TestFile(it) }
+        entries
+    }
+
+    /**
+     * Returns the counters of each class and method in the given XML report, ignoring the session information and the order of the elements.
+     */
+    private static Map<String, Map<String, String>> coverage(TestFile report) {
+        def parser = new XmlSlurper()
+        parser.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false)
+        def root = parser.parse(report)
+        def counters = [:]
+        root.'package'.each { pkg ->
+            pkg.'class'.each { cls ->
+                counters[cls.@name.text()] = countersOf(cls)
+                cls.method.each { method ->
+                    counters["${cls.@name.text()}.${method.@name.text()}${method.@desc.text()}".toString()] = countersOf(method)
+                }
+            }
+            pkg.sourcefile.each { source ->
+                counters["${pkg.@name.text()}/${source.@name.text()}".toString()] = countersOf(source)
+            }
+        }
+        counters['total'] = countersOf(root)
+        counters
+    }
+
+    private static Map<String, String> countersOf(node) {
+        node.counter.collectEntries { counter -> [counter.@type.text(), "${counter.@missed.text()}/${counter.@covered.text()}".toString()] }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.jacoco;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A serializable copy of a coverage node produced by the JaCoCo analyzer, such as the coverage of a class.
+ *
+ * <p>The values of all the getters of the JaCoCo interfaces that the node implements are recorded, recursively for counters, lines and methods.
+ * Replaying a record creates a proxy that implements the same interfaces and returns the recorded values, so that it can be added to a bundle and
+ * rendered by the JaCoCo report formatters like the original node. As this is done through reflection, it does not depend on a particular version
+ * of JaCoCo.</p>
+ */
+class CoverageRecord implements Serializable {
+    private static final String JACOCO_PACKAGE = "org.jacoco.";
+    private static final String PLAIN_COPY = "getPlainCopy";
+    private static final String GET_LINE = "getLine";
+    private static final String FIRST_LINE = "getFirstLine";
+    private static final String LAST_LINE = "getLastLine";
+    private static final int UNKNOWN_LINE = -1;
+
+    private final List<String> interfaces;
+    private final Map<String, Object> values;
+
+    private CoverageRecord(List<String> interfaces, Map<String, Object> values) {
+        this.interfaces = interfaces;
+        this.values = values;
+    }
+
+    /**
+     * Records the given coverage node.
+     */
+    static CoverageRecord record(Object node) throws Exception {
+        return record(node, JACOCO_PACKAGE);
+    }
+
+    /**
+     * Records the given node through the interfaces in the given package, or its subpackages.
+     */
+    static CoverageRecord record(Object node, String interfacePackage) throws Exception {
+        return record(node, interfacePackage, false);
+    }
+
+    private static CoverageRecord record(Object node, String interfacePackage, boolean plainCopy) throws Exception {
+        List<Class<?>> types = interfaces(node.getClass(), interfacePackage);
+        List<String> interfaces = new ArrayList<String>(types.size());
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (Class<?> type : types) {
+            interfaces.add(type.getName());
+            for (Method method : type.getMethods()) {
+                if (plainCopy && method.getName().equals(PLAIN_COPY)) {
+                    continue;
+                }
+                recordMethod(node, method, interfacePackage, values);
+            }
+        }
+        return new CoverageRecord(interfaces, values);
+    }
+
+    private static void recordMethod(Object node, Method method, String interfacePackage, Map<String, Object> values) throws Exception {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length == 0) {
+            values.put(method.getName(), recordValue(method.invoke(node), interfacePackage, method.getName().equals(PLAIN_COPY)));
+        } else if (parameterTypes.length == 1 && parameterTypes[0].isEnum()) {
+            for (Object constant : parameterTypes[0].getEnumConstants()) {
+                values.put(key(method, constant), recordValue(method.invoke(node, constant), interfacePackage, false));
+            }
+        } else if (parameterTypes.length == 1 && parameterTypes[0] == int.class && method.getName().equals(GET_LINE)) {
+            int firstLine = (Integer) method.getDeclaringClass().getMethod(FIRST_LINE).invoke(node);
+            int lastLine = (Integer) method.getDeclaringClass().getMethod(LAST_LINE).invoke(node);
+            values.put(key(method, UNKNOWN_LINE), recordValue(method.invoke(node, UNKNOWN_LINE), interfacePackage, false));
+            if (firstLine != UNKNOWN_LINE) {
+                for (int line = firstLine; line <= lastLine; line++) {
+                    values.put(key(method, line), recordValue(method.invoke(node, line), interfacePackage, false));
+                }
+            }
+        }
+    }
+
+    private static Object recordValue(Object value, String interfacePackage, boolean plainCopy) throws Exception {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof String[]) {
+            return value;
+        }
+        if (value instanceof Enum) {
+            return new EnumValue(((Enum<?>) value).getDeclaringClass().getName(), ((Enum<?>) value).name());
+        }
+        if (value instanceof Collection) {
+            ArrayList<Object> elements = new ArrayList<Object>();
+            for (Object element : (Collection<?>) value) {
+                elements.add(recordValue(element, interfacePackage, false));
+            }
+            return elements;
+        }
+        return record(value, interfacePackage, plainCopy);
+    }
+
+    private static List<Class<?>> interfaces(Class<?> type, String interfacePackage) {
+        Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> candidate : current.getInterfaces()) {
+                if (candidate.getName().startsWith(interfacePackage) && Modifier.isPublic(candidate.getModifiers())) {
+                    interfaces.add(candidate);
+                }
+            }
+        }
+        if (interfaces.isEmpty()) {
+            throw new IllegalArgumentException("Cannot record " + type.getName() + " as it does not implement any interface in " + interfacePackage);
+        }
+        return new ArrayList<Class<?>>(interfaces);
+    }
+
+    private static String key(Method method, Object argument) {
+        return method.getName() + ":" + (argument instanceof Enum ? ((Enum<?>) argument).name() : argument);
+    }
+
+    /**
+     * Creates a proxy that implements the recorded JaCoCo interfaces, loaded from the given class loader.
+     */
+    Object replay(ClassLoader classLoader) throws ClassNotFoundException {
+        Class<?>[] types = new Class<?>[interfaces.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = classLoader.loadClass(interfaces.get(i));
+        }
+        Map<String, Object> replayedValues = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            replayedValues.put(entry.getKey(), replayValue(entry.getValue(), classLoader));
+        }
+        return Proxy.newProxyInstance(classLoader, types, new RecordedNode(replayedValues));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object replayValue(Object value, ClassLoader classLoader) throws ClassNotFoundException {
+        if (value instanceof CoverageRecord) {
+            return ((CoverageRecord) value).replay(classLoader);
+        }
+        if (value instanceof EnumValue) {
+            EnumValue enumValue = (EnumValue) value;
+            return Enum.valueOf((Class) classLoader.loadClass(enumValue.type), enumValue.name);
+        }
+        if (value instanceof List) {
+            List<Object> elements = new ArrayList<Object>();
+            for (Object element : (List<?>) value) {
+                elements.add(replayValue(element, classLoader));
+            }
+            return elements;
+        }
+        return value;
+    }
+
+    private static class EnumValue implements Serializable {
+        private final String type;
+        private final String name;
+
+        EnumValue(String type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+    }
+
+    private static class RecordedNode implements InvocationHandler {
+        private final Map<String, Object> values;
+
+        RecordedNode(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args);
+            }
+            if (args == null || args.length == 0) {
+                if (method.getName().equals(PLAIN_COPY) && !values.containsKey(PLAIN_COPY)) {
+                    return proxy;
+                }
+                return get(method.getName());
+            }
+            String key = key(method, args[0]);
+            if (!values.containsKey(key) && method.getName().equals(GET_LINE)) {
+                // Lines outside of the range of the node are empty
+                return get(key(method, UNKNOWN_LINE));
+            }
+            return get(key);
+        }
+
+        private Object get(String key) {
+            if (!values.containsKey(key)) {
+                throw new UnsupportedOperationException("No recorded value for " + key + ".");
+            }
+            return values.get(key);
+        }
+
+        private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("toString")) {
+                return String.valueOf(values.get("getName"));
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.jacoco;
+
+import com.google.common.collect.Lists;
+import org.gradle.api.Action;
+import org.gradle.api.file.FileCollection;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.testing.jacoco.tasks.JacocoReport;
+import org.gradle.testing.jacoco.tasks.JacocoReportsContainer;
+import org.gradle.util.GFileUtils;
+import org.gradle.workers.IsolationMode;
+import org.gradle.workers.WorkerConfiguration;
+import org.gradle.workers.WorkerExecutor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the reports of a {@link JacocoReport} task with workers instead of the JaCoCo Ant task.
+ *
+ * <p>The class directories are split into batches that are analyzed in parallel by {@link JacocoAnalysisAction} workers. The coverage of each class
+ * file is kept in the temporary directory of the task, keyed by the JaCoCo library, the content of the class file and its execution data, so
+ * that the classes of unchanged modules whose tests did not run again are not analyzed again. A {@link JacocoReportAction} worker then renders
+ * the reports from the coverage of all classes.</p>
+ */
+public class IncrementalJacocoReportInvoker {
+    /**
+     * Enables analysis in workers with cached results when set to {@code true}.
+     */
+    public static final String INCREMENTAL_PROPERTY = "org.gradle.jacoco.incremental";
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(INCREMENTAL_PROPERTY);
+    }
+
+    public static void invoke(JacocoReport task, WorkerExecutor workerExecutor, FileCollection classDirs, FileCollection sourceDirs) {
+        File cacheDir = new File(task.getTemporaryDir(), "classes");
+        List<File> analysisResults = analyze(task, workerExecutor, new ArrayList<File>(classDirs.getFiles()), cacheDir);
+        Set<String> usedKeys = readKeys(analysisResults);
+
+        final String projectName = task.getProject().getName();
+        final List<File> results = analysisResults;
+        final List<File> sources = new ArrayList<File>(sourceDirs.getFiles());
+        final List<File> executionData = existingFiles(task.getExecutionData());
+        final Map<String, File> reports = getReportDestinations(task.getReports());
+        final Iterable<File> jacocoClasspath = task.getJacocoClasspath();
+        workerExecutor.submit(JacocoReportAction.class, new Action<WorkerConfiguration>() {
+            @Override
+            public void execute(WorkerConfiguration workerConfiguration) {
+                workerConfiguration.setIsolationMode(IsolationMode.CLASSLOADER);
+                workerConfiguration.setClasspath(jacocoClasspath);
+                workerConfiguration.setDisplayName("JaCoCo report for " + projectName);
+                workerConfiguration.setParams(projectName, results, sources, executionData, reports);
+            }
+        });
+        workerExecutor.await();
+
+        for (File analysisResult : analysisResults) {
+            GFileUtils.deleteQuietly(analysisResult);
+        }
+        removeUnusedEntries(cacheDir, usedKeys);
+    }
+
+    private static List<File> analyze(JacocoReport task, WorkerExecutor workerExecutor, List<File> classDirs, final File cacheDir) {
+        final String toolKey = toolKey(task.getJacocoClasspath());
+        final List<File> executionData = existingFiles(task.getExecutionData());
+        final Iterable<File> jacocoClasspath = task.getJacocoClasspath();
+        List<File> analysisResults = new ArrayList<File>();
+        if (classDirs.isEmpty()) {
+            return analysisResults;
+        }
+        int maxWorkers = task.getProject().getGradle().getStartParameter().getMaxWorkerCount();
+        int workers = Math.max(1, Math.min(maxWorkers, classDirs.size()));
+        List<List<File>> batches = Lists.partition(classDirs, (classDirs.size() + workers - 1) / workers);
+        for (int i = 0; i < batches.size(); i++) {
+            final List<File> batch = new ArrayList<File>(batches.get(i));
+            final File resultFile = new File(task.getTemporaryDir(), "analysis-" + i + JacocoAnalysisAction.CACHE_ENTRY_SUFFIX);
+            analysisResults.add(resultFile);
+            workerExecutor.submit(JacocoAnalysisAction.class, new Action<WorkerConfiguration>() {
+                @Override
+                public void execute(WorkerConfiguration workerConfiguration) {
+                    workerConfiguration.setIsolationMode(IsolationMode.CLASSLOADER);
+                    workerConfiguration.setClasspath(jacocoClasspath);
+                    workerConfiguration.setDisplayName("JaCoCo analysis of " + batch.size() + " class directories");
+                    workerConfiguration.setParams(batch, executionData, cacheDir, toolKey, resultFile);
+                }
+            });
+        }
+        workerExecutor.await();
+        return analysisResults;
+    }
+
+    private static List<File> existingFiles(FileCollection files) {
+        List<File> existing = new ArrayList<File>();
+        for (File file : files) {
+            if (file.exists()) {
+                existing.add(file);
+            }
+        }
+        return existing;
+    }
+
+    private static Map<String, File> getReportDestinations(JacocoReportsContainer reports) {
+        Map<String, File> destinations = new HashMap<String, File>();
+        if (reports.getHtml().isEnabled()) {
+            destinations.put(JacocoReportAction.HTML, reports.getHtml().getDestination());
+        }
+        if (reports.getXml().isEnabled()) {
+            destinations.put(JacocoReportAction.XML, reports.getXml().getDestination());
+        }
+        if (reports.getCsv().isEnabled()) {
+            destinations.put(JacocoReportAction.CSV, reports.getCsv().getDestination());
+        }
+        return destinations;
+    }
+
+    private static String toolKey(Iterable<File> jacocoClasspath) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(IncrementalJacocoReportInvoker.class.getName() + ":1");
+        for (File file : jacocoClasspath) {
+            hasher.putString(file.getName());
+            if (file.isFile()) {
+                hasher.putBytes(HashUtil.createHash(file, "MD5").asByteArray());
+            } else {
+                hasher.putInt(-1);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> readKeys(List<File> analysisResults) {
+        Set<String> keys = new HashSet<String>();
+        for (File analysisResult : analysisResults) {
+            try {
+                keys.addAll((List<String>) JacocoAnalysisAction.readObjects(analysisResult, 1).get(0));
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return keys;
+    }
+
+    private static void removeUnusedEntries(File cacheDir, Set<String> usedKeys) {
+        File[] entries = cacheDir.listFiles();
+        if (entries == null) {
+            return;
+        }
+        for (File entry : entries) {
+            String name = entry.getName();
+            if (!name.endsWith(JacocoAnalysisAction.CACHE_ENTRY_SUFFIX) || !usedKeys.contains(name.substring(0, name.length() - JacocoAnalysisAction.CACHE_ENTRY_SUFFIX.length()))) {
+                GFileUtils.deleteQuietly(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.jacoco;
+
+import com.google.common.io.Files;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import javax.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Analyzes the classes in some class directories against execution data with JaCoCo, and writes the coverage of each class as a
+ * {@link CoverageRecord}. Runs in a worker whose classpath contains the JaCoCo library, which is used through reflection as this class is not
+ * compiled against it.
+ *
+ * <p>The coverage of each class file in a directory is kept in the cache directory, keyed by the content of the class file and its execution
+ * data, so that classes whose coverage cannot have changed are not analyzed again. Archives are always analyzed.</p>
+ */
+public class JacocoAnalysisAction implements Runnable {
+    private static final String CORE_PACKAGE = "org.jacoco.core.";
+    private static final String CLASS_FILE_SUFFIX = ".class";
+    static final String CACHE_ENTRY_SUFFIX = ".bin";
+
+    private final List<File> classDirs;
+    private final List<File> executionData;
+    private final File cacheDir;
+    private final String toolKey;
+    private final File resultFile;
+
+    @Inject
+    public JacocoAnalysisAction(List<File> classDirs, List<File> executionData, File cacheDir, String toolKey, File resultFile) {
+        this.classDirs = classDirs;
+        this.executionData = executionData;
+        this.cacheDir = cacheDir;
+        this.toolKey = toolKey;
+        this.resultFile = resultFile;
+    }
+
+    @Override
+    public void run() {
+        try {
+            analyze();
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void analyze() throws Exception {
+        Jacoco jacoco = new Jacoco(getClass().getClassLoader(), executionData);
+        ArrayList<String> keys = new ArrayList<String>();
+        ArrayList<CoverageRecord> records = new ArrayList<CoverageRecord>();
+        for (File classDir : classDirs) {
+            if (classDir.isDirectory()) {
+                analyzeDirectory(jacoco, classDir, keys, records);
+            } else {
+                records.addAll(jacoco.analyzeAll(classDir));
+            }
+        }
+        writeObjects(resultFile, keys, records);
+    }
+
+    private void analyzeDirectory(Jacoco jacoco, File dir, List<String> keys, List<CoverageRecord> records) throws Exception {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                analyzeDirectory(jacoco, child, keys, records);
+            } else if (child.getName().endsWith(CLASS_FILE_SUFFIX)) {
+                byte[] bytes = Files.toByteArray(child);
+                String key = classKey(jacoco, bytes);
+                if (key == null) {
+                    records.addAll(jacoco.analyzeClass(bytes, child.getPath()));
+                    continue;
+                }
+                keys.add(key);
+                records.addAll(loadOrAnalyze(jacoco, key, bytes, child.getPath()));
+            } else {
+                records.addAll(jacoco.analyzeAll(child));
+            }
+        }
+    }
+
+    private String classKey(Jacoco jacoco, byte[] bytes) throws Exception {
+        Long id = jacoco.classId(bytes);
+        if (id == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(toolKey);
+        hasher.putBytes(bytes);
+        boolean[] probes = jacoco.probes(id);
+        if (probes == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(probes.length);
+            for (boolean probe : probes) {
+                hasher.putBoolean(probe);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CoverageRecord> loadOrAnalyze(Jacoco jacoco, String key, byte[] bytes, String location) throws Exception {
+        File cacheFile = new File(cacheDir, key + CACHE_ENTRY_SUFFIX);
+        if (cacheFile.isFile()) {
+            try {
+                return (List<CoverageRecord>) readObjects(cacheFile, 1).get(0);
+            } catch (Exception e) {
+                // Unreadable cache entry: analyze again
+            }
+        }
+        ArrayList<CoverageRecord> records = jacoco.analyzeClass(bytes, location);
+        File tmpFile = new File(cacheDir, key + ".tmp");
+        writeObjects(tmpFile, records);
+        if (!tmpFile.renameTo(cacheFile)) {
+            tmpFile.delete();
+        }
+        return records;
+    }
+
+    static void writeObjects(File file, Object... objects) throws IOException {
+        file.getParentFile().mkdirs();
+        ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            for (Object object : objects) {
+                outputStream.writeObject(object);
+            }
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    static List<Object> readObjects(File file, int count) throws IOException, ClassNotFoundException {
+        ObjectInputStream inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            List<Object> objects = new ArrayList<Object>(count);
+            for (int i = 0; i < count; i++) {
+                objects.add(inputStream.readObject());
+            }
+            return objects;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * The JaCoCo analyzer and the execution data, used through reflection.
+     */
+    private static class Jacoco {
+        private final ClassLoader classLoader;
+        private final Object executionDataStore;
+        private final Method classIdMethod;
+
+        Jacoco(ClassLoader classLoader, List<File> executionData) throws Exception {
+            this.classLoader = classLoader;
+            Class<?> loaderClass = classLoader.loadClass(CORE_PACKAGE + "tools.ExecFileLoader");
+            Object loader = loaderClass.newInstance();
+            for (File file : executionData) {
+                loaderClass.getMethod("load", File.class).invoke(loader, file);
+            }
+            this.executionDataStore = loaderClass.getMethod("getExecutionDataStore").invoke(loader);
+            this.classIdMethod = findClassIdMethod(classLoader);
+        }
+
+        private static Method findClassIdMethod(ClassLoader classLoader) {
+            try {
+                Class<?> crc64 = classLoader.loadClass(CORE_PACKAGE + "internal.data.CRC64");
+                // Newer versions compute the id of a class independently of its class file version
+                for (String name : new String[]{"classId", "checksum"}) {
+                    try {
+                        return crc64.getMethod(name, byte[].class);
+                    } catch (NoSuchMethodException e) {
+                        // Try the next name
+                    }
+                }
+            } catch (ClassNotFoundException e) {
+                // Not available
+            }
+            return null;
+        }
+
+        Long classId(byte[] bytes) throws Exception {
+            return classIdMethod == null ? null : (Long) classIdMethod.invoke(null, (Object) bytes);
+        }
+
+        boolean[] probes(long id) throws Exception {
+            Object data = executionDataStore.getClass().getMethod("get", long.class).invoke(executionDataStore, id);
+            return data == null ? null : (boolean[]) data.getClass().getMethod("getProbes").invoke(data);
+        }
+
+        ArrayList<CoverageRecord> analyzeClass(byte[] bytes, String location) throws Exception {
+            Object coverageBuilder = classLoader.loadClass(CORE_PACKAGE + "analysis.CoverageBuilder").newInstance();
+            Object analyzer = createAnalyzer(coverageBuilder);
+            analyzer.getClass().getMethod("analyzeClass", byte[].class, String.class).invoke(analyzer, bytes, location);
+            return record(coverageBuilder);
+        }
+
+        ArrayList<CoverageRecord> analyzeAll(File file) throws Exception {
+            Object coverageBuilder = classLoader.loadClass(CORE_PACKAGE + "analysis.CoverageBuilder").newInstance();
+            Object analyzer = createAnalyzer(coverageBuilder);
+            analyzer.getClass().getMethod("analyzeAll", File.class).invoke(analyzer, file);
+            return record(coverageBuilder);
+        }
+
+        private Object createAnalyzer(Object coverageBuilder) throws Exception {
+            Class<?> analyzerClass = classLoader.loadClass(CORE_PACKAGE + "analysis.Analyzer");
+            return analyzerClass.getConstructor(classLoader.loadClass(CORE_PACKAGE + "data.ExecutionDataStore"), classLoader.loadClass(CORE_PACKAGE + "analysis.ICoverageVisitor"))
+                .newInstance(executionDataStore, coverageBuilder);
+        }
+
+        private static ArrayList<CoverageRecord> record(Object coverageBuilder) throws Exception {
+            ArrayList<CoverageRecord> records = new ArrayList<CoverageRecord>();
+            for (Object classCoverage : (Collection<?>) coverageBuilder.getClass().getMethod("getClasses").invoke(coverageBuilder)) {
+                records.add(CoverageRecord.record(classCoverage));
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.jacoco;
+
+import org.gradle.internal.UncheckedException;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders JaCoCo reports from the coverage recorded by {@link JacocoAnalysisAction} workers. Runs in a worker whose classpath contains the JaCoCo
+ * library, which is used through reflection as this class is not compiled against it.
+ */
+public class JacocoReportAction implements Runnable {
+    static final String HTML = "html";
+    static final String XML = "xml";
+    static final String CSV = "csv";
+
+    private static final String CORE_PACKAGE = "org.jacoco.core.";
+    private static final String REPORT_PACKAGE = "org.jacoco.report.";
+    private static final int TAB_WIDTH = 4;
+
+    private final String projectName;
+    private final List<File> analysisResults;
+    private final List<File> sourceDirs;
+    private final List<File> executionData;
+    private final Map<String, File> reports;
+
+    @Inject
+    public JacocoReportAction(String projectName, List<File> analysisResults, List<File> sourceDirs, List<File> executionData, Map<String, File> reports) {
+        this.projectName = projectName;
+        this.analysisResults = analysisResults;
+        this.sourceDirs = sourceDirs;
+        this.executionData = executionData;
+        this.reports = reports;
+    }
+
+    @Override
+    public void run() {
+        try {
+            generate();
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void generate() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        Class<?> loaderClass = classLoader.loadClass(CORE_PACKAGE + "tools.ExecFileLoader");
+        Object loader = loaderClass.newInstance();
+        for (File file : executionData) {
+            loaderClass.getMethod("load", File.class).invoke(loader, file);
+        }
+        Object sessionInfoStore = loaderClass.getMethod("getSessionInfoStore").invoke(loader);
+        Object executionDataStore = loaderClass.getMethod("getExecutionDataStore").invoke(loader);
+
+        Class<?> coverageBuilderClass = classLoader.loadClass(CORE_PACKAGE + "analysis.CoverageBuilder");
+        Object coverageBuilder = coverageBuilderClass.newInstance();
+        Class<?> classCoverageClass = classLoader.loadClass(CORE_PACKAGE + "analysis.IClassCoverage");
+        for (File analysisResult : analysisResults) {
+            @SuppressWarnings("unchecked")
+            List<CoverageRecord> records = (List<CoverageRecord>) JacocoAnalysisAction.readObjects(analysisResult, 2).get(1);
+            for (CoverageRecord record : records) {
+                coverageBuilderClass.getMethod("visitCoverage", classCoverageClass).invoke(coverageBuilder, record.replay(classLoader));
+            }
+        }
+        Object bundle = coverageBuilderClass.getMethod("getBundle", String.class).invoke(coverageBuilder, projectName);
+
+        List<OutputStream> outputStreams = new ArrayList<OutputStream>();
+        try {
+            Class<?> visitorClass = classLoader.loadClass(REPORT_PACKAGE + "IReportVisitor");
+            Object visitor = classLoader.loadClass(REPORT_PACKAGE + "MultiReportVisitor").getConstructor(List.class).newInstance(createVisitors(classLoader, outputStreams));
+            visitorClass.getMethod("visitInfo", List.class, Collection.class).invoke(visitor,
+                sessionInfoStore.getClass().getMethod("getInfos").invoke(sessionInfoStore),
+                executionDataStore.getClass().getMethod("getContents").invoke(executionDataStore));
+            visitorClass.getMethod("visitBundle", classLoader.loadClass(CORE_PACKAGE + "analysis.IBundleCoverage"), classLoader.loadClass(REPORT_PACKAGE + "ISourceFileLocator"))
+                .invoke(visitor, bundle, createSourceFileLocator(classLoader));
+            visitorClass.getMethod("visitEnd").invoke(visitor);
+        } finally {
+            for (OutputStream outputStream : outputStreams) {
+                outputStream.close();
+            }
+        }
+    }
+
+    private List<Object> createVisitors(ClassLoader classLoader, List<OutputStream> outputStreams) throws Exception {
+        List<Object> visitors = new ArrayList<Object>();
+        File htmlDir = reports.get(HTML);
+        if (htmlDir != null) {
+            Object output = classLoader.loadClass(REPORT_PACKAGE + "FileMultiReportOutput").getConstructor(File.class).newInstance(htmlDir);
+            Object formatter = classLoader.loadClass(REPORT_PACKAGE + "html.HTMLFormatter").newInstance();
+            visitors.add(formatter.getClass().getMethod("createVisitor", classLoader.loadClass(REPORT_PACKAGE + "IMultiReportOutput")).invoke(formatter, output));
+        }
+        addFileVisitor(classLoader, REPORT_PACKAGE + "xml.XMLFormatter", reports.get(XML), visitors, outputStreams);
+        addFileVisitor(classLoader, REPORT_PACKAGE + "csv.CSVFormatter", reports.get(CSV), visitors, outputStreams);
+        return visitors;
+    }
+
+    private static void addFileVisitor(ClassLoader classLoader, String formatterClass, File destination, List<Object> visitors, List<OutputStream> outputStreams) throws Exception {
+        if (destination == null) {
+            return;
+        }
+        destination.getParentFile().mkdirs();
+        OutputStream outputStream = new FileOutputStream(destination);
+        outputStreams.add(outputStream);
+        Object formatter = classLoader.loadClass(formatterClass).newInstance();
+        visitors.add(formatter.getClass().getMethod("createVisitor", OutputStream.class).invoke(formatter, outputStream));
+    }
+
+    private Object createSourceFileLocator(ClassLoader classLoader) throws Exception {
+        Class<?> locatorClass = classLoader.loadClass(REPORT_PACKAGE + "ISourceFileLocator");
+        Class<?> multiLocatorClass = classLoader.loadClass(REPORT_PACKAGE + "MultiSourceFileLocator");
+        Object multiLocator = multiLocatorClass.getConstructor(int.class).newInstance(TAB_WIDTH);
+        for (File sourceDir : sourceDirs) {
+            Object locator = classLoader.loadClass(REPORT_PACKAGE + "DirectorySourceFileLocator").getConstructor(File.class, String.class, int.class).newInstance(sourceDir, null, TAB_WIDTH);
+            multiLocatorClass.getMethod("add", locatorClass).invoke(multiLocator, locator);
+        }
+        return multiLocator;
+    }
+}
@@ -25,8 +25,11 @@ import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.internal.jacoco.AntJacocoReport;
+import org.gradle.internal.jacoco.IncrementalJacocoReportInvoker;
 import org.gradle.internal.jacoco.JacocoReportsContainerImpl;
+import org.gradle.workers.WorkerExecutor;
 
+import javax.inject.Inject;
 import java.io.File;
 
 /**
@@ -43,6 +46,16 @@ public class JacocoReport extends JacocoReportBase implements Reporting<JacocoRe
         reports = getInstantiator().newInstance(JacocoReportsContainerImpl.class, this);
     }
 
+    /**
+     * Injects and returns an instance of {@link org.gradle.workers.WorkerExecutor}.
+     *
+     * @since 4.7
+     */
+    @Inject
+    protected WorkerExecutor getWorkerExecutor() {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Returns the reports to be generated by this task.
      */
@@ -75,6 +88,11 @@ public class JacocoReport extends JacocoReportBase implements Reporting<JacocoRe
             }
         };
 
+        if (IncrementalJacocoReportInvoker.isEnabled()) {
+            IncrementalJacocoReportInvoker.invoke(this, getWorkerExecutor(), getAllClassDirs().filter(fileExistsSpec), getAllSourceDirs().filter(fileExistsSpec));
+            return;
+        }
+
         new AntJacocoReport(getAntBuilder()).execute(
             getJacocoClasspath(),
             getProject().getName(),
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.jacoco
+
+import spock.lang.Specification
+
+class CoverageRecordTest extends Specification {
+    def "replays recorded values through the same interfaces"() {
+        def method = new TestCoverageNode(name: "method", firstLine: 3, lastLine: 4, lines: [3: new TestCoverageLine(covered: 1, missed: 0), 4: new TestCoverageLine(covered: 0, missed: 2)])
+        def node = new TestCoverageNode(name: "Foo", interfaceNames: ["Bar"] as String[], id: 1234L, firstLine: 2, lastLine: 5, methods: [method], elementType: CoverageRecordTestType.CLASS,
+            lines: [2: new TestCoverageLine(covered: 2, missed: 1)])
+
+        when:
+        def replayed = roundTrip(CoverageRecord.record(node, "org.gradle.internal.jacoco.CoverageRecordTest")).replay(getClass().classLoader)
+
+        then:
+        replayed instanceof CoverageRecordTestNode
+        replayed.name == "Foo"
+        replayed.interfaceNames == ["Bar"] as String[]
+        replayed.id == 1234L
+        replayed.elementType == CoverageRecordTestType.CLASS
+        replayed.getCounter(CoverageRecordTestType.CLASS).coveredCount == 2
+        replayed.getCounter(CoverageRecordTestType.METHOD).missedCount == 1
+        replayed.getLine(2).instructionCounter.coveredCount == 2
+        replayed.getLine(3).instructionCounter.coveredCount == 0
+        replayed.getLine(100).instructionCounter.missedCount == 0
+        replayed.plainCopy.name == "Foo"
+        replayed.plainCopy.plainCopy.is(replayed.plainCopy)
+
+        def methods = replayed.methods as List
+        methods.size() == 1
+        methods[0].name == "method"
+        methods[0].getLine(4).instructionCounter.missedCount == 2
+    }
+
+    def "fails when the node does not implement any of the interfaces"() {
+        when:
+        CoverageRecord.record("not a node", "org.gradle.internal.jacoco.CoverageRecordTest")
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message.startsWith("Cannot record java.lang.String")
+    }
+
+    private static CoverageRecord roundTrip(CoverageRecord record) {
+        def bytes = new ByteArrayOutputStream()
+        new ObjectOutputStream(bytes).withStream { it.writeObject(record) }
+        return new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).withStream { it.readObject() } as CoverageRecord
+    }
+}
+
+enum CoverageRecordTestType {
+    CLASS, METHOD
+}
+
+interface CoverageRecordTestCounter {
+    int getCoveredCount()
+
+    int getMissedCount()
+}
+
+interface CoverageRecordTestLine {
+    CoverageRecordTestCounter getInstructionCounter()
+}
+
+interface CoverageRecordTestNode {
+    String getName()
+
+    String[] getInterfaceNames()
+
+    long getId()
+
+    CoverageRecordTestType getElementType()
+
+    CoverageRecordTestCounter getCounter(CoverageRecordTestType type)
+
+    int getFirstLine()
+
+    int getLastLine()
+
+    CoverageRecordTestLine getLine(int nr)
+
+    Collection<CoverageRecordTestNode> getMethods()
+
+    CoverageRecordTestNode getPlainCopy()
+}
+
+class TestCoverageCounter implements CoverageRecordTestCounter {
+    int coveredCount
+    int missedCount
+}
+
+class TestCoverageLine implements CoverageRecordTestLine {
+    int covered
+    int missed
+
+    CoverageRecordTestCounter getInstructionCounter() {
+        new TestCoverageCounter(coveredCount: covered, missedCount: missed)
+    }
+}
+
+class TestCoverageNode implements CoverageRecordTestNode {
+    String name
+    String[] interfaceNames = [] as String[]
+    long id
+    CoverageRecordTestType elementType = CoverageRecordTestType.METHOD
+    int firstLine = -1
+    int lastLine = -1
+    Map<Integer, CoverageRecordTestLine> lines = [:]
+    Collection<CoverageRecordTestNode> methods = []
+
+    CoverageRecordTestCounter getCounter(CoverageRecordTestType type) {
+        type == CoverageRecordTestType.CLASS ? new TestCoverageCounter(coveredCount: 2, missedCount: 0) : new TestCoverageCounter(coveredCount: 0, missedCount: 1)
+    }
+
+    CoverageRecordTestLine getLine(int nr) {
+        lines[nr] ?: new TestCoverageLine()
+    }
+
+    CoverageRecordTestNode getPlainCopy() {
+        new TestCoverageNode(name: name, interfaceNames: interfaceNames, id: id, elementType: elementType)
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.java.compile.incremental
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.CompilationOutputsFixture
+
+class AbiAwareIncrementalJavaCompilationIntegrationTest extends AbstractIntegrationSpec {
+
+    CompilationOutputsFixture outputs
+
+    def setup() {
+        executer.requireOwnGradleUserHomeDir()
+        executer.beforeExecute {
+            withArgument("-Dorg.gradle.java.compile.abiAware=true")
+        }
+        outputs = new CompilationOutputsFixture(file("build/classes"))
+
+        buildFile << """
+            apply plugin: 'java'
+            compileJava.options.incremental = true
+        """
+    }
+
+    private File java(String... classBodies) {
+        File out
+        for (String body : classBodies) {
+            def className = (body =~ /(?s).*?class (\w+) .*/)[0][1]
+            assert className: "unable to find class name"
+            def f = file("src/main/java/${className}.java")
+            f.createFile()
+            f.text = body
+            out = f
+        }
+        out
+    }
+
+    def "change to a method body only recompiles the changed class"() {
+        java "class A { int foo() { return 1; } }", "class B { int bar() { return new A().foo(); } }"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        java "class A { int foo() { return 2; } }"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses 'A'
+    }
+
+    def "change to the ABI of a class recompiles its dependents"() {
+        java "class A { int foo() { return 1; } }", "class B { int bar() { return new A().foo(); } }", "class C { B b; }"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        java "class A { int foo() { return 1; } int other() { return 2; } }"
+        run "compileJava"
+
+        then:
+        outputs.recompiledClasses 'A', 'B'
+    }
+
+    def "detects deletion of a class that is still referenced"() {
+        def a = java "class A {}"
+        java "class B extends A {}", "class C {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        assert a.delete()
+
+        then:
+        fails "compileJava"
+        outputs.deletedClasses 'A', 'B'
+    }
+
+    def "deletion of a class that is not referenced does not recompile other classes"() {
+        def a = java "class A {}"
+        java "class B {}"
+
+        outputs.snapshot { run "compileJava" }
+
+        when:
+        assert a.delete()
+        run "compileJava"
+
+        then:
+        outputs.noneRecompiled()
+        outputs.deletedClasses 'A'
+    }
+}
@@ -24,21 +24,42 @@ import org.gradle.language.base.internal.compile.Compiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
+    /**
+     * Enables sharing the indexes of the jars on the compile classpath between in-process compilations when set to {@code true}.
+     * See {@link SharedJarIndexes}.
+     */
+    public static final String SHARED_CLASSPATH_INDEXES_PROPERTY = "org.gradle.java.compile.sharedClasspathIndexes";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    // Only used in the build process, a compiler sent to a worker daemon compiles without it
+    private final transient SharedJarIndexes sharedJarIndexes;
 
     public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
+        this(javaHomeBasedJavaCompilerFactory, null);
+    }
+
+    /**
+     * @param sharedJarIndexes the indexes to use for the jars on the compile classpath, when enabled with {@link #SHARED_CLASSPATH_INDEXES_PROPERTY}
+     */
+    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, @Nullable SharedJarIndexes sharedJarIndexes) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.sharedJarIndexes = Boolean.getBoolean(SHARED_CLASSPATH_INDEXES_PROPERTY) ? sharedJarIndexes : null;
     }
 
     @Override
@@ -46,22 +67,38 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         LOGGER.info("Compiling with JDK Java compiler API.");
 
         JdkJavaCompilerResult result = new JdkJavaCompilerResult();
-        JavaCompiler.CompilationTask task = createCompileTask(spec, result);
-        boolean success = task.call();
-        if (!success) {
-            throw new CompilationFailedException();
+        JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
+        MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
+        SharedClasspathFileManager sharedClasspathFileManager = null;
+        if (sharedJarIndexes != null && !hasUserProvidedClasspath(compileOptions.getCompilerArgs())) {
+            List<File> classpath = spec.getCompileClasspath();
+            sharedClasspathFileManager = new SharedClasspathFileManager(standardFileManager, classpath == null ? Collections.<File>emptyList() : classpath, sharedJarIndexes);
+        }
+        try {
+            JavaCompiler.CompilationTask task = createCompileTask(compiler, standardFileManager, sharedClasspathFileManager, spec, result);
+            boolean success = task.call();
+            if (!success) {
+                throw new CompilationFailedException();
+            }
+        } finally {
+            if (sharedClasspathFileManager != null) {
+                closeQuietly(sharedClasspathFileManager);
+            }
         }
         return result;
     }
 
-    private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, JdkJavaCompilerResult result) {
-        List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
-        JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
-        MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
+    private JavaCompiler.CompilationTask createCompileTask(JavaCompiler compiler, StandardJavaFileManager standardFileManager, @Nullable SharedClasspathFileManager sharedClasspathFileManager, JavaCompileSpec spec, JdkJavaCompilerResult result) {
+        List<String> options = new JavaCompilerArgumentsBuilder(spec).includeClasspath(sharedClasspathFileManager == null).build();
         Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSource());
-        StandardJavaFileManager fileManager = standardFileManager;
-        if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
+        JavaFileManager fileManager = standardFileManager;
+        if (sharedClasspathFileManager != null) {
+            fileManager = sharedClasspathFileManager;
+            if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
+                fileManager = (JavaFileManager) SourcepathIgnoringProxy.proxy(sharedClasspathFileManager, JavaFileManager.class);
+            }
+        } else if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
             fileManager = (StandardJavaFileManager) SourcepathIgnoringProxy.proxy(standardFileManager, StandardJavaFileManager.class);
         }
         JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, spec.getClasses(), compilationUnits);
@@ -73,6 +110,18 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         return task;
     }
 
+    private static boolean hasUserProvidedClasspath(@Nullable List<String> compilerArgs) {
+        return compilerArgs != null && (compilerArgs.contains("-classpath") || compilerArgs.contains("-cp") || compilerArgs.contains("--class-path"));
+    }
+
+    private static void closeQuietly(JavaFileManager fileManager) {
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close file manager.", e);
+        }
+    }
+
     private static boolean emptySourcepathIn(List<String> options) {
         Iterator<String> optionsIter = options.iterator();
         while (optionsIter.hasNext()) {
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.io.ByteStreams;
+import org.gradle.internal.UncheckedException;
+
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A file manager that lists the jars of the compile classpath from the indexes shared by all compilations in this process, instead of
+ * letting javac open and index every jar again. The directories of the classpath, files that cannot be read as a jar, and all other
+ * locations are handled by the standard file manager, whose classpath is set to these entries only.
+ */
+public class SharedClasspathFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final List<File> classpath;
+    private final Map<File, SharedJarIndexes.OpenJar> jars = new LinkedHashMap<File, SharedJarIndexes.OpenJar>();
+
+    public SharedClasspathFileManager(StandardJavaFileManager fileManager, List<File> classpath, SharedJarIndexes indexes) {
+        super(fileManager);
+        this.classpath = classpath;
+        List<File> otherEntries = new ArrayList<File>();
+        for (File file : classpath) {
+            if (jars.containsKey(file)) {
+                continue;
+            }
+            SharedJarIndexes.OpenJar jar = file.isFile() ? open(indexes, file) : null;
+            if (jar != null) {
+                jars.put(file, jar);
+            } else {
+                otherEntries.add(file);
+            }
+        }
+        try {
+            fileManager.setLocation(StandardLocation.CLASS_PATH, otherEntries);
+        } catch (IOException e) {
+            closeJars();
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static SharedJarIndexes.OpenJar open(SharedJarIndexes indexes, File file) {
+        try {
+            return indexes.open(file);
+        } catch (IOException e) {
+            // Let javac report the problem
+            return null;
+        }
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+        if (location != StandardLocation.CLASS_PATH || jars.isEmpty()) {
+            return super.list(location, packageName, kinds, recurse);
+        }
+        Iterable<JavaFileObject> inOtherEntries = null;
+        List<JavaFileObject> result = new ArrayList<JavaFileObject>();
+        for (File file : classpath) {
+            SharedJarIndexes.OpenJar jar = jars.get(file);
+            if (jar != null) {
+                addEntries(jar, packageName, kinds, recurse, result);
+            } else if (inOtherEntries == null) {
+                // The standard file manager lists all of its entries at once, which only changes which class javac finds first when a class is duplicated
+                inOtherEntries = super.list(location, packageName, kinds, recurse);
+                for (JavaFileObject fileObject : inOtherEntries) {
+                    result.add(fileObject);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addEntries(SharedJarIndexes.OpenJar jar, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse, List<JavaFileObject> result) {
+        if (recurse) {
+            String prefix = packageName + ".";
+            for (String candidate : jar.getIndex().getPackages()) {
+                if (candidate.equals(packageName) || packageName.isEmpty() || candidate.startsWith(prefix)) {
+                    addEntries(jar, jar.getIndex().getEntries(candidate), kinds, result);
+                }
+            }
+        } else {
+            addEntries(jar, jar.getIndex().getEntries(packageName), kinds, result);
+        }
+    }
+
+    private static void addEntries(SharedJarIndexes.OpenJar jar, List<String> entries, Set<JavaFileObject.Kind> kinds, List<JavaFileObject> result) {
+        for (String entry : entries) {
+            JavaFileObject.Kind kind = kindOf(entry);
+            if (kinds.contains(kind)) {
+                result.add(new JarEntryFileObject(jar, entry, kind));
+            }
+        }
+    }
+
+    private static JavaFileObject.Kind kindOf(String name) {
+        for (JavaFileObject.Kind kind : JavaFileObject.Kind.values()) {
+            if (kind != JavaFileObject.Kind.OTHER && name.endsWith(kind.extension)) {
+                return kind;
+            }
+        }
+        return JavaFileObject.Kind.OTHER;
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        if (file instanceof JarEntryFileObject) {
+            return ((JarEntryFileObject) file).getBinaryName();
+        }
+        return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof JarEntryFileObject || b instanceof JarEntryFileObject) {
+            return a.equals(b);
+        }
+        return super.isSameFile(a, b);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForInput(Location location, String className, JavaFileObject.Kind kind) throws IOException {
+        if (location != StandardLocation.CLASS_PATH || jars.isEmpty()) {
+            return super.getJavaFileForInput(location, className, kind);
+        }
+        String entryName = className.replace('.', '/') + kind.extension;
+        boolean othersSearched = false;
+        for (File file : classpath) {
+            SharedJarIndexes.OpenJar jar = jars.get(file);
+            if (jar != null) {
+                if (jar.getIndex().contains(entryName)) {
+                    return new JarEntryFileObject(jar, entryName, kind);
+                }
+            } else if (!othersSearched) {
+                othersSearched = true;
+                JavaFileObject fileObject = super.getJavaFileForInput(location, className, kind);
+                if (fileObject != null) {
+                    return fileObject;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public FileObject getFileForInput(Location location, String packageName, String relativeName) throws IOException {
+        if (location != StandardLocation.CLASS_PATH || jars.isEmpty()) {
+            return super.getFileForInput(location, packageName, relativeName);
+        }
+        String entryName = packageName.isEmpty() ? relativeName : packageName.replace('.', '/') + "/" + relativeName;
+        boolean othersSearched = false;
+        for (File file : classpath) {
+            SharedJarIndexes.OpenJar jar = jars.get(file);
+            if (jar != null) {
+                if (jar.getIndex().contains(entryName)) {
+                    return new JarEntryFileObject(jar, entryName, kindOf(entryName));
+                }
+            } else if (!othersSearched) {
+                othersSearched = true;
+                FileObject fileObject = super.getFileForInput(location, packageName, relativeName);
+                if (fileObject != null) {
+                    return fileObject;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            closeJars();
+        }
+    }
+
+    private void closeJars() {
+        for (SharedJarIndexes.OpenJar jar : jars.values()) {
+            try {
+                jar.close();
+            } catch (IOException e) {
+                // Ignore, the jar is only read
+            }
+        }
+        jars.clear();
+    }
+
+    /**
+     * An entry of a jar. The URI of an entry has no path, so this cannot be a {@link javax.tools.SimpleJavaFileObject}.
+     */
+    private static class JarEntryFileObject implements JavaFileObject {
+        private final SharedJarIndexes.OpenJar jar;
+        private final String entryName;
+        private final Kind kind;
+
+        JarEntryFileObject(SharedJarIndexes.OpenJar jar, String entryName, Kind kind) {
+            this.jar = jar;
+            this.entryName = entryName;
+            this.kind = kind;
+        }
+
+        String getBinaryName() {
+            String name = entryName.substring(0, entryName.length() - kind.extension.length());
+            return name.replace('/', '.');
+        }
+
+        @Override
+        public URI toUri() {
+            return URI.create("jar:" + jar.getFile().toURI() + "!/" + entryName);
+        }
+
+        @Override
+        public String getName() {
+            return jar.getFile().getPath() + "(" + entryName + ")";
+        }
+
+        @Override
+        public Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public boolean isNameCompatible(String simpleName, Kind kind) {
+            return this.kind == kind && (entryName.equals(simpleName + kind.extension) || entryName.endsWith("/" + simpleName + kind.extension));
+        }
+
+        @Override
+        public NestingKind getNestingKind() {
+            return null;
+        }
+
+        @Override
+        public Modifier getAccessLevel() {
+            return null;
+        }
+
+        @Override
+        public InputStream openInputStream() throws IOException {
+            return jar.openEntry(entryName);
+        }
+
+        @Override
+        public Reader openReader(boolean ignoreEncodingErrors) throws IOException {
+            return new StringReader(getCharContent(ignoreEncodingErrors).toString());
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+            InputStream inputStream = openInputStream();
+            try {
+                return new String(ByteStreams.toByteArray(inputStream), "UTF-8");
+            } finally {
+                inputStream.close();
+            }
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Writer openWriter() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getLastModified() {
+            return jar.getLastModified(entryName);
+        }
+
+        @Override
+        public boolean delete() {
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof JarEntryFileObject)) {
+                return false;
+            }
+            JarEntryFileObject other = (JarEntryFileObject) obj;
+            return jar.getFile().equals(other.jar.getFile()) && entryName.equals(other.entryName);
+        }
+
+        @Override
+        public int hashCode() {
+            return jar.getFile().hashCode() * 31 + entryName.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Indexes of the classes in the jars of compile classpaths, shared by the in-process compilations of the builds that use the same Gradle user home.
+ *
+ * <p>An index is keyed by the content hash of its jar, so that identical jars in different locations share an index. The jar is hashed each time
+ * it is opened, which the file hasher answers from its cache while the jar is unchanged. The number of jars and indexes kept is bounded, and the
+ * indexes are softly referenced. A jar is only kept open while a compilation uses it, so that jars are not locked between builds.</p>
+ */
+public class SharedJarIndexes {
+    private static final int MAX_JARS = 2000;
+
+    private final FileHasher fileHasher;
+    private final Cache<File, JarState> jars = CacheBuilder.newBuilder().maximumSize(MAX_JARS).build();
+    private final Cache<HashCode, JarIndex> indexes = CacheBuilder.newBuilder().maximumSize(MAX_JARS).softValues().build();
+
+    public SharedJarIndexes(FileHasher fileHasher) {
+        this.fileHasher = fileHasher;
+    }
+
+    /**
+     * Opens the given jar for a compilation. The jar must be closed when the compilation has finished.
+     */
+    public OpenJar open(final File jar) throws IOException {
+        JarState state;
+        try {
+            state = jars.get(jar, new Callable<JarState>() {
+                @Override
+                public JarState call() {
+                    return new JarState(jar);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+        return state.open();
+    }
+
+    private class JarState {
+        private final File file;
+        private HashCode hash;
+        private SharedZipFile zipFile;
+
+        JarState(File file) {
+            this.file = file;
+        }
+
+        synchronized OpenJar open() throws IOException {
+            HashCode currentHash = fileHasher.hash(file);
+            if (!currentHash.equals(hash)) {
+                // Compilations that still use the previous content keep their own zip file until they close it
+                hash = currentHash;
+                zipFile = null;
+            }
+            if (zipFile == null || !zipFile.acquire()) {
+                zipFile = new SharedZipFile(new ZipFile(file));
+                zipFile.acquire();
+            }
+            try {
+                return new OpenJar(file, zipFile, getIndex(hash, zipFile.zipFile));
+            } catch (RuntimeException e) {
+                zipFile.release();
+                throw e;
+            }
+        }
+    }
+
+    private JarIndex getIndex(HashCode hash, final ZipFile zipFile) {
+        try {
+            return indexes.get(hash, new Callable<JarIndex>() {
+                @Override
+                public JarIndex call() {
+                    return JarIndex.of(zipFile);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private static class SharedZipFile {
+        private final ZipFile zipFile;
+        private int users;
+        private boolean closed;
+
+        SharedZipFile(ZipFile zipFile) {
+            this.zipFile = zipFile;
+        }
+
+        synchronized boolean acquire() {
+            if (closed) {
+                return false;
+            }
+            users++;
+            return true;
+        }
+
+        synchronized void release() throws IOException {
+            users--;
+            if (users == 0) {
+                closed = true;
+                zipFile.close();
+            }
+        }
+    }
+
+    /**
+     * The entries of a jar, by package.
+     */
+    public static class JarIndex {
+        private final Map<String, List<String>> packages;
+
+        private JarIndex(Map<String, List<String>> packages) {
+            this.packages = packages;
+        }
+
+        static JarIndex of(ZipFile zipFile) {
+            Map<String, List<String>> packages = new LinkedHashMap<String, List<String>>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || name.startsWith("META-INF/")) {
+                    continue;
+                }
+                int separator = name.lastIndexOf('/');
+                String packageName = separator < 0 ? "" : name.substring(0, separator).replace('/', '.');
+                List<String> names = packages.get(packageName);
+                if (names == null) {
+                    names = new ArrayList<String>();
+                    packages.put(packageName, names);
+                }
+                names.add(name);
+            }
+            ImmutableMap.Builder<String, List<String>> builder = ImmutableMap.builder();
+            for (Map.Entry<String, List<String>> entry : packages.entrySet()) {
+                builder.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+            }
+            return new JarIndex(builder.build());
+        }
+
+        /**
+         * Returns the names of the entries directly in the given package.
+         */
+        public List<String> getEntries(String packageName) {
+            List<String> entries = packages.get(packageName);
+            return entries == null ? ImmutableList.<String>of() : entries;
+        }
+
+        public Set<String> getPackages() {
+            return packages.keySet();
+        }
+
+        public boolean contains(String entryName) {
+            int separator = entryName.lastIndexOf('/');
+            String packageName = separator < 0 ? "" : entryName.substring(0, separator).replace('/', '.');
+            return getEntries(packageName).contains(entryName);
+        }
+    }
+
+    /**
+     * A jar that is in use by a compilation.
+     */
+    public static class OpenJar {
+        private final File file;
+        private final SharedZipFile zipFile;
+        private final JarIndex index;
+        private boolean closed;
+
+        private OpenJar(File file, SharedZipFile zipFile, JarIndex index) {
+            this.file = file;
+            this.zipFile = zipFile;
+            this.index = index;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public JarIndex getIndex() {
+            return index;
+        }
+
+        public InputStream openEntry(String name) throws IOException {
+            ZipEntry entry = zipFile.zipFile.getEntry(name);
+            if (entry == null) {
+                throw new IOException(String.format("Entry '%s' not found in %s.", name, file));
+            }
+            return zipFile.zipFile.getInputStream(entry);
+        }
+
+        public long getLastModified(String name) {
+            ZipEntry entry = zipFile.zipFile.getEntry(name);
+            return entry == null ? 0 : entry.getTime();
+        }
+
+        public synchronized void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                zipFile.release();
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.time.Timer;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Set;
 
@@ -51,12 +52,21 @@ public class ClassSetAnalysisUpdater {
     private final FileOperations fileOperations;
     private ClassDependenciesAnalyzer analyzer;
     private final FileHasher fileHasher;
+    private final ClassSourcePathRecorder sourcePathRecorder;
 
     ClassSetAnalysisUpdater(Stash<ClassSetAnalysisData> stash, FileOperations fileOperations, ClassDependenciesAnalyzer analyzer, FileHasher fileHasher) {
+        this(stash, fileOperations, analyzer, fileHasher, null);
+    }
+
+    /**
+     * @param sourcePathRecorder records the source file of each compiled class, or null when they are not needed
+     */
+    ClassSetAnalysisUpdater(Stash<ClassSetAnalysisData> stash, FileOperations fileOperations, ClassDependenciesAnalyzer analyzer, FileHasher fileHasher, @Nullable ClassSourcePathRecorder sourcePathRecorder) {
         this.stash = stash;
         this.fileOperations = fileOperations;
         this.analyzer = analyzer;
         this.fileHasher = fileHasher;
+        this.sourcePathRecorder = sourcePathRecorder;
     }
 
     public void updateAnalysis(JavaCompileSpec spec, WorkResult result) {
@@ -67,6 +77,9 @@ public class ClassSetAnalysisUpdater {
         CompilationResultAnalyzer analyzer = new CompilationResultAnalyzer(this.analyzer, fileHasher);
         visitAnnotationProcessingResult(spec, result, analyzer);
         visitClassFiles(spec, analyzer);
+        if (sourcePathRecorder != null) {
+            sourcePathRecorder.recordSourcePaths(spec, analyzer);
+        }
         ClassSetAnalysisData data = analyzer.getAnalysis();
         stash.put(data);
         LOG.info("Class dependency analysis for incremental compilation took {}.", clock.getElapsed());
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.io.Files;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.file.FileOperations;
+import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.CompilationResultAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.cache.internal.Loader;
+import org.gradle.util.internal.PatchedClassReader;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the source file of each class compiled into the destination directory, for compilations where a source file can declare any number
+ * of classes. A class is matched with the compiled source file named by its {@code SourceFile} attribute, so the source file does not need to
+ * be in a directory that matches its package. Classes whose source file was not recompiled keep the source file of the previous analysis.
+ */
+class ClassSourcePathRecorder {
+    private final FileOperations fileOperations;
+    private final SourceToNameConverter sourceToNameConverter;
+    private final Loader<ClassSetAnalysisData> previousAnalysis;
+
+    ClassSourcePathRecorder(FileOperations fileOperations, SourceToNameConverter sourceToNameConverter, Loader<ClassSetAnalysisData> previousAnalysis) {
+        this.fileOperations = fileOperations;
+        this.sourceToNameConverter = sourceToNameConverter;
+        this.previousAnalysis = previousAnalysis;
+    }
+
+    public void recordSourcePaths(JavaCompileSpec spec, final CompilationResultAnalyzer analyzer) {
+        final ClassSetAnalysisData previous = previousAnalysis.get();
+        final ListMultimap<String, String> compiledSourcePaths = ArrayListMultimap.create();
+        final Set<String> recompiledSourcePaths = new HashSet<String>();
+        for (File sourceFile : spec.getSource()) {
+            String relativePath = sourceToNameConverter.getRelativePath(sourceFile);
+            compiledSourcePaths.put(sourceFile.getName(), relativePath);
+            recompiledSourcePaths.add(relativePath);
+        }
+        fileOperations.fileTree(spec.getDestinationDir()).visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                String path = fileDetails.getRelativePath().getPathString();
+                if (!path.endsWith(".class")) {
+                    return;
+                }
+                String className = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+                String sourcePath = previous == null ? null : previous.getRelativeSourcePath(className);
+                if (sourcePath == null || recompiledSourcePaths.contains(sourcePath)) {
+                    sourcePath = findSourcePath(fileDetails.getFile(), compiledSourcePaths);
+                }
+                if (sourcePath != null) {
+                    analyzer.addSourcePath(className, sourcePath);
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private static String findSourcePath(File classFile, ListMultimap<String, String> compiledSourcePaths) {
+        ClassReader reader;
+        try {
+            reader = new PatchedClassReader(Files.toByteArray(classFile));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to read class file: '%s'", classFile), e);
+        }
+        SourceFileVisitor visitor = new SourceFileVisitor();
+        reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        if (visitor.sourceFile == null) {
+            return null;
+        }
+        List<String> candidates = compiledSourcePaths.get(visitor.sourceFile);
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        // Several compiled source files have that name, prefer the one in the directory of the package
+        String internalName = reader.getClassName();
+        String packagePath = internalName.substring(0, internalName.lastIndexOf('/') + 1);
+        String conventionalPath = packagePath + visitor.sourceFile;
+        return candidates.contains(conventionalPath) ? conventionalPath : null;
+    }
+
+    private static class SourceFileVisitor extends ClassVisitor {
+        private String sourceFile;
+
+        SourceFileVisitor() {
+            super(Opcodes.ASM6);
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            sourceFile = source;
+        }
+    }
+}
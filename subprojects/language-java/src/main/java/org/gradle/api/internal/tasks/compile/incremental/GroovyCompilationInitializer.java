@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.internal.file.FileOperations;
+import org.gradle.api.tasks.util.PatternSet;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Recompiles whole source files rather than single classes, as all the classes declared in a Groovy source file are compiled together.
+ * Every class compiled from the source file of a stale class is deleted before the source file is recompiled.
+ */
+class GroovyCompilationInitializer extends IncrementalCompilationInitializer {
+    private final GroovySourceToNameConverter sourceToNameConverter;
+
+    public GroovyCompilationInitializer(FileOperations fileOperations, GroovySourceToNameConverter sourceToNameConverter) {
+        super(fileOperations);
+        this.sourceToNameConverter = sourceToNameConverter;
+    }
+
+    @Override
+    void preparePatterns(Collection<String> staleClasses, PatternSet filesToDelete, PatternSet sourceToCompile) {
+        Set<String> classesToDelete = new LinkedHashSet<String>();
+        for (String staleClass : staleClasses) {
+            classesToDelete.add(staleClass);
+            for (String sourcePath : sourceToNameConverter.getRelativeSourcePaths(staleClass)) {
+                sourceToCompile.include(sourcePath);
+                classesToDelete.addAll(sourceToNameConverter.getClassNames(sourcePath));
+            }
+        }
+        for (String classToDelete : classesToDelete) {
+            String path = classToDelete.replaceAll("\\.", "/");
+            filesToDelete.include(path.concat(".class"));
+            filesToDelete.include(path.concat(".java"));
+            filesToDelete.include(path.concat("$*.class"));
+            filesToDelete.include(path.concat("$*.java"));
+        }
+    }
+}
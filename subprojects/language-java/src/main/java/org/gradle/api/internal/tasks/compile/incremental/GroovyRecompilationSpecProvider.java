@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.Action;
+import org.gradle.api.internal.file.FileOperations;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarChangeProcessor;
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec;
+import org.gradle.api.tasks.incremental.InputFileDetails;
+import org.gradle.util.internal.PatchedClassReader;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.gradle.internal.FileUtils.hasExtension;
+
+/**
+ * Detects the classes to recompile for a Groovy compilation. Global AST transformations can change the output of any source file, and local
+ * AST transformations the output of any source file that uses them, without a dependency that the class analysis sees. So a change to a
+ * classpath entry that contains AST transformations triggers a full recompilation, as does the removal of a jar, which cannot be inspected anymore.
+ */
+class GroovyRecompilationSpecProvider extends RecompilationSpecProvider {
+    private static final String GLOBAL_TRANSFORMATIONS_DESCRIPTOR = "META-INF/services/org.codehaus.groovy.transform.ASTTransformation";
+    private static final String TRANSFORMATION_ANNOTATION = "Lorg/codehaus/groovy/transform/GroovyASTTransformation;";
+
+    private final GroovySourceToNameConverter sourceToNameConverter;
+
+    GroovyRecompilationSpecProvider(GroovySourceToNameConverter sourceToNameConverter, FileOperations fileOperations) {
+        super(sourceToNameConverter, fileOperations, false);
+        this.sourceToNameConverter = sourceToNameConverter;
+    }
+
+    @Override
+    public RecompilationSpec provideRecompilationSpec(CurrentCompilation current, PreviousCompilation previous) {
+        sourceToNameConverter.setPreviousCompilation(previous);
+        return super.provideRecompilationSpec(current, previous);
+    }
+
+    @Override
+    protected void processJarChange(InputFileDetails jarChange, JarChangeProcessor jarChangeProcessor, RecompilationSpec spec) {
+        if (jarChange.isRemoved()) {
+            spec.setFullRebuildCause("a jar containing AST transformations may have been removed", jarChange.getFile());
+        } else if (jarContainsAstTransformations(jarChange.getFile())) {
+            spec.setFullRebuildCause("a jar containing AST transformations has changed", jarChange.getFile());
+        } else {
+            super.processJarChange(jarChange, jarChangeProcessor, spec);
+        }
+    }
+
+    @Override
+    protected Action<InputFileDetails> createInputChangeAction(CurrentCompilation current, PreviousCompilation previous, final RecompilationSpec spec) {
+        final Action<InputFileDetails> delegate = super.createInputChangeAction(current, previous, spec);
+        return new Action<InputFileDetails>() {
+            @Override
+            public void execute(InputFileDetails input) {
+                if (spec.getFullRebuildCause() != null) {
+                    return;
+                }
+                File file = input.getFile();
+                if (file.getPath().replace(File.separatorChar, '/').endsWith(GLOBAL_TRANSFORMATIONS_DESCRIPTOR)) {
+                    spec.setFullRebuildCause("the global AST transformations have changed", file);
+                    return;
+                }
+                if (!input.isRemoved() && hasExtension(file, ".class") && isAstTransformation(file)) {
+                    spec.setFullRebuildCause("an AST transformation has changed", file);
+                    return;
+                }
+                delegate.execute(input);
+            }
+        };
+    }
+
+    private static boolean jarContainsAstTransformations(File jar) {
+        try {
+            ZipFile zipFile = new ZipFile(jar);
+            try {
+                if (zipFile.getEntry(GLOBAL_TRANSFORMATIONS_DESCRIPTOR) != null) {
+                    return true;
+                }
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().endsWith(".class") && isAstTransformation(zipFile, entry)) {
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                zipFile.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to read jar file: '%s'", jar), e);
+        }
+    }
+
+    private static boolean isAstTransformation(ZipFile zipFile, ZipEntry entry) throws IOException {
+        InputStream inputStream = zipFile.getInputStream(entry);
+        try {
+            return isAstTransformation(new PatchedClassReader(ByteStreams.toByteArray(inputStream)));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static boolean isAstTransformation(File classFile) {
+        try {
+            return isAstTransformation(new PatchedClassReader(Files.toByteArray(classFile)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Unable to read class file: '%s'", classFile), e);
+        }
+    }
+
+    private static boolean isAstTransformation(ClassReader reader) {
+        AstTransformationVisitor visitor = new AstTransformationVisitor();
+        reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return visitor.astTransformation;
+    }
+
+    private static class AstTransformationVisitor extends ClassVisitor {
+        private boolean astTransformation;
+
+        AstTransformationVisitor() {
+            super(Opcodes.ASM6);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+            if (TRANSFORMATION_ANNOTATION.equals(desc)) {
+                astTransformation = true;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Maps Groovy and Java source files to the classes compiled from them. A Groovy source file can declare any number of classes with any names,
+ * so the mapping is taken from the analysis of the previous compilation, which records the source file of each class it produced. Classes that
+ * are not found there are assumed to be named after their source file, like in Java.
+ */
+public class GroovySourceToNameConverter extends SourceToNameConverter {
+    private static final String[] SOURCE_EXTENSIONS = {".groovy", ".java"};
+
+    private PreviousCompilation previousCompilation;
+
+    public GroovySourceToNameConverter(CompilationSourceDirs sourceDirs) {
+        super(sourceDirs);
+    }
+
+    /**
+     * Sets the compilation whose analysis maps the classes to their source files. Until it is set, classes are assumed to be named after their source file.
+     */
+    public void setPreviousCompilation(PreviousCompilation previousCompilation) {
+        this.previousCompilation = previousCompilation;
+    }
+
+    @Override
+    public Collection<String> getClassNames(File sourceFile) {
+        return getClassNames(getRelativePath(sourceFile));
+    }
+
+    /**
+     * Returns the names of the classes compiled from the source file with the given path relative to its source root.
+     */
+    public Collection<String> getClassNames(String relativeSourcePath) {
+        Set<String> classNames = new LinkedHashSet<String>();
+        classNames.add(getClassName(relativeSourcePath));
+        if (previousCompilation != null) {
+            classNames.addAll(previousCompilation.getClassNamesForSourcePath(relativeSourcePath));
+        }
+        return classNames;
+    }
+
+    /**
+     * Returns the paths relative to their source root of the source files the given class may have been compiled from.
+     */
+    public Collection<String> getRelativeSourcePaths(String className) {
+        String sourcePath = previousCompilation == null ? null : previousCompilation.getRelativeSourcePath(className);
+        if (sourcePath != null) {
+            return Arrays.asList(sourcePath);
+        }
+        String path = className.replace('.', '/');
+        Set<String> sourcePaths = new LinkedHashSet<String>();
+        for (String extension : SOURCE_EXTENSIONS) {
+            sourcePaths.add(path + extension);
+        }
+        return sourcePaths;
+    }
+}
@@ -44,31 +44,61 @@ import org.gradle.language.base.internal.compile.Compiler;
 import java.util.List;
 
 public class IncrementalCompilerFactory {
+    /**
+     * Enables ABI aware incremental compilation when set to {@code true}. The dependents of a changed source file are then only recompiled
+     * when the ABI of the classes compiled from it has changed, see {@link SelectiveCompiler}.
+     */
+    public static final String ABI_AWARE_PROPERTY = "org.gradle.java.compile.abiAware";
 
     private final FileOperations fileOperations;
     private final StreamHasher streamHasher;
     private final FileHasher fileHasher;
     private final AnnotationProcessorDetector annotationProcessorDetector;
     private final GeneralCompileCaches generalCompileCaches;
+    private final boolean abiAware;
 
     public IncrementalCompilerFactory(FileOperations fileOperations, StreamHasher streamHasher, FileHasher fileHasher, AnnotationProcessorDetector annotationProcessorDetector, GeneralCompileCaches generalCompileCaches) {
+        this(fileOperations, streamHasher, fileHasher, annotationProcessorDetector, generalCompileCaches, Boolean.getBoolean(ABI_AWARE_PROPERTY));
+    }
+
+    IncrementalCompilerFactory(FileOperations fileOperations, StreamHasher streamHasher, FileHasher fileHasher, AnnotationProcessorDetector annotationProcessorDetector, GeneralCompileCaches generalCompileCaches, boolean abiAware) {
         this.fileOperations = fileOperations;
         this.streamHasher = streamHasher;
         this.fileHasher = fileHasher;
         this.annotationProcessorDetector = annotationProcessorDetector;
         this.generalCompileCaches = generalCompileCaches;
+        this.abiAware = abiAware;
     }
 
     public Compiler<JavaCompileSpec> makeIncremental(CleaningJavaCompiler cleaningJavaCompiler, String compileDisplayName, IncrementalTaskInputsInternal inputs, List<Object> source, FileCollection annotationProcessorClasspath) {
-        CompileCaches compileCaches = createCompileCaches(compileDisplayName);
-        ClassDependenciesAnalyzer analyzer = new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(), compileCaches.getClassAnalysisCache());
-        JarSnapshotter jarSnapshotter = new CachingJarSnapshotter(streamHasher, fileHasher, analyzer, compileCaches.getJarSnapshotCache());
-        JarClasspathSnapshotMaker jarClasspathSnapshotMaker = new JarClasspathSnapshotMaker(compileCaches.getLocalJarClasspathSnapshotStore(), new JarClasspathSnapshotFactory(jarSnapshotter), new ClasspathJarFinder(fileOperations));
         CompilationSourceDirs sourceDirs = new CompilationSourceDirs(source);
         SourceToNameConverter sourceToNameConverter = new SourceToNameConverter(sourceDirs);
-        RecompilationSpecProvider recompilationSpecProvider = new RecompilationSpecProvider(sourceToNameConverter, fileOperations);
-        ClassSetAnalysisUpdater classSetAnalysisUpdater = new ClassSetAnalysisUpdater(compileCaches.getLocalClassSetAnalysisStore(), fileOperations, analyzer, fileHasher);
+        RecompilationSpecProvider recompilationSpecProvider = new RecompilationSpecProvider(sourceToNameConverter, fileOperations, abiAware);
         IncrementalCompilationInitializer compilationInitializer = new IncrementalCompilationInitializer(fileOperations);
+        return makeIncremental(cleaningJavaCompiler, compileDisplayName, inputs, sourceDirs, annotationProcessorClasspath, recompilationSpecProvider, compilationInitializer, false);
+    }
+
+    /**
+     * Makes a joint Groovy and Java compiler incremental. Whole source files are recompiled, using the classes that each source file produced
+     * in the previous compilation, as recorded by its class analysis.
+     */
+    public Compiler<JavaCompileSpec> makeGroovyIncremental(CleaningJavaCompiler cleaningGroovyCompiler, String compileDisplayName, IncrementalTaskInputsInternal inputs, List<Object> source, FileCollection annotationProcessorClasspath) {
+        CompilationSourceDirs sourceDirs = new CompilationSourceDirs(source);
+        GroovySourceToNameConverter sourceToNameConverter = new GroovySourceToNameConverter(sourceDirs);
+        RecompilationSpecProvider recompilationSpecProvider = new GroovyRecompilationSpecProvider(sourceToNameConverter, fileOperations);
+        IncrementalCompilationInitializer compilationInitializer = new GroovyCompilationInitializer(fileOperations, sourceToNameConverter);
+        return makeIncremental(cleaningGroovyCompiler, compileDisplayName, inputs, sourceDirs, annotationProcessorClasspath, recompilationSpecProvider, compilationInitializer, true);
+    }
+
+    private Compiler<JavaCompileSpec> makeIncremental(CleaningJavaCompiler cleaningJavaCompiler, String compileDisplayName, IncrementalTaskInputsInternal inputs, CompilationSourceDirs sourceDirs, FileCollection annotationProcessorClasspath,
+                                                      RecompilationSpecProvider recompilationSpecProvider, IncrementalCompilationInitializer compilationInitializer, boolean recordSourcePaths) {
+        CompileCaches compileCaches = createCompileCaches(compileDisplayName);
+        ClassDependenciesAnalyzer analyzer = new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(abiAware), compileCaches.getClassAnalysisCache(), abiAware);
+        JarSnapshotter jarSnapshotter = new CachingJarSnapshotter(streamHasher, fileHasher, analyzer, compileCaches.getJarSnapshotCache());
+        JarClasspathSnapshotMaker jarClasspathSnapshotMaker = new JarClasspathSnapshotMaker(compileCaches.getLocalJarClasspathSnapshotStore(), new JarClasspathSnapshotFactory(jarSnapshotter), new ClasspathJarFinder(fileOperations));
+        LocalClassSetAnalysisStore classSetAnalysisStore = compileCaches.getLocalClassSetAnalysisStore();
+        ClassSourcePathRecorder sourcePathRecorder = recordSourcePaths ? new ClassSourcePathRecorder(fileOperations, new SourceToNameConverter(sourceDirs), classSetAnalysisStore) : null;
+        ClassSetAnalysisUpdater classSetAnalysisUpdater = new ClassSetAnalysisUpdater(classSetAnalysisStore, fileOperations, analyzer, fileHasher, sourcePathRecorder);
         IncrementalCompilerDecorator incrementalSupport = new IncrementalCompilerDecorator(jarClasspathSnapshotMaker, compileCaches, compilationInitializer, cleaningJavaCompiler, compileDisplayName, recompilationSpecProvider, classSetAnalysisUpdater, sourceDirs, annotationProcessorClasspath, annotationProcessorDetector);
         return incrementalSupport.prepareCompiler(inputs);
     }
@@ -26,20 +26,28 @@ class JavaChangeProcessor {
 
     private final SourceToNameConverter sourceToNameConverter;
     private final PreviousCompilation previousCompilation;
+    private final boolean abiAware;
 
-    public JavaChangeProcessor(PreviousCompilation previousCompilation, SourceToNameConverter sourceToNameConverter) {
+    public JavaChangeProcessor(PreviousCompilation previousCompilation, SourceToNameConverter sourceToNameConverter, boolean abiAware) {
         this.previousCompilation = previousCompilation;
         this.sourceToNameConverter = sourceToNameConverter;
+        this.abiAware = abiAware;
     }
 
     public void processChange(InputFileDetails input, RecompilationSpec spec) {
-        String className = sourceToNameConverter.getClassName(input.getFile());
-        spec.getClassesToCompile().add(className);
-        DependentsSet actualDependents = previousCompilation.getDependents(className, IntSets.EMPTY_SET);
-        if (actualDependents.isDependencyToAll()) {
-            spec.setFullRebuildCause(actualDependents.getDescription(), input.getFile());
-            return;
+        for (String className : sourceToNameConverter.getClassNames(input.getFile())) {
+            spec.getClassesToCompile().add(className);
+            DependentsSet actualDependents = previousCompilation.getDependents(className, IntSets.EMPTY_SET);
+            if (actualDependents.isDependencyToAll()) {
+                spec.setFullRebuildCause(actualDependents.getDescription(), input.getFile());
+                return;
+            }
+            // The dependents of a removed class cannot compile against its ABI anymore, so they are always recompiled
+            if (abiAware && !input.isRemoved()) {
+                spec.getClassesWithAbiDependents().add(className);
+            } else {
+                spec.getClassesToCompile().addAll(actualDependents.getDependentClasses());
+            }
         }
-        spec.getClassesToCompile().addAll(actualDependents.getDependentClasses());
     }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental;
 
+import org.gradle.api.Action;
 import org.gradle.api.internal.changedetection.rules.FileChange;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarChangeProcessor;
@@ -23,6 +24,7 @@ import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapsho
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshot;
 import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
 import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec;
+import org.gradle.api.tasks.incremental.InputFileDetails;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.util.Alignment;
 
@@ -35,10 +37,12 @@ public class RecompilationSpecProvider {
 
     private final SourceToNameConverter sourceToNameConverter;
     private final FileOperations fileOperations;
+    private final boolean abiAware;
 
-    RecompilationSpecProvider(SourceToNameConverter sourceToNameConverter, FileOperations fileOperations) {
+    RecompilationSpecProvider(SourceToNameConverter sourceToNameConverter, FileOperations fileOperations, boolean abiAware) {
         this.sourceToNameConverter = sourceToNameConverter;
         this.fileOperations = fileOperations;
+        this.abiAware = abiAware;
     }
 
     public RecompilationSpec provideRecompilationSpec(CurrentCompilation current, PreviousCompilation previous) {
@@ -60,10 +64,10 @@ public class RecompilationSpecProvider {
         for (Alignment<File> fileAlignment : alignment) {
             switch (fileAlignment.getKind()) {
                 case added:
-                    jarChangeProcessor.processChange(FileChange.added(fileAlignment.getCurrentValue().getAbsolutePath(), "jar", FileType.RegularFile), spec);
+                    processJarChange(FileChange.added(fileAlignment.getCurrentValue().getAbsolutePath(), "jar", FileType.RegularFile), jarChangeProcessor, spec);
                     break;
                 case removed:
-                    jarChangeProcessor.processChange(FileChange.removed(fileAlignment.getPreviousValue().getAbsolutePath(), "jar", FileType.RegularFile), spec);
+                    processJarChange(FileChange.removed(fileAlignment.getPreviousValue().getAbsolutePath(), "jar", FileType.RegularFile), jarChangeProcessor, spec);
                     break;
                 case transformed:
                     // If we detect a transformation in the classpath, we need to recompile, because we could typically be facing the case where
@@ -75,20 +79,33 @@ public class RecompilationSpecProvider {
                     JarSnapshot previousSnapshot = previousCompilationJarSnapshots.get(key);
                     JarSnapshot snapshot = currentJarSnapshots.getSnapshot(key);
                     if (!snapshot.getHash().equals(previousSnapshot.getHash())) {
-                        jarChangeProcessor.processChange(FileChange.modified(key.getAbsolutePath(), "jar", FileType.RegularFile, FileType.RegularFile), spec);
+                        processJarChange(FileChange.modified(key.getAbsolutePath(), "jar", FileType.RegularFile, FileType.RegularFile), jarChangeProcessor, spec);
                     }
                     break;
             }
         }
     }
 
+    /**
+     * Processes an added, removed or modified jar on the compile classpath.
+     */
+    protected void processJarChange(InputFileDetails jarChange, JarChangeProcessor jarChangeProcessor, RecompilationSpec spec) {
+        jarChangeProcessor.processChange(jarChange, spec);
+    }
+
     private void processOtherChanges(CurrentCompilation current, PreviousCompilation previous, RecompilationSpec spec) {
-        JavaChangeProcessor javaChangeProcessor = new JavaChangeProcessor(previous, sourceToNameConverter);
+        current.visitChanges(createInputChangeAction(current, previous, spec));
+    }
+
+    /**
+     * Creates the action that processes changes to the source files and to the class files in classpath directories.
+     */
+    protected Action<InputFileDetails> createInputChangeAction(CurrentCompilation current, PreviousCompilation previous, RecompilationSpec spec) {
+        // The dependents of changed sources are only deferred when no annotation processors run, as the rounds of recompilation would need to combine their results
+        boolean deferDependents = abiAware && current.getAnnotationProcessorPath().isEmpty();
+        JavaChangeProcessor javaChangeProcessor = new JavaChangeProcessor(previous, sourceToNameConverter, deferDependents);
         ClassChangeProcessor classChangeProcessor = new ClassChangeProcessor(previous);
         AnnotationProcessorChangeProcessor annotationProcessorChangeProcessor = new AnnotationProcessorChangeProcessor(current, previous);
-        InputChangeAction action = new InputChangeAction(spec, javaChangeProcessor, classChangeProcessor, annotationProcessorChangeProcessor);
-        current.visitChanges(action);
+        return new InputChangeAction(spec, javaChangeProcessor, classChangeProcessor, annotationProcessorChangeProcessor);
     }
-
-
 }
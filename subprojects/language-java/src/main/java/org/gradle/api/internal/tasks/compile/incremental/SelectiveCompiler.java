@@ -16,19 +16,36 @@
 
 package org.gradle.api.internal.tasks.compile.incremental;
 
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.compile.CleaningJavaCompiler;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
+import org.gradle.api.internal.tasks.compile.incremental.asm.ClassAbiVisitor;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshotProvider;
 import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
 import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.WorkResults;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.time.Timer;
+import org.gradle.util.internal.PatchedClassReader;
+import org.objectweb.asm.ClassReader;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 class SelectiveCompiler implements org.gradle.language.base.internal.compile.Compiler<JavaCompileSpec> {
     private static final Logger LOG = Logging.getLogger(SelectiveCompiler.class);
@@ -61,19 +78,101 @@ class SelectiveCompiler implements org.gradle.language.base.internal.compile.Com
             return cleaningCompiler.execute(spec);
         }
 
+        FileCollection source = spec.getSource();
+        List<File> compileClasspath = Lists.newArrayList(spec.getCompileClasspath());
         incrementalCompilationInitilizer.initializeCompilation(spec, recompilationSpec);
 
         if (spec.getSource().isEmpty() && spec.getClasses().isEmpty()) {
+            if (!recompilationSpec.getClassesWithAbiDependents().isEmpty()) {
+                // Nothing left to compile in the first round, but the ABI of the classes may still have changed
+                return recompileAbiDependents(spec, source, compileClasspath, recompilationSpec, WorkResults.didWork(true));
+            }
             LOG.info("None of the classes needs to be compiled! Analysis took {}. ", clock.getElapsed());
             return new RecompilationNotNecessary();
         }
 
         try {
-            return cleaningCompiler.getCompiler().execute(spec);
+            WorkResult result = cleaningCompiler.getCompiler().execute(spec);
+            if (recompilationSpec.getClassesWithAbiDependents().isEmpty()) {
+                return result;
+            }
+            return recompileAbiDependents(spec, source, compileClasspath, recompilationSpec, result);
         } finally {
             Collection<String> classesToCompile = recompilationSpec.getClassesToCompile();
             LOG.info("Incremental compilation of {} classes completed in {}.", classesToCompile.size(), clock.getElapsed());
             LOG.debug("Recompiled classes {}", classesToCompile);
         }
     }
+
+    /**
+     * Recompiles the dependents of the classes whose ABI has changed in rounds. Each round recompiles the direct dependents of the classes of the
+     * previous round whose ABI has changed, until no ABI changes anymore. A change to a method body therefore only recompiles the changed class.
+     */
+    private WorkResult recompileAbiDependents(JavaCompileSpec spec, FileCollection source, List<File> compileClasspath, RecompilationSpec recompilationSpec, WorkResult result) {
+        Set<String> compiledClasses = Sets.newHashSet(recompilationSpec.getClassesToCompile());
+        Collection<String> classesToCheck = recompilationSpec.getClassesWithAbiDependents();
+        while (!classesToCheck.isEmpty()) {
+            Set<String> changedClasses = Sets.newLinkedHashSet();
+            for (String className : classesToCheck) {
+                collectClassesWithChangedAbi(className, spec.getDestinationDir(), changedClasses);
+            }
+            if (changedClasses.isEmpty()) {
+                break;
+            }
+            DependentsSet dependents = previousCompilation.getDirectDependents(changedClasses);
+            spec.setSource(source);
+            spec.setCompileClasspath(compileClasspath);
+            if (dependents.isDependencyToAll()) {
+                LOG.info("Full recompilation is required because {}.", dependents.getDescription() != null ? dependents.getDescription() : "the ABI of " + changedClasses + " has changed");
+                return cleaningCompiler.execute(spec);
+            }
+            RecompilationSpec dependentsSpec = new RecompilationSpec();
+            dependentsSpec.getClassesToCompile().addAll(dependents.getDependentClasses());
+            dependentsSpec.getClassesToCompile().removeAll(compiledClasses);
+            if (dependentsSpec.getClassesToCompile().isEmpty()) {
+                break;
+            }
+            LOG.info("The ABI of {} has changed, recompiling {} dependent classes.", changedClasses, dependentsSpec.getClassesToCompile().size());
+            compiledClasses.addAll(dependentsSpec.getClassesToCompile());
+            incrementalCompilationInitilizer.initializeCompilation(spec, dependentsSpec);
+            cleaningCompiler.getCompiler().execute(spec);
+            result = WorkResults.didWork(true);
+            classesToCheck = dependentsSpec.getClassesToCompile();
+        }
+        return result;
+    }
+
+    private void collectClassesWithChangedAbi(String className, File destinationDir, Set<String> changedClasses) {
+        Map<String, HashCode> previousHashes = previousCompilation.getAbiHashes(className);
+        Map<String, HashCode> currentHashes = getCurrentAbiHashes(className, destinationDir);
+        for (String name : Sets.union(previousHashes.keySet(), currentHashes.keySet())) {
+            if (!Objects.equal(previousHashes.get(name), currentHashes.get(name))) {
+                changedClasses.add(name);
+            }
+        }
+    }
+
+    private static Map<String, HashCode> getCurrentAbiHashes(String className, File destinationDir) {
+        String path = className.replace('.', '/');
+        int packageEnd = path.lastIndexOf('/');
+        File packageDir = packageEnd < 0 ? destinationDir : new File(destinationDir, path.substring(0, packageEnd));
+        String simpleName = path.substring(packageEnd + 1);
+        Map<String, HashCode> hashes = new HashMap<String, HashCode>();
+        File[] classFiles = packageDir.listFiles();
+        if (classFiles == null) {
+            return hashes;
+        }
+        for (File classFile : classFiles) {
+            String fileName = classFile.getName();
+            if (fileName.equals(simpleName + ".class") || (fileName.startsWith(simpleName + "$") && fileName.endsWith(".class"))) {
+                try {
+                    ClassReader reader = new PatchedClassReader(Files.toByteArray(classFile));
+                    hashes.put(reader.getClassName().replace('/', '.'), ClassAbiVisitor.hash(reader));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException(String.format("Unable to read class file: '%s'", classFile), e);
+                }
+            }
+        }
+        return hashes;
+    }
 }
@@ -19,30 +19,47 @@ package org.gradle.api.internal.tasks.compile.incremental;
 import org.gradle.util.RelativePathUtil;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static java.lang.String.format;
 
 public class SourceToNameConverter {
 
-    private CompilationSourceDirs sourceDirs;
+    private final CompilationSourceDirs sourceDirs;
 
     public SourceToNameConverter(CompilationSourceDirs sourceDirs) {
         this.sourceDirs = sourceDirs;
     }
 
     public String getClassName(File javaSourceClass) {
+        return getClassName(getRelativePath(javaSourceClass));
+    }
+
+    /**
+     * Returns the names of the classes that may have been compiled from the given source file. For Java sources this is the class named after the file.
+     */
+    public Collection<String> getClassNames(File sourceFile) {
+        return Collections.singleton(getClassName(sourceFile));
+    }
+
+    protected String getClassName(String relativePath) {
+        return relativePath.replaceAll("/", ".").replaceAll("\\.(java|groovy)$", "");
+    }
+
+    protected String getRelativePath(File sourceFile) {
         List<File> dirs = sourceDirs.getSourceRoots();
         for (File sourceDir : dirs) {
-            if (javaSourceClass.getAbsolutePath().startsWith(sourceDir.getAbsolutePath())) { //perf tweak only
-                String relativePath = RelativePathUtil.relativePath(sourceDir, javaSourceClass);
+            if (sourceFile.getAbsolutePath().startsWith(sourceDir.getAbsolutePath())) { //perf tweak only
+                String relativePath = RelativePathUtil.relativePath(sourceDir, sourceFile);
                 if (!relativePath.startsWith("..")) {
-                    return relativePath.replaceAll("/", ".").replaceAll("\\.java$", "");
+                    return relativePath;
                 }
             }
         }
         throw new IllegalArgumentException(format("Unable to find source java class: '%s' because it does not belong to any of the source dirs: '%s'",
-                javaSourceClass, dirs));
+                sourceFile, dirs));
 
     }
 }
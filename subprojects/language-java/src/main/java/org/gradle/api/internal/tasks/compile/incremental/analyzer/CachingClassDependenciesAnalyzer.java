@@ -20,22 +20,40 @@ import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
 import org.gradle.internal.Factory;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 
 public class CachingClassDependenciesAnalyzer implements ClassDependenciesAnalyzer {
     private final ClassDependenciesAnalyzer analyzer;
     private final ClassAnalysisCache cache;
+    private final boolean abiAware;
 
     public CachingClassDependenciesAnalyzer(ClassDependenciesAnalyzer analyzer, ClassAnalysisCache cache) {
+        this(analyzer, cache, false);
+    }
+
+    /**
+     * @param abiAware whether the analyzer computes the hash of the ABI of each class. Such analyses are cached separately from those without it.
+     */
+    public CachingClassDependenciesAnalyzer(ClassDependenciesAnalyzer analyzer, ClassAnalysisCache cache, boolean abiAware) {
         this.analyzer = analyzer;
         this.cache = cache;
+        this.abiAware = abiAware;
     }
 
     @Override
     public ClassAnalysis getClassAnalysis(final HashCode classFileHash, final FileTreeElement classFile) {
-        return cache.get(classFileHash, new Factory<ClassAnalysis>() {
+        return cache.get(abiAware ? abiAwareKey(classFileHash) : classFileHash, new Factory<ClassAnalysis>() {
             public ClassAnalysis create() {
                 return analyzer.getClassAnalysis(classFileHash, classFile);
             }
         });
     }
+
+    private static HashCode abiAwareKey(HashCode classFileHash) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString("abi");
+        hasher.putHash(classFileHash);
+        return hasher.hash();
+    }
 }
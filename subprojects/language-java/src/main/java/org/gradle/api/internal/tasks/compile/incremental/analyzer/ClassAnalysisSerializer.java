@@ -18,9 +18,11 @@ package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
 import it.unimi.dsi.fastutil.ints.IntSet;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.IntSetSerializer;
 import org.gradle.internal.serialize.SetSerializer;
 
@@ -31,6 +33,7 @@ import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALI
 public class ClassAnalysisSerializer extends AbstractSerializer<ClassAnalysis> {
 
     private static final SetSerializer<String> STRING_SET_SERIALIZER = new SetSerializer<String>(STRING_SERIALIZER, false);
+    private static final HashCodeSerializer HASH_CODE_SERIALIZER = new HashCodeSerializer();
 
     @Override
     public ClassAnalysis read(Decoder decoder) throws Exception {
@@ -39,7 +42,8 @@ public class ClassAnalysisSerializer extends AbstractSerializer<ClassAnalysis> {
         Set<String> classes = STRING_SET_SERIALIZER.read(decoder);
         IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
         Set<String> superTypes = STRING_SET_SERIALIZER.read(decoder);
-        return new ClassAnalysis(className, classes, relatedToAll, constants, superTypes);
+        HashCode abiHash = decoder.readBoolean() ? HASH_CODE_SERIALIZER.read(decoder) : null;
+        return new ClassAnalysis(className, classes, relatedToAll, constants, superTypes, abiHash);
     }
 
     @Override
@@ -49,6 +53,10 @@ public class ClassAnalysisSerializer extends AbstractSerializer<ClassAnalysis> {
         STRING_SET_SERIALIZER.write(encoder, value.getClassDependencies());
         IntSetSerializer.INSTANCE.write(encoder, value.getConstants());
         STRING_SET_SERIALIZER.write(encoder, value.getSuperTypes());
+        encoder.writeBoolean(value.getAbiHash() != null);
+        if (value.getAbiHash() != null) {
+            HASH_CODE_SERIALIZER.write(encoder, value.getAbiHash());
+        }
     }
 
 }
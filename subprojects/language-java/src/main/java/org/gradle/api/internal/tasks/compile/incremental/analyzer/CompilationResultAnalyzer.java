@@ -56,6 +56,10 @@ public class CompilationResultAnalyzer implements FileVisitor {
         accumulator.addClass(fileDetails.getFile(), analysis);
     }
 
+    public void addSourcePath(String className, String relativeSourcePath) {
+        accumulator.addSourcePath(className, relativeSourcePath);
+    }
+
     public ClassSetAnalysisData getAnalysis() {
         return accumulator.getAnalysis();
     }
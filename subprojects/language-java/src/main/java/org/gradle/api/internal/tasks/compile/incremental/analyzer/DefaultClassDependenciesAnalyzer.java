@@ -28,11 +28,23 @@ import java.io.IOException;
 import java.io.InputStream;
 
 public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyzer {
+    private final boolean abiAware;
+
+    public DefaultClassDependenciesAnalyzer() {
+        this(false);
+    }
+
+    /**
+     * @param abiAware whether to compute the hash of the ABI of each class
+     */
+    public DefaultClassDependenciesAnalyzer(boolean abiAware) {
+        this.abiAware = abiAware;
+    }
 
     public ClassAnalysis getClassAnalysis(InputStream input) throws IOException {
         ClassReader reader = new PatchedClassReader(ByteStreams.toByteArray(input));
         String className = reader.getClassName().replace("/", ".");
-        return ClassDependenciesVisitor.analyze(className, reader);
+        return ClassDependenciesVisitor.analyze(className, reader, abiAware);
     }
 
     @Override
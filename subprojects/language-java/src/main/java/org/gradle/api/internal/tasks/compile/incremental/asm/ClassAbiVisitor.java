@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.asm;
+
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hashes the parts of a class that other classes of the same compilation can see: the class declaration, its annotations and its non-private,
+ * non-synthetic members. Unlike the ABI used for the compile classpath, package private members are included, as classes in the same package
+ * use them. Method bodies and private members are ignored, so changing them does not change the hash. The hash does not depend on the order
+ * of the members.
+ */
+public class ClassAbiVisitor extends ClassVisitor {
+    private static final int API = Opcodes.ASM6;
+
+    private final List<StringBuilder> members = new ArrayList<StringBuilder>();
+    private String className;
+
+    private ClassAbiVisitor() {
+        super(API);
+    }
+
+    public static HashCode hash(ClassReader reader) {
+        ClassAbiVisitor visitor = new ClassAbiVisitor();
+        reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return visitor.hash();
+    }
+
+    private HashCode hash() {
+        List<String> sorted = new ArrayList<String>(members.size());
+        for (StringBuilder member : members) {
+            sorted.add(member.toString());
+        }
+        Collections.sort(sorted);
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putInt(sorted.size());
+        for (String member : sorted) {
+            hasher.putString(member);
+        }
+        return hasher.hash();
+    }
+
+    private StringBuilder member(String kind, Object... parts) {
+        StringBuilder member = new StringBuilder(kind);
+        for (Object part : parts) {
+            member.append(' ').append(part instanceof Object[] ? sortedToString((Object[]) part) : part);
+        }
+        members.add(member);
+        return member;
+    }
+
+    private static String sortedToString(Object[] values) {
+        Object[] copy = values.clone();
+        Arrays.sort(copy);
+        return Arrays.toString(copy);
+    }
+
+    private static boolean isVisible(int access) {
+        return (access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC)) == 0;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        className = name;
+        member("class", access & ~Opcodes.ACC_SUPER, name, signature, superName, interfaces == null ? new String[0] : interfaces);
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+        return new AnnotationRecorder(member("@", desc, visible));
+    }
+
+    @Override
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        if (name.equals(className) || (className.equals(outerName) && isVisible(access))) {
+            member("inner", name, outerName, innerName, access);
+        }
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+        if (!isVisible(access)) {
+            return null;
+        }
+        final StringBuilder field = member("field", access, name, desc, signature, value);
+        return new FieldVisitor(API) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                return new AnnotationRecorder(field.append(" @").append(desc).append(' ').append(visible));
+            }
+        };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+        if (!isVisible(access)) {
+            return null;
+        }
+        final StringBuilder method = member("method", access, name, desc, signature, exceptions == null ? new String[0] : exceptions);
+        return new MethodVisitor(API) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                return new AnnotationRecorder(method.append(" @").append(desc).append(' ').append(visible));
+            }
+
+            @Override
+            public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+                return new AnnotationRecorder(method.append(" @").append(parameter).append(' ').append(desc).append(' ').append(visible));
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotationDefault() {
+                return new AnnotationRecorder(method.append(" default"));
+            }
+        };
+    }
+
+    private static class AnnotationRecorder extends AnnotationVisitor {
+        private final StringBuilder target;
+
+        AnnotationRecorder(StringBuilder target) {
+            super(API);
+            this.target = target.append('(');
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            target.append(name).append('=').append(valueToString(value)).append(',');
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            target.append(name).append('=').append(desc).append('.').append(value).append(',');
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            return new AnnotationRecorder(target.append(name).append("=@").append(desc));
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            return new AnnotationRecorder(target.append(name).append('='));
+        }
+
+        @Override
+        public void visitEnd() {
+            target.append(')');
+        }
+
+        private static String valueToString(Object value) {
+            if (value.getClass().isArray()) {
+                // Primitive arrays
+                StringBuilder builder = new StringBuilder("[");
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) {
+                    builder.append(Array.get(value, i)).append(',');
+                }
+                return builder.append(']').toString();
+            }
+            return String.valueOf(value);
+        }
+    }
+}
@@ -64,12 +64,15 @@ public class ClassDependenciesVisitor extends ClassVisitor {
         }
     }
 
-    public static ClassAnalysis analyze(String className, ClassReader reader) {
+    /**
+     * Analyzes the given class. The hash of its ABI is only computed when {@code abiAware} is true, and is null otherwise.
+     */
+    public static ClassAnalysis analyze(String className, ClassReader reader, boolean abiAware) {
         IntSet constants = new IntOpenHashSet(2);
         Set<String> classDependencies = Sets.newHashSet();
         ClassDependenciesVisitor visitor = new ClassDependenciesVisitor(constants, classDependencies, new ClassRelevancyFilter(className), reader);
         reader.accept(visitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
-        return new ClassAnalysis(className, classDependencies, visitor.isDependencyToAll(), constants, visitor.getSuperTypes());
+        return new ClassAnalysis(className, classDependencies, visitor.isDependencyToAll(), constants, visitor.getSuperTypes(), abiAware ? ClassAbiVisitor.hash(reader) : null);
     }
 
     public static IntSet retrieveConstants(ClassReader reader) {
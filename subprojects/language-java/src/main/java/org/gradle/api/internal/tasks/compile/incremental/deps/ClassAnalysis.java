@@ -17,7 +17,9 @@
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
 import it.unimi.dsi.fastutil.ints.IntSet;
+import org.gradle.internal.hash.HashCode;
 
+import javax.annotation.Nullable;
 import java.util.Set;
 
 /**
@@ -29,13 +31,15 @@ public class ClassAnalysis {
     private final boolean dependencyToAll;
     private final IntSet constants;
     private final Set<String> superTypes;
+    private final HashCode abiHash;
 
-    public ClassAnalysis(String className, Set<String> classDependencies, boolean dependencyToAll, IntSet constants, Set<String> superTypes) {
+    public ClassAnalysis(String className, Set<String> classDependencies, boolean dependencyToAll, IntSet constants, Set<String> superTypes, @Nullable HashCode abiHash) {
         this.className = className;
         this.classDependencies = classDependencies;
         this.dependencyToAll = dependencyToAll;
         this.constants = constants;
         this.superTypes = superTypes;
+        this.abiHash = abiHash;
     }
 
     public String getClassName() {
@@ -57,4 +61,12 @@ public class ClassAnalysis {
     public Set<String> getSuperTypes() {
         return superTypes;
     }
+
+    /**
+     * The hash of the parts of the class that other classes can compile against, or null when it was not computed. See {@link org.gradle.api.internal.tasks.compile.incremental.asm.ClassAbiVisitor}.
+     */
+    @Nullable
+    public HashCode getAbiHash() {
+        return abiHash;
+    }
 }
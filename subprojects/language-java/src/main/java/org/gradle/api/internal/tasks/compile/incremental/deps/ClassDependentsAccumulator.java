@@ -23,6 +23,7 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessingResult;
+import org.gradle.internal.hash.HashCode;
 
 import java.io.File;
 import java.util.Collections;
@@ -38,6 +39,8 @@ public class ClassDependentsAccumulator {
     private final Map<String, String> filePathToClassName = new HashMap<String, String>();
     private final Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
     private final Map<String, IntSet> classesToConstants = new HashMap<String, IntSet>();
+    private final Map<String, HashCode> classesToAbiHashes = new HashMap<String, HashCode>();
+    private final Map<String, String> classesToSourcePaths = new HashMap<String, String>();
     private final Set<String> seenClasses = Sets.newHashSet();
     private final Multimap<String, String> parentToChildren = HashMultimap.create();
     private String fullRebuildCause;
@@ -46,10 +49,20 @@ public class ClassDependentsAccumulator {
     }
 
     public void addClass(File classFile, ClassAnalysis classAnalysis) {
+        if (classAnalysis.getAbiHash() != null && !seenClasses.contains(classAnalysis.getClassName())) {
+            classesToAbiHashes.put(classAnalysis.getClassName(), classAnalysis.getAbiHash());
+        }
         addClass(classAnalysis);
         filePathToClassName.put(classFile.getAbsolutePath(), classAnalysis.getClassName());
     }
 
+    /**
+     * Records the path relative to its source root of the source file the given class was compiled from.
+     */
+    public void addSourcePath(String className, String relativeSourcePath) {
+        classesToSourcePaths.put(className, relativeSourcePath);
+    }
+
     public void addClass(ClassAnalysis classAnalysis) {
         addClass(classAnalysis.getClassName(), classAnalysis.isDependencyToAll(), classAnalysis.getClassDependencies(), classAnalysis.getConstants(), classAnalysis.getSuperTypes());
     }
@@ -125,7 +138,7 @@ public class ClassDependentsAccumulator {
     }
 
     public ClassSetAnalysisData getAnalysis() {
-        return new ClassSetAnalysisData(filePathToClassName, getDependentsMap(), getClassesToConstants(), asMap(parentToChildren), DependentsSet.dependents(aggregatedTypes), DependentsSet.dependents(dependentsOnAll), fullRebuildCause);
+        return new ClassSetAnalysisData(filePathToClassName, getDependentsMap(), getClassesToConstants(), classesToAbiHashes, classesToSourcePaths, asMap(parentToChildren), DependentsSet.dependents(aggregatedTypes), DependentsSet.dependents(dependentsOnAll), fullRebuildCause);
     }
 
     private static <K, V> Map<K, Set<V>> asMap(Multimap<K, V> multimap) {
@@ -16,10 +16,10 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.ints.IntSet;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -63,11 +63,45 @@ public class ClassSetAnalysis {
             return deps;
         }
         Set<String> result = new HashSet<String>();
-        recurseDependents(new HashSet<String>(), result, Iterables.concat(deps.getDependentClasses(), dependentsOnAll.getDependentClasses()));
+        BitSet visited = new BitSet();
+        int id = data.getClassId(className);
+        if (id >= 0) {
+            recurseDependents(visited, result, data.getDependentIds(id));
+        }
+        for (String d : dependentsOnAll.getDependentClasses()) {
+            int dependentId = data.getClassId(d);
+            if (dependentId < 0) {
+                addDependent(d, result);
+            } else {
+                recurseDependents(visited, result, new int[]{dependentId});
+            }
+        }
         result.remove(className);
         return DependentsSet.dependents(result);
     }
 
+    /**
+     * Returns the classes that directly depend on the given classes, or on one of their subtypes, without following the dependents of those
+     * dependents. Used when the dependents are recompiled in rounds, each round only following the classes whose ABI has changed.
+     */
+    public DependentsSet getDirectDependents(Iterable<String> classes) {
+        Set<String> result = new HashSet<String>();
+        BitSet visited = new BitSet();
+        boolean any = false;
+        for (String cls : classes) {
+            any = true;
+            int id = data.getClassId(cls);
+            String dependencyToAll = id < 0 ? null : collectDirectDependents(id, visited, result);
+            if (dependencyToAll != null || data.getDependents(cls).isDependencyToAll()) {
+                return data.getDependents(dependencyToAll == null ? cls : dependencyToAll);
+            }
+        }
+        if (any) {
+            result.addAll(data.getDependentsOnAll().getDependentClasses());
+        }
+        return DependentsSet.dependents(result);
+    }
+
     public DependentsSet getAggregatedTypes() {
         return data.getAggregatedTypes();
     }
@@ -76,19 +110,46 @@ public class ClassSetAnalysis {
         return data.getDependents(className).isDependencyToAll();
     }
 
-    private void recurseDependents(Set<String> visited, Set<String> result, Iterable<String> dependentClasses) {
-        for (String d : dependentClasses) {
-            if (!visited.add(d)) {
+    private void recurseDependents(BitSet visited, Set<String> result, int[] dependentIds) {
+        for (int id : dependentIds) {
+            if (visited.get(id)) {
                 continue;
             }
-            if (!isNestedClass(d)) {
-                result.add(d);
+            visited.set(id);
+            addDependent(data.getClassName(id), result);
+            if (!data.isDependencyToAll(id)) {
+                recurseDependents(visited, result, data.getDependentIds(id));
             }
-            DependentsSet currentDependents = data.getDependents(d);
-            if (!currentDependents.isDependencyToAll()) {
-                recurseDependents(visited, result, currentDependents.getDependentClasses());
+        }
+    }
+
+    private void addDependent(String d, Set<String> result) {
+        if (!isNestedClass(d)) {
+            result.add(d);
+        }
+    }
+
+    /**
+     * Adds the direct dependents of the given class and of its subtypes, returning the name of a class that is a dependency to all, if any.
+     */
+    private String collectDirectDependents(int id, BitSet visited, Set<String> result) {
+        if (visited.get(id)) {
+            return null;
+        }
+        visited.set(id);
+        if (data.isDependencyToAll(id)) {
+            return data.getClassName(id);
+        }
+        for (int dependent : data.getDependentIds(id)) {
+            result.add(data.getClassName(dependent));
+        }
+        for (int child : data.getChildIds(id)) {
+            String dependencyToAll = collectDirectDependents(child, visited, result);
+            if (dependencyToAll != null) {
+                return dependencyToAll;
             }
         }
+        return null;
     }
 
     private boolean isNestedClass(String d) {
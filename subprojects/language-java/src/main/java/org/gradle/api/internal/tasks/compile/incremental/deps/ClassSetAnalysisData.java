@@ -16,50 +16,217 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.ints.IntSets;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
-import org.gradle.internal.serialize.IntSetSerializer;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
+/**
+ * The result of analyzing the classes of a compilation or of a jar.
+ *
+ * <p>All class names are kept once, in a sorted table, and the relations between classes are kept as arrays of positions in that table,
+ * with an offset array per relation. This keeps the analysis of large source sets compact and fast to load, as it is read back
+ * as a handful of primitive arrays instead of maps of sets of strings. The sets returned by the queries are created on demand.</p>
+ */
 public class ClassSetAnalysisData {
-    final Map<String, String> filePathToClassName;
-    final Map<String, DependentsSet> dependents;
-    final Map<String, IntSet> classesToConstants;
-    final Map<String, Set<String>> classesToChildren;
+    private static final int[] NO_IDS = new int[0];
+
+    private final String[] classNames;
+    private final StringIndex classIndex;
+    private final String[] filePaths;
+    private final int[] fileClassIds;
+    private final StringIndex fileIndex;
+    private final int[] dependentsOffsets;
+    private final int[] dependents;
+    private final int[] dependencyToAllIds;
+    private final String[] dependencyToAllDescriptions;
+    private final int[] constantsOffsets;
+    private final int[] constants;
+    private final int[] childrenOffsets;
+    private final int[] children;
+    private final int[] abiHashOffsets;
+    private final byte[] abiHashes;
+    private final String[] sourcePaths;
+    private final int[] sourcePathClassIds;
+    private final int[] sourcePathIds;
     private final DependentsSet aggregatedTypes;
-    final DependentsSet dependentsOnAll;
-    final String fullRebuildCause;
+    private final DependentsSet dependentsOnAll;
+    private final String fullRebuildCause;
+
+    public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, Map<String, HashCode> classesToAbiHashes, Map<String, String> classesToSourcePaths, Map<String, Set<String>> classesToChildren, DependentsSet aggregatedTypes, DependentsSet dependentsOnAll, String fullRebuildCause) {
+        Set<String> names = new TreeSet<String>();
+        names.addAll(filePathToClassName.values());
+        names.addAll(classesToConstants.keySet());
+        names.addAll(classesToAbiHashes.keySet());
+        names.addAll(classesToSourcePaths.keySet());
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            names.add(entry.getKey());
+            if (!entry.getValue().isDependencyToAll()) {
+                names.addAll(entry.getValue().getDependentClasses());
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : classesToChildren.entrySet()) {
+            names.add(entry.getKey());
+            names.addAll(entry.getValue());
+        }
+        this.classNames = names.toArray(new String[0]);
+        this.classIndex = new StringIndex(classNames);
+        int count = classNames.length;
+
+        this.filePaths = filePathToClassName.keySet().toArray(new String[0]);
+        this.fileClassIds = new int[filePaths.length];
+        for (int i = 0; i < filePaths.length; i++) {
+            fileClassIds[i] = classIndex.indexOf(filePathToClassName.get(filePaths[i]));
+        }
+        this.fileIndex = new StringIndex(filePaths);
+
+        Map<Integer, String> dependencyToAll = new HashMap<Integer, String>();
+        int[][] dependentIds = new int[count][];
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            int id = classIndex.indexOf(entry.getKey());
+            if (entry.getValue().isDependencyToAll()) {
+                dependencyToAll.put(id, entry.getValue().getDescription());
+            } else {
+                dependentIds[id] = toIds(entry.getValue().getDependentClasses());
+            }
+        }
+        this.dependentsOffsets = new int[count + 1];
+        this.dependents = flatten(dependentIds, dependentsOffsets);
+        this.dependencyToAllIds = new int[dependencyToAll.size()];
+        this.dependencyToAllDescriptions = new String[dependencyToAll.size()];
+        int index = 0;
+        for (Integer id : new TreeSet<Integer>(dependencyToAll.keySet())) {
+            dependencyToAllIds[index] = id;
+            dependencyToAllDescriptions[index++] = dependencyToAll.get(id);
+        }
+
+        int[][] constantValues = new int[count][];
+        for (Map.Entry<String, IntSet> entry : classesToConstants.entrySet()) {
+            constantValues[classIndex.indexOf(entry.getKey())] = entry.getValue().toIntArray();
+        }
+        this.constantsOffsets = new int[count + 1];
+        this.constants = flatten(constantValues, constantsOffsets);
+
+        int[][] childIds = new int[count][];
+        for (Map.Entry<String, Set<String>> entry : classesToChildren.entrySet()) {
+            childIds[classIndex.indexOf(entry.getKey())] = toIds(entry.getValue());
+        }
+        this.childrenOffsets = new int[count + 1];
+        this.children = flatten(childIds, childrenOffsets);
+
+        this.abiHashOffsets = new int[count + 1];
+        int size = 0;
+        for (int id = 0; id < count; id++) {
+            abiHashOffsets[id] = size;
+            HashCode hash = classesToAbiHashes.get(classNames[id]);
+            size += hash == null ? 0 : hash.length();
+        }
+        abiHashOffsets[count] = size;
+        this.abiHashes = new byte[size];
+        for (int id = 0; id < count; id++) {
+            HashCode hash = classesToAbiHashes.get(classNames[id]);
+            if (hash != null) {
+                System.arraycopy(hash.toByteArray(), 0, abiHashes, abiHashOffsets[id], hash.length());
+            }
+        }
+
+        // Source paths are only recorded for some compilations, so they are kept for the classes that have one
+        this.sourcePaths = new TreeSet<String>(classesToSourcePaths.values()).toArray(new String[0]);
+        this.sourcePathClassIds = toIds(classesToSourcePaths.keySet());
+        Arrays.sort(sourcePathClassIds);
+        this.sourcePathIds = new int[sourcePathClassIds.length];
+        for (int i = 0; i < sourcePathClassIds.length; i++) {
+            sourcePathIds[i] = Arrays.binarySearch(sourcePaths, classesToSourcePaths.get(classNames[sourcePathClassIds[i]]));
+        }
+
+        this.aggregatedTypes = aggregatedTypes;
+        this.dependentsOnAll = dependentsOnAll;
+        this.fullRebuildCause = fullRebuildCause;
+    }
 
-    public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Map<String, IntSet> classesToConstants, Map<String, Set<String>> classesToChildren, DependentsSet aggregatedTypes, DependentsSet dependentsOnAll, String fullRebuildCause) {
-        this.filePathToClassName = filePathToClassName;
+    private ClassSetAnalysisData(String[] classNames, String[] filePaths, int[] fileClassIds, int[] dependentsOffsets, int[] dependents, int[] dependencyToAllIds, String[] dependencyToAllDescriptions,
+                                 int[] constantsOffsets, int[] constants, int[] childrenOffsets, int[] children, int[] abiHashOffsets, byte[] abiHashes,
+                                 String[] sourcePaths, int[] sourcePathClassIds, int[] sourcePathIds, DependentsSet aggregatedTypes, DependentsSet dependentsOnAll, String fullRebuildCause) {
+        this.classNames = classNames;
+        this.classIndex = new StringIndex(classNames);
+        this.filePaths = filePaths;
+        this.fileClassIds = fileClassIds;
+        this.fileIndex = new StringIndex(filePaths);
+        this.dependentsOffsets = dependentsOffsets;
         this.dependents = dependents;
-        this.classesToConstants = classesToConstants;
-        this.classesToChildren = classesToChildren;
+        this.dependencyToAllIds = dependencyToAllIds;
+        this.dependencyToAllDescriptions = dependencyToAllDescriptions;
+        this.constantsOffsets = constantsOffsets;
+        this.constants = constants;
+        this.childrenOffsets = childrenOffsets;
+        this.children = children;
+        this.abiHashOffsets = abiHashOffsets;
+        this.abiHashes = abiHashes;
+        this.sourcePaths = sourcePaths;
+        this.sourcePathClassIds = sourcePathClassIds;
+        this.sourcePathIds = sourcePathIds;
         this.aggregatedTypes = aggregatedTypes;
         this.dependentsOnAll = dependentsOnAll;
         this.fullRebuildCause = fullRebuildCause;
     }
 
+    private int[] toIds(Collection<String> names) {
+        int[] ids = new int[names.size()];
+        int index = 0;
+        for (String name : names) {
+            ids[index++] = classIndex.indexOf(name);
+        }
+        return ids;
+    }
+
+    private static int[] flatten(int[][] values, int[] offsets) {
+        int size = 0;
+        for (int id = 0; id < values.length; id++) {
+            offsets[id] = size;
+            size += values[id] == null ? 0 : values[id].length;
+        }
+        offsets[values.length] = size;
+        int[] result = new int[size];
+        for (int id = 0; id < values.length; id++) {
+            if (values[id] != null) {
+                System.arraycopy(values[id], 0, result, offsets[id], values[id].length);
+            }
+        }
+        return result;
+    }
+
     public String getClassNameForFile(String filePath) {
-        return filePathToClassName.get(filePath);
+        int index = fileIndex.indexOf(filePath);
+        return index < 0 ? null : classNames[fileClassIds[index]];
     }
 
     public DependentsSet getDependents(String className) {
         if (fullRebuildCause != null) {
             return DependentsSet.dependencyToAll(fullRebuildCause);
         }
-        DependentsSet dependentsSet = dependents.get(className);
-        return dependentsSet == null ? DependentsSet.empty(): dependentsSet;
+        int id = classIndex.indexOf(className);
+        if (id < 0) {
+            return DependentsSet.empty();
+        }
+        int allIndex = Arrays.binarySearch(dependencyToAllIds, id);
+        if (allIndex >= 0) {
+            String description = dependencyToAllDescriptions[allIndex];
+            return description == null ? DependentsSet.dependencyToAll() : DependentsSet.dependencyToAll(description);
+        }
+        return DependentsSet.dependents(toNames(dependents, dependentsOffsets[id], dependentsOffsets[id + 1]));
     }
 
     public DependentsSet getDependentsOnAll() {
@@ -71,111 +238,258 @@ public class ClassSetAnalysisData {
     }
 
     public IntSet getConstants(String className) {
-        IntSet integers = classesToConstants.get(className);
-        if (integers == null) {
+        int id = classIndex.indexOf(className);
+        if (id < 0 || constantsOffsets[id] == constantsOffsets[id + 1]) {
             return IntSets.EMPTY_SET;
         }
-        return integers;
+        IntSet result = new IntOpenHashSet(constantsOffsets[id + 1] - constantsOffsets[id]);
+        for (int i = constantsOffsets[id]; i < constantsOffsets[id + 1]; i++) {
+            result.add(constants[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ABI hashes of the given top level class and of its nested classes, as compiled to the output or found in the class directories
+     * of the classpath. Returns an empty map when the class is not known.
+     */
+    public Map<String, HashCode> getAbiHashes(String topLevelClassName) {
+        Map<String, HashCode> result = new HashMap<String, HashCode>();
+        // Nested classes sort directly after their top level class, as '$' sorts before the other characters of a class name
+        int id = Arrays.binarySearch(classNames, topLevelClassName);
+        if (id < 0) {
+            id = -id - 1;
+        } else {
+            addAbiHash(id, result);
+            id++;
+        }
+        String nestedPrefix = topLevelClassName + "$";
+        for (; id < classNames.length && classNames[id].startsWith(nestedPrefix); id++) {
+            addAbiHash(id, result);
+        }
+        return result;
+    }
+
+    private void addAbiHash(int id, Map<String, HashCode> result) {
+        if (abiHashOffsets[id] < abiHashOffsets[id + 1]) {
+            result.put(classNames[id], HashCode.fromBytes(Arrays.copyOfRange(abiHashes, abiHashOffsets[id], abiHashOffsets[id + 1])));
+        }
+    }
+
+    /**
+     * Returns the path relative to its source root of the source file the given class was compiled from, or null when it is not known.
+     */
+    @Nullable
+    public String getRelativeSourcePath(String className) {
+        int id = classIndex.indexOf(className);
+        int index = id < 0 ? -1 : Arrays.binarySearch(sourcePathClassIds, id);
+        return index < 0 ? null : sourcePaths[sourcePathIds[index]];
+    }
+
+    /**
+     * Returns the names of the classes compiled from the source file with the given path relative to its source root.
+     */
+    public Set<String> getClassNamesForSourcePath(String relativeSourcePath) {
+        int sourcePathId = Arrays.binarySearch(sourcePaths, relativeSourcePath);
+        if (sourcePathId < 0) {
+            return ImmutableSet.of();
+        }
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (int i = 0; i < sourcePathIds.length; i++) {
+            if (sourcePathIds[i] == sourcePathId) {
+                builder.add(classNames[sourcePathClassIds[i]]);
+            }
+        }
+        return builder.build();
     }
 
     public Set<String> getChildren(String className) {
-        Set<String> children = classesToChildren.get(className);
-        return children == null ? Collections.<String>emptySet() : children;
+        int id = classIndex.indexOf(className);
+        if (id < 0) {
+            return ImmutableSet.of();
+        }
+        return toNames(children, childrenOffsets[id], childrenOffsets[id + 1]);
+    }
+
+    private Set<String> toNames(int[] ids, int start, int end) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (int i = start; i < end; i++) {
+            builder.add(classNames[ids[i]]);
+        }
+        return builder.build();
+    }
+
+    // Queries by position in the class name table, used to walk the dependents without creating sets of names
+
+    int getClassId(String className) {
+        return classIndex.indexOf(className);
+    }
+
+    String getClassName(int id) {
+        return classNames[id];
+    }
+
+    boolean isDependencyToAll(int id) {
+        return fullRebuildCause != null || Arrays.binarySearch(dependencyToAllIds, id) >= 0;
+    }
+
+    int[] getDependentIds(int id) {
+        return slice(dependents, dependentsOffsets, id);
+    }
+
+    int[] getChildIds(int id) {
+        return slice(children, childrenOffsets, id);
+    }
+
+    private static int[] slice(int[] values, int[] offsets, int id) {
+        if (offsets[id] == offsets[id + 1]) {
+            return NO_IDS;
+        }
+        return Arrays.copyOfRange(values, offsets[id], offsets[id + 1]);
     }
 
     public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            // Class names are de-duplicated when encoded
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
-
             int count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, String> filePathToClassNameBuilder = ImmutableMap.builder();
+            String[] classNames = new String[count];
             for (int i = 0; i < count; i++) {
-                String filePath = decoder.readString();
-                String className = readClassName(decoder, classNameMap);
-                filePathToClassNameBuilder.put(filePath, className);
+                classNames[i] = decoder.readString();
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                DependentsSet dependents = readDependentsSet(decoder, classNameMap);
-                dependentsBuilder.put(className, dependents);
+            int fileCount = decoder.readSmallInt();
+            String[] filePaths = new String[fileCount];
+            int[] fileClassIds = new int[fileCount];
+            for (int i = 0; i < fileCount; i++) {
+                filePaths[i] = decoder.readString();
+                fileClassIds[i] = decoder.readSmallInt();
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, IntSet> classesToConstantsBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                IntSet constants = IntSetSerializer.INSTANCE.read(decoder);
-                classesToConstantsBuilder.put(className, constants);
+            int[] dependentsOffsets = readOffsets(decoder, count);
+            int[] dependents = readIds(decoder, dependentsOffsets[count]);
+
+            int dependencyToAllCount = decoder.readSmallInt();
+            int[] dependencyToAllIds = new int[dependencyToAllCount];
+            String[] dependencyToAllDescriptions = new String[dependencyToAllCount];
+            for (int i = 0; i < dependencyToAllCount; i++) {
+                dependencyToAllIds[i] = decoder.readSmallInt();
+                dependencyToAllDescriptions[i] = decoder.readNullableString();
             }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, Set<String>> classNameToChildren = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String parent = readClassName(decoder, classNameMap);
-                int nameCount = decoder.readSmallInt();
-                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
-                for (int j = 0; j < nameCount; j++) {
-                    namesBuilder.add(readClassName(decoder, classNameMap));
-                }
-                classNameToChildren.put(parent, namesBuilder.build());
+            int[] constantsOffsets = readOffsets(decoder, count);
+            int[] constants = new int[constantsOffsets[count]];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = decoder.readInt();
             }
 
-            DependentsSet aggregatedTypes = readDependentsSet(decoder, classNameMap);
+            int[] childrenOffsets = readOffsets(decoder, count);
+            int[] children = readIds(decoder, childrenOffsets[count]);
 
-            DependentsSet dependentsOnAll = readDependentsSet(decoder, classNameMap);
+            int[] abiHashOffsets = readOffsets(decoder, count);
+            byte[] abiHashes = new byte[abiHashOffsets[count]];
+            decoder.readBytes(abiHashes);
+
+            int sourcePathCount = decoder.readSmallInt();
+            String[] sourcePaths = new String[sourcePathCount];
+            for (int i = 0; i < sourcePathCount; i++) {
+                sourcePaths[i] = decoder.readString();
+            }
+            int sourcePathClassCount = decoder.readSmallInt();
+            int[] sourcePathClassIds = new int[sourcePathClassCount];
+            int[] sourcePathIds = new int[sourcePathClassCount];
+            for (int i = 0; i < sourcePathClassCount; i++) {
+                sourcePathClassIds[i] = decoder.readSmallInt();
+                sourcePathIds[i] = decoder.readSmallInt();
+            }
 
+            DependentsSet aggregatedTypes = readDependentsSet(decoder);
+            DependentsSet dependentsOnAll = readDependentsSet(decoder);
             String fullRebuildCause = decoder.readNullableString();
 
-            return new ClassSetAnalysisData(filePathToClassNameBuilder.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), classNameToChildren.build(), aggregatedTypes, dependentsOnAll, fullRebuildCause);
+            return new ClassSetAnalysisData(classNames, filePaths, fileClassIds, dependentsOffsets, dependents, dependencyToAllIds, dependencyToAllDescriptions,
+                constantsOffsets, constants, childrenOffsets, children, abiHashOffsets, abiHashes, sourcePaths, sourcePathClassIds, sourcePathIds, aggregatedTypes, dependentsOnAll, fullRebuildCause);
         }
 
         @Override
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            // Deduplicate class names when encoding.
-            // This would be more efficient with a better data structure in ClassSetAnalysisData
-            Map<String, Integer> classNameMap = new HashMap<String, Integer>();
-
-            encoder.writeSmallInt(value.filePathToClassName.size());
-            for (Map.Entry<String, String> entry : value.filePathToClassName.entrySet()) {
-                encoder.writeString(entry.getKey());
-                writeClassName(entry.getValue(), classNameMap, encoder);
+            encoder.writeSmallInt(value.classNames.length);
+            for (String className : value.classNames) {
+                encoder.writeString(className);
             }
 
-            encoder.writeSmallInt(value.dependents.size());
-            for (Map.Entry<String, DependentsSet> entry : value.dependents.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                writeDependentSet(entry.getValue(), classNameMap, encoder);
+            encoder.writeSmallInt(value.filePaths.length);
+            for (int i = 0; i < value.filePaths.length; i++) {
+                encoder.writeString(value.filePaths[i]);
+                encoder.writeSmallInt(value.fileClassIds[i]);
             }
 
-            encoder.writeSmallInt(value.classesToConstants.size());
-            for (Map.Entry<String, IntSet> entry : value.classesToConstants.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                IntSetSerializer.INSTANCE.write(encoder, entry.getValue());
+            writeOffsets(encoder, value.dependentsOffsets);
+            writeIds(encoder, value.dependents);
+
+            encoder.writeSmallInt(value.dependencyToAllIds.length);
+            for (int i = 0; i < value.dependencyToAllIds.length; i++) {
+                encoder.writeSmallInt(value.dependencyToAllIds[i]);
+                encoder.writeNullableString(value.dependencyToAllDescriptions[i]);
             }
 
-            encoder.writeSmallInt(value.classesToChildren.size());
-            for (Map.Entry<String, Set<String>> entry : value.classesToChildren.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                encoder.writeSmallInt(entry.getValue().size());
-                for (String className : entry.getValue()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
+            writeOffsets(encoder, value.constantsOffsets);
+            for (int constant : value.constants) {
+                encoder.writeInt(constant);
             }
 
-            writeDependentSet(value.aggregatedTypes, classNameMap, encoder);
+            writeOffsets(encoder, value.childrenOffsets);
+            writeIds(encoder, value.children);
+
+            writeOffsets(encoder, value.abiHashOffsets);
+            encoder.writeBytes(value.abiHashes);
 
-            writeDependentSet(value.dependentsOnAll, classNameMap, encoder);
+            encoder.writeSmallInt(value.sourcePaths.length);
+            for (String sourcePath : value.sourcePaths) {
+                encoder.writeString(sourcePath);
+            }
+            encoder.writeSmallInt(value.sourcePathClassIds.length);
+            for (int i = 0; i < value.sourcePathClassIds.length; i++) {
+                encoder.writeSmallInt(value.sourcePathClassIds[i]);
+                encoder.writeSmallInt(value.sourcePathIds[i]);
+            }
 
+            writeDependentsSet(value.aggregatedTypes, encoder);
+            writeDependentsSet(value.dependentsOnAll, encoder);
             encoder.writeNullableString(value.fullRebuildCause);
         }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
+        // Offsets are written as the number of entries of each class, which are mostly small
+
+        private static int[] readOffsets(Decoder decoder, int count) throws IOException {
+            int[] offsets = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                offsets[i + 1] = offsets[i] + decoder.readSmallInt();
+            }
+            return offsets;
+        }
+
+        private static void writeOffsets(Encoder encoder, int[] offsets) throws IOException {
+            for (int i = 0; i < offsets.length - 1; i++) {
+                encoder.writeSmallInt(offsets[i + 1] - offsets[i]);
+            }
+        }
+
+        private static int[] readIds(Decoder decoder, int count) throws IOException {
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = decoder.readSmallInt();
+            }
+            return ids;
+        }
+
+        private static void writeIds(Encoder encoder, int[] ids) throws IOException {
+            for (int id : ids) {
+                encoder.writeSmallInt(id);
+            }
+        }
+
+        private static DependentsSet readDependentsSet(Decoder decoder) throws IOException {
             byte b = decoder.readByte();
             if (b == 1) {
                 return DependentsSet.dependencyToAll(decoder.readNullableString());
@@ -183,12 +497,12 @@ public class ClassSetAnalysisData {
             int count = decoder.readSmallInt();
             ImmutableSet.Builder<String> builder = ImmutableSet.builder();
             for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
+                builder.add(decoder.readString());
             }
             return DependentsSet.dependents(builder.build());
         }
 
-        private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
+        private static void writeDependentsSet(DependentsSet dependentsSet, Encoder encoder) throws IOException {
             if (dependentsSet.isDependencyToAll()) {
                 encoder.writeByte((byte) 1);
                 encoder.writeNullableString(dependentsSet.getDescription());
@@ -196,33 +510,9 @@ public class ClassSetAnalysisData {
                 encoder.writeByte((byte) 2);
                 encoder.writeSmallInt(dependentsSet.getDependentClasses().size());
                 for (String className : dependentsSet.getDependentClasses()) {
-                    writeClassName(className, classNameMap, encoder);
+                    encoder.writeString(className);
                 }
             }
         }
-
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            int id = decoder.readSmallInt();
-            if (id == 0) {
-                id = decoder.readSmallInt();
-                String className = decoder.readString();
-                classNameMap.put(id, className);
-                return className;
-            }
-            return classNameMap.get(id);
-        }
-
-        private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
-            Integer id = classIdMap.get(className);
-            if (id == null) {
-                id = classIdMap.size() + 1;
-                classIdMap.put(className, id);
-                encoder.writeSmallInt(0);
-                encoder.writeSmallInt(id);
-                encoder.writeString(className);
-            } else {
-                encoder.writeSmallInt(id);
-            }
-        }
     }
 }
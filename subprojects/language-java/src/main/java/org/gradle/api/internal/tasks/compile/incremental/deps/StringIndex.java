@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.deps;
+
+/**
+ * Finds the position of a string in an array of distinct strings, using an open addressing hash table of positions instead of a map of boxed integers.
+ */
+class StringIndex {
+    private final String[] values;
+    private final int[] table;
+    private final int mask;
+
+    StringIndex(String[] values) {
+        this.values = values;
+        int capacity = Integer.highestOneBit(Math.max(values.length, 1) * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < values.length; i++) {
+            int slot = slot(values[i]);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Returns the position of the given string, or -1 when it is not present.
+     */
+    int indexOf(String value) {
+        int slot = slot(value);
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (values[entry - 1].equals(value)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(String value) {
+        int hash = value.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
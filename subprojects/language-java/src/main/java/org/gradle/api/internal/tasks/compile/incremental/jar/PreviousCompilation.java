@@ -21,7 +21,9 @@ import it.unimi.dsi.fastutil.ints.IntSet;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
 import org.gradle.api.internal.tasks.compile.incremental.processing.AnnotationProcessorPathStore;
+import org.gradle.internal.hash.HashCode;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Collections;
 import java.util.List;
@@ -65,6 +67,23 @@ public class PreviousCompilation {
         return analysis.getRelevantDependents(className, constants);
     }
 
+    public DependentsSet getDirectDependents(Iterable<String> classes) {
+        return analysis.getDirectDependents(classes);
+    }
+
+    public Map<String, HashCode> getAbiHashes(String topLevelClassName) {
+        return analysis.getData().getAbiHashes(topLevelClassName);
+    }
+
+    @Nullable
+    public String getRelativeSourcePath(String className) {
+        return analysis.getData().getRelativeSourcePath(className);
+    }
+
+    public Set<String> getClassNamesForSourcePath(String relativeSourcePath) {
+        return analysis.getData().getClassNamesForSourcePath(relativeSourcePath);
+    }
+
     public DependentsSet getAggregatedTypes() {
         return analysis.getAggregatedTypes();
     }
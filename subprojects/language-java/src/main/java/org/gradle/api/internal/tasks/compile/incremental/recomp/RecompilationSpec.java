@@ -24,6 +24,7 @@ public class RecompilationSpec {
 
     private final Collection<String> classesToCompile = new NormalizingClassNamesSet();
     private final Collection<String> classesToProcess = new NormalizingClassNamesSet();
+    private final Collection<String> classesWithAbiDependents = new NormalizingClassNamesSet();
     private String fullRebuildCause;
 
     public Collection<String> getClassesToCompile() {
@@ -34,6 +35,13 @@ public class RecompilationSpec {
         return classesToProcess;
     }
 
+    /**
+     * The classes whose dependents need to be recompiled only if the ABI of the class changes, which is known once it has been recompiled.
+     */
+    public Collection<String> getClassesWithAbiDependents() {
+        return classesWithAbiDependents;
+    }
+
     public boolean isBuildNeeded() {
         return isFullRebuildNeeded() || !classesToCompile.isEmpty() || !classesToProcess.isEmpty();
     }
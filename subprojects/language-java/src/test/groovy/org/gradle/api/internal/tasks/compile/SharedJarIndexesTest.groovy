@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaFileObject
+import javax.tools.StandardLocation
+
+import static org.gradle.util.TestPrecondition.JDK
+
+class SharedJarIndexesTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def indexes = new SharedJarIndexes(TestFiles.fileHasher())
+
+    def "indexes entries by package"() {
+        def jar = jar("lib.jar", "a/b/C.class", "a/D.class", "E.class", "META-INF/MANIFEST.MF")
+
+        when:
+        def open = indexes.open(jar)
+
+        then:
+        open.index.getEntries("a.b") == ["a/b/C.class"]
+        open.index.getEntries("a") == ["a/D.class"]
+        open.index.getEntries("") == ["E.class"]
+        open.index.getEntries("META-INF").empty
+        open.index.contains("a/b/C.class")
+        !open.index.contains("a/b/D.class")
+
+        cleanup:
+        open?.close()
+    }
+
+    def "shares the index of jars with the same content"() {
+        def jar1 = jar("lib1.jar", "a/B.class")
+        def jar2 = tmpDir.file("lib2.jar")
+        jar2.bytes = jar1.bytes
+
+        when:
+        def open1 = indexes.open(jar1)
+        def open2 = indexes.open(jar2)
+
+        then:
+        open1.index.is(open2.index)
+
+        cleanup:
+        open1?.close()
+        open2?.close()
+    }
+
+    def "indexes a jar again when it changes"() {
+        def jar = jar("lib.jar", "a/B.class")
+        def open = indexes.open(jar)
+        def original = open.index
+        open.close()
+
+        when:
+        jar("lib.jar", "a/B.class", "a/C.class").makeOlder()
+        open = indexes.open(jar)
+
+        then:
+        !open.index.is(original)
+        open.index.getEntries("a") as Set == ["a/B.class", "a/C.class"] as Set
+
+        cleanup:
+        open?.close()
+    }
+
+    def "reuses the index when a jar is opened again"() {
+        def jar = jar("lib.jar", "a/B.class")
+        def open = indexes.open(jar)
+        def original = open.index
+        open.close()
+
+        when:
+        open = indexes.open(jar)
+
+        then:
+        open.index.is(original)
+        open.openEntry("a/B.class").text == "a/B.class"
+
+        cleanup:
+        open?.close()
+    }
+
+    @Requires(JDK)
+    def "compiles against classes listed from the shared indexes"() {
+        def compiler = JdkTools.current().systemJavaCompiler
+        def libSource = tmpDir.file("lib-src/lib/Lib.java") << "package lib; public class Lib { public static int value() { return 1; } }"
+        def libClasses = tmpDir.createDir("lib-classes")
+        assert compiler.getTask(null, null, null, ["-d", libClasses.path], null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(libSource)).call()
+        def jar = tmpDir.file("lib.jar")
+        libClasses.zipTo(jar)
+        def dirSource = tmpDir.file("dir-src/dir/Dir.java") << "package dir; public class Dir { }"
+        def dirClasses = tmpDir.createDir("dir-classes")
+        assert compiler.getTask(null, null, null, ["-d", dirClasses.path], null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(dirSource)).call()
+        def source = tmpDir.file("src/Use.java") << "class Use { int value = lib.Lib.value(); dir.Dir dir; }"
+        def classes = tmpDir.createDir("classes")
+
+        def standardFileManager = compiler.getStandardFileManager(null, null, null)
+        def fileManager = new SharedClasspathFileManager(standardFileManager, [jar, dirClasses], indexes)
+
+        when:
+        def success = compiler.getTask(null, fileManager, null, ["-d", classes.path], null, standardFileManager.getJavaFileObjects(source)).call()
+
+        then:
+        success
+        classes.file("Use.class").file
+        fileManager.list(StandardLocation.CLASS_PATH, "lib", [JavaFileObject.Kind.CLASS] as Set, false).collect { fileManager.inferBinaryName(StandardLocation.CLASS_PATH, it) } == ["lib.Lib"]
+
+        cleanup:
+        fileManager?.close()
+    }
+
+    private TestFile jar(String name, String... entries) {
+        def contents = tmpDir.file("${name}-contents")
+        contents.deleteDir()
+        entries.each { contents.file(it).text = it }
+        def jar = tmpDir.file(name)
+        contents.zipTo(jar)
+        jar
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.internal.file.FileOperations
+import org.gradle.api.tasks.util.PatternSet
+import spock.lang.Specification
+import spock.lang.Subject
+
+class GroovyCompilationInitializerTest extends Specification {
+
+    def fileOperations = Mock(FileOperations)
+    def sourceToNameConverter = Stub(GroovySourceToNameConverter) {
+        getRelativeSourcePaths("com.Foo") >> ["com/Foo.groovy"]
+        getRelativeSourcePaths("com.Bar") >> ["com/Foo.groovy"]
+        getClassNames("com/Foo.groovy") >> ["com.Foo", "com.Bar"]
+    }
+    @Subject
+        initializer = new GroovyCompilationInitializer(fileOperations, sourceToNameConverter)
+
+    def "recompiles whole source files of stale classes"() {
+        PatternSet filesToDelete = Mock(PatternSet)
+        PatternSet sourceToCompile = Mock(PatternSet)
+
+        when:
+        initializer.preparePatterns(["com.Bar"], filesToDelete, sourceToCompile)
+
+        then:
+        1 * filesToDelete.include('com/Foo.class')
+        1 * filesToDelete.include('com/Foo.java')
+        1 * filesToDelete.include('com/Foo$*.class')
+        1 * filesToDelete.include('com/Foo$*.java')
+        1 * filesToDelete.include('com/Bar.class')
+        1 * filesToDelete.include('com/Bar.java')
+        1 * filesToDelete.include('com/Bar$*.class')
+        1 * filesToDelete.include('com/Bar$*.java')
+
+        1 * sourceToCompile.include('com/Foo.groovy')
+
+        0 * _
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+class GroovySourceToNameConverterTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+    def srcDirs = Stub(CompilationSourceDirs) {
+        getSourceRoots() >> [temp.file("src/main/groovy"), temp.file("src/main/java")]
+    }
+    @Subject converter = new GroovySourceToNameConverter(srcDirs)
+
+    def "knows classes compiled from source file in previous compilation"() {
+        previousCompilation("org.bar.Bar": "org/bar/Bar.groovy", "org.bar.Baz": "org/bar/Bar.groovy", "org.bar.Bar\$Inner": "org/bar/Bar.groovy", "Foo": "Foo.java")
+
+        expect:
+        converter.getClassNames(temp.file("src/main/groovy/org/bar/Bar.groovy")) as Set == ["org.bar.Bar", "org.bar.Baz", "org.bar.Bar\$Inner"] as Set
+        converter.getClassNames(temp.file("src/main/java/Foo.java")) as List == ["Foo"]
+        converter.getClassNames("org/bar/Bar.groovy") as Set == ["org.bar.Bar", "org.bar.Baz", "org.bar.Bar\$Inner"] as Set
+    }
+
+    def "assumes classes are named after source file when not compiled before"() {
+        previousCompilation([:])
+
+        expect:
+        converter.getClassNames(temp.file("src/main/groovy/org/bar/New.groovy")) as List == ["org.bar.New"]
+        converter.getClassName(temp.file("src/main/groovy/org/bar/New.groovy")) == "org.bar.New"
+
+        when: converter.getClassNames(temp.file("src/main/unknown/Xxx.groovy"))
+        then: thrown(IllegalArgumentException)
+    }
+
+    def "knows source file of class"() {
+        previousCompilation("org.bar.Baz": "org/bar/Bar.groovy")
+
+        expect:
+        converter.getRelativeSourcePaths("org.bar.Baz") as List == ["org/bar/Bar.groovy"]
+        converter.getRelativeSourcePaths("org.bar.Unknown") as List == ["org/bar/Unknown.groovy", "org/bar/Unknown.java"]
+    }
+
+    private void previousCompilation(Map<String, String> classesToSourcePaths) {
+        def data = new ClassSetAnalysisData([:], [:], [:], [:], classesToSourcePaths, [:], DependentsSet.empty(), DependentsSet.empty(), null)
+        converter.previousCompilation = new PreviousCompilation(new ClassSetAnalysis(data), null, null, null)
+    }
+}
@@ -50,6 +50,12 @@ class DefaultClassDependenciesAnalyzerTest extends Specification {
         analyze(HasInnerClass.InnerThing).className == HasInnerClass.InnerThing.name
     }
 
+    def "computes the hash of the ABI only when ABI aware"() {
+        expect:
+        analyze(SomeOtherClass).abiHash == null
+        new DefaultClassDependenciesAnalyzer(true).getClassAnalysis(classStream(SomeOtherClass)).abiHash != null
+    }
+
     def "knows dependencies of a java class"() {
         expect:
         analyze(SomeOtherClass).classDependencies == [YetAnotherClass.name, SomeClass.name] as Set
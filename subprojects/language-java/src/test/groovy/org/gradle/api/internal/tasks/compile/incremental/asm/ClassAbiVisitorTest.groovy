@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.asm
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+class ClassAbiVisitorTest extends Specification {
+
+    def "hash does not depend on method bodies, private and synthetic members or member order"() {
+        def original = hash(classWithMembers(1, ['foo', 'bar']))
+
+        expect:
+        hash(classWithMembers(2, ['foo', 'bar'])) == original
+        hash(classWithMembers(1, ['bar', 'foo'])) == original
+        hash(classWithMembers(1, ['foo', 'bar'], { it.visitMethod(Opcodes.ACC_PRIVATE, "helper", "()V", null, null) })) == original
+        hash(classWithMembers(1, ['foo', 'bar'], { it.visitField(Opcodes.ACC_PRIVATE, "state", "I", null, null) })) == original
+        hash(classWithMembers(1, ['foo', 'bar'], { it.visitMethod(Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, 'access$000', "()V", null, null) })) == original
+    }
+
+    def "hash changes when visible members change"() {
+        def original = hash(classWithMembers(1, ['foo', 'bar']))
+
+        expect:
+        hash(classWithMembers(1, ['foo'])) != original
+        hash(classWithMembers(1, ['foo', 'bar'], { it.visitMethod(0, "packagePrivate", "()V", null, null) })) != original
+        hash(classWithMembers(1, ['foo', 'bar'], { it.visitField(Opcodes.ACC_PROTECTED, "state", "I", null, null) })) != original
+        hash(classWithMembers(1, ['foo', 'bar'], { it.visitAnnotation("Ljava/lang/Deprecated;", true) })) != original
+    }
+
+    private static byte[] classWithMembers(int returnValue, List<String> methods, Closure extra = {}) {
+        def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, "org/foo/Foo", null, "java/lang/Object", null)
+        methods.each { name ->
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, name, "()I", null, null)
+            method.visitCode()
+            method.visitLdcInsn(returnValue)
+            method.visitInsn(Opcodes.IRETURN)
+            method.visitMaxs(0, 0)
+            method.visitEnd()
+        }
+        extra(writer)
+        writer.visitEnd()
+        writer.toByteArray()
+    }
+
+    private static hash(byte[] bytes) {
+        ClassAbiVisitor.hash(new ClassReader(bytes))
+    }
+}
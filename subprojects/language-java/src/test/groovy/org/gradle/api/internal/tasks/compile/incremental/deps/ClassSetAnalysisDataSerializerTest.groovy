@@ -19,6 +19,7 @@ package org.gradle.api.internal.tasks.compile.incremental.deps
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet
 import it.unimi.dsi.fastutil.ints.IntSet
 import it.unimi.dsi.fastutil.ints.IntSets
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.serialize.InputStreamBackedDecoder
 import org.gradle.internal.serialize.OutputStreamBackedEncoder
 import spock.lang.Specification
@@ -35,8 +36,9 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         def data = new ClassSetAnalysisData(
             ["A.class": "A", "B.class": "B"],
             ["A": dependents("B", "C"), "B": dependents("C"), "C": dependents(), "D": dependencyToAll(),],
-            [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET]
-            ,
+            [C: new IntOpenHashSet([1, 2]) as IntSet, D: IntSets.EMPTY_SET],
+            [A: HashCode.fromInt(1), 'A$B': HashCode.fromInt(2)],
+            [A: "A.groovy", 'A$B': "A.groovy", B: "p/Other.groovy"],
             ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set], dependents("Aggregated"), dependents("Aggregate"), "Because"
         )
         def os = new ByteArrayOutputStream()
@@ -47,21 +49,48 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
-
-        ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
-        }
-
-        read.dependents["D"].dependencyToAll
+        read.getDependents("A").dependencyToAll
+        read.getDependents("A").description == "Because"
         read.dependentsOnAll.dependentClasses == ["Aggregate"] as Set
         !read.dependentsOnAll.dependencyToAll
         read.aggregatedTypes.dependentClasses == ["Aggregated"] as Set
         !read.aggregatedTypes.dependencyToAll
-        read.filePathToClassName == ["A.class": "A", "B.class": "B"]
-        read.classesToConstants == [C: [1,2] as Set, D: [] as Set]
-        read.classesToChildren == ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set]
-        read.fullRebuildCause == "Because"
+        read.getClassNameForFile("A.class") == "A"
+        read.getClassNameForFile("B.class") == "B"
+        read.getClassNameForFile("C.class") == null
+        read.getConstants("C") == [1, 2] as Set
+        read.getConstants("D").empty
+        read.getConstants("A").empty
+        read.getAbiHashes("A") == [A: HashCode.fromInt(1), 'A$B': HashCode.fromInt(2)]
+        read.getAbiHashes("B").isEmpty()
+        read.getChildren("A") == ['SA'] as Set
+        read.getChildren("B") == ['SB1', 'SB2'] as Set
+        read.getChildren("C").empty
+        read.getRelativeSourcePath('A$B') == "A.groovy"
+        read.getRelativeSourcePath("C") == null
+        read.getClassNamesForSourcePath("A.groovy") == ["A", 'A$B'] as Set
+        read.getClassNamesForSourcePath("p/Other.groovy") == ["B"] as Set
+        read.getClassNamesForSourcePath("Unknown.groovy").empty
+    }
+
+    def "reads dependents when no full rebuild is required"() {
+        def data = new ClassSetAnalysisData(
+            ["A.class": "A"],
+            ["A": dependents("B", "C"), "B": dependents("C"), "D": dependencyToAll("D is special")],
+            [:], [:], [:], [:], dependents(), dependents(), null
+        )
+        def os = new ByteArrayOutputStream()
+        serializer.write(new OutputStreamBackedEncoder(os), data)
+
+        when:
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.getDependents("A").dependentClasses == ["B", "C"] as Set
+        read.getDependents("B").dependentClasses == ["C"] as Set
+        read.getDependents("C").dependentClasses.empty
+        read.getDependents("X").dependentClasses.empty
+        read.getDependents("D").dependencyToAll
+        read.getDependents("D").description == "D is special"
     }
 }
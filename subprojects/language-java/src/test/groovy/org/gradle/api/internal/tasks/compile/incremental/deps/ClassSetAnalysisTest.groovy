@@ -27,7 +27,7 @@ class ClassSetAnalysisTest extends Specification {
     ClassSetAnalysis analysis(Map<String, DependentsSet> dependents,
                               Map<String, IntSet> classToConstants = [:],
                               Map<String, Set<String>> classesToChildren = [:], DependentsSet aggregatedTypes = empty(), DependentsSet dependentsOnAll = empty(), String fullRebuildCause = null) {
-        new ClassSetAnalysis(new ClassSetAnalysisData([:], dependents, classToConstants, classesToChildren, aggregatedTypes, dependentsOnAll, fullRebuildCause))
+        new ClassSetAnalysis(new ClassSetAnalysisData([:], dependents, classToConstants, [:], [:], classesToChildren, aggregatedTypes, dependentsOnAll, fullRebuildCause))
     }
 
     def "returns empty analysis"() {
@@ -203,4 +203,28 @@ class ClassSetAnalysisTest extends Specification {
     private static DependentsSet dependentSet(boolean dependencyToAll, Collection<String> dependentClasses) {
         dependencyToAll ? DependentsSet.dependencyToAll() : dependents(dependentClasses as Set)
     }
+
+    def "finds direct dependents of classes and of their subtypes"() {
+        def a = analysis([
+            "Foo": dependents("Bar"),
+            "Bar": dependents("Baz"),
+            "SubFoo": dependents("UsesSubFoo"),
+            "Baz": dependents()
+        ], [:], ["Foo": ["SubFoo"] as Set], empty(), dependents("Aggregate"))
+
+        expect:
+        a.getDirectDependents(["Foo"]).dependentClasses == ["Bar", "UsesSubFoo", "Aggregate"] as Set
+        a.getDirectDependents(["Baz"]).dependentClasses == ["Aggregate"] as Set
+        a.getDirectDependents([]).dependentClasses.isEmpty()
+    }
+
+    def "direct dependents are a dependency to all if one of the classes is"() {
+        def a = analysis([
+            "Foo": dependents("Bar"),
+            "Bar": dependencyToAll()
+        ])
+
+        expect:
+        a.getDirectDependents(["Foo", "Bar"]).dependencyToAll
+    }
 }
@@ -55,7 +55,7 @@ class CompilationResultAnalyzerTest extends Specification {
         def classNames = ["A"] as Set
         def constants = new IntOpenHashSet(1)
         def superTypes = ['B', 'C'] as Set
-        def analysis = new ClassAnalysis("org.foo.Foo", classNames, true, constants, superTypes)
+        def analysis = new ClassAnalysis("org.foo.Foo", classNames, true, constants, superTypes, HashCode.fromInt(123))
 
         when:
         analyzer.visitFile(details)
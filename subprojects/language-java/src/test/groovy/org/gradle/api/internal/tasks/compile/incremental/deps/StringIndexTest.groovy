@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.deps
+
+import spock.lang.Specification
+
+class StringIndexTest extends Specification {
+
+    def "finds position of each value"() {
+        def values = (0..<1000).collect { "org.gradle.Class$it".toString() } as String[]
+        def index = new StringIndex(values)
+
+        expect:
+        (0..<1000).every { index.indexOf(values[it]) == it }
+        index.indexOf("org.gradle.Missing") == -1
+    }
+
+    def "handles empty and single values"() {
+        expect:
+        new StringIndex(new String[0]).indexOf("A") == -1
+        new StringIndex(["A"] as String[]).indexOf("A") == 0
+        new StringIndex(["A"] as String[]).indexOf("B") == -1
+    }
+}
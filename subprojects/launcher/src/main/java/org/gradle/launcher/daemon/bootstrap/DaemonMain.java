@@ -36,6 +36,7 @@ import org.gradle.launcher.daemon.configuration.DefaultDaemonServerConfiguration
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
 import org.gradle.launcher.daemon.server.Daemon;
+import org.gradle.launcher.daemon.server.DaemonIdleCacheCompaction;
 import org.gradle.launcher.daemon.server.DaemonServices;
 import org.gradle.launcher.daemon.server.MasterExpirationStrategy;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
@@ -122,14 +123,17 @@ public class DaemonMain extends EntryPoint {
 
         Daemon daemon = daemonServices.get(Daemon.class);
         daemon.start();
+        DaemonIdleCacheCompaction cacheCompaction = daemonServices.get(DaemonIdleCacheCompaction.class);
 
         try {
             DaemonContext daemonContext = daemonServices.get(DaemonContext.class);
             Long pid = daemonContext.getPid();
             daemonStarted(pid, daemon.getUid(), daemon.getAddress(), daemonLog);
+            cacheCompaction.start(parameters.getPeriodicCheckIntervalMs());
             DaemonExpirationStrategy expirationStrategy = daemonServices.get(MasterExpirationStrategy.class);
             daemon.stopOnExpiration(expirationStrategy, parameters.getPeriodicCheckIntervalMs());
         } finally {
+            cacheCompaction.stop();
             daemon.stop();
             // TODO: Stop all daemon services
             CompositeStoppable.stoppable(daemonServices.get(GradleUserHomeScopeServiceRegistry.class)).stop();
@@ -38,6 +38,7 @@ import org.gradle.launcher.daemon.bootstrap.GradleDaemon;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.process.internal.ClassDataSharingArchives;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.streams.EncodedStream;
@@ -94,10 +95,13 @@ public class DefaultDaemonStarter implements DaemonStarter {
         versionValidator.validate(daemonParameters);
 
         List<String> daemonArgs = new ArrayList<String>();
-        daemonArgs.add(daemonParameters.getEffectiveJvm().getJavaExecutable().getAbsolutePath());
+        File javaExecutable = daemonParameters.getEffectiveJvm().getJavaExecutable();
+        daemonArgs.add(javaExecutable.getAbsolutePath());
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        boolean classDataSharing = Boolean.parseBoolean(daemonParameters.getEffectiveSystemProperties().get(ClassDataSharingArchives.ENABLED_PROPERTY));
+        daemonArgs.addAll(new ClassDataSharingArchives(daemonParameters.getGradleUserHomeDir(), classDataSharing).getJvmArgs(javaExecutable, classpath.getAsFiles()));
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
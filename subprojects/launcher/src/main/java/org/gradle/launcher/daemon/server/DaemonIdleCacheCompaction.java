@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.CacheFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compacts the fragmented persistent caches of the daemon once it has been idle for a while, so that builds do not wait for this to happen.
+ */
+public class DaemonIdleCacheCompaction implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(DaemonIdleCacheCompaction.class);
+    private static final long IDLE_PERIOD_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Daemon daemon;
+    private final CacheFactory cacheFactory;
+    private final ManagedScheduledExecutor executor;
+
+    public DaemonIdleCacheCompaction(Daemon daemon, CacheFactory cacheFactory, ExecutorFactory executorFactory) {
+        this.daemon = daemon;
+        this.cacheFactory = cacheFactory;
+        this.executor = executorFactory.createScheduled("Daemon cache compaction", 1);
+    }
+
+    /**
+     * Checks whether the daemon is idle at the given interval, and compacts the caches when it is.
+     */
+    public void start(int checkIntervalMills) {
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                compactCachesWhenIdle();
+            }
+        }, checkIntervalMills, checkIntervalMills, TimeUnit.MILLISECONDS);
+    }
+
+    private void compactCachesWhenIdle() {
+        DaemonStateCoordinator stateCoordinator = daemon.getStateCoordinator();
+        if (stateCoordinator == null || stateCoordinator.getIdleMillis() < IDLE_PERIOD_MS) {
+            return;
+        }
+        try {
+            cacheFactory.compactCaches();
+        } catch (Throwable t) {
+            LOGGER.error("Problem compacting caches while the daemon is idle", t);
+            if (t instanceof Error) {
+                // never swallow java.lang.Error
+                throw (Error) t;
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        executor.stop();
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.launcher.daemon.server;
 import com.google.common.collect.ImmutableList;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.CacheFactory;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
@@ -119,6 +120,10 @@ public class DaemonServices extends DefaultServiceRegistry {
         return new MasterExpirationStrategy(daemon, configuration, healthExpirationStrategy, listenerManager);
     }
 
+    protected DaemonIdleCacheCompaction createDaemonIdleCacheCompaction(Daemon daemon, CacheFactory cacheFactory, ExecutorFactory executorFactory) {
+        return new DaemonIdleCacheCompaction(daemon, cacheFactory, executorFactory);
+    }
+
     protected HealthExpirationStrategy createHealthExpirationStrategy(DaemonMemoryStatus memoryStatus) {
         return new HealthExpirationStrategy(memoryStatus);
     }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.logging.sink;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.logging.events.EndOutputEvent;
+import org.gradle.internal.logging.events.LogEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+
+/**
+ * Measures the throughput of threads that produce log events at a high rate, with the queued and batched rendering of {@link OutputEventRenderer}
+ * and with a single lock around rendering for comparison.
+ */
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class OutputEventRendererBenchmark {
+    @Param({"queued", "locked"})
+    String pipeline;
+
+    @Param({"plain", "none"})
+    String console;
+
+    private OutputEventRenderer renderer;
+    private OutputEventListener listener;
+    private OutputEvent event;
+
+    @Setup(Level.Trial)
+    public void setupRenderer() {
+        Clock clock = Time.clock();
+        renderer = new OutputEventRenderer(clock);
+        renderer.configure(LogLevel.LIFECYCLE);
+        renderer.addStandardOutputListener(new DiscardingOutputStream());
+        renderer.addStandardErrorListener(new DiscardingOutputStream());
+        if (console.equals("plain")) {
+            renderer.addPlainConsole();
+        }
+        listener = pipeline.equals("queued") ? renderer : new LockingListener(renderer);
+        event = new LogEvent(clock.getCurrentTime(), "benchmark", LogLevel.LIFECYCLE, "A line of task output that is long enough to be realistic", null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownRenderer() {
+        renderer.onOutput(new EndOutputEvent());
+    }
+
+    @Benchmark
+    public void produceEvent() {
+        listener.onOutput(event);
+    }
+
+    private static class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    /**
+     * Serializes all producers around rendering, as when each event is rendered by the thread that produced it.
+     */
+    private static class LockingListener implements OutputEventListener {
+        private final OutputEventListener delegate;
+
+        LockingListener(OutputEventListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void onOutput(OutputEvent event) {
+            delegate.onOutput(event);
+        }
+    }
+}
@@ -20,29 +20,35 @@ import org.gradle.internal.logging.events.EndOutputEvent;
 import org.gradle.internal.logging.events.FlushOutputEvent;
 import org.gradle.internal.logging.events.OutputEvent;
 import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.logging.events.OutputEventQueue;
 import org.gradle.internal.logging.events.UpdateNowEvent;
 import org.gradle.internal.time.Clock;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Queue output events to be forwarded and schedule flush when time passed or if end of build is signalled.
+ *
+ * <p>Events are queued without locking. Only the thread that forwards the queued events holds a lock, and a thread that finds another thread
+ * forwarding events leaves its events to a scheduled flush instead of waiting.</p>
  */
 public class ThrottlingOutputEventListener implements OutputEventListener {
     private final static long UPDATE_NOW_FLUSH_INITIAL_DELAY_AND_PERIOD_MS = 100L;
+    private static final int QUEUE_CAPACITY = 4096;
     private final OutputEventListener listener;
 
     private final ScheduledExecutorService executor;
     private final Clock clock;
     private final int throttleMs;
     private final Object lock = new Object();
+    private final AtomicBoolean rendering = new AtomicBoolean();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
 
-    private long lastUpdate;
-    private final List<OutputEvent> queue = new ArrayList<OutputEvent>();
+    private volatile long lastUpdate;
+    private final OutputEventQueue queue = new OutputEventQueue(QUEUE_CAPACITY);
 
     public ThrottlingOutputEventListener(OutputEventListener listener, Clock clock) {
         this(listener, Integer.getInteger("org.gradle.console.throttle", 85), Executors.newSingleThreadScheduledExecutor(), clock);
@@ -66,37 +72,51 @@ public class ThrottlingOutputEventListener implements OutputEventListener {
     }
 
     public void onOutput(OutputEvent newEvent) {
-        synchronized (lock) {
-            queue.add(newEvent);
-
-            if (newEvent instanceof FlushOutputEvent) {
+        if (!queue.offer(newEvent)) {
+            // The listener is falling behind - wait for it
+            synchronized (lock) {
                 renderNow(clock.getCurrentTime());
-                return;
+                listener.onOutput(newEvent);
             }
+            return;
+        }
 
-            if (newEvent instanceof EndOutputEvent) {
-                // Flush and clean up
+        if (newEvent instanceof FlushOutputEvent) {
+            synchronized (lock) {
                 renderNow(clock.getCurrentTime());
-                executor.shutdown();
-                return;
             }
+            return;
+        }
 
-            if (queue.size() > 1) {
-                // Currently queuing events, a thread is scheduled to flush the queue later
-                return;
+        if (newEvent instanceof EndOutputEvent) {
+            // Flush and clean up
+            synchronized (lock) {
+                renderNow(clock.getCurrentTime());
             }
+            executor.shutdown();
+            return;
+        }
 
-            long now = clock.getCurrentTime();
-            if (now - lastUpdate >= throttleMs) {
-                // Has been long enough since last update - flush now
-                renderNow(now);
-                return;
+        long now = clock.getCurrentTime();
+        if (now - lastUpdate >= throttleMs && rendering.compareAndSet(false, true)) {
+            // Has been long enough since last update - flush now
+            try {
+                synchronized (lock) {
+                    renderNow(now);
+                }
+            } finally {
+                rendering.set(false);
             }
+            return;
+        }
 
-            // This is the first queued event - schedule a thread to flush later
+        if (flushScheduled.compareAndSet(false, true)) {
+            // No flush is scheduled for the queued events - schedule a thread to flush later
             executor.schedule(new Runnable() {
                 @Override
                 public void run() {
+                    // Clear the flag first, so that events queued while rendering schedule another flush
+                    flushScheduled.set(false);
                     synchronized (lock) {
                         renderNow(clock.getCurrentTime());
                     }
@@ -106,15 +126,8 @@ public class ThrottlingOutputEventListener implements OutputEventListener {
     }
 
     private void renderNow(long now) {
-        if (queue.isEmpty()) {
-            // Already rendered - don't update anything
-            return;
-        }
-
-        for (OutputEvent event : queue) {
-            listener.onOutput(event);
+        if (queue.drainTo(listener) > 0) {
+            lastUpdate = now;
         }
-        queue.clear();
-        lastUpdate = now;
     }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.logging.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded ring buffer of output events, which many threads can add to without locking and one thread at a time removes from.
+ *
+ * <p>A producer claims a slot by advancing the tail and then publishes its event into the slot. The consumer forwards the events in the order
+ * their slots were claimed, waiting briefly when a slot has been claimed but its event is not published yet.</p>
+ */
+public class OutputEventQueue {
+    private final AtomicReferenceArray<OutputEvent> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public OutputEventQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<OutputEvent>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds the given event to the queue. Can be called by any thread.
+     *
+     * @return false if the queue is full.
+     */
+    public boolean offer(OutputEvent event) {
+        while (true) {
+            long current = tail.get();
+            if (current - head >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(current, current + 1)) {
+                slots.lazySet(index(current), event);
+                return true;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return head == tail.get();
+    }
+
+    /**
+     * Removes the queued events and forwards them to the given listener, in order. Must not be called by multiple threads at the same time.
+     * The listener may add events to the queue, and may drain the queue again.
+     *
+     * @return the number of events forwarded.
+     */
+    public int drainTo(OutputEventListener listener) {
+        int count = 0;
+        for (long next = head; next != tail.get(); next = head) {
+            int index = index(next);
+            OutputEvent event = slots.get(index);
+            while (event == null) {
+                // The slot has been claimed, the event will be published shortly
+                Thread.yield();
+                event = slots.get(index);
+            }
+            slots.lazySet(index, null);
+            head = next + 1;
+            listener.onOutput(event);
+            count++;
+        }
+        return count;
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+}
@@ -34,24 +34,31 @@ import org.gradle.internal.time.Clock;
 import org.gradle.util.GUtil;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * An {@code org.gradle.logging.internal.OutputEventListener} implementation which generates output events to log the
  * progress of operations.
+ *
+ * <p>When {@link OperationOutputStore#DIR_PROPERTY} is set, the output of each group is also written to an {@link OperationOutputStore},
+ * and only the last lines of output of a group are held in memory until the group is flushed.</p>
  */
 public class GroupingProgressLogEventGenerator implements OutputEventListener {
 
     private static final long LONG_RUNNING_TASK_OUTPUT_FLUSH_TIMEOUT = TimeUnit.SECONDS.toMillis(2);
+    private static final int STORED_OUTPUT_TAIL_SIZE = 100;
     private final OutputEventListener listener;
     private final Clock clock;
     private final LogHeaderFormatter headerFormatter;
     private final boolean verbose;
+    private final OperationOutputStore outputStore;
+    private OperationOutputStore.Writer outputWriter;
 
     // Maintain a hierarchy of all build operation ids — heads up: this is a *forest*, not just 1 tree
     private final Map<Object, Object> buildOpIdHierarchy = new HashMap<Object, Object>();
@@ -62,10 +69,21 @@ public class GroupingProgressLogEventGenerator implements OutputEventListener {
     private boolean needHeaderSeparator;
 
     public GroupingProgressLogEventGenerator(OutputEventListener listener, Clock clock, LogHeaderFormatter headerFormatter, boolean verbose) {
+        this(listener, clock, headerFormatter, verbose, outputStoreFromProperty());
+    }
+
+    GroupingProgressLogEventGenerator(OutputEventListener listener, Clock clock, LogHeaderFormatter headerFormatter, boolean verbose, @Nullable OperationOutputStore outputStore) {
         this.listener = listener;
         this.clock = clock;
         this.headerFormatter = headerFormatter;
         this.verbose = verbose;
+        this.outputStore = outputStore;
+    }
+
+    @Nullable
+    private static OperationOutputStore outputStoreFromProperty() {
+        String dir = System.getProperty(OperationOutputStore.DIR_PROPERTY);
+        return dir == null ? null : new OperationOutputStore(new File(dir));
     }
 
     public void onOutput(OutputEvent event) {
@@ -124,6 +142,9 @@ public class GroupingProgressLogEventGenerator implements OutputEventListener {
         if (group != null) {
             group.setStatus(completeEvent.getStatus(), completeEvent.isFailed());
             group.flushOutput();
+            if (outputWriter != null) {
+                outputWriter.endOutput(group.description);
+            }
         }
     }
 
@@ -132,6 +153,10 @@ public class GroupingProgressLogEventGenerator implements OutputEventListener {
             group.flushOutput();
         }
         listener.onOutput(event);
+        if (outputWriter != null) {
+            outputWriter.close();
+            outputWriter = null;
+        }
         buildOpIdHierarchy.clear();
         operationsInProgress.clear();
         progressToBuildOpIdMap.clear();
@@ -182,7 +207,8 @@ public class GroupingProgressLogEventGenerator implements OutputEventListener {
         private boolean failed;
         private boolean headerSent;
 
-        private List<RenderableOutputEvent> bufferedLogs = new ArrayList<RenderableOutputEvent>();
+        private final Deque<RenderableOutputEvent> bufferedLogs = new ArrayDeque<RenderableOutputEvent>();
+        private int omittedLogs;
 
         private OperationGroup(String category, @Nullable String loggingHeader, String description, @Nullable String shortDescription, long startTime, OperationIdentifier buildOpIdentifier, BuildOperationCategory buildOperationCategory) {
             this.category = category;
@@ -200,6 +226,12 @@ public class GroupingProgressLogEventGenerator implements OutputEventListener {
         }
 
         private void bufferOutput(RenderableOutputEvent output) {
+            if (outputStore != null) {
+                if (outputWriter == null) {
+                    outputWriter = outputStore.writer();
+                }
+                outputWriter.onOutput(description, output);
+            }
             // Forward output immediately when the focus is on this operation group
             if (Objects.equal(buildOpIdentifier, lastRenderedBuildOpId)) {
                 listener.onOutput(output);
@@ -207,6 +239,11 @@ public class GroupingProgressLogEventGenerator implements OutputEventListener {
                 needHeaderSeparator = true;
             } else {
                 bufferedLogs.add(output);
+                if (outputStore != null && bufferedLogs.size() > STORED_OUTPUT_TAIL_SIZE) {
+                    // The output is stored, only keep its tail in memory
+                    bufferedLogs.removeFirst();
+                    omittedLogs++;
+                }
             }
         }
 
@@ -222,12 +259,16 @@ public class GroupingProgressLogEventGenerator implements OutputEventListener {
                     lastHeaderStatus = status;
                 }
 
+                if (omittedLogs > 0) {
+                    listener.onOutput(new LogEvent(lastUpdateTime, category, null, String.format("[%d earlier lines of output not shown, see %s]", omittedLogs, outputWriter.flush(description)), null, buildOpIdentifier));
+                }
                 for (RenderableOutputEvent renderableEvent : bufferedLogs) {
                     listener.onOutput(renderableEvent);
                 }
                 GroupingProgressLogEventGenerator.this.needHeaderSeparator = hasContent;
 
                 bufferedLogs.clear();
+                omittedLogs = 0;
                 lastUpdateTime = clock.getCurrentTime();
                 lastRenderedBuildOpId = buildOpIdentifier;
             }
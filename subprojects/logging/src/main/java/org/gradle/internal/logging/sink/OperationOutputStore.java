@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.sink;
+
+import com.google.common.base.Charsets;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.StandardOutputListener;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.logging.events.RenderableOutputEvent;
+import org.gradle.internal.logging.text.StreamingStyledTextOutput;
+
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the output of grouped operations, such as tasks, as a plain text log file per operation, so that the output does not need to be held in
+ * memory and can be read after the build. The log of an operation is named after the operation, for example {@code Task__app_compileJava.log}
+ * for {@code Task :app:compileJava}.
+ */
+public class OperationOutputStore {
+    /**
+     * Stores the output of grouped operations in the given directory, and limits the output of an operation held for the console to its last lines.
+     */
+    public static final String DIR_PROPERTY = "org.gradle.logging.operationOutputDir";
+
+    private final File dir;
+
+    public OperationOutputStore(File dir) {
+        this.dir = dir;
+    }
+
+    public Writer writer() {
+        return new Writer();
+    }
+
+    /**
+     * Returns a file name for the log of the given operation, which keeps letters, digits, dots and dashes and replaces other characters with
+     * underscores.
+     */
+    static String toFileName(String operationName) {
+        StringBuilder fileName = new StringBuilder(operationName.length());
+        for (int i = 0; i < operationName.length(); i++) {
+            char ch = operationName.charAt(i);
+            boolean safe = (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '.' || ch == '-';
+            fileName.append(safe ? ch : '_');
+        }
+        return fileName.toString();
+    }
+
+    /**
+     * Writes the output of operations, replacing the log of an operation that was stored by a previous writer. The output of an operation is
+     * buffered while it is written to its log, and the log is closed when the operation ends. Not thread-safe.
+     */
+    public class Writer implements Closeable {
+        private final Map<String, File> files = new HashMap<String, File>();
+        private final Set<File> usedFiles = new HashSet<File>();
+        private final Map<String, OperationLog> openLogs = new HashMap<String, OperationLog>();
+
+        private Writer() {
+        }
+
+        public void onOutput(String operationName, RenderableOutputEvent event) {
+            OperationLog log = openLogs.get(operationName);
+            if (log == null) {
+                log = open(operationName);
+                openLogs.put(operationName, log);
+            }
+            event.render(log.output);
+        }
+
+        private OperationLog open(String operationName) {
+            File file = files.get(operationName);
+            boolean append = file != null;
+            if (file == null) {
+                file = allocateFile(operationName);
+                files.put(operationName, file);
+            }
+            dir.mkdirs();
+            try {
+                return new OperationLog(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), Charsets.UTF_8)));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private File allocateFile(String operationName) {
+            // Different operation names can map to the same file name
+            String baseName = toFileName(operationName);
+            File file = new File(dir, baseName + ".log");
+            for (int i = 2; !usedFiles.add(file); i++) {
+                file = new File(dir, baseName + "-" + i + ".log");
+            }
+            return file;
+        }
+
+        /**
+         * Writes the buffered output of the given operation to its log, and returns the log file. Returns null when the operation has no output.
+         */
+        @Nullable
+        public File flush(String operationName) {
+            OperationLog log = openLogs.get(operationName);
+            if (log != null) {
+                log.flush();
+            }
+            return files.get(operationName);
+        }
+
+        /**
+         * Closes the log of the given operation. Later output of the operation is appended to the log.
+         */
+        public void endOutput(String operationName) {
+            OperationLog log = openLogs.remove(operationName);
+            if (log != null) {
+                log.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                CompositeStoppable.stoppable(openLogs.values()).stop();
+            } finally {
+                openLogs.clear();
+            }
+        }
+    }
+
+    private static class OperationLog implements Closeable {
+        private final java.io.Writer writer;
+        private final StreamingStyledTextOutput output;
+
+        OperationLog(final java.io.Writer writer) {
+            this.writer = writer;
+            this.output = new StreamingStyledTextOutput(new StandardOutputListener() {
+                @Override
+                public void onOutput(CharSequence text) {
+                    try {
+                        writer.append(text);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+
+        void flush() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -41,9 +41,13 @@ import org.gradle.internal.logging.events.FlushOutputEvent;
 import org.gradle.internal.logging.events.LogLevelChangeEvent;
 import org.gradle.internal.logging.events.OutputEvent;
 import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.logging.events.OutputEventQueue;
 import org.gradle.internal.logging.events.ProgressCompleteEvent;
 import org.gradle.internal.logging.events.ProgressEvent;
 import org.gradle.internal.logging.events.ProgressStartEvent;
+import org.gradle.internal.logging.events.PromptOutputEvent;
+import org.gradle.internal.logging.events.UserInputRequestEvent;
+import org.gradle.internal.logging.events.UserInputResumeEvent;
 import org.gradle.internal.logging.format.PrettyPrefixedLogHeaderFormatter;
 import org.gradle.internal.logging.text.StreamBackedStandardOutputListener;
 import org.gradle.internal.logging.text.StreamingStyledTextOutput;
@@ -53,15 +57,22 @@ import org.gradle.internal.time.Clock;
 
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A {@link OutputEventListener} implementation which renders output events to various
  * destinations. This implementation is thread-safe.
+ *
+ * <p>Events are added to a lock-free queue, and rendered in batches by one thread at a time. A thread that finds another thread rendering
+ * does not wait for it, except for events that must be visible before the thread continues, such as flushes and prompts.</p>
  */
 @ThreadSafe
 public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
+    private static final int QUEUE_CAPACITY = 4096;
     private final Object lock = new Object();
+    private final OutputEventQueue queue = new OutputEventQueue(QUEUE_CAPACITY);
+    private final AtomicBoolean draining = new AtomicBoolean();
     private final AtomicReference<LogLevel> logLevel = new AtomicReference<LogLevel>(LogLevel.LIFECYCLE);
     private final Clock clock;
     private final ListenerBroadcast<OutputEventListener> formatters = new ListenerBroadcast<OutputEventListener>(OutputEventListener.class);
@@ -111,6 +122,7 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
             // TODO - also close console when it is replaced
             if (snapshot.console != console) {
                 if (snapshot.console == null) {
+                    drainQueue();
                     formatters.remove(console);
                     console.onOutput(new EndOutputEvent());
                     console = null;
@@ -260,6 +272,7 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
 
     private OutputEventRenderer addConsoleChain(OutputEventListener consoleChain, boolean stdout, boolean stderr) {
         synchronized (lock) {
+            drainQueue();
             if (stdout && stderr) {
                 this.console = consoleChain;
                 removeStandardOutputListener();
@@ -341,9 +354,44 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
             }
             this.logLevel.set(newLogLevel);
         }
-        synchronized (lock) {
-            formatters.getSource().onOutput(event);
+        if (!queue.offer(event)) {
+            // The renderers are falling behind, wait for them
+            synchronized (lock) {
+                drainQueue();
+                formatters.getSource().onOutput(event);
+            }
+            return;
+        }
+        if (requiresImmediateRendering(event)) {
+            synchronized (lock) {
+                drainQueue();
+            }
+            return;
         }
+        // Render the queued events in a batch, unless another thread is already doing so. That thread checks the queue again when it is done,
+        // so that no event is left behind
+        while (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                synchronized (lock) {
+                    drainQueue();
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drainQueue() {
+        queue.drainTo(formatters.getSource());
+    }
+
+    private boolean requiresImmediateRendering(OutputEvent event) {
+        return event instanceof FlushOutputEvent
+            || event instanceof EndOutputEvent
+            || event instanceof LogLevelChangeEvent
+            || event instanceof PromptOutputEvent
+            || event instanceof UserInputRequestEvent
+            || event instanceof UserInputResumeEvent;
     }
 
     private boolean isProgressEvent(OutputEvent event) {
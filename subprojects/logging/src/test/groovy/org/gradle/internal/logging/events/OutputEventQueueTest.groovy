@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.logging.events
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class OutputEventQueueTest extends ConcurrentSpec {
+    def queue = new OutputEventQueue(4)
+    def listener = Mock(OutputEventListener)
+
+    def "forwards events in order"() {
+        def event1 = Stub(OutputEvent)
+        def event2 = Stub(OutputEvent)
+
+        expect:
+        queue.isEmpty()
+
+        when:
+        queue.offer(event1)
+        queue.offer(event2)
+
+        then:
+        !queue.isEmpty()
+
+        when:
+        def count = queue.drainTo(listener)
+
+        then:
+        1 * listener.onOutput(event1)
+
+        then:
+        1 * listener.onOutput(event2)
+        0 * _
+        count == 2
+        queue.isEmpty()
+    }
+
+    def "rejects events when full until drained"() {
+        expect:
+        4.times { assert queue.offer(Stub(OutputEvent)) }
+        !queue.offer(Stub(OutputEvent))
+        queue.drainTo(listener) == 4
+        queue.offer(Stub(OutputEvent))
+    }
+
+    def "listener can add events while the queue is drained"() {
+        def event1 = Stub(OutputEvent)
+        def event2 = Stub(OutputEvent)
+        queue.offer(event1)
+
+        when:
+        def count = queue.drainTo(listener)
+
+        then:
+        1 * listener.onOutput(event1) >> { queue.offer(event2) }
+
+        then:
+        1 * listener.onOutput(event2)
+        0 * _
+        count == 2
+    }
+
+    def "rejects capacity that is not a power of two"() {
+        when:
+        new OutputEventQueue(3)
+
+        then:
+        thrown IllegalArgumentException
+    }
+
+    def "forwards events from many producers in the order each producer added them"() {
+        def queue = new OutputEventQueue(16)
+        def received = [:].withDefault { [] }
+        def consumer = { TestEvent event -> received[event.producer] << event.index } as OutputEventListener
+        def lock = new Object()
+
+        when:
+        async {
+            4.times { producer ->
+                start {
+                    1000.times { index ->
+                        def event = new TestEvent(producer, index)
+                        while (!queue.offer(event)) {
+                            synchronized (lock) {
+                                queue.drainTo(consumer)
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        synchronized (lock) {
+            queue.drainTo(consumer)
+        }
+
+        then:
+        received.keySet() == [0, 1, 2, 3] as Set
+        received.values().every { it == (0..<1000).toList() }
+    }
+
+    private static class TestEvent extends OutputEvent {
+        final int producer
+        final int index
+
+        TestEvent(int producer, int index) {
+            this.producer = producer
+            this.index = index
+        }
+
+        @Override
+        LogLevel getLogLevel() {
+            return null
+        }
+    }
+}
@@ -29,12 +29,16 @@ import org.gradle.internal.logging.format.LogHeaderFormatter
 import org.gradle.internal.operations.BuildOperationCategory
 import org.gradle.internal.operations.OperationIdentifier
 import org.gradle.internal.time.MockClock
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Subject
 
 class GroupingProgressLogEventGeneratorTest extends OutputSpecification {
     private final OutputEventListener downstreamListener = Mock(OutputEventListener)
     def logHeaderFormatter = Mock(LogHeaderFormatter)
     def timeProvider = new MockClock()
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     @Subject
     listener = new GroupingProgressLogEventGenerator(downstreamListener, timeProvider, logHeaderFormatter, false)
 
@@ -389,4 +393,32 @@ class GroupingProgressLogEventGeneratorTest extends OutputSpecification {
         then:
         1 * downstreamListener.onOutput({ it.toString() == "[WARN] [category] message for task b" })
     }
+
+    def "stores output of grouped build operation and forwards its tail"() {
+        given:
+        def store = new OperationOutputStore(tmpDir.file("output"))
+        def listener = new GroupingProgressLogEventGenerator(downstreamListener, timeProvider, logHeaderFormatter, false, store)
+        def taskStartEvent = new ProgressStartEvent(new OperationIdentifier(-3L), new OperationIdentifier(-4L), tenAm, CATEGORY, "Execute :foo", ":foo", null, null, 0, true, new OperationIdentifier(2L), null, BuildOperationCategory.TASK)
+        def taskCompleteEvent = new ProgressCompleteEvent(taskStartEvent.progressOperationId, tenAm, "STATUS", false)
+        def forwarded = []
+
+        when:
+        listener.onOutput(taskStartEvent)
+        102.times { listener.onOutput(event("message $it", LogLevel.WARN, taskStartEvent.buildOperationId)) }
+        listener.onOutput(taskCompleteEvent)
+        listener.onOutput(new EndOutputEvent())
+
+        then:
+        _ * downstreamListener.onOutput(_) >> { forwarded << it[0].toString() }
+        forwarded.size() == 104
+        forwarded[2] == "[null] [category] [2 earlier lines of output not shown, see ${tmpDir.file("output/Execute__foo.log")}]"
+        forwarded[3] == "[WARN] [category] message 2"
+        forwarded[102] == "[WARN] [category] message 101"
+
+        and:
+        def stored = tmpDir.file("output/Execute__foo.log").readLines()
+        stored.size() == 102
+        stored[0] == "message 0"
+        stored[101] == "message 101"
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.logging.sink
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.logging.events.LogEvent
+import org.gradle.internal.logging.events.StyledTextOutputEvent
+import org.gradle.internal.logging.text.StyledTextOutput
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.TextUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+class OperationOutputStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    OperationOutputStore store
+
+    def setup() {
+        store = new OperationOutputStore(tmpDir.file("output"))
+    }
+
+    def "writes output of each operation as text to its own log"() {
+        given:
+        def writer = store.writer()
+        writer.onOutput("Task :a", new LogEvent(1, "category", LogLevel.LIFECYCLE, "a1", null))
+        writer.onOutput("Task :b", new StyledTextOutputEvent(2, "category", LogLevel.WARN, null, [new StyledTextOutputEvent.Span(StyledTextOutput.Style.Failure, "b1\n")]))
+        writer.onOutput("Task :a", new StyledTextOutputEvent(3, "other", null, null, "a2\n"))
+
+        when:
+        def a = writer.flush("Task :a")
+        def b = writer.flush("Task :b")
+
+        then:
+        a == tmpDir.file("output/Task__a.log")
+        b == tmpDir.file("output/Task__b.log")
+        TextUtil.normaliseLineSeparators(a.text) == "a1\na2\n"
+        TextUtil.normaliseLineSeparators(b.text) == "b1\n"
+
+        cleanup:
+        writer.close()
+    }
+
+    def "returns no log for operation without output"() {
+        given:
+        def writer = store.writer()
+        writer.onOutput("Task :a", new LogEvent(1, "category", LogLevel.LIFECYCLE, "a1", null))
+
+        expect:
+        writer.flush("Task :b") == null
+
+        cleanup:
+        writer.close()
+    }
+
+    def "appends output written after the operation ended"() {
+        given:
+        def writer = store.writer()
+        writer.onOutput("Task :a", new LogEvent(1, "category", LogLevel.LIFECYCLE, "a1", null))
+        writer.endOutput("Task :a")
+        writer.onOutput("Task :a", new LogEvent(2, "category", LogLevel.LIFECYCLE, "a2", null))
+        writer.close()
+
+        expect:
+        TextUtil.normaliseLineSeparators(tmpDir.file("output/Task__a.log").text) == "a1\na2\n"
+    }
+
+    def "replaces logs of a previous writer"() {
+        given:
+        def writer = store.writer()
+        writer.onOutput("Task :a", new LogEvent(1, "category", LogLevel.LIFECYCLE, "old", null))
+        writer.close()
+
+        when:
+        writer = store.writer()
+        writer.onOutput("Task :a", new LogEvent(2, "category", LogLevel.LIFECYCLE, "new", null))
+        writer.close()
+
+        then:
+        TextUtil.normaliseLineSeparators(tmpDir.file("output/Task__a.log").text) == "new\n"
+    }
+
+    def "uses distinct logs for operations with the same file name"() {
+        given:
+        def writer = store.writer()
+        writer.onOutput("Task :a", new LogEvent(1, "category", LogLevel.LIFECYCLE, "a1", null))
+        writer.onOutput("Task :a/", new LogEvent(2, "category", LogLevel.LIFECYCLE, "a2", null))
+        writer.onOutput("Task_:a", new LogEvent(3, "category", LogLevel.LIFECYCLE, "a3", null))
+
+        expect:
+        writer.flush("Task :a") == tmpDir.file("output/Task__a.log")
+        writer.flush("Task :a/") == tmpDir.file("output/Task__a_.log")
+        writer.flush("Task_:a") == tmpDir.file("output/Task__a-2.log")
+
+        cleanup:
+        writer.close()
+    }
+}
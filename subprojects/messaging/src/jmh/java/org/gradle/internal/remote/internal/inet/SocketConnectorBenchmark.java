@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.id.UUIDGenerator;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.IncomingConnector;
+import org.gradle.internal.remote.internal.OutgoingConnector;
+import org.gradle.internal.remote.internal.RemoteConnection;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Serializers;
+import org.gradle.internal.serialize.StatefulSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of sending batches of messages from a client to a server and waiting for an acknowledgement, using the TCP and
+ * the Unix domain socket connectors.
+ *
+ * <p>The {@code unix} transport needs a JVM with Unix domain socket channels, which were added in Java 16, on Linux. Run the benchmark with
+ * such a JVM to compare the transports.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class SocketConnectorBenchmark {
+    private static final String ACK = "ack";
+    private static final StatefulSerializer<String> SERIALIZER = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER);
+
+    @Param({"tcp", "unix"})
+    String transport;
+
+    @Param({"16", "1024"})
+    int messageSize;
+
+    @Param({"1000"})
+    int messagesPerBatch;
+
+    private DefaultExecutorFactory executorFactory;
+    private ConnectionAcceptor acceptor;
+    private RemoteConnection<String> client;
+    private String message;
+
+    @Setup(Level.Trial)
+    public void setupConnection() throws InterruptedException {
+        UUIDGenerator idGenerator = new UUIDGenerator();
+        executorFactory = new DefaultExecutorFactory();
+        IncomingConnector incomingConnector = new TcpIncomingConnector(executorFactory, new InetAddressFactory(), idGenerator);
+        OutgoingConnector outgoingConnector = new TcpOutgoingConnector();
+        if (transport.equals("unix")) {
+            UnixDomainSockets sockets = new UnixDomainSockets();
+            if (!sockets.isAvailable()) {
+                throw new IllegalStateException("Unix domain sockets are not available in this JVM.");
+            }
+            incomingConnector = new UnixSocketIncomingConnector(incomingConnector, executorFactory, sockets, idGenerator);
+            outgoingConnector = new UnixSocketOutgoingConnector(outgoingConnector, sockets);
+        }
+
+        final BlockingQueue<RemoteConnection<String>> serverConnections = new ArrayBlockingQueue<RemoteConnection<String>>(1);
+        acceptor = incomingConnector.accept(new Action<ConnectCompletion>() {
+            @Override
+            public void execute(ConnectCompletion completion) {
+                serverConnections.add(completion.create(SERIALIZER));
+            }
+        }, false);
+        client = outgoingConnector.connect(acceptor.getAddress()).create(SERIALIZER);
+        executorFactory.create("benchmark server").execute(new EchoServer(serverConnections.poll(10, TimeUnit.SECONDS), messagesPerBatch));
+
+        char[] chars = new char[messageSize];
+        Arrays.fill(chars, 'x');
+        message = new String(chars);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownConnection() {
+        CompositeStoppable.stoppable(client, acceptor, executorFactory).stop();
+    }
+
+    @Benchmark
+    public void sendBatch(Blackhole bh) {
+        for (int i = 0; i < messagesPerBatch; i++) {
+            client.dispatch(message);
+        }
+        client.flush();
+        bh.consume(client.receive());
+    }
+
+    private static class EchoServer implements Runnable {
+        private final RemoteConnection<String> connection;
+        private final int messagesPerBatch;
+
+        EchoServer(RemoteConnection<String> connection, int messagesPerBatch) {
+            this.connection = connection;
+            this.messagesPerBatch = messagesPerBatch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int received = 0;
+                while (connection.receive() != null) {
+                    if (++received == messagesPerBatch) {
+                        received = 0;
+                        connection.dispatch(ACK);
+                        connection.flush();
+                    }
+                }
+            } finally {
+                connection.stop();
+            }
+        }
+    }
+}
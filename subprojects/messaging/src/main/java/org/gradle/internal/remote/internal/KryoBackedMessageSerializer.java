@@ -32,6 +32,7 @@ public class KryoBackedMessageSerializer implements MessageSerializer {
 
     @Override
     public FlushableEncoder newEncoder(OutputStream outputStream) {
-        return new KryoBackedEncoder(outputStream);
+        // Use a large buffer so that batches of messages are written to the stream in large chunks
+        return new KryoBackedEncoder(outputStream, 32 * 1024);
     }
 }
@@ -30,6 +30,7 @@ import org.gradle.internal.remote.internal.hub.queue.EndPointQueue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -45,6 +46,8 @@ public class MessageHub implements AsyncStoppable {
     private enum State {Running, Stopping, Stopped}
 
     private static final Discard DISCARD = new Discard();
+    private static final int MAX_MESSAGES_PER_FLUSH = 1024;
+    private static final long MAX_FLUSH_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
     private final ManagedExecutor workers;
     private final String displayName;
     private final Action<? super Throwable> errorHandler;
@@ -315,19 +318,40 @@ public class MessageHub implements AsyncStoppable {
                         } finally {
                             lock.unlock();
                         }
-                        for (InterHubMessage message : messages) {
+                        long batchStart = System.nanoTime();
+                        int batchSize = 0;
+                        while (true) {
+                            // When more than one message was waiting, the producers are ahead of the connection, so wait a little for
+                            // more messages to include in this flush. Otherwise, flush immediately so that interactive messages are not delayed.
+                            long maxWait = messages.size() > 1 ? MAX_FLUSH_DELAY_NANOS - (System.nanoTime() - batchStart) : 0;
+                            for (InterHubMessage message : messages) {
+                                try {
+                                    connection.dispatch(message);
+                                } catch (RecoverableMessageIOException e) {
+                                    addToIncoming(new StreamFailureMessage(e));
+                                }
+                                if (message instanceof EndOfStream) {
+                                    connection.flush();
+                                    return;
+                                }
+                            }
+                            batchSize += messages.size();
+                            messages.clear();
+                            if (batchSize >= MAX_MESSAGES_PER_FLUSH) {
+                                break;
+                            }
+                            boolean more;
+                            lock.lock();
                             try {
-                                connection.dispatch(message);
-                            } catch (RecoverableMessageIOException e) {
-                                addToIncoming(new StreamFailureMessage(e));
+                                more = queue.poll(messages, Math.max(0, maxWait));
+                            } finally {
+                                lock.unlock();
                             }
-                            if (message instanceof EndOfStream) {
-                                connection.flush();
-                                return;
+                            if (!more) {
+                                break;
                             }
                         }
                         connection.flush();
-                        messages.clear();
                     }
                 } finally {
                     lock.lock();
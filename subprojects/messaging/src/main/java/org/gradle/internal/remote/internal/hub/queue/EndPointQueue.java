@@ -55,6 +55,37 @@ public class EndPointQueue implements Dispatch<InterHubMessage> {
         queue.clear();
     }
 
+    /**
+     * Takes the queued messages, waiting at most the given time for a message to become available.
+     *
+     * @return true if any messages were taken.
+     */
+    public boolean poll(Collection<InterHubMessage> drainTo, long timeoutNanos) {
+        if (queue.isEmpty() && timeoutNanos <= 0) {
+            // Take any queued messages without waiting, so this endpoint is not selected for later messages while it is busy
+            owner.forwardQueued(this);
+        } else if (queue.isEmpty()) {
+            owner.empty(this);
+            long remaining = timeoutNanos;
+            while (queue.isEmpty() && remaining > 0) {
+                try {
+                    remaining = condition.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (queue.isEmpty()) {
+                owner.notWaiting(this);
+            }
+        }
+        if (queue.isEmpty()) {
+            return false;
+        }
+        drainTo.addAll(queue);
+        queue.clear();
+        return true;
+    }
+
     public void stop() {
         owner.stopped(this);
     }
@@ -42,10 +42,27 @@ public class MultiEndPointQueue implements Dispatch<InterHubMessage> {
     }
 
     void empty(EndPointQueue endPointQueue) {
-        waiting.add(endPointQueue);
+        if (!waiting.contains(endPointQueue)) {
+            waiting.add(endPointQueue);
+        }
         flush();
     }
 
+    /**
+     * Forwards any queued messages to the given endpoint, without leaving the endpoint waiting for messages.
+     */
+    void forwardQueued(EndPointQueue endPointQueue) {
+        empty(endPointQueue);
+        waiting.remove(endPointQueue);
+    }
+
+    /**
+     * Called when the given endpoint stops waiting for messages without having received any.
+     */
+    void notWaiting(EndPointQueue endPointQueue) {
+        waiting.remove(endPointQueue);
+    }
+
     void stopped(EndPointQueue queue) {
         waiting.remove(queue);
         endpoints.remove(queue);
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Serializes the addresses of local endpoints, which are either a {@link MultiChoiceAddress} or a {@link UnixSocketAddress}.
+ */
+public class LocalAddressSerializer implements Serializer<InetEndpoint> {
+    private final MultiChoiceAddressSerializer tcpAddressSerializer = new MultiChoiceAddressSerializer();
+
+    @Override
+    public InetEndpoint read(Decoder decoder) throws IOException {
+        String socketFile = decoder.readNullableString();
+        MultiChoiceAddress tcpAddress = tcpAddressSerializer.read(decoder);
+        if (socketFile == null) {
+            return tcpAddress;
+        }
+        return new UnixSocketAddress(new File(socketFile), tcpAddress);
+    }
+
+    @Override
+    public void write(Encoder encoder, InetEndpoint address) throws IOException {
+        if (address instanceof UnixSocketAddress) {
+            UnixSocketAddress unixSocketAddress = (UnixSocketAddress) address;
+            encoder.writeNullableString(unixSocketAddress.getSocketFile().getAbsolutePath());
+            tcpAddressSerializer.write(encoder, unixSocketAddress.getTcpAddress());
+        } else {
+            encoder.writeNullableString(null);
+            tcpAddressSerializer.write(encoder, (MultiChoiceAddress) address);
+        }
+    }
+}
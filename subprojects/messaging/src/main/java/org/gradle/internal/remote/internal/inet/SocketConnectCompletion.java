@@ -21,21 +21,39 @@ import org.gradle.internal.remote.internal.RemoteConnection;
 import org.gradle.internal.serialize.StatefulSerializer;
 import org.gradle.internal.remote.internal.ConnectCompletion;
 
+import javax.annotation.Nullable;
 import java.nio.channels.SocketChannel;
 
 class SocketConnectCompletion implements ConnectCompletion {
     private final SocketChannel socket;
+    private final String localAddress;
+    private final String remoteAddress;
 
     public SocketConnectCompletion(SocketChannel socket) {
+        this(socket, null, null);
+    }
+
+    /**
+     * Creates a completion for a socket that is not bound to an inet address, such as a Unix domain socket.
+     */
+    public SocketConnectCompletion(SocketChannel socket, @Nullable String localAddress, @Nullable String remoteAddress) {
         this.socket = socket;
+        this.localAddress = localAddress;
+        this.remoteAddress = remoteAddress;
     }
 
     @Override
     public String toString() {
+        if (localAddress != null) {
+            return localAddress + " to " + remoteAddress;
+        }
         return socket.socket().getLocalSocketAddress() + " to " + socket.socket().getRemoteSocketAddress();
     }
 
     public <T> RemoteConnection<T> create(StatefulSerializer<T> serializer) {
+        if (localAddress != null) {
+            return new SocketConnection<T>(socket, localAddress, remoteAddress, new KryoBackedMessageSerializer(), serializer);
+        }
         return new SocketConnection<T>(socket, new KryoBackedMessageSerializer(), serializer);
     }
 }
@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
@@ -41,16 +42,27 @@ import java.nio.channels.SocketChannel;
 public class SocketConnection<T> implements RemoteConnection<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
     private final SocketChannel socket;
-    private final SocketInetAddress localAddress;
-    private final SocketInetAddress remoteAddress;
+    private final String localAddress;
+    private final String remoteAddress;
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
     private final InputStream instr;
-    private final OutputStream outstr;
+    private final SocketOutputStream outstr;
     private final FlushableEncoder encoder;
+    private long messagesDispatched;
+    private long flushes;
 
     public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
+        this(socket, inetAddressOf(socket.socket().getLocalSocketAddress()), inetAddressOf(socket.socket().getRemoteSocketAddress()), streamSerializer, messageSerializer);
+    }
+
+    /**
+     * Creates a connection over a socket that is not bound to an inet address, such as a Unix domain socket.
+     */
+    public SocketConnection(SocketChannel socket, String localAddress, String remoteAddress, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
         this.socket = socket;
+        this.localAddress = localAddress;
+        this.remoteAddress = remoteAddress;
         try {
             // NOTE: we use non-blocking IO as there is no reliable way when using blocking IO to shutdown reads while
             // keeping writes active. For example, Socket.shutdownInput() does not work on Windows.
@@ -60,15 +72,16 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
-        InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
-        localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
-        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-        remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
         objectReader = messageSerializer.newReader(streamSerializer.newDecoder(instr));
         encoder = streamSerializer.newEncoder(outstr);
         objectWriter = messageSerializer.newWriter(encoder);
     }
 
+    private static String inetAddressOf(SocketAddress socketAddress) {
+        InetSocketAddress inetSocketAddress = (InetSocketAddress) socketAddress;
+        return new SocketInetAddress(inetSocketAddress.getAddress(), inetSocketAddress.getPort()).toString();
+    }
+
     @Override
     public String toString() {
         return "socket connection from " + localAddress + " to " + remoteAddress;
@@ -114,6 +127,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
     public void dispatch(T message) throws MessageIOException {
         try {
             objectWriter.write(message);
+            messagesDispatched++;
         } catch (ObjectStreamException e) {
             throw new RecoverableMessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
         } catch (ClassNotFoundException e) {
@@ -130,6 +144,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         try {
             encoder.flush();
             outstr.flush();
+            flushes++;
         } catch (Exception e) {
             throw new MessageIOException(String.format("Could not write '%s'.", remoteAddress), e);
         }
@@ -142,6 +157,10 @@ public class SocketConnection<T> implements RemoteConnection<T> {
                 flush();
             }
         }, instr, outstr, socket).stop();
+        if (LOGGER.isDebugEnabled() && flushes > 0) {
+            LOGGER.debug("Dispatched {} messages and {} bytes in {} flushes over {} ({} messages and {} bytes per flush).",
+                messagesDispatched, outstr.getBytesWritten(), flushes, this, messagesDispatched / flushes, outstr.getBytesWritten() / flushes);
+        }
     }
 
     private static class SocketInputStream extends InputStream {
@@ -218,11 +237,18 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         private Selector selector;
         private final SocketChannel socket;
         private final ByteBuffer buffer;
+        private final ByteBuffer[] buffers;
         private final byte[] writeBuffer = new byte[1];
+        private long bytesWritten;
 
         public SocketOutputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
             buffer = ByteBuffer.allocateDirect(32 * 1024);
+            buffers = new ByteBuffer[]{buffer, null};
+        }
+
+        long getBytesWritten() {
+            return bytesWritten;
         }
 
         @Override
@@ -233,18 +259,13 @@ public class SocketConnection<T> implements RemoteConnection<T> {
 
         @Override
         public void write(byte[] src, int offset, int max) throws IOException {
-            int remaining = max;
-            int currentPos = offset;
-            while (remaining > 0) {
-                int count = Math.min(remaining, buffer.remaining());
-                if (count > 0) {
-                    buffer.put(src, currentPos, count);
-                    remaining -= count;
-                    currentPos += count;
-                }
-                while (buffer.remaining() == 0) {
-                    writeBufferToChannel();
-                }
+            if (max > buffer.remaining()) {
+                writeWithBufferToChannel(src, offset, max);
+                return;
+            }
+            buffer.put(src, offset, max);
+            while (buffer.remaining() == 0) {
+                writeBufferToChannel();
             }
         }
 
@@ -257,7 +278,8 @@ public class SocketConnection<T> implements RemoteConnection<T> {
 
         private void writeBufferToChannel() throws IOException {
             buffer.flip();
-            int count = writeWithNonBlockingRetry();
+            buffers[1] = null;
+            int count = writeWithNonBlockingRetry(1);
             if (count == 0) {
                 // buffer was still full after non-blocking retries, now block
                 waitForWriteBufferToDrain();
@@ -265,11 +287,32 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             buffer.compact();
         }
 
-        private int writeWithNonBlockingRetry() throws IOException {
-            int count = 0;
+        /**
+         * Writes the buffered bytes followed by the given bytes using gathering writes, rather than copying the given bytes into the buffer.
+         */
+        private void writeWithBufferToChannel(byte[] src, int offset, int max) throws IOException {
+            ByteBuffer source = ByteBuffer.wrap(src, offset, max);
+            buffer.flip();
+            buffers[1] = source;
+            try {
+                while (source.hasRemaining()) {
+                    int count = writeWithNonBlockingRetry(2);
+                    if (count == 0) {
+                        // buffer was still full after non-blocking retries, now block
+                        waitForWriteBufferToDrain();
+                    }
+                }
+            } finally {
+                buffers[1] = null;
+                buffer.compact();
+            }
+        }
+
+        private int writeWithNonBlockingRetry(int bufferCount) throws IOException {
+            long count = 0;
             int retryCount = 0;
             while (count == 0 && retryCount++ < RETRIES_WHEN_BUFFER_FULL) {
-                count = socket.write(buffer);
+                count = socket.write(buffers, 0, bufferCount);
                 if (count < 0) {
                     throw new EOFException();
                 } else if (count == 0) {
@@ -277,7 +320,8 @@ public class SocketConnection<T> implements RemoteConnection<T> {
                     Thread.yield();
                 }
             }
-            return count;
+            bytesWritten += count;
+            return (int) count;
         }
 
         private void waitForWriteBufferToDrain() throws IOException {
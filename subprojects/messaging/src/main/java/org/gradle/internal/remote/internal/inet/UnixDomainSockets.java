@@ -0,0 +1,283 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.IoActions;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.os.OperatingSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+
+/**
+ * Provides access to Unix domain socket channels, when the current platform supports them.
+ *
+ * <p>Unix domain socket channels were added in Java 16, so they are accessed reflectively here. They are only used on Linux. As Gradle runs on
+ * older Java versions, local acceptors only listen on a Unix domain socket when this is requested using the {@value #ENABLED_PROPERTY} system
+ * property and the JVM supports it. Clients always use the Unix domain socket of an address when their JVM supports it.</p>
+ *
+ * <p>The socket files of a process are created in a directory that only the current user can access, so the sockets are never reachable by other
+ * users, not even between creating a socket file and changing its permissions. The directory contains a lock file that is locked for as long as the
+ * process runs. Directories whose lock file is no longer locked were left behind by a process that was killed, and are removed.</p>
+ */
+public class UnixDomainSockets {
+    /**
+     * System property that can be set to {@code true} to listen for local connections on Unix domain sockets as well as TCP.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.remote.unixsockets";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixDomainSockets.class);
+    // sockaddr_un allows 108 bytes on Linux, including the terminating null
+    private static final int MAX_PATH_LENGTH = 100;
+    private static final String PROCESS_SOCKET_DIR_PREFIX = "gradle-sock-";
+    private static final String LOCK_FILE_NAME = "lock";
+
+    private final File socketDir;
+    private final Object unixProtocolFamily;
+    private final Method openServerSocketChannel;
+    private final Method openSocketChannel;
+    private final Method bind;
+    private final Method addressOf;
+    private boolean processSocketDirCreated;
+    private File processSocketDir;
+    // Kept open for the lifetime of the process, so that the lock is held
+    private RandomAccessFile processLockFile;
+
+    public UnixDomainSockets() {
+        this(new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    UnixDomainSockets(File socketDir) {
+        this.socketDir = socketDir;
+        Object unixProtocolFamily = null;
+        Method openServerSocketChannel = null;
+        Method openSocketChannel = null;
+        Method bind = null;
+        Method addressOf = null;
+        if (OperatingSystem.current().isLinux()) {
+            try {
+                Class<?> protocolFamilyType = Class.forName("java.net.ProtocolFamily");
+                Class<?> standardProtocolFamilyType = Class.forName("java.net.StandardProtocolFamily");
+                unixProtocolFamily = standardProtocolFamilyType.getMethod("valueOf", String.class).invoke(null, "UNIX");
+                openServerSocketChannel = ServerSocketChannel.class.getMethod("open", protocolFamilyType);
+                openSocketChannel = SocketChannel.class.getMethod("open", protocolFamilyType);
+                bind = ServerSocketChannel.class.getMethod("bind", SocketAddress.class);
+                addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+            } catch (Exception e) {
+                // Not supported by this JVM
+                LOGGER.debug("Unix domain sockets are not available in this JVM.");
+                unixProtocolFamily = null;
+            }
+        }
+        this.unixProtocolFamily = unixProtocolFamily;
+        this.openServerSocketChannel = openServerSocketChannel;
+        this.openSocketChannel = openSocketChannel;
+        this.bind = bind;
+        this.addressOf = addressOf;
+    }
+
+    /**
+     * Returns true when Unix domain sockets can be used for local connections.
+     */
+    public boolean isAvailable() {
+        return unixProtocolFamily != null;
+    }
+
+    /**
+     * Returns true when local acceptors should listen on Unix domain sockets.
+     */
+    public boolean isEnabled() {
+        return isAvailable() && Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns a new socket file to listen on, or null when no suitable location is available.
+     */
+    @Nullable
+    File newSocketFile(String name) {
+        File dir = getProcessSocketDir();
+        if (dir == null) {
+            return null;
+        }
+        File socketFile = new File(dir, name);
+        if (socketFile.getAbsolutePath().length() > MAX_PATH_LENGTH) {
+            return null;
+        }
+        return socketFile;
+    }
+
+    /**
+     * Creates a server socket channel listening on the given socket file.
+     */
+    ServerSocketChannel bind(File socketFile) throws IOException {
+        ServerSocketChannel channel = (ServerSocketChannel) invoke(openServerSocketChannel, null, unixProtocolFamily);
+        try {
+            invoke(bind, channel, addressOf(socketFile));
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Connects to a server socket listening on the given socket file.
+     */
+    SocketChannel connect(File socketFile) throws IOException {
+        SocketChannel channel = (SocketChannel) invoke(openSocketChannel, null, unixProtocolFamily);
+        try {
+            channel.connect((SocketAddress) addressOf(socketFile));
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Nullable
+    private synchronized File getProcessSocketDir() {
+        if (!processSocketDirCreated) {
+            processSocketDirCreated = true;
+            if (socketDir.isDirectory()) {
+                deleteStaleProcessSocketDirs();
+                processSocketDir = createProcessSocketDir();
+            }
+        }
+        return processSocketDir;
+    }
+
+    @Nullable
+    private File createProcessSocketDir() {
+        File dir = new File(socketDir, PROCESS_SOCKET_DIR_PREFIX + Long.toHexString(new SecureRandom().nextLong()));
+        // mkdir() fails when the directory already exists, so the directory is always one created by this process
+        if (!dir.mkdir()) {
+            LOGGER.debug("Could not create directory {} for Unix domain sockets.", dir);
+            return null;
+        }
+        // Check that nothing was added to the directory before it was made private
+        if (!makeOwnerOnly(dir) || !isEmpty(dir)) {
+            LOGGER.debug("Could not make directory {} for Unix domain sockets private.", dir);
+            deleteDir(dir);
+            return null;
+        }
+        // Lock the file before giving it its final name, so that other processes never see it unlocked while this process runs
+        File pendingLockFile = new File(dir, LOCK_FILE_NAME + ".tmp");
+        File lockFile = new File(dir, LOCK_FILE_NAME);
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(pendingLockFile, "rw");
+            file.getChannel().lock();
+            if (!pendingLockFile.renameTo(lockFile)) {
+                throw new IOException("Could not rename " + pendingLockFile + " to " + lockFile + ".");
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not lock directory {} for Unix domain sockets.", dir, e);
+            IoActions.closeQuietly(file);
+            deleteDir(dir);
+            return null;
+        }
+        processLockFile = file;
+        // Files registered later are deleted first
+        dir.deleteOnExit();
+        lockFile.deleteOnExit();
+        return dir;
+    }
+
+    private void deleteStaleProcessSocketDirs() {
+        File[] dirs = socketDir.listFiles();
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            if (dir.getName().startsWith(PROCESS_SOCKET_DIR_PREFIX) && isStale(dir)) {
+                LOGGER.debug("Deleting directory {} left behind by a Unix domain socket owner that is no longer running.", dir);
+                deleteDir(dir);
+            }
+        }
+    }
+
+    private static boolean isStale(File dir) {
+        // A directory without a lock file is still being created, or belongs to another user
+        File lockFile = new File(dir, LOCK_FILE_NAME);
+        if (!lockFile.isFile()) {
+            return false;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(lockFile, "rw");
+            FileLock lock = file.getChannel().tryLock();
+            return lock != null;
+        } catch (IOException e) {
+            return false;
+        } catch (OverlappingFileLockException e) {
+            // Locked by this process
+            return false;
+        } finally {
+            // Also releases the lock
+            IoActions.closeQuietly(file);
+        }
+    }
+
+    private static boolean makeOwnerOnly(File file) {
+        return file.setReadable(false, false) && file.setWritable(false, false) && file.setExecutable(false, false)
+            && file.setReadable(true, true) && file.setWritable(true, true) && file.setExecutable(true, true);
+    }
+
+    private static boolean isEmpty(File dir) {
+        String[] entries = dir.list();
+        return entries != null && entries.length == 0;
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private Object addressOf(File socketFile) throws IOException {
+        return invoke(addressOf, null, socketFile.getAbsolutePath());
+    }
+
+    private static Object invoke(Method method, Object target, Object arg) throws IOException {
+        try {
+            return method.invoke(target, arg);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
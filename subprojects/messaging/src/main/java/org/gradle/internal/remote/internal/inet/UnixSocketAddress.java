@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.util.List;
+
+/**
+ * The address of an endpoint that listens on a Unix domain socket and also on TCP. Clients that cannot use Unix domain sockets, for example
+ * because they run on an older JVM, connect using the TCP address instead.
+ */
+public class UnixSocketAddress implements InetEndpoint {
+    private final File socketFile;
+    private final MultiChoiceAddress tcpAddress;
+
+    public UnixSocketAddress(File socketFile, MultiChoiceAddress tcpAddress) {
+        this.socketFile = socketFile;
+        this.tcpAddress = tcpAddress;
+    }
+
+    public File getSocketFile() {
+        return socketFile;
+    }
+
+    public MultiChoiceAddress getTcpAddress() {
+        return tcpAddress;
+    }
+
+    public String getDisplayName() {
+        return "[unix:" + socketFile + ", tcp:" + tcpAddress.getDisplayName() + "]";
+    }
+
+    @Override
+    public int getPort() {
+        return tcpAddress.getPort();
+    }
+
+    @Override
+    public List<InetAddress> getCandidates() {
+        return tcpAddress.getCandidates();
+    }
+
+    @Override
+    public String toString() {
+        return getDisplayName();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UnixSocketAddress other = (UnixSocketAddress) o;
+        return other.socketFile.equals(socketFile) && other.tcpAddress.equals(tcpAddress);
+    }
+
+    @Override
+    public int hashCode() {
+        return socketFile.hashCode() ^ tcpAddress.hashCode();
+    }
+}
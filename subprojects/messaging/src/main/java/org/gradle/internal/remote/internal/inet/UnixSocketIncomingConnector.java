@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.IncomingConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+
+/**
+ * An {@link IncomingConnector} that accepts local connections on a Unix domain socket, in addition to the TCP socket of the given TCP connector.
+ * Connections that allow remote clients are only accepted over TCP.
+ */
+public class UnixSocketIncomingConnector implements IncomingConnector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixSocketIncomingConnector.class);
+    static final String CLIENT_ADDRESS = "unix:client";
+
+    private final IncomingConnector tcpConnector;
+    private final ExecutorFactory executorFactory;
+    private final UnixDomainSockets unixDomainSockets;
+    private final IdGenerator<UUID> idGenerator;
+
+    public UnixSocketIncomingConnector(IncomingConnector tcpConnector, ExecutorFactory executorFactory, UnixDomainSockets unixDomainSockets, IdGenerator<UUID> idGenerator) {
+        this.tcpConnector = tcpConnector;
+        this.executorFactory = executorFactory;
+        this.unixDomainSockets = unixDomainSockets;
+        this.idGenerator = idGenerator;
+    }
+
+    public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allowRemote) {
+        final ConnectionAcceptor tcpAcceptor = tcpConnector.accept(action, allowRemote);
+        if (allowRemote) {
+            return tcpAcceptor;
+        }
+
+        final File socketFile = unixDomainSockets.newSocketFile(idGenerator.generateId() + ".sock");
+        if (socketFile == null) {
+            return tcpAcceptor;
+        }
+        final ServerSocketChannel serverSocket;
+        try {
+            serverSocket = unixDomainSockets.bind(socketFile);
+        } catch (IOException e) {
+            LOGGER.debug("Could not listen on Unix domain socket {}. Accepting connections using TCP only.", socketFile, e);
+            return tcpAcceptor;
+        }
+
+        final Address address = new UnixSocketAddress(socketFile, (MultiChoiceAddress) tcpAcceptor.getAddress());
+        LOGGER.debug("Listening on {}.", address);
+
+        final ManagedExecutor executor = executorFactory.create("Incoming local Unix domain socket connector on " + socketFile);
+        executor.execute(new Receiver(serverSocket, socketFile, action));
+
+        return new ConnectionAcceptor() {
+            public Address getAddress() {
+                return address;
+            }
+
+            public void requestStop() {
+                tcpAcceptor.requestStop();
+                CompositeStoppable.stoppable(serverSocket).stop();
+                socketFile.delete();
+            }
+
+            public void stop() {
+                requestStop();
+                CompositeStoppable.stoppable(tcpAcceptor, executor).stop();
+            }
+        };
+    }
+
+    private static class Receiver implements Runnable {
+        private final ServerSocketChannel serverSocket;
+        private final File socketFile;
+        private final Action<ConnectCompletion> action;
+
+        Receiver(ServerSocketChannel serverSocket, File socketFile, Action<ConnectCompletion> action) {
+            this.serverSocket = serverSocket;
+            this.socketFile = socketFile;
+            this.action = action;
+        }
+
+        public void run() {
+            try {
+                try {
+                    while (true) {
+                        final SocketChannel socket = serverSocket.accept();
+                        LOGGER.debug("Accepted connection on {}.", socketFile);
+                        try {
+                            action.execute(new SocketConnectCompletion(socket, "unix:" + socketFile, CLIENT_ADDRESS));
+                        } catch (Throwable t) {
+                            socket.close();
+                            throw t;
+                        }
+                    }
+                } catch (ClosedChannelException e) {
+                    // Ignore
+                } catch (Throwable e) {
+                    LOGGER.error("Could not accept local connection.", e);
+                }
+            } finally {
+                CompositeStoppable.stoppable(serverSocket).stop();
+                socketFile.delete();
+            }
+        }
+    }
+}
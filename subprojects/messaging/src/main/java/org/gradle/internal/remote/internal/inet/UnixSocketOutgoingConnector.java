@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.ConnectException;
+import org.gradle.internal.remote.internal.OutgoingConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * An {@link OutgoingConnector} that connects to a {@link UnixSocketAddress} using its Unix domain socket, and falls back to the given TCP connector
+ * for all other addresses or when the Unix domain socket cannot be used.
+ */
+public class UnixSocketOutgoingConnector implements OutgoingConnector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixSocketOutgoingConnector.class);
+
+    private final OutgoingConnector tcpConnector;
+    private final UnixDomainSockets unixDomainSockets;
+
+    public UnixSocketOutgoingConnector(OutgoingConnector tcpConnector, UnixDomainSockets unixDomainSockets) {
+        this.tcpConnector = tcpConnector;
+        this.unixDomainSockets = unixDomainSockets;
+    }
+
+    public ConnectCompletion connect(Address destinationAddress) throws ConnectException {
+        if (destinationAddress instanceof UnixSocketAddress && unixDomainSockets.isAvailable()) {
+            UnixSocketAddress address = (UnixSocketAddress) destinationAddress;
+            LOGGER.debug("Attempting to connect to {}.", address);
+            try {
+                SocketChannel socketChannel = unixDomainSockets.connect(address.getSocketFile());
+                LOGGER.debug("Connected to Unix domain socket {}.", address.getSocketFile());
+                return new SocketConnectCompletion(socketChannel, UnixSocketIncomingConnector.CLIENT_ADDRESS, "unix:" + address.getSocketFile());
+            } catch (IOException e) {
+                LOGGER.debug("Cannot connect to Unix domain socket {}, connecting using TCP.", address.getSocketFile(), e);
+            }
+        }
+        return tcpConnector.connect(destinationAddress);
+    }
+}
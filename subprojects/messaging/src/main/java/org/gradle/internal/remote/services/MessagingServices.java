@@ -31,6 +31,9 @@ import org.gradle.internal.remote.internal.hub.MessageHubBackedServer;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
 import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+import org.gradle.internal.remote.internal.inet.UnixDomainSockets;
+import org.gradle.internal.remote.internal.inet.UnixSocketIncomingConnector;
+import org.gradle.internal.remote.internal.inet.UnixSocketOutgoingConnector;
 
 import java.util.UUID;
 
@@ -60,16 +63,28 @@ public class MessagingServices extends DefaultServiceRegistry implements Stoppab
         return new InetAddressFactory();
     }
 
-    protected OutgoingConnector createOutgoingConnector() {
-        return new TcpOutgoingConnector();
+    protected UnixDomainSockets createUnixDomainSockets() {
+        return new UnixDomainSockets();
     }
 
-    protected IncomingConnector createIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory) {
-        return new TcpIncomingConnector(
+    protected OutgoingConnector createOutgoingConnector(UnixDomainSockets unixDomainSockets) {
+        OutgoingConnector tcpConnector = new TcpOutgoingConnector();
+        if (unixDomainSockets.isAvailable()) {
+            return new UnixSocketOutgoingConnector(tcpConnector, unixDomainSockets);
+        }
+        return tcpConnector;
+    }
+
+    protected IncomingConnector createIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory, UnixDomainSockets unixDomainSockets) {
+        IncomingConnector tcpConnector = new TcpIncomingConnector(
                 executorFactory,
                 inetAddressFactory,
                 idGenerator
         );
+        if (unixDomainSockets.isEnabled()) {
+            return new UnixSocketIncomingConnector(tcpConnector, executorFactory, unixDomainSockets, idGenerator);
+        }
+        return tcpConnector;
     }
 
     protected MessagingClient createMessagingClient(OutgoingConnector outgoingConnector, ExecutorFactory executorFactory) {
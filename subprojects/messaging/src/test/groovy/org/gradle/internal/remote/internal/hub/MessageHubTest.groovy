@@ -148,6 +148,30 @@ class MessageHubTest extends ConcurrentSpec {
         connection.stop()
     }
 
+    def "queued outgoing messages are dispatched to connection in a single flush"() {
+        RemoteConnection<InterHubMessage> outgoing = Mock()
+        def connection = new MockOutgoingConnection(outgoing)
+
+        given:
+        hub.getOutgoing("channel1", String).dispatch("message1")
+        hub.getOutgoing("channel1", String).dispatch("message2")
+        hub.getOutgoing("channel2", Long).dispatch(12)
+
+        when:
+        hub.addConnection(connection)
+        thread.blockUntil.flushed
+
+        then:
+        1 * outgoing.dispatch({ it.payload == "message1" })
+        1 * outgoing.dispatch({ it.payload == "message2" })
+        1 * outgoing.dispatch({ it.payload == 12 })
+        1 * outgoing.flush() >> { instant.flushed }
+        0 * _._
+
+        cleanup:
+        connection.stop()
+    }
+
     def "stop blocks until all outgoing messages dispatched to connection"() {
         RemoteConnection<InterHubMessage> outgoing = Mock()
         def connection = new MockOutgoingConnection(outgoing)
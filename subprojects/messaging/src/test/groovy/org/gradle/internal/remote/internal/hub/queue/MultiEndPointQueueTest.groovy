@@ -57,6 +57,68 @@ class MultiEndPointQueueTest extends AbstractQueueTest {
         messages == [message]
     }
 
+    def "endpoint can poll queued unicast messages"() {
+        given:
+        def message1 = unicast()
+        def message2 = unicast()
+        def endpoint = queue.newEndpoint()
+
+        and:
+        queue.dispatch(message1)
+        queue.dispatch(message2)
+
+        when:
+        def messages = []
+        def result = endpoint.poll(messages, 0)
+
+        then:
+        result
+        messages == [message1, message2]
+    }
+
+    def "endpoint that polled when nothing queued receives messages dispatched later"() {
+        given:
+        def message = unicast()
+        def endpoint = queue.newEndpoint()
+
+        when:
+        def messages = []
+        def result = endpoint.poll(messages, 1000)
+
+        then:
+        !result
+        messages.empty
+
+        when:
+        endpoint.poll(messages, 0)
+        queue.dispatch(message)
+        endpoint.take(messages)
+
+        then:
+        messages == [message]
+    }
+
+    def "endpoint that polled without receiving messages is not selected for messages dispatched later"() {
+        given:
+        def message1 = unicast()
+        def message2 = unicast()
+        def endpoint1 = queue.newEndpoint()
+        def endpoint2 = queue.newEndpoint()
+
+        when:
+        def messages1 = []
+        endpoint1.poll(messages1, 0)
+        endpoint1.poll(messages1, 1000)
+        queue.dispatch(message1)
+        queue.dispatch(message2)
+        def messages2 = []
+        endpoint2.take(messages2)
+
+        then:
+        messages1.empty
+        messages2 == [message1, message2]
+    }
+
     def "forwards queued broadcast messages to all endpoints"() {
         given:
         def message1 = unicast()
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.remote.internal.inet
+
+import org.gradle.internal.serialize.SerializerSpec
+
+class LocalAddressSerializerTest extends SerializerSpec {
+    def tcpAddress = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)])
+
+    def "serializes a TCP address"() {
+        expect:
+        serialize(tcpAddress, new LocalAddressSerializer()) == tcpAddress
+    }
+
+    def "serializes a Unix domain socket address"() {
+        def address = new UnixSocketAddress(new File("/tmp/gradle-test.sock").absoluteFile, tcpAddress)
+
+        expect:
+        serialize(address, new LocalAddressSerializer()) == address
+    }
+}
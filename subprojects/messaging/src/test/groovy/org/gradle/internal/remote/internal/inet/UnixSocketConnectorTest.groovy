@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.remote.internal.inet
+
+import org.gradle.api.Action
+import org.gradle.internal.id.UUIDGenerator
+import org.gradle.internal.remote.internal.ConnectCompletion
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.Serializers
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.IgnoreIf
+import spock.lang.Timeout
+
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermissions
+
+@Timeout(60)
+@IgnoreIf({ !new UnixDomainSockets().available })
+class UnixSocketConnectorTest extends ConcurrentSpec {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final def serializer = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER)
+    final def idGenerator = new UUIDGenerator()
+    final def sockets = new UnixDomainSockets(new File("/tmp"))
+    final def tcpOutgoingConnector = new TcpOutgoingConnector()
+    final def outgoingConnector = new UnixSocketOutgoingConnector(tcpOutgoingConnector, sockets)
+    final def incomingConnector = new UnixSocketIncomingConnector(new TcpIncomingConnector(executorFactory, new InetAddressFactory(), idGenerator), executorFactory, sockets, idGenerator)
+
+    def "acceptors listen on Unix domain sockets only when requested"() {
+        expect:
+        !sockets.enabled
+
+        when:
+        System.setProperty(UnixDomainSockets.ENABLED_PROPERTY, "true")
+
+        then:
+        sockets.enabled
+
+        cleanup:
+        System.clearProperty(UnixDomainSockets.ENABLED_PROPERTY)
+    }
+
+    def "local acceptor listens on a Unix domain socket"() {
+        when:
+        def acceptor = incomingConnector.accept(Mock(Action), false)
+
+        then:
+        acceptor.address instanceof UnixSocketAddress
+        acceptor.address.socketFile.exists()
+
+        when:
+        acceptor.stop()
+
+        then:
+        !acceptor.address.socketFile.exists()
+    }
+
+    def "socket file is created in a directory that only the current user can access"() {
+        when:
+        def acceptor = incomingConnector.accept(Mock(Action), false)
+        def socketDir = acceptor.address.socketFile.parentFile
+
+        then:
+        socketDir.name.startsWith("gradle-sock-")
+        PosixFilePermissions.toString(Files.getPosixFilePermissions(socketDir.toPath())) == "rwx------"
+        new File(socketDir, "lock").file
+
+        cleanup:
+        acceptor?.stop()
+    }
+
+    def "removes socket directories left behind by processes that are no longer running"() {
+        def staleDir = tmpDir.createDir("gradle-sock-stale")
+        staleDir.createFile("lock")
+        staleDir.createFile("stale.sock")
+        def pendingDir = tmpDir.createDir("gradle-sock-pending")
+        def otherDir = tmpDir.createDir("other")
+        otherDir.createFile("lock")
+
+        when:
+        new UnixDomainSockets(tmpDir.testDirectory).newSocketFile("test.sock")
+
+        then:
+        !staleDir.exists()
+        pendingDir.exists()
+        otherDir.exists()
+    }
+
+    def "does not remove socket directories of processes that are still running"() {
+        def dir = tmpDir.testDirectory
+        def liveSockets = new UnixDomainSockets(dir)
+        liveSockets.newSocketFile("test.sock")
+        def liveDirs = dir.listFiles().findAll { it.name.startsWith("gradle-sock-") }
+
+        when:
+        new UnixDomainSockets(dir).newSocketFile("test.sock")
+
+        then:
+        liveDirs.size() == 1
+        liveDirs.every { it.exists() }
+    }
+
+    def "remote acceptor listens on TCP only"() {
+        when:
+        def acceptor = incomingConnector.accept(Mock(Action), true)
+
+        then:
+        acceptor.address instanceof MultiChoiceAddress
+
+        cleanup:
+        acceptor?.stop()
+    }
+
+    def "client can receive messages from server over Unix domain socket"() {
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def connection = event.create(serializer)
+            connection.dispatch("hello")
+            connection.stop()
+            instant.closed
+        } as Action, false)
+
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.closed
+
+        then:
+        connection.receive() == "hello"
+        connection.receive() == null
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    def "client that cannot use Unix domain sockets connects over TCP"() {
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        def connection = tcpOutgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.connected
+
+        then:
+        1 * action.execute(!null) >> { instant.connected }
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
+    def "client falls back to TCP when Unix domain socket has been removed"() {
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        acceptor.address.socketFile.delete()
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.connected
+
+        then:
+        1 * action.execute(!null) >> { instant.connected }
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+}
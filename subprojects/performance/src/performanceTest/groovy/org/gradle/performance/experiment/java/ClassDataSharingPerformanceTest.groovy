@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.performance.experiment.java
+
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.categories.PerformanceExperiment
+import org.gradle.performance.fixture.BuildExperimentInvocationInfo
+import org.gradle.performance.fixture.BuildExperimentListener
+import org.gradle.performance.fixture.BuildExperimentListenerAdapter
+import org.gradle.performance.fixture.GradleBuildExperimentSpec
+import org.gradle.performance.measure.MeasuredOperation
+import org.junit.experimental.categories.Category
+import spock.lang.Unroll
+
+import static org.gradle.performance.generator.JavaTestProject.LARGE_JAVA_MULTI_PROJECT
+import static org.gradle.performance.generator.JavaTestProject.SMALL_JAVA_MULTI_PROJECT
+
+@Category(PerformanceExperiment)
+class ClassDataSharingPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    @Unroll
+    def "help on #testProject with a new daemon for each build"() {
+        when:
+        runner.buildExperimentListener = new BuildExperimentListenerAdapter() {
+            @Override
+            void afterInvocation(BuildExperimentInvocationInfo invocationInfo, MeasuredOperation operation, BuildExperimentListener.MeasurementCallback measurementCallback) {
+                // The daemon writes its archive when it stops
+                def gradleHome = ((GradleBuildExperimentSpec) invocationInfo.buildExperimentSpec).invocation.gradleDistribution.gradleHomeDir
+                new ProcessBuilder(new File(gradleHome, "bin/gradle").absolutePath, "--stop", "--gradle-user-home", invocationInfo.gradleUserHome.absolutePath)
+                    .directory(invocationInfo.projectDir)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(invocationInfo.buildLog))
+                    .redirectErrorStream(true)
+                    .start()
+                    .waitFor()
+            }
+        }
+        runner.testGroup = "class-data sharing"
+        runner.buildSpec {
+            warmUpCount = 2
+            invocationCount = 10
+            projectName(testProject.projectName).displayName("with archives").invocation {
+                tasksToRun("help").useDaemon().args("-Dorg.gradle.cds=true").gradleOpts("-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}")
+            }
+        }
+        runner.baseline {
+            warmUpCount = 2
+            invocationCount = 10
+            projectName(testProject.projectName).displayName("without archives").invocation {
+                tasksToRun("help").useDaemon().args("-Dorg.gradle.cds=false").gradleOpts("-Xms${testProject.daemonMemory}", "-Xmx${testProject.daemonMemory}")
+            }
+        }
+
+        then:
+        runner.run()
+
+        where:
+        testProject << [SMALL_JAVA_MULTI_PROJECT, LARGE_JAVA_MULTI_PROJECT]
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares lookups and inserts in a {@link BTreePersistentIndexedCache} that uses a memory mapped file with one that uses a {@link java.io.RandomAccessFile}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BTreePersistentIndexedCacheBenchmark {
+    @Param({"file", "mapped"})
+    String store;
+
+    @Param({"10000", "100000"})
+    int entries;
+
+    private File cacheFile;
+    private BTreePersistentIndexedCache<String, byte[]> cache;
+    private final Random random = new Random(1234L);
+    private final byte[] value = new byte[256];
+    private int nextKey;
+
+    @Setup(Level.Trial)
+    public void createCache() throws IOException {
+        System.setProperty(FileBackedBlockStore.MEMORY_MAPPED_PROPERTY, String.valueOf(store.equals("mapped")));
+        cacheFile = File.createTempFile("btree", ".bin");
+        cacheFile.delete();
+        cache = new BTreePersistentIndexedCache<String, byte[]>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER);
+        random.nextBytes(value);
+        for (nextKey = 0; nextKey < entries; nextKey++) {
+            cache.put(key(nextKey), value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCache() {
+        cache.close();
+        cacheFile.delete();
+        System.clearProperty(FileBackedBlockStore.MEMORY_MAPPED_PROPERTY);
+    }
+
+    @Benchmark
+    public byte[] lookup() {
+        return cache.get(key(random.nextInt(entries)));
+    }
+
+    @Benchmark
+    public void insert() {
+        cache.put(key(nextKey++), value);
+    }
+
+    private static String key(int index) {
+        return "key-" + index;
+    }
+}
@@ -24,6 +24,12 @@ public interface CrossProcessCacheAccess {
      */
     <T> T withFileLock(Factory<T> factory);
 
+    /**
+     * Runs the given action, which only reads the cache, while this process is holding a file lock on the cache. Depending on the lock options,
+     * the lock may be a shared lock, in which case other processes may read the cache at the same time. Multiple threads may run concurrently.
+     */
+    <T> T withSharedFileLock(Factory<T> factory);
+
     /**
      * Acquires an exclusive file lock on the cache. The caller is responsible for running the resulting action to release the lock.
      * The lock may be released by any thread.
@@ -21,6 +21,11 @@ public interface LockOptions {
 
     boolean isUseCrossVersionImplementation();
 
+    /**
+     * Whether processes that only read the cache can hold the lock at the same time. Only applies to caches that are locked on demand.
+     */
+    boolean isUseSharedReads();
+
     /**
      * Creates a copy of these options with the given mode.
      */
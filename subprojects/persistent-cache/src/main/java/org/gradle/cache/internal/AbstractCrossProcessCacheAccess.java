@@ -17,6 +17,7 @@
 package org.gradle.cache.internal;
 
 import org.gradle.cache.CrossProcessCacheAccess;
+import org.gradle.internal.Factory;
 
 import java.io.Closeable;
 
@@ -31,4 +32,9 @@ public abstract class AbstractCrossProcessCacheAccess implements CrossProcessCac
      */
     @Override
     public abstract void close();
+
+    @Override
+    public <T> T withSharedFileLock(Factory<T> factory) {
+        return withFileLock(factory);
+    }
 }
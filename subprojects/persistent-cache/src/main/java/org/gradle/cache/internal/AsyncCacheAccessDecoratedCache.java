@@ -49,6 +49,18 @@ public class AsyncCacheAccessDecoratedCache<K, V> implements MultiProcessSafeAsy
         });
     }
 
+    @Nullable
+    @Override
+    public V getIfCached(K key) {
+        // Entries are only available by reading the backing store
+        return null;
+    }
+
+    @Override
+    public boolean canGetIfCached() {
+        return false;
+    }
+
     @Override
     public V get(K key, Transformer<? extends V, ? super K> producer, Runnable completion) {
         throw new UnsupportedOperationException();
@@ -21,6 +21,7 @@ import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 
 import java.io.Closeable;
+import java.util.Collection;
 
 public interface CacheCoordinator extends CacheAccess, Closeable {
     void open();
@@ -31,4 +32,15 @@ public interface CacheCoordinator extends CacheAccess, Closeable {
     void close();
 
     <K, V> PersistentIndexedCache<K, V> newCache(PersistentIndexedCacheParameters<K, V> parameters);
+
+    /**
+     * Returns the names of the indexed caches that have been written to since they were last compacted.
+     */
+    Collection<String> getModifiedCacheNames();
+
+    /**
+     * Compacts the given indexed caches when they have become fragmented, replacing each file while holding an exclusive lock on the cache.
+     * Waits until no other thread is using the cache. Does nothing when the cache has been closed.
+     */
+    void compactCaches(Collection<String> cacheNames);
 }
@@ -32,4 +32,10 @@ public interface CacheFactory {
      * Opens a cache with the given options. The caller must close the cache when finished with it.
      */
     PersistentCache open(File cacheDir, String displayName, @Nullable CacheValidator cacheValidator, Map<String, ?> properties, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions, @Nullable Action<? super PersistentCache> initializer, @Nullable CleanupAction cleanup) throws CacheOpenException;
+
+    /**
+     * Compacts the fragmented indexed caches that have been written to since they were last compacted, including those of caches
+     * that have since been closed. This rewrites the cache files, so should be called when the process is otherwise idle.
+     */
+    void compactCaches();
 }
@@ -44,6 +44,18 @@ public class CrossProcessSynchronizingCache<K, V> implements MultiProcessSafePer
     @Nullable
     @Override
     public V get(final K key) {
+        if (target.canGetIfCached()) {
+            // Most entries can be served from memory, which only needs to check that no other process has changed the cache
+            V value = cacheAccess.withSharedFileLock(new Factory<V>() {
+                @Override
+                public V create() {
+                    return target.getIfCached(key);
+                }
+            });
+            if (value != null) {
+                return value;
+            }
+        }
         return cacheAccess.withFileLock(new Factory<V>() {
             @Override
             public V create() {
@@ -37,6 +37,7 @@ import org.gradle.internal.SystemProperties;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.serialize.BaseSerializerFactory;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.util.CollectionUtils;
 import org.slf4j.Logger;
@@ -73,6 +74,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private final AbstractCrossProcessCacheAccess crossProcessCacheAccess;
     private final CacheAccessOperationsStack operations;
 
+    private final Lock compactionLock = new ReentrantLock();
     private ManagedExecutor cacheUpdateExecutor;
     private CacheAccessWorker cacheAccessWorker;
     private final Lock stateLock = new ReentrantLock(); // protects the following state
@@ -80,6 +82,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
 
     private boolean open;
     private Thread owner;
+    private Thread ownerAcquiringFileLock;
     private FileLock fileLock;
     private FileLock.State stateAtOpen;
     private Runnable fileLockHeldByOwner;
@@ -152,7 +155,17 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     @Override
-    public synchronized void close() {
+    public void close() {
+        // Wait for any compaction to complete, without holding the monitor that the cache users may need to finish their work
+        compactionLock.lock();
+        try {
+            doClose();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private synchronized void doClose() {
         if (cacheAccessWorker != null) {
             cacheAccessWorker.stop();
             cacheAccessWorker = null;
@@ -182,12 +195,86 @@ public class DefaultCacheAccess implements CacheCoordinator {
                 LOG.debug("Cache {} was closed {} times.", cacheDisplayName, cacheClosedCount);
             }
         } finally {
+            open = false;
             owner = null;
             fileLockHeldByOwner = null;
             stateLock.unlock();
         }
     }
 
+    @Override
+    public Collection<String> getModifiedCacheNames() {
+        stateLock.lock();
+        try {
+            List<String> modified = new ArrayList<String>();
+            for (IndexedCacheEntry<?, ?> entry : caches.values()) {
+                if (entry.getPersistentCache().isModified()) {
+                    modified.add(entry.getParameters().getCacheName());
+                }
+            }
+            return modified;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    @Override
+    public void compactCaches(final Collection<String> cacheNames) {
+        compactionLock.lock();
+        try {
+            stateLock.lock();
+            try {
+                if (!open) {
+                    return;
+                }
+            } finally {
+                stateLock.unlock();
+            }
+            useCache(new Runnable() {
+                @Override
+                public void run() {
+                    for (String cacheName : cacheNames) {
+                        compactCache(cacheName);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            LOG.debug("Cache {} could not be compacted", cacheDisplayName, e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    private void compactCache(String cacheName) {
+        IndexedCacheEntry<?, ?> entry;
+        stateLock.lock();
+        try {
+            entry = caches.get(cacheName);
+        } finally {
+            stateLock.unlock();
+        }
+        if (entry != null) {
+            entry.getPersistentCache().maybeCompact();
+            return;
+        }
+        // The cache is not in use, so compact the file without deserializing its entries
+        final File cacheFile = new File(baseDir, cacheName + ".bin");
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        fileAccess.writeFile(new Runnable() {
+            @Override
+            public void run() {
+                BTreePersistentIndexedCache<byte[], byte[]> cache = doCreateCache(cacheFile, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER);
+                try {
+                    cache.maybeCompact();
+                } finally {
+                    cache.close();
+                }
+            }
+        });
+    }
+
     @Override
     public <T> T withFileLock(Factory<? extends T> action) {
         return crossProcessCacheAccess.withFileLock(action);
@@ -290,7 +377,8 @@ public class DefaultCacheAccess implements CacheCoordinator {
                     }
                 };
 
-                MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
+                DefaultMultiProcessSafePersistentIndexedCache<K, V> persistentCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
+                MultiProcessSafePersistentIndexedCache<K, V> indexedCache = persistentCache;
                 CacheDecorator decorator = parameters.getCacheDecorator();
                 if (decorator != null) {
                     indexedCache = decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), indexedCache, crossProcessCacheAccess, getCacheAccessWorker());
@@ -298,7 +386,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
                         useCache(NO_OP);
                     }
                 }
-                entry = new IndexedCacheEntry<K, V>(parameters, indexedCache);
+                entry = new IndexedCacheEntry<K, V>(parameters, indexedCache, persistentCache);
                 caches.put(parameters.getCacheName(), entry);
                 if (fileLock != null) {
                     indexedCache.afterLockAcquire(stateAtOpen);
@@ -323,49 +411,73 @@ public class DefaultCacheAccess implements CacheCoordinator {
         assert this.fileLock == null;
         this.fileLock = fileLock;
         this.stateAtOpen = fileLock.getState();
-        takeOwnershipNow();
-        try {
-            for (IndexedCacheEntry<?, ?> entry : caches.values()) {
-                entry.getCache().afterLockAcquire(stateAtOpen);
+        runLockAction(new Runnable() {
+            @Override
+            public void run() {
+                for (IndexedCacheEntry<?, ?> entry : caches.values()) {
+                    entry.getCache().afterLockAcquire(stateAtOpen);
+                }
             }
-        } finally {
-            releaseOwnership();
-        }
+        });
     }
 
     /**
      * Called just before the file lock is about to be released.
      */
-    private void beforeLockRelease(FileLock fileLock) {
+    private void beforeLockRelease(final FileLock fileLock) {
         assert this.fileLock == fileLock;
         try {
             cacheClosedCount++;
-            takeOwnershipNow();
-            try {
-                // Notify caches that lock is to be released. The caches may do work on the cache files during this
-                for (IndexedCacheEntry<?, ?> entry : caches.values()) {
-                    entry.getCache().finishWork();
-                }
+            runLockAction(new Runnable() {
+                @Override
+                public void run() {
+                    // Notify caches that lock is to be released. The caches may do work on the cache files during this
+                    for (IndexedCacheEntry<?, ?> entry : caches.values()) {
+                        entry.getCache().finishWork();
+                    }
 
-                // Snapshot the state and notify the caches
-                FileLock.State state = fileLock.getState();
-                for (IndexedCacheEntry<?, ?> entry : caches.values()) {
-                    entry.getCache().beforeLockRelease(state);
+                    // Snapshot the state and notify the caches
+                    FileLock.State state = fileLock.getState();
+                    for (IndexedCacheEntry<?, ?> entry : caches.values()) {
+                        entry.getCache().beforeLockRelease(state);
+                    }
                 }
-            } finally {
-                releaseOwnership();
-            }
+            });
         } finally {
             this.fileLock = null;
             this.stateAtOpen = null;
         }
     }
 
+    /**
+     * Runs an action when the file lock is acquired or released. Takes ownership of the cache while doing so, unless the
+     * owner is blocked waiting for the file lock. This happens when a shared lock is replaced with an exclusive lock by
+     * another thread, and the owner is not using the cache in the meantime.
+     * Must be called while holding the lock.
+     */
+    private void runLockAction(Runnable action) {
+        if (owner != null && owner != Thread.currentThread() && owner == ownerAcquiringFileLock) {
+            action.run();
+            return;
+        }
+        takeOwnershipNow();
+        try {
+            action.run();
+        } finally {
+            releaseOwnership();
+        }
+    }
+
     private boolean onStartWork() {
         if (fileLockHeldByOwner != null) {
             return false;
         }
-        fileLockHeldByOwner = crossProcessCacheAccess.acquireFileLock();
+        ownerAcquiringFileLock = owner;
+        try {
+            fileLockHeldByOwner = crossProcessCacheAccess.acquireFileLock();
+        } finally {
+            ownerAcquiringFileLock = null;
+        }
         return true;
     }
 
@@ -422,17 +534,26 @@ public class DefaultCacheAccess implements CacheCoordinator {
 
     private static class IndexedCacheEntry<K, V> {
         private final MultiProcessSafePersistentIndexedCache<K, V> cache;
+        private final DefaultMultiProcessSafePersistentIndexedCache<K, V> persistentCache;
         private final PersistentIndexedCacheParameters<K, V> parameters;
 
-        IndexedCacheEntry(PersistentIndexedCacheParameters<K, V> parameters, MultiProcessSafePersistentIndexedCache<K, V> cache) {
+        IndexedCacheEntry(PersistentIndexedCacheParameters<K, V> parameters, MultiProcessSafePersistentIndexedCache<K, V> cache, DefaultMultiProcessSafePersistentIndexedCache<K, V> persistentCache) {
             this.parameters = parameters;
             this.cache = cache;
+            this.persistentCache = persistentCache;
         }
 
         public MultiProcessSafePersistentIndexedCache<K, V> getCache() {
             return cache;
         }
 
+        /**
+         * Returns the undecorated cache, which reads and writes the cache file.
+         */
+        public DefaultMultiProcessSafePersistentIndexedCache<K, V> getPersistentCache() {
+            return persistentCache;
+        }
+
         public PersistentIndexedCacheParameters<K, V> getParameters() {
             return parameters;
         }
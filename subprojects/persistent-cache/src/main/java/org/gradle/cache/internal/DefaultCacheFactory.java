@@ -30,20 +30,27 @@ import org.gradle.internal.FileUtils;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.serialize.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.File;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class DefaultCacheFactory implements CacheFactory, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCacheFactory.class);
     private final Map<File, DirCacheReference> dirCaches = new HashMap<File, DirCacheReference>();
+    private final Map<File, PendingCompaction> pendingCompactions = new HashMap<File, PendingCompaction>();
     private final FileLockManager lockManager;
     private final ExecutorFactory executorFactory;
     private final Lock lock = new ReentrantLock();
@@ -69,12 +76,42 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
         }
     }
 
+    @Override
+    public void compactCaches() {
+        Map<ReferencablePersistentCache, Collection<String>> openCaches = new LinkedHashMap<ReferencablePersistentCache, Collection<String>>();
+        lock.lock();
+        try {
+            for (Map.Entry<File, DirCacheReference> entry : dirCaches.entrySet()) {
+                DirCacheReference reference = entry.getValue();
+                Set<String> cacheNames = new LinkedHashSet<String>(reference.getModifiedCacheNames());
+                PendingCompaction pending = pendingCompactions.remove(entry.getKey());
+                if (pending != null) {
+                    cacheNames.addAll(pending.cacheNames);
+                }
+                if (!cacheNames.isEmpty()) {
+                    openCaches.put(reference.cache, cacheNames);
+                }
+            }
+            // These caches are not open, so compact them while holding the lock to prevent them from being opened in the meantime
+            for (PendingCompaction pending : pendingCompactions.values()) {
+                pending.compact();
+            }
+            pendingCompactions.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Map.Entry<ReferencablePersistentCache, Collection<String>> entry : openCaches.entrySet()) {
+            entry.getKey().compactCaches(entry.getValue());
+        }
+    }
+
     public void close() {
         lock.lock();
         try {
             CompositeStoppable.stoppable(dirCaches.values()).stop();
         } finally {
             dirCaches.clear();
+            pendingCompactions.clear();
             lock.unlock();
         }
     }
@@ -90,7 +127,7 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
                 cache = new DefaultPersistentDirectoryStore(canonicalDir, displayName, lockTarget, lockOptions, lockManager, executorFactory);
             }
             cache.open();
-            dirCacheReference = new DirCacheReference(cache, properties, lockTarget, lockOptions);
+            dirCacheReference = new DirCacheReference(cache, canonicalDir, displayName, properties, lockTarget, lockOptions);
             dirCaches.put(canonicalDir, dirCacheReference);
         } else {
             if (!lockOptions.equals(dirCacheReference.lockOptions)) {
@@ -107,14 +144,18 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
     }
 
     private class DirCacheReference implements Closeable {
+        private final File dir;
+        private final String displayName;
         private final Map<String, ?> properties;
         private final CacheBuilder.LockTarget lockTarget;
         private final LockOptions lockOptions;
         private final ReferencablePersistentCache cache;
         private final Set<ReferenceTrackingCache> references = new HashSet<ReferenceTrackingCache>();
 
-        DirCacheReference(ReferencablePersistentCache cache, Map<String, ?> properties, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions) {
+        DirCacheReference(ReferencablePersistentCache cache, File dir, @Nullable String displayName, Map<String, ?> properties, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions) {
             this.cache = cache;
+            this.dir = dir;
+            this.displayName = displayName;
             this.properties = properties;
             this.lockTarget = lockTarget;
             this.lockOptions = lockOptions;
@@ -140,7 +181,55 @@ public class DefaultCacheFactory implements CacheFactory, Closeable {
             onClose(cache);
             dirCaches.values().remove(this);
             references.clear();
+            Collection<String> modifiedCacheNames = getModifiedCacheNames();
             cache.close();
+            if (!modifiedCacheNames.isEmpty()) {
+                // Compact the caches later, when the process is idle
+                PendingCompaction pending = pendingCompactions.get(dir);
+                if (pending == null) {
+                    pending = new PendingCompaction(dir, displayName, lockTarget, lockOptions);
+                    pendingCompactions.put(dir, pending);
+                }
+                pending.cacheNames.addAll(modifiedCacheNames);
+            }
+        }
+
+        Collection<String> getModifiedCacheNames() {
+            // Caches that are only ever locked in shared mode cannot be rewritten
+            if (lockOptions.getMode() == FileLockManager.LockMode.Shared) {
+                return Collections.emptyList();
+            }
+            return cache.getModifiedCacheNames();
+        }
+    }
+
+    private class PendingCompaction {
+        private final File dir;
+        private final String displayName;
+        private final CacheBuilder.LockTarget lockTarget;
+        private final LockOptions lockOptions;
+        private final Set<String> cacheNames = new LinkedHashSet<String>();
+
+        PendingCompaction(File dir, @Nullable String displayName, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions) {
+            this.dir = dir;
+            this.displayName = displayName;
+            this.lockTarget = lockTarget;
+            this.lockOptions = lockOptions;
+        }
+
+        void compact() {
+            DefaultPersistentDirectoryStore store = new DefaultPersistentDirectoryStore(dir, displayName, lockTarget, lockOptions, lockManager, executorFactory);
+            try {
+                store.open();
+            } catch (CacheOpenException e) {
+                LOGGER.debug("Could not open {} to compact it.", store, e);
+                return;
+            }
+            try {
+                store.compactCaches(cacheNames);
+            } finally {
+                store.close();
+            }
         }
     }
 
@@ -37,6 +37,7 @@ import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.id.RandomLongIdGenerator;
 import org.gradle.internal.time.CountdownTimer;
 import org.gradle.internal.time.Time;
+import org.gradle.internal.time.Timer;
 import org.gradle.util.GFileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,7 +53,7 @@ import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 /**
  * Uses file system locks on a lock file per target file.
  */
-public class DefaultFileLockManager implements FileLockManager {
+public class DefaultFileLockManager implements FileLockManager, Stoppable {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultFileLockManager.class);
     public static final int DEFAULT_LOCK_TIMEOUT = 60000;
 
@@ -61,6 +62,7 @@ public class DefaultFileLockManager implements FileLockManager {
     private final int lockTimeoutMs;
     private final IdGenerator<Long> generator;
     private final FileLockContentionHandler fileLockContentionHandler;
+    private final FileLockStatistics statistics = new FileLockStatistics();
     private final int shortTimeoutMs = 10000;
 
     public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, FileLockContentionHandler fileLockContentionHandler) {
@@ -79,6 +81,25 @@ public class DefaultFileLockManager implements FileLockManager {
         this.generator = generator;
     }
 
+    /**
+     * Returns statistics about how long the locks created by this manager had to wait for other processes.
+     */
+    public FileLockStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Reports the lock statistics of this process. Contention is reported at info level, so that it shows up in the daemon log.
+     */
+    @Override
+    public void stop() {
+        if (statistics.getContendedLocks() > 0) {
+            LOGGER.info("File lock statistics: {}.", statistics);
+        } else {
+            LOGGER.debug("File lock statistics: {}.", statistics);
+        }
+    }
+
     public FileLock lock(File target, LockOptions options, String targetDisplayName) throws LockTimeoutException {
         return lock(target, options, targetDisplayName, "");
     }
@@ -147,11 +168,15 @@ public class DefaultFileLockManager implements FileLockManager {
 
             LockStateSerializer stateProtocol = options.isUseCrossVersionImplementation() ? new Version1LockStateSerializer() : new DefaultLockStateSerializer();
             lockFileAccess = new LockFileAccess(lockFile, new LockStateAccess(stateProtocol));
+            Runnable whenRequested = whenContended == null ? null : new CountingRequestAction(whenContended);
             try {
-                if (whenContended != null) {
-                    fileLockContentionHandler.start(lockId, whenContended);
+                if (whenRequested != null && options.getMode() == LockMode.Exclusive) {
+                    fileLockContentionHandler.start(lockId, whenRequested);
+                }
+                lockState = lock(options.getMode(), whenRequested != null);
+                if (whenRequested != null && options.getMode() == LockMode.Shared) {
+                    startHandlingRequestsForSharedLock(whenRequested);
                 }
-                lockState = lock(options.getMode());
             } catch (Throwable t) {
                 // Also releases any locks
                 lockFileAccess.close();
@@ -161,6 +186,42 @@ public class DefaultFileLockManager implements FileLockManager {
             this.mode = lock.isShared() ? LockMode.Shared : LockMode.Exclusive;
         }
 
+        private void startHandlingRequestsForSharedLock(Runnable whenRequested) {
+            if (!lock.isShared()) {
+                // Got an exclusive lock, which advertises its port
+                fileLockContentionHandler.start(lockId, whenRequested);
+                return;
+            }
+            fileLockContentionHandler.startPolling(lockId, whenRequested, new Factory<Boolean>() {
+                @Override
+                public Boolean create() {
+                    return isWriterWaiting();
+                }
+            });
+        }
+
+        /**
+         * Returns true when another process is waiting to acquire an exclusive lock.
+         */
+        private boolean isWriterWaiting() {
+            LockFileAccess access = lockFileAccess;
+            if (access == null) {
+                return false;
+            }
+            try {
+                java.nio.channels.FileLock waitingWriterLock = access.tryLockWaitingWriter(true);
+                if (waitingWriterLock == null) {
+                    return true;
+                }
+                waitingWriterLock.release();
+                return false;
+            } catch (IOException e) {
+                // Most likely the lock has been closed concurrently
+                LOGGER.debug("Could not check for waiting writers on {}.", displayName, e);
+                return false;
+            }
+        }
+
         public boolean isLockFile(File file) {
             return file.equals(lockFile);
         }
@@ -274,11 +335,11 @@ public class DefaultFileLockManager implements FileLockManager {
             return mode;
         }
 
-        private LockState lock(LockMode lockMode) throws Throwable {
+        private LockState lock(LockMode lockMode, boolean yieldToWriters) throws Throwable {
             LOGGER.debug("Waiting to acquire {} lock on {}.", lockMode.toString().toLowerCase(), displayName);
 
             // Lock the state region, with the requested mode
-            java.nio.channels.FileLock stateRegionLock = lockStateRegion(lockMode);
+            java.nio.channels.FileLock stateRegionLock = lockStateRegion(lockMode, yieldToWriters);
             if (stateRegionLock == null) {
                 LockInfo lockInfo = readInformationRegion(new ExponentialBackoff(shortTimeoutMs));
                 throw new LockTimeoutException(displayName, lockInfo.pid, metaDataProvider.getProcessIdentifier(), lockInfo.operation, operationDisplayName, lockFile);
@@ -332,37 +393,84 @@ public class DefaultFileLockManager implements FileLockManager {
             return out;
         }
 
-        private java.nio.channels.FileLock lockStateRegion(final LockMode lockMode) throws IOException, InterruptedException {
+        /**
+         * Locks the state region. A process that waits for an exclusive lock marks itself as a waiting writer, so that the holders of
+         * shared locks can notice it. When {@code yieldToWriters} is true, a shared lock is not acquired while a writer is waiting,
+         * so that a steady stream of readers cannot starve the writer.
+         */
+        private java.nio.channels.FileLock lockStateRegion(final LockMode lockMode, final boolean yieldToWriters) throws IOException, InterruptedException {
             final ExponentialBackoff backoff = new ExponentialBackoff(lockTimeoutMs);
-            return backoff.retryUntil(new IOQuery<java.nio.channels.FileLock>() {
-                private long lastPingTime;
-                private int lastLockHolderPort;
-
-                @Override
-                public java.nio.channels.FileLock run() throws IOException, InterruptedException {
-                    java.nio.channels.FileLock fileLock = lockFileAccess.tryLockState(lockMode == LockMode.Shared);
-                    if (fileLock != null) {
-                        return fileLock;
+            Timer timer = Time.startTimer();
+            StateRegionQuery query = new StateRegionQuery(lockMode, yieldToWriters, backoff);
+            try {
+                java.nio.channels.FileLock fileLock = backoff.retryUntil(query);
+                if (fileLock != null) {
+                    long waitMillis = timer.getElapsedMillis();
+                    statistics.lockAcquired(fileLock.isShared(), query.attempts > 1, waitMillis);
+                    if (query.attempts > 1) {
+                        LOGGER.debug("Waited {} ms to acquire {} lock on {}.", waitMillis, lockMode.toString().toLowerCase(), displayName);
                     }
-                    if (port != -1) { //we don't like the assumption about the port very much
-                        LockInfo lockInfo = readInformationRegion(backoff);
-                        if (lockInfo.port != -1) {
-                            if (lockInfo.port != lastLockHolderPort) {
-                                backoff.restartTimer();
-                                lastLockHolderPort = lockInfo.port;
-                                lastPingTime = 0;
-                            }
-                            if (fileLockContentionHandler.maybePingOwner(lockInfo.port, lockInfo.lockId, displayName, backoff.timer.getElapsedMillis() - lastPingTime)) {
-                                lastPingTime = backoff.timer.getElapsedMillis();
-                                LOGGER.debug("The file lock is held by a different Gradle process (pid: {}, lockId: {}). Pinged owner at port {}", lockInfo.pid, lockInfo.lockId, lockInfo.port);
-                            }
-                        } else {
-                            LOGGER.debug("The file lock is held by a different Gradle process. I was unable to read on which port the owner listens for lock access requests.");
+                }
+                return fileLock;
+            } finally {
+                query.stopWaiting();
+            }
+        }
+
+        private class StateRegionQuery implements IOQuery<java.nio.channels.FileLock> {
+            private final LockMode lockMode;
+            private final boolean yieldToWriters;
+            private final ExponentialBackoff backoff;
+            private long lastPingTime;
+            private int lastLockHolderPort;
+            private int attempts;
+            private java.nio.channels.FileLock waitingWriterLock;
+
+            StateRegionQuery(LockMode lockMode, boolean yieldToWriters, ExponentialBackoff backoff) {
+                this.lockMode = lockMode;
+                this.yieldToWriters = yieldToWriters;
+                this.backoff = backoff;
+            }
+
+            @Override
+            public java.nio.channels.FileLock run() throws IOException, InterruptedException {
+                attempts++;
+                if (lockMode == LockMode.Shared && yieldToWriters && isWriterWaiting()) {
+                    return null;
+                }
+                java.nio.channels.FileLock fileLock = lockFileAccess.tryLockState(lockMode == LockMode.Shared);
+                if (fileLock != null) {
+                    return fileLock;
+                }
+                if (lockMode == LockMode.Exclusive && waitingWriterLock == null) {
+                    // May fail when another writer is already waiting, which signals the same thing
+                    waitingWriterLock = lockFileAccess.tryLockWaitingWriter(false);
+                }
+                if (port != -1) { //we don't like the assumption about the port very much
+                    LockInfo lockInfo = readInformationRegion(backoff);
+                    if (lockInfo.port != -1) {
+                        if (lockInfo.port != lastLockHolderPort) {
+                            backoff.restartTimer();
+                            lastLockHolderPort = lockInfo.port;
+                            lastPingTime = 0;
+                        }
+                        if (fileLockContentionHandler.maybePingOwner(lockInfo.port, lockInfo.lockId, displayName, backoff.timer.getElapsedMillis() - lastPingTime)) {
+                            lastPingTime = backoff.timer.getElapsedMillis();
+                            LOGGER.debug("The file lock is held by a different Gradle process (pid: {}, lockId: {}). Pinged owner at port {}", lockInfo.pid, lockInfo.lockId, lockInfo.port);
                         }
+                    } else {
+                        LOGGER.debug("The file lock is held by a different Gradle process. I was unable to read on which port the owner listens for lock access requests.");
                     }
-                    return null;
                 }
-            });
+                return null;
+            }
+
+            void stopWaiting() throws IOException {
+                if (waitingWriterLock != null) {
+                    waitingWriterLock.release();
+                    waitingWriterLock = null;
+                }
+            }
         }
 
         private java.nio.channels.FileLock lockInformationRegion(final LockMode lockMode, ExponentialBackoff backoff) throws IOException, InterruptedException {
@@ -375,6 +483,20 @@ public class DefaultFileLockManager implements FileLockManager {
         }
     }
 
+    private class CountingRequestAction implements Runnable {
+        private final Runnable action;
+
+        CountingRequestAction(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            statistics.releaseRequested();
+            action.run();
+        }
+    }
+
     private interface IOQuery<T> {
         T run() throws IOException, InterruptedException;
     }
@@ -27,6 +27,7 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     private final FileAccess fileAccess;
     private final Factory<BTreePersistentIndexedCache<K, V>> factory;
     private BTreePersistentIndexedCache<K, V> cache;
+    private boolean modified;
 
     public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
         this.factory = factory;
@@ -72,6 +73,7 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
                 cache.put(key, value);
             }
         });
+        modified = true;
     }
 
     @Override
@@ -84,6 +86,31 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
                 cache.remove(key);
             }
         });
+        modified = true;
+    }
+
+    /**
+     * Compacts the cache file when it has been modified through this cache and has become fragmented. Must be called while holding
+     * an exclusive lock on the cache file.
+     */
+    public void maybeCompact() {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        final BTreePersistentIndexedCache<K, V> cache = getCache();
+        fileAccess.writeFile(new Runnable() {
+            public void run() {
+                cache.maybeCompact();
+            }
+        });
+    }
+
+    /**
+     * Returns true when entries have been written to or removed from this cache since it was last compacted.
+     */
+    public boolean isModified() {
+        return modified;
     }
 
     @Override
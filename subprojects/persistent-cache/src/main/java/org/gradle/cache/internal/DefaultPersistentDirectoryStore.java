@@ -30,6 +30,7 @@ import org.gradle.util.GFileUtils;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 
 public class DefaultPersistentDirectoryStore implements ReferencablePersistentCache {
     private final File dir;
@@ -40,7 +41,7 @@ public class DefaultPersistentDirectoryStore implements ReferencablePersistentCa
     private final String displayName;
     protected final File propertiesFile;
     protected final File gcFile;
-    private CacheCoordinator cacheAccess;
+    private volatile CacheCoordinator cacheAccess;
 
     public DefaultPersistentDirectoryStore(File dir, String displayName, CacheBuilder.LockTarget lockTarget, LockOptions lockOptions, FileLockManager fileLockManager, ExecutorFactory executorFactory) {
         this.dir = dir;
@@ -119,6 +120,20 @@ public class DefaultPersistentDirectoryStore implements ReferencablePersistentCa
         }
     }
 
+    @Override
+    public Collection<String> getModifiedCacheNames() {
+        CacheCoordinator cacheAccess = this.cacheAccess;
+        return cacheAccess == null ? Collections.<String>emptyList() : cacheAccess.getModifiedCacheNames();
+    }
+
+    @Override
+    public void compactCaches(Collection<String> cacheNames) {
+        CacheCoordinator cacheAccess = this.cacheAccess;
+        if (cacheAccess != null) {
+            cacheAccess.compactCaches(cacheNames);
+        }
+    }
+
     @Override
     public File getBaseDir() {
         return dir;
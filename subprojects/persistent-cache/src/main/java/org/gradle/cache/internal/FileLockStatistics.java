@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often and how long the locks created by a {@link DefaultFileLockManager} had to wait for other processes.
+ */
+public class FileLockStatistics {
+    private final AtomicLong sharedAcquired = new AtomicLong();
+    private final AtomicLong exclusiveAcquired = new AtomicLong();
+    private final AtomicLong contended = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+    private final AtomicLong releasesRequested = new AtomicLong();
+
+    void lockAcquired(boolean shared, boolean wasContended, long waitMillis) {
+        (shared ? sharedAcquired : exclusiveAcquired).incrementAndGet();
+        if (wasContended) {
+            contended.incrementAndGet();
+        }
+        totalWaitMillis.addAndGet(waitMillis);
+        long max = maxWaitMillis.get();
+        while (waitMillis > max && !maxWaitMillis.compareAndSet(max, waitMillis)) {
+            max = maxWaitMillis.get();
+        }
+    }
+
+    void releaseRequested() {
+        releasesRequested.incrementAndGet();
+    }
+
+    /**
+     * The number of shared locks acquired.
+     */
+    public long getSharedLocksAcquired() {
+        return sharedAcquired.get();
+    }
+
+    /**
+     * The number of exclusive locks acquired.
+     */
+    public long getExclusiveLocksAcquired() {
+        return exclusiveAcquired.get();
+    }
+
+    /**
+     * The number of locks that were held by another process when they were requested.
+     */
+    public long getContendedLocks() {
+        return contended.get();
+    }
+
+    /**
+     * The total time spent waiting for locks.
+     */
+    public long getTotalWaitMillis() {
+        return totalWaitMillis.get();
+    }
+
+    /**
+     * The longest time spent waiting for a single lock.
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis.get();
+    }
+
+    /**
+     * The number of times another process asked this process to release a lock.
+     */
+    public long getReleasesRequested() {
+        return releasesRequested.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("shared: %d, exclusive: %d, contended: %d, total wait: %d ms, max wait: %d ms, releases requested: %d",
+            getSharedLocksAcquired(), getExclusiveLocksAcquired(), getContendedLocks(), getTotalWaitMillis(), getMaxWaitMillis(), getReleasesRequested());
+    }
+}
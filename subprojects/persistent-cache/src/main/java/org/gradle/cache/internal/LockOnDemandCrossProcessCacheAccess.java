@@ -19,6 +19,7 @@ package org.gradle.cache.internal;
 import org.gradle.api.Action;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.FileLockManager;
+import org.gradle.cache.FileLockManager.LockMode;
 import org.gradle.cache.LockOptions;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
@@ -26,8 +27,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 
+/**
+ * Acquires the file lock when the cache is first used and holds it until another process requests it.
+ *
+ * <p>When the lock options allow shared reads, actions run via {@link #withSharedFileLock(Factory)} acquire a shared lock, so that
+ * several processes that only read the cache can hold the lock at the same time. A request for an exclusive lock waits until the
+ * actions running with the shared lock have completed, and then replaces the shared lock.</p>
+ */
 class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAccess {
     private static final Logger LOGGER = LoggerFactory.getLogger(LockOnDemandCrossProcessCacheAccess.class);
     private final String cacheDisplayName;
@@ -35,12 +44,15 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
     private final LockOptions lockOptions;
     private final FileLockManager lockManager;
     private final Lock stateLock;
+    private final Condition lockCountChanged;
     private final Action<FileLock> onOpen;
     private final Action<FileLock> onClose;
     private final Runnable unlocker;
     private final Runnable whenContended;
     private int lockCount;
     private FileLock fileLock;
+    private LockMode fileLockMode;
+    private int exclusiveWaiters;
     private CacheInitializationAction initAction;
     private boolean contended;
 
@@ -57,6 +69,7 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
         this.lockOptions = lockOptions;
         this.lockManager = lockManager;
         this.stateLock = stateLock;
+        this.lockCountChanged = stateLock.newCondition();
         this.initAction = initAction;
         this.onOpen = onOpen;
         this.onClose = onClose;
@@ -84,7 +97,7 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
 
     @Override
     public <T> T withFileLock(Factory<T> factory) {
-        incrementLockCount();
+        incrementLockCount(LockMode.Exclusive);
         try {
             return factory.create();
         } finally {
@@ -92,32 +105,36 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
         }
     }
 
-    private void incrementLockCount() {
+    /**
+     * Runs the given action, which must only read the cache. The action must not request an exclusive lock, as that waits for the
+     * action to complete.
+     */
+    @Override
+    public <T> T withSharedFileLock(Factory<T> factory) {
+        incrementLockCount(lockOptions.isUseSharedReads() ? LockMode.Shared : LockMode.Exclusive);
+        try {
+            return factory.create();
+        } finally {
+            decrementLockCount();
+        }
+    }
+
+    private void incrementLockCount(LockMode mode) {
         stateLock.lock();
         try {
+            if (mode == LockMode.Shared) {
+                // Let a waiting writer go first
+                while (exclusiveWaiters > 0) {
+                    awaitLockCountChange();
+                }
+            } else if (fileLockMode == LockMode.Shared) {
+                upgradeLock();
+            }
             if (fileLock == null) {
                 if (lockCount != 0) {
                     throw new IllegalStateException("Mismatched lock count.");
                 }
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Acquiring file lock for {}", cacheDisplayName);
-                }
-                fileLock = lockManager.lock(lockTarget, lockOptions, cacheDisplayName, "", whenContended);
-                try {
-                    if (initAction.requiresInitialization(fileLock)) {
-                        fileLock.writeFile(new Runnable() {
-                            @Override
-                            public void run() {
-                                initAction.initialize(fileLock);
-                            }
-                        });
-                    }
-                    onOpen.execute(fileLock);
-                } catch (Exception e) {
-                    fileLock.close();
-                    fileLock = null;
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
+                acquireLock(mode);
             }
             lockCount++;
         } finally {
@@ -125,6 +142,60 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
         }
     }
 
+    /**
+     * Waits for the actions holding the shared lock to complete, then releases the shared lock so that an exclusive lock can be acquired.
+     */
+    private void upgradeLock() {
+        exclusiveWaiters++;
+        try {
+            while (fileLockMode == LockMode.Shared && lockCount > 0) {
+                awaitLockCountChange();
+            }
+            if (fileLockMode == LockMode.Shared) {
+                releaseLockIfHeld();
+            }
+        } finally {
+            exclusiveWaiters--;
+            lockCountChanged.signalAll();
+        }
+    }
+
+    private void awaitLockCountChange() {
+        try {
+            lockCountChanged.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void acquireLock(LockMode mode) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Acquiring {} file lock for {}", mode.toString().toLowerCase(), cacheDisplayName);
+        }
+        fileLock = lockManager.lock(lockTarget, lockOptions.withMode(mode), cacheDisplayName, "", whenContended);
+        fileLockMode = mode;
+        try {
+            if (initAction.requiresInitialization(fileLock)) {
+                if (mode == LockMode.Shared) {
+                    // Initialization needs an exclusive lock
+                    closeLock();
+                    acquireLock(LockMode.Exclusive);
+                    return;
+                }
+                fileLock.writeFile(new Runnable() {
+                    @Override
+                    public void run() {
+                        initAction.initialize(fileLock);
+                    }
+                });
+            }
+            onOpen.execute(fileLock);
+        } catch (Exception e) {
+            closeLock();
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
     private void decrementLockCount() {
         stateLock.lock();
         try {
@@ -132,9 +203,12 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
                 throw new IllegalStateException("Mismatched lock count.");
             }
             lockCount--;
-            if (lockCount == 0 && contended) {
-                releaseLockIfHeld();
-            } // otherwise, keep lock open
+            if (lockCount == 0) {
+                if (contended) {
+                    releaseLockIfHeld();
+                } // otherwise, keep lock open
+                lockCountChanged.signalAll();
+            }
         } finally {
             stateLock.unlock();
         }
@@ -150,15 +224,23 @@ class LockOnDemandCrossProcessCacheAccess extends AbstractCrossProcessCacheAcces
         try {
             onClose.execute(fileLock);
         } finally {
+            closeLock();
+            contended = false;
+        }
+    }
+
+    private void closeLock() {
+        try {
             fileLock.close();
+        } finally {
             fileLock = null;
-            contended = false;
+            fileLockMode = null;
         }
     }
 
     @Override
     public Runnable acquireFileLock() {
-        incrementLockCount();
+        incrementLockCount(LockMode.Exclusive);
         return unlocker;
     }
 
@@ -30,6 +30,19 @@ public interface MultiProcessSafeAsyncPersistentIndexedCache<K, V> extends UnitO
     @Nullable
     V get(K key);
 
+    /**
+     * Fetches the given entry if it is available without reading the backing store, for example from memory. Never blocks.
+     *
+     * @return the entry, or null when it is not available this way. This does not mean that the entry does not exist.
+     */
+    @Nullable
+    V getIfCached(K key);
+
+    /**
+     * Returns whether {@link #getIfCached(Object)} can return entries at all, so that callers can skip it when it never does.
+     */
+    boolean canGetIfCached();
+
     /**
      * Fetches the given entry, producing if necessary, blocking until the result is available. This method may or may not block until any updates have completed and will invoke the given completion action when the operation is complete.
      */
@@ -19,10 +19,21 @@ package org.gradle.cache.internal;
 import org.gradle.cache.PersistentCache;
 
 import java.io.Closeable;
+import java.util.Collection;
 
 public interface ReferencablePersistentCache extends PersistentCache, Closeable {
 
     void close();
 
     ReferencablePersistentCache open();
+
+    /**
+     * See {@link CacheCoordinator#getModifiedCacheNames()}.
+     */
+    Collection<String> getModifiedCacheNames();
+
+    /**
+     * See {@link CacheCoordinator#compactCaches(Collection)}.
+     */
+    void compactCaches(Collection<String> cacheNames);
 }
@@ -28,6 +28,8 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -48,11 +50,22 @@ import java.util.List;
 @SuppressWarnings("unchecked")
 public class BTreePersistentIndexedCache<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
+    /**
+     * System property to set the proportion of free space in a cache file, between 0 and 1, at which the file is compacted.
+     */
+    public static final String COMPACTION_THRESHOLD_PROPERTY = "org.gradle.cache.internal.btree.compactionThreshold";
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    private static final long MIN_COMPACTION_FILE_SIZE = 4 * 1024 * 1024;
+    private static final int COMPACTION_FLUSH_INTERVAL = 1000;
     private final File cacheFile;
+    private final Serializer<K> keySerializer;
     private final KeyHasher<K> keyHasher;
     private final Serializer<V> serializer;
     private final short maxChildIndexEntries;
+    private final int maxFreeListEntries;
     private final int minIndexChildNodes;
+    private final FileBackedBlockStore fileStore;
+    private final FreeListBlockStore freeListStore;
     private final StateCheckBlockStore store;
     private HeaderBlock header;
 
@@ -63,12 +76,16 @@ public class BTreePersistentIndexedCache<K, V> {
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
         this.cacheFile = cacheFile;
+        this.keySerializer = keySerializer;
         this.keyHasher = new KeyHasher<K>(keySerializer);
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
+        this.maxFreeListEntries = maxFreeListEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
-        this.store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
+        this.fileStore = new FileBackedBlockStore(cacheFile);
+        BlockStore cachingStore = new CachingBlockStore(fileStore, ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
+        this.freeListStore = new FreeListBlockStore(cachingStore, maxFreeListEntries);
+        this.store = new StateCheckBlockStore(freeListStore);
         try {
             open();
         } catch (Exception e) {
@@ -205,6 +222,103 @@ public class BTreePersistentIndexedCache<K, V> {
         return store.isOpen();
     }
 
+    /**
+     * Returns statistics about the space used by the file of this cache.
+     */
+    public BTreeStatistics getStatistics() {
+        store.flush();
+        return freeListStore.getStatistics(fileStore.getFileSize());
+    }
+
+    /**
+     * Compacts this cache when enough of its file is occupied by free blocks. Small files are never compacted.
+     * The caller must hold an exclusive lock on the cache file.
+     */
+    public void maybeCompact() {
+        long fileSize = fileStore.getFileSize();
+        if (fileSize < MIN_COMPACTION_FILE_SIZE) {
+            return;
+        }
+        BTreeStatistics statistics = freeListStore.getStatistics(fileSize);
+        LOGGER.info("Statistics for {}: {}", this, statistics);
+        if (statistics.getFragmentation() >= getCompactionThreshold()) {
+            LOGGER.info("Compacting {} ({}).", this, statistics);
+            try {
+                compact();
+            } catch (UncheckedIOException e) {
+                // Compaction is an optimization only, the cache is still usable
+                LOGGER.warn("Could not compact {}.", this, e);
+                return;
+            }
+            LOGGER.debug("Statistics for {} after compaction: {}", this, getStatistics());
+        }
+    }
+
+    private static double getCompactionThreshold() {
+        String value = System.getProperty(COMPACTION_THRESHOLD_PROPERTY);
+        if (value != null) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Ignoring invalid value '{}' for {}.", value, COMPACTION_THRESHOLD_PROPERTY);
+            }
+        }
+        return DEFAULT_COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Rewrites this cache into a new file that contains no free blocks, with the data blocks in key order, and then replaces the
+     * file of this cache with it. The caller must hold an exclusive lock on the cache file.
+     */
+    public void compact() {
+        LOGGER.debug("Compacting {}", this);
+        File compactedFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".compacted");
+        try {
+            store.flush();
+            Files.deleteIfExists(compactedFile.toPath());
+            BTreePersistentIndexedCache<K, V> target = new BTreePersistentIndexedCache<K, V>(compactedFile, keySerializer, serializer, maxChildIndexEntries, maxFreeListEntries);
+            try {
+                copyEntries(store.read(header.index.rootPos, IndexBlock.class), target, new int[1]);
+                target.store.flush();
+            } finally {
+                target.close();
+            }
+            close();
+            Files.move(compactedFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            compactedFile.delete();
+            throw new UncheckedIOException(String.format("Could not compact %s.", this), e);
+        } finally {
+            if (!isOpen()) {
+                reset();
+            }
+        }
+    }
+
+    private void copyEntries(IndexBlock current, BTreePersistentIndexedCache<K, V> target, int[] copied) throws Exception {
+        // Visit the entries in key order, so that the data blocks are written in key order
+        for (IndexEntry entry : current.entries) {
+            if (!entry.childIndexBlock.isNull()) {
+                copyEntries(store.read(entry.childIndexBlock, IndexBlock.class), target, copied);
+            }
+            DataBlock block = store.read(entry.dataBlock, DataBlock.class);
+            target.putSerialized(entry.hashCode, block.buffer);
+            if (++copied[0] % COMPACTION_FLUSH_INTERVAL == 0) {
+                target.store.flush();
+            }
+        }
+        if (!current.tailPos.isNull()) {
+            copyEntries(store.read(current.tailPos, IndexBlock.class), target, copied);
+        }
+    }
+
+    private void putSerialized(long hashCode, StreamByteBuffer serializedValue) throws Exception {
+        Lookup lookup = header.getRoot().find(hashCode);
+        DataBlock newBlock = new DataBlock(null, serializedValue);
+        store.write(newBlock);
+        lookup.indexBlock.put(hashCode, newBlock.getPos());
+    }
+
     private void rebuild() throws Exception {
         LOGGER.warn("{} is corrupt. Discarding.", this);
         store.clear();
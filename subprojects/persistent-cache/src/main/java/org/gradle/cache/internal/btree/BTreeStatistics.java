@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+/**
+ * Describes how much of the file of a {@link BTreePersistentIndexedCache} is in use.
+ */
+public class BTreeStatistics {
+    private final long fileSize;
+    private final long freeBytes;
+    private final int freeBlocks;
+
+    public BTreeStatistics(long fileSize, long freeBytes, int freeBlocks) {
+        this.fileSize = fileSize;
+        this.freeBytes = freeBytes;
+        this.freeBlocks = freeBlocks;
+    }
+
+    /**
+     * Returns the size of the cache file, in bytes.
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Returns the number of bytes occupied by free blocks, which are waiting to be reused.
+     */
+    public long getFreeBytes() {
+        return freeBytes;
+    }
+
+    /**
+     * Returns the number of free blocks.
+     */
+    public int getFreeBlocks() {
+        return freeBlocks;
+    }
+
+    /**
+     * Returns the proportion of the cache file that is occupied by free blocks, between 0 and 1.
+     */
+    public double getFragmentation() {
+        return fileSize == 0 ? 0 : (double) freeBytes / fileSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("file size: %d bytes, free: %d bytes in %d blocks (%.1f%%)", fileSize, freeBytes, freeBlocks, getFragmentation() * 100);
+    }
+}
@@ -31,20 +31,33 @@ import java.io.RandomAccessFile;
 class ByteInput {
     private final RandomAccessFile file;
     private final ResettableBufferedInputStream bufferedInputStream;
+    private final MappedFile mappedFile;
     private CountingInputStream countingInputStream;
 
     public ByteInput(RandomAccessFile file) {
         this.file = file;
+        this.mappedFile = null;
         bufferedInputStream = new ResettableBufferedInputStream(new RandomAccessFileInputStream(file));
     }
 
+    public ByteInput(MappedFile mappedFile) {
+        this.file = null;
+        this.mappedFile = mappedFile;
+        bufferedInputStream = null;
+    }
+
     /**
      * Starts reading from the given offset.
      */
     public DataInputStream start(long offset) throws IOException {
-        file.seek(offset);
-        bufferedInputStream.clear();
-        countingInputStream = new CountingInputStream(bufferedInputStream);
+        if (mappedFile != null) {
+            // Already in memory, no need to buffer
+            countingInputStream = new CountingInputStream(mappedFile.inputStream(offset));
+        } else {
+            file.seek(offset);
+            bufferedInputStream.clear();
+            countingInputStream = new CountingInputStream(bufferedInputStream);
+        }
         return new DataInputStream(countingInputStream);
     }
 
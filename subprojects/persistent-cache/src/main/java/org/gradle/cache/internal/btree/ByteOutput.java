@@ -31,20 +31,35 @@ import java.io.RandomAccessFile;
 class ByteOutput {
     private final RandomAccessFile file;
     private final ResettableBufferedOutputStream bufferedOutputStream;
+    private final MappedFile mappedFile;
     private CountingOutputStream countingOutputStream;
 
     public ByteOutput(RandomAccessFile file) {
         this.file = file;
+        this.mappedFile = null;
         bufferedOutputStream = new ResettableBufferedOutputStream(new RandomAccessFileOutputStream(file));
     }
 
+    /**
+     * Writes to the given mapped file. The length of the mapped file must cover the written bytes.
+     */
+    public ByteOutput(MappedFile mappedFile) {
+        this.file = null;
+        this.mappedFile = mappedFile;
+        bufferedOutputStream = null;
+    }
+
     /**
      * Starts writing to the given offset. Can be beyond the current length of the file.
      */
     public DataOutputStream start(long offset) throws IOException {
-        file.seek(offset);
-        bufferedOutputStream.clear();
-        countingOutputStream = new CountingOutputStream(bufferedOutputStream);
+        if (mappedFile != null) {
+            countingOutputStream = new CountingOutputStream(mappedFile.outputStream(offset));
+        } else {
+            file.seek(offset);
+            bufferedOutputStream.clear();
+            countingOutputStream = new CountingOutputStream(bufferedOutputStream);
+        }
         return new DataOutputStream(countingOutputStream);
     }
 
@@ -16,6 +16,7 @@
 package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.os.OperatingSystem;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -24,8 +25,15 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 
 public class FileBackedBlockStore implements BlockStore {
+    /**
+     * System property that can be set to {@code false} to read and write cache files using {@link RandomAccessFile} instead of memory mapping them.
+     */
+    public static final String MEMORY_MAPPED_PROPERTY = "org.gradle.cache.internal.btree.mmap";
+
     private final File cacheFile;
+    private final boolean memoryMapped;
     private RandomAccessFile file;
+    private MappedFile mappedFile;
     private ByteOutput output;
     private ByteInput input;
     private long nextBlock;
@@ -33,7 +41,18 @@ public class FileBackedBlockStore implements BlockStore {
     private long currentFileSize;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, useMemoryMapping());
+    }
+
+    public FileBackedBlockStore(File cacheFile, boolean memoryMapped) {
         this.cacheFile = cacheFile;
+        this.memoryMapped = memoryMapped;
+    }
+
+    private static boolean useMemoryMapping() {
+        // Mapped files cannot be deleted or truncated on Windows while the mapping is alive
+        String value = System.getProperty(MEMORY_MAPPED_PROPERTY);
+        return value != null ? Boolean.parseBoolean(value) : !OperatingSystem.current().isWindows();
     }
 
     @Override
@@ -46,9 +65,17 @@ public class FileBackedBlockStore implements BlockStore {
         try {
             cacheFile.getParentFile().mkdirs();
             file = new RandomAccessFile(cacheFile, "rw");
-            output = new ByteOutput(file);
-            input = new ByteInput(file);
-            currentFileSize = file.length();
+            if (memoryMapped) {
+                mappedFile = new MappedFile(file.getChannel());
+                output = new ByteOutput(mappedFile);
+                input = new ByteInput(mappedFile);
+                currentFileSize = mappedFile.length();
+            } else {
+                output = new ByteOutput(file);
+                input = new ByteInput(file);
+                // Ignore any space left at the end of the file by a memory mapped store that was not closed
+                currentFileSize = MappedFile.dataLength(file.getChannel());
+            }
             nextBlock = currentFileSize;
             if (currentFileSize == 0) {
                 runnable.run();
@@ -60,6 +87,13 @@ public class FileBackedBlockStore implements BlockStore {
 
     public void close() {
         try {
+            if (mappedFile != null) {
+                try {
+                    mappedFile.close();
+                } finally {
+                    mappedFile = null;
+                }
+            }
             file.close();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -68,7 +102,11 @@ public class FileBackedBlockStore implements BlockStore {
 
     public void clear() {
         try {
-            file.setLength(0);
+            if (mappedFile != null) {
+                mappedFile.setLength(0);
+            } else {
+                file.setLength(0);
+            }
             currentFileSize = 0;
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -76,6 +114,13 @@ public class FileBackedBlockStore implements BlockStore {
         nextBlock = 0;
     }
 
+    /**
+     * Returns the size of the data in the file, in bytes.
+     */
+    public long getFileSize() {
+        return currentFileSize;
+    }
+
     public void attach(BlockPayload block) {
         if (block.getBlock() == null) {
             block.setBlock(new BlockImpl(block));
@@ -178,15 +223,20 @@ public class FileBackedBlockStore implements BlockStore {
 
         public void write() throws Exception {
             long pos = getPos().getPos();
+            BlockPayload payload = getPayload();
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
 
-            DataOutputStream outputStream = output.start(pos);
+            if (mappedFile != null && currentFileSize < finalSize) {
+                // Map the space for the block before writing to it
+                mappedFile.setLength(finalSize);
+                currentFileSize = finalSize;
+            }
 
-            BlockPayload payload = getPayload();
+            DataOutputStream outputStream = output.start(pos);
 
             // Write header
             outputStream.writeByte(payload.getType());
             outputStream.writeInt(payloadSize);
-            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
 
             // Write body
             payload.write(outputStream);
@@ -92,6 +92,21 @@ public class FreeListBlockStore implements BlockStore {
         store.flush();
     }
 
+    /**
+     * Returns statistics about the free blocks in a store of the given size.
+     */
+    BTreeStatistics getStatistics(long fileSize) {
+        int count = 0;
+        long bytes = 0;
+        for (FreeListBlock block = freeListBlock; block != null; block = block.nextBlock.isNull() ? null : block.getNextBlock()) {
+            for (FreeListEntry entry : block.entries) {
+                count++;
+                bytes += entry.size;
+            }
+        }
+        return new BTreeStatistics(fileSize, bytes, count);
+    }
+
     private void verify() {
         FreeListBlock block = store.readFirst(FreeListBlock.class);
         verify(block, Integer.MAX_VALUE);
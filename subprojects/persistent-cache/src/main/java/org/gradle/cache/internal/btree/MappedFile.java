@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides access to the contents of a file through memory mapped regions.
+ *
+ * <p>The file is mapped in regions of {@link #REGION_SIZE} bytes. When opened, only the data in the file is mapped, so opening the file
+ * never changes it. When the data grows, the last region is mapped in chunks that double in size, so small files stay small. Mapping
+ * beyond the end of the file extends the file, so the file can be longer than its data. While this is the case, the length of the data
+ * is kept in a trailer at the end of the file, so that it can be recovered when the file is not closed. The file is truncated to the
+ * length of the data on {@link #close()}.</p>
+ *
+ * <p>Mappings are not released explicitly, as a mapping cannot be released safely while a buffer may still refer to it. They are
+ * released by the garbage collector instead.</p>
+ */
+class MappedFile {
+    static final int REGION_SIZE = 1 << 26;
+    static final int TRAILER_SIZE = 16;
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+    private static final long TRAILER_MAGIC = 0x4772646c4d617046L;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private long length;
+    private long mappedSize;
+    private boolean extended;
+
+    MappedFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.length = dataLength(channel);
+        if (length > 0) {
+            map(length, true);
+        }
+    }
+
+    /**
+     * Returns the length of the data in the given file. This is the length of the file, unless the file has been extended by a
+     * {@link MappedFile} that was not closed.
+     */
+    static long dataLength(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < TRAILER_SIZE) {
+            return fileSize;
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        while (trailer.hasRemaining()) {
+            if (channel.read(trailer, fileSize - TRAILER_SIZE + trailer.position()) < 0) {
+                return fileSize;
+            }
+        }
+        long length = trailer.getLong(0);
+        long magic = trailer.getLong(8);
+        if (magic != TRAILER_MAGIC || length < 0 || length > fileSize - TRAILER_SIZE) {
+            return fileSize;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the length of the data in this file.
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Sets the length of the data in this file, mapping more of the file when required. Must only be called while holding an exclusive
+     * lock on the file.
+     */
+    void setLength(long newLength) throws IOException {
+        if (newLength == 0) {
+            regions.clear();
+            mappedSize = 0;
+            channel.truncate(0);
+            extended = false;
+        } else if (newLength > length) {
+            if (newLength + TRAILER_SIZE > mappedSize) {
+                // Cover the whole file, so that the trailer can be written at its end
+                map(Math.max(newLength + TRAILER_SIZE, channel.size()), false);
+            }
+            extended = true;
+        }
+        length = newLength;
+        if (extended) {
+            writeTrailer();
+        }
+    }
+
+    /**
+     * Returns a stream that reads from the given position. Reading stops at the end of the mapped regions.
+     */
+    InputStream inputStream(final long startPos) {
+        return new InputStream() {
+            private long pos = startPos;
+
+            @Override
+            public int read() {
+                ByteBuffer region = regionFor(pos);
+                if (region == null) {
+                    return -1;
+                }
+                int value = region.get(offsetOf(pos)) & 0xff;
+                pos++;
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int count) {
+                ByteBuffer region = regionFor(pos);
+                if (region == null) {
+                    return -1;
+                }
+                int regionOffset = offsetOf(pos);
+                int bytes = Math.min(count, region.capacity() - regionOffset);
+                ByteBuffer view = region.duplicate();
+                view.position(regionOffset);
+                view.get(buffer, offset, bytes);
+                pos += bytes;
+                return bytes;
+            }
+        };
+    }
+
+    /**
+     * Returns a stream that writes at the given position. The caller must call {@link #setLength(long)} to cover the written data first.
+     */
+    OutputStream outputStream(final long startPos) {
+        return new OutputStream() {
+            private long pos = startPos;
+
+            @Override
+            public void write(int b) throws IOException {
+                region(pos).put(offsetOf(pos), (byte) b);
+                pos++;
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int count) throws IOException {
+                while (count > 0) {
+                    ByteBuffer region = region(pos);
+                    int regionOffset = offsetOf(pos);
+                    int bytes = Math.min(count, region.capacity() - regionOffset);
+                    ByteBuffer view = region.duplicate();
+                    view.position(regionOffset);
+                    view.put(buffer, offset, bytes);
+                    pos += bytes;
+                    offset += bytes;
+                    count -= bytes;
+                }
+            }
+
+            private ByteBuffer region(long pos) throws IOException {
+                ByteBuffer region = regionFor(pos);
+                if (region == null) {
+                    throw new IOException(String.format("Position %s is beyond the end of the mapped file.", pos));
+                }
+                return region;
+            }
+        };
+    }
+
+    /**
+     * Truncates the file to the length of its data, when this file has extended it.
+     */
+    void close() throws IOException {
+        regions.clear();
+        mappedSize = 0;
+        if (extended && channel.size() > length) {
+            channel.truncate(length);
+        }
+    }
+
+    private ByteBuffer regionFor(long pos) {
+        int index = (int) (pos / REGION_SIZE);
+        if (index >= regions.size()) {
+            return null;
+        }
+        MappedByteBuffer region = regions.get(index);
+        return offsetOf(pos) < region.capacity() ? region : null;
+    }
+
+    private static int offsetOf(long pos) {
+        return (int) (pos % REGION_SIZE);
+    }
+
+    private void writeTrailer() {
+        long pos = mappedSize - TRAILER_SIZE;
+        ByteBuffer region = regions.get(regions.size() - 1);
+        region.putLong(offsetOf(pos), length);
+        region.putLong(offsetOf(pos) + 8, TRAILER_MAGIC);
+    }
+
+    /**
+     * Maps the file up to the given size. Maps exactly the given size when {@code exact} is true, otherwise rounds the last region
+     * up to the next chunk size.
+     */
+    private void map(long size, boolean exact) throws IOException {
+        int lastIndex = (int) ((size - 1) / REGION_SIZE);
+        for (int index = 0; index <= lastIndex; index++) {
+            long regionStart = (long) index * REGION_SIZE;
+            long required = Math.min(size - regionStart, REGION_SIZE);
+            MappedByteBuffer region = index < regions.size() ? regions.get(index) : null;
+            if (region != null && region.capacity() >= required) {
+                continue;
+            }
+            int regionSize = index < lastIndex ? REGION_SIZE : exact ? (int) required : chunkSize(required, region);
+            // The previous mapping of the region is released by the garbage collector
+            MappedByteBuffer newRegion = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+            if (region != null) {
+                regions.set(index, newRegion);
+            } else {
+                regions.add(newRegion);
+            }
+        }
+        MappedByteBuffer last = regions.get(regions.size() - 1);
+        mappedSize = (long) (regions.size() - 1) * REGION_SIZE + last.capacity();
+    }
+
+    private static int chunkSize(long required, MappedByteBuffer current) {
+        long size = Math.max(MIN_CHUNK_SIZE, current == null ? 0 : current.capacity() * 2L);
+        while (size < required) {
+            size *= 2;
+        }
+        return (int) Math.min(size, REGION_SIZE);
+    }
+}
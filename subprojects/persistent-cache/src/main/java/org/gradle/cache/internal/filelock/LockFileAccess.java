@@ -21,8 +21,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 
 public class LockFileAccess {
+    /**
+     * A region after the information region that is locked by processes waiting for an exclusive lock. It is never written to.
+     */
+    private static final long WAITING_WRITER_REGION_POS = LockInfoAccess.INFORMATION_REGION_SIZE;
 
     private final RandomAccessFile lockFileAccess;
 
@@ -85,6 +90,20 @@ public class LockFileAccess {
         return lockStateAccess.tryLock(lockFileAccess, shared);
     }
 
+    /**
+     * Locks the waiting writer region. A process that waits for an exclusive lock holds an exclusive lock on this region, so that
+     * the processes that hold a shared lock can notice it and release their lock.
+     */
+    @Nullable
+    public FileLock tryLockWaitingWriter(boolean shared) throws IOException {
+        try {
+            return lockFileAccess.getChannel().tryLock(WAITING_WRITER_REGION_POS, 1, shared);
+        } catch (OverlappingFileLockException e) {
+            // Locked by the same process, treat as if locked by another process
+            return null;
+        }
+    }
+
     /**
      * Reads the lock state from the lock file.
      */
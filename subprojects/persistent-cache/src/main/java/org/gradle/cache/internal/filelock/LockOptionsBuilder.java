@@ -22,14 +22,16 @@ public class LockOptionsBuilder implements LockOptions {
 
     private FileLockManager.LockMode mode;
     private boolean crossVersion;
+    private boolean sharedReads;
 
-    private LockOptionsBuilder(FileLockManager.LockMode mode, boolean crossVersion) {
+    private LockOptionsBuilder(FileLockManager.LockMode mode, boolean crossVersion, boolean sharedReads) {
         this.mode = mode;
         this.crossVersion = crossVersion;
+        this.sharedReads = sharedReads;
     }
 
     public static LockOptionsBuilder mode(FileLockManager.LockMode lockMode) {
-        return new LockOptionsBuilder(lockMode, false);
+        return new LockOptionsBuilder(lockMode, false, false);
     }
 
     public LockOptionsBuilder useCrossVersionImplementation() {
@@ -37,6 +39,16 @@ public class LockOptionsBuilder implements LockOptions {
         return this;
     }
 
+    /**
+     * Allows processes that only read the cache to hold a shared lock at the same time. Processes that wait for an exclusive lock
+     * signal this through the lock file, which older Gradle versions do not do, so this should only be used for caches that are
+     * not shared with other Gradle versions.
+     */
+    public LockOptionsBuilder useSharedReads() {
+        sharedReads = true;
+        return this;
+    }
+
     public FileLockManager.LockMode getMode() {
         return mode;
     }
@@ -45,13 +57,17 @@ public class LockOptionsBuilder implements LockOptions {
         return crossVersion;
     }
 
+    public boolean isUseSharedReads() {
+        return sharedReads;
+    }
+
     public LockOptions withMode(FileLockManager.LockMode mode) {
-        return new LockOptionsBuilder(mode, crossVersion);
+        return new LockOptionsBuilder(mode, crossVersion, sharedReads);
     }
 
     @Override
     public String toString() {
-        return mode + " (simple=" + crossVersion + ")";
+        return mode + " (simple=" + crossVersion + ", shared reads=" + sharedReads + ")";
     }
 
     @Override
@@ -68,6 +84,9 @@ public class LockOptionsBuilder implements LockOptions {
         if (crossVersion != that.crossVersion) {
             return false;
         }
+        if (sharedReads != that.sharedReads) {
+            return false;
+        }
         if (mode != that.mode) {
             return false;
         }
@@ -79,6 +98,7 @@ public class LockOptionsBuilder implements LockOptions {
     public int hashCode() {
         int result = mode.hashCode();
         result = 31 * result + (crossVersion ? 1 : 0);
+        result = 31 * result + (sharedReads ? 1 : 0);
         return result;
     }
 }
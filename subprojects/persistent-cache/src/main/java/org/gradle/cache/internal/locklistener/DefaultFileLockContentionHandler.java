@@ -16,16 +16,21 @@
 
 package org.gradle.cache.internal.locklistener;
 
+import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.DatagramPacket;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -63,10 +68,15 @@ import java.util.concurrent.locks.ReentrantLock;
  * <p>
  * As Lock Requester, the state of the request is always stored per lock (lockId) and Lock Holder (port). The Lock Holder
  * for a lock might change without acquiring the lock if several Lock Requester compete for the same lock.
+ * <p>
+ * Several processes can hold a lock in shared mode, and none of them advertises its port. A Lock Requester that waits
+ * for such a lock marks the lock file instead. Holders of shared locks register via {@link #startPolling(long, Runnable, Factory)},
+ * and this handler periodically checks whether the lock file has been marked and runs the action to release the lock if so.
  */
 public class DefaultFileLockContentionHandler implements FileLockContentionHandler, Stoppable {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultFileLockContentionHandler.class);
     private static final int PING_DELAY = 1000;
+    private static final int POLL_INTERVAL = 100;
     private final Lock lock = new ReentrantLock();
 
     private final Map<Long, ContendedAction> contendedActions = new HashMap<Long, ContendedAction>();
@@ -79,6 +89,7 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
     private FileLockCommunicator communicator;
     private ManagedExecutor fileLockRequestListener;
     private ManagedExecutor unlockActionExecutor;
+    private ManagedScheduledExecutor pollingExecutor;
     private boolean stopped;
 
     public DefaultFileLockContentionHandler(ExecutorFactory executorFactory, InetAddressFactory addressFactory) {
@@ -150,18 +161,72 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
                 fileLockRequestListener = executorFactory.create("File lock request listener");
                 fileLockRequestListener.execute(listener());
             }
-            if (unlockActionExecutor == null) {
-                unlockActionExecutor = executorFactory.create("File lock release action executor");
-            }
-            if (contendedActions.containsKey(lockId)) {
-                throw new UnsupportedOperationException("Multiple contention actions for a given lock are currently not supported.");
+            addContendedAction(lockId, new ContendedAction(whenContended, null));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void startPolling(long lockId, Runnable whenContended, Factory<Boolean> isRequested) {
+        lock.lock();
+        try {
+            assertNotStopped();
+            if (pollingExecutor == null) {
+                pollingExecutor = executorFactory.createScheduled("File lock request poller", 1);
+                pollingExecutor.scheduleWithFixedDelay(poller(), POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
             }
-            contendedActions.put(lockId, new ContendedAction(whenContended));
+            addContendedAction(lockId, new ContendedAction(whenContended, isRequested));
         } finally {
             lock.unlock();
         }
     }
 
+    private void addContendedAction(long lockId, ContendedAction contendedAction) {
+        if (unlockActionExecutor == null) {
+            unlockActionExecutor = executorFactory.create("File lock release action executor");
+        }
+        if (contendedActions.containsKey(lockId)) {
+            throw new UnsupportedOperationException("Multiple contention actions for a given lock are currently not supported.");
+        }
+        contendedActions.put(lockId, contendedAction);
+    }
+
+    private Runnable poller() {
+        return new Runnable() {
+            public void run() {
+                try {
+                    List<ContendedAction> polled = new ArrayList<ContendedAction>();
+                    lock.lock();
+                    try {
+                        for (ContendedAction contendedAction : contendedActions.values()) {
+                            if (contendedAction.isRequested != null && !contendedAction.running) {
+                                polled.add(contendedAction);
+                            }
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    for (ContendedAction contendedAction : polled) {
+                        // Query without holding the lock, as this accesses the lock file
+                        if (contendedAction.isRequested.create()) {
+                            lock.lock();
+                            try {
+                                if (!stopped && !contendedAction.running && contendedActions.containsValue(contendedAction)) {
+                                    startLockReleaseAsLockHolder(contendedAction);
+                                }
+                            } finally {
+                                lock.unlock();
+                            }
+                        }
+                    }
+                } catch (Throwable t) {
+                    // Keep polling, a failure here would otherwise stop the scheduled task
+                    LOGGER.error("Problems checking for cache access requests.", t);
+                }
+            }
+        };
+    }
+
     public boolean maybePingOwner(int port, long lockId, String displayName, long timeElapsed) {
         if (Integer.valueOf(port).equals(unlocksConfirmedFrom.get(lockId))) {
             //the unlock was confirmed we are waiting
@@ -211,6 +276,9 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
         if (fileLockRequestListener != null) {
             fileLockRequestListener.stop();
         }
+        if (pollingExecutor != null) {
+            pollingExecutor.stop();
+        }
         if (unlockActionExecutor != null) {
             unlockActionExecutor.stop();
         }
@@ -235,10 +303,12 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
 
     private static class ContendedAction {
         private final Runnable action;
+        private final Factory<Boolean> isRequested;
         private boolean running;
 
-        private ContendedAction(Runnable action) {
+        private ContendedAction(Runnable action, Factory<Boolean> isRequested) {
             this.action = action;
+            this.isRequested = isRequested;
         }
     }
 }
@@ -16,9 +16,17 @@
 
 package org.gradle.cache.internal.locklistener;
 
+import org.gradle.internal.Factory;
+
 public interface FileLockContentionHandler {
     void start(long lockId, Runnable whenContended);
 
+    /**
+     * Starts handling requests for a lock that is held in shared mode. Holders of shared locks do not advertise their port, so other
+     * processes cannot ping them. Instead, the given query is polled and the action is run once it returns true.
+     */
+    void startPolling(long lockId, Runnable whenContended, Factory<Boolean> isRequested);
+
     void stop(long lockId);
 
     int reservePort();
@@ -125,6 +125,19 @@ abstract class AbstractFileLockManagerTest extends Specification {
         lockMode << [Exclusive, Shared]
     }
 
+    def "counts the locks that are acquired without waiting"() {
+        when:
+        createLock(Exclusive).close()
+        createLock(Shared).close()
+
+        then:
+        def statistics = manager.statistics
+        statistics.exclusiveLocksAcquired == 1
+        statistics.sharedLocksAcquired == 1
+        statistics.contendedLocks == 0
+        statistics.releasesRequested == 0
+    }
+
     def "can lock a directory"() {
         when:
         def lock = createLock(lockMode, testDir)
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.CrossProcessCacheAccess
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class CrossProcessSynchronizingCacheTest extends Specification {
+    def target = Mock(MultiProcessSafeAsyncPersistentIndexedCache)
+    def cacheAccess = Mock(CrossProcessCacheAccess)
+    def cache = new CrossProcessSynchronizingCache<String, String>(target, cacheAccess)
+
+    def "serves entry available in memory with shared lock"() {
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+        1 * target.canGetIfCached() >> true
+        1 * cacheAccess.withSharedFileLock(_) >> { Factory factory -> factory.create() }
+        1 * target.getIfCached("key") >> "value"
+        0 * _
+    }
+
+    def "reads entry not available in memory with exclusive lock"() {
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+        1 * target.canGetIfCached() >> true
+        1 * cacheAccess.withSharedFileLock(_) >> { Factory factory -> factory.create() }
+        1 * target.getIfCached("key") >> null
+        1 * cacheAccess.withFileLock(_) >> { Factory factory -> factory.create() }
+        1 * target.get("key") >> "value"
+        0 * _
+    }
+
+    def "does not acquire shared lock when entries are never available in memory"() {
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "value"
+        1 * target.canGetIfCached() >> false
+        1 * cacheAccess.withFileLock(_) >> { Factory factory -> factory.create() }
+        1 * target.get("key") >> "value"
+        0 * _
+    }
+}
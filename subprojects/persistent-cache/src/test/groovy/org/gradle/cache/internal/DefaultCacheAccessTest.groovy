@@ -581,6 +581,85 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         0 * lock._
     }
 
+    def "does not compact caches when the lock is released or the cache is closed"() {
+        def access = newAccess(None)
+        def contendedAction
+
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "", _ as Runnable) >> {
+            File target, LockOptions options, String targetDisplayName, String operationDisplayName, Runnable whenContended -> contendedAction = whenContended; return lock }
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        access.open()
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class))
+        access.useCache { cache.put("key", 12) }
+
+        when:
+        contendedAction.run()
+
+        then:
+        1 * backingCache.close()
+        0 * backingCache.maybeCompact()
+
+        when:
+        access.close()
+
+        then:
+        0 * backingCache.maybeCompact()
+    }
+
+    def "compacts modified caches on request while holding the file lock"() {
+        def access = newAccess(None)
+
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "", _ as Runnable) >> lock
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        access.open()
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class))
+        def other = access.newCache(new PersistentIndexedCacheParameters('other', String.class, Integer.class))
+        access.useCache {
+            cache.put("key", 12)
+            other.get("key")
+        }
+
+        expect:
+        access.modifiedCacheNames == ["cache"]
+
+        when:
+        access.compactCaches(access.modifiedCacheNames)
+
+        then:
+        1 * backingCache.maybeCompact()
+
+        and:
+        access.modifiedCacheNames.empty
+
+        when:
+        access.close()
+
+        then:
+        0 * backingCache.maybeCompact()
+        1 * lock.close()
+    }
+
+    def "does not compact caches once closed"() {
+        def access = newAccess(None)
+
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "", _ as Runnable) >> lock
+        lock.writeFile(_) >> { Runnable r -> r.run() }
+        access.open()
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class))
+        access.useCache { cache.put("key", 12) }
+        access.close()
+
+        when:
+        access.compactCaches(["cache"])
+
+        then:
+        0 * backingCache.maybeCompact()
+        0 * lockManager._
+    }
+
     def "releases lock acquired by cache decorator when contended"() {
         def decorator = Mock(CacheDecorator)
         def access = newAccess(None)
@@ -20,6 +20,7 @@ import org.gradle.cache.CacheBuilder
 import org.gradle.cache.CacheValidator
 import org.gradle.cache.internal.locklistener.NoOpFileLockContentionHandler
 import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.serialize.BaseSerializerFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
@@ -220,4 +221,36 @@ class DefaultCacheFactoryTest extends Specification {
         cleanup:
         factory.close()
     }
+
+    void "compacts fragmented caches that were written to before they were closed"() {
+        def value = new byte[1024]
+
+        given:
+        def cache = factory.open(tmpDir.testDirectory, null, null, [:], CacheBuilder.LockTarget.DefaultTarget, mode(Exclusive), null, null)
+        def indexedCache = cache.createCache("entries", String, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER)
+        cache.useCache {
+            5000.times { indexedCache.put("key-$it".toString(), value) }
+            5000.times { if (it % 10 != 0) { indexedCache.remove("key-$it".toString()) } }
+        }
+        cache.close()
+        def cacheFile = tmpDir.file("entries.bin")
+        def sizeBeforeCompaction = cacheFile.length()
+
+        when:
+        factory.compactCaches()
+
+        then:
+        cacheFile.length() < sizeBeforeCompaction / 2
+
+        when:
+        def reopened = factory.open(tmpDir.testDirectory, null, null, [:], CacheBuilder.LockTarget.DefaultTarget, mode(Exclusive), null, null)
+        def reopenedCache = reopened.createCache("entries", String, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER)
+
+        then:
+        reopened.useCache { reopenedCache.get("key-0") } == value
+        reopened.useCache { reopenedCache.get("key-1") } == null
+
+        cleanup:
+        factory.close()
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.cache.internal
+
+import spock.lang.Specification
+
+class FileLockStatisticsTest extends Specification {
+    def statistics = new FileLockStatistics()
+
+    def "counts shared and exclusive locks"() {
+        when:
+        statistics.lockAcquired(true, false, 0)
+        statistics.lockAcquired(false, false, 0)
+        statistics.lockAcquired(false, false, 0)
+
+        then:
+        statistics.sharedLocksAcquired == 1
+        statistics.exclusiveLocksAcquired == 2
+        statistics.contendedLocks == 0
+        statistics.totalWaitMillis == 0
+        statistics.maxWaitMillis == 0
+    }
+
+    def "accumulates wait times and tracks the longest wait"() {
+        when:
+        statistics.lockAcquired(false, true, 20)
+        statistics.lockAcquired(true, true, 50)
+        statistics.lockAcquired(false, false, 5)
+
+        then:
+        statistics.contendedLocks == 2
+        statistics.totalWaitMillis == 75
+        statistics.maxWaitMillis == 50
+    }
+
+    def "counts requests to release a lock"() {
+        when:
+        statistics.releaseRequested()
+        statistics.releaseRequested()
+
+        then:
+        statistics.releasesRequested == 2
+    }
+
+    def "tracks the longest wait across threads"() {
+        when:
+        def threads = (1..10).collect { index ->
+            Thread.start {
+                100.times { statistics.lockAcquired(false, true, index * 10 + it % 3) }
+            }
+        }
+        threads*.join()
+
+        then:
+        statistics.exclusiveLocksAcquired == 1000
+        statistics.contendedLocks == 1000
+        statistics.maxWaitMillis == 102
+    }
+}
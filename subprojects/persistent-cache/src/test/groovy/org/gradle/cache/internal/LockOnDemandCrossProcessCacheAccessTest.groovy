@@ -778,4 +778,93 @@ class LockOnDemandCrossProcessCacheAccessTest extends ConcurrentSpec {
         1 * lock.close()
         0 * _
     }
+
+    def "acquires shared lock for reads when shared reads are enabled"() {
+        def cacheAccess = sharedReadsCacheAccess()
+        def action = Mock(Factory)
+        def lock = Mock(FileLock)
+
+        when:
+        def result = cacheAccess.withSharedFileLock(action)
+
+        then:
+        result == "result"
+
+        and:
+        1 * lockManager.lock(file, { it.mode == FileLockManager.LockMode.Shared }, _, _, _) >> lock
+
+        then:
+        1 * action.create() >> "result"
+
+        then:
+        0 * _
+    }
+
+    def "reuses retained shared lock for subsequent reads"() {
+        def cacheAccess = sharedReadsCacheAccess()
+        def lock = Mock(FileLock)
+
+        given:
+        1 * lockManager.lock(file, { it.mode == FileLockManager.LockMode.Shared }, _, _, _) >> lock
+        cacheAccess.withSharedFileLock(Stub(Factory))
+
+        when:
+        cacheAccess.withSharedFileLock(Stub(Factory))
+
+        then:
+        0 * _
+    }
+
+    def "releases retained shared lock and acquires exclusive lock for writes"() {
+        def cacheAccess = sharedReadsCacheAccess()
+        def sharedLock = Mock(FileLock)
+        def exclusiveLock = Mock(FileLock)
+        def action = Mock(Factory)
+
+        given:
+        1 * lockManager.lock(file, { it.mode == FileLockManager.LockMode.Shared }, _, _, _) >> sharedLock
+        cacheAccess.withSharedFileLock(Stub(Factory))
+
+        when:
+        cacheAccess.withFileLock(action)
+
+        then:
+        1 * sharedLock.close()
+
+        then:
+        1 * lockManager.lock(file, { it.mode == FileLockManager.LockMode.Exclusive }, _, _, _) >> exclusiveLock
+
+        then:
+        1 * action.create()
+
+        then:
+        0 * _
+
+        when:
+        cacheAccess.withSharedFileLock(Stub(Factory))
+
+        then:
+        0 * _
+    }
+
+    def "acquires exclusive lock for reads when shared reads are not enabled"() {
+        def action = Mock(Factory)
+        def lock = Mock(FileLock)
+
+        when:
+        cacheAccess.withSharedFileLock(action)
+
+        then:
+        1 * lockManager.lock(file, { it.mode == FileLockManager.LockMode.Exclusive }, _, _, _) >> lock
+
+        then:
+        1 * action.create()
+
+        then:
+        0 * _
+    }
+
+    private LockOnDemandCrossProcessCacheAccess sharedReadsCacheAccess() {
+        return new LockOnDemandCrossProcessCacheAccess("<cache>", file, LockOptionsBuilder.mode(FileLockManager.LockMode.Exclusive).useSharedReads(), lockManager, new ReentrantLock(), Stub(CacheInitializationAction), Stub(Action), Stub(Action))
+    }
 }
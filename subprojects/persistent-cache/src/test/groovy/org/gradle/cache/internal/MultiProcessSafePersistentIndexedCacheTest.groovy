@@ -129,6 +129,38 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
         0 * _._
     }
 
+    def "does not compact cache that has not been modified"() {
+        given:
+        cacheOpened()
+
+        when:
+        cache.maybeCompact()
+
+        then:
+        !cache.modified
+        0 * _._
+    }
+
+    def "holds write lock while compacting modified cache"() {
+        given:
+        cacheOpened()
+        cache.remove("key")
+
+        expect:
+        cache.modified
+
+        when:
+        cache.maybeCompact()
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.maybeCompact()
+        0 * _._
+
+        and:
+        !cache.modified
+    }
+
     def cacheOpened() {
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
         1 * factory.create() >> backingCache
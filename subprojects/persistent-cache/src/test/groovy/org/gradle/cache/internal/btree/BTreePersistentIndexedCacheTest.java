@@ -387,6 +387,37 @@ public class BTreePersistentIndexedCacheTest {
         cache.close();
     }
 
+    @Test
+    public void compactionReleasesFreeSpace() {
+        createCache();
+
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(i);
+        }
+        Map<String, Integer> added = checkAdds(values);
+        for (int i = 0; i < 1000; i += 2) {
+            String key = String.format("key_%d", i);
+            cache.remove(key);
+            added.remove(key);
+        }
+
+        BTreeStatistics before = cache.getStatistics();
+        assertThat(before.getFreeBytes(), greaterThan(0L));
+
+        cache.compact();
+
+        BTreeStatistics after = cache.getStatistics();
+        assertThat(after.getFreeBytes(), equalTo(0L));
+        assertThat(after.getFileSize(), lessThan(before.getFileSize()));
+        for (Map.Entry<String, Integer> entry : added.entrySet()) {
+            assertThat(cache.get(entry.getKey()), equalTo(entry.getValue()));
+        }
+        assertNull(cache.get("key_0"));
+
+        verifyAndCloseCache();
+    }
+
     private void checkAdds(Integer... values) {
         checkAdds(Arrays.asList(values));
     }
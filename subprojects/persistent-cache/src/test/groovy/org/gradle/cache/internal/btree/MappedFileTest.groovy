@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedFileTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    RandomAccessFile file
+    MappedFile mappedFile
+
+    def setup() {
+        file = new RandomAccessFile(tmpDir.file("test.bin"), "rw")
+        mappedFile = new MappedFile(file.channel)
+    }
+
+    def cleanup() {
+        file.close()
+    }
+
+    def "can write and read back data at multiple locations"() {
+        given:
+        mappedFile.setLength(1000000)
+        def output = new ByteOutput(mappedFile)
+        def input = new ByteInput(mappedFile)
+
+        when:
+        def stream = output.start(0)
+        stream.writeInt(123)
+        output.done()
+        stream = output.start(999996)
+        stream.writeInt(456)
+        output.done()
+
+        then:
+        input.start(999996).readInt() == 456
+        input.done()
+        input.start(0).readInt() == 123
+        input.done()
+    }
+
+    def "truncates file to length of data on close"() {
+        when:
+        mappedFile.setLength(10)
+        new ByteOutput(mappedFile).start(0).write([1, 2, 3, 4, 5, 6, 7, 8, 9, 10] as byte[])
+
+        then:
+        file.length() > 10
+
+        when:
+        mappedFile.close()
+
+        then:
+        file.length() == 10
+        file.seek(0)
+        file.read() == 1
+    }
+
+    def "maps existing contents of file"() {
+        given:
+        mappedFile.close()
+        file.seek(0)
+        file.writeInt(123)
+        file.writeInt(321)
+
+        when:
+        mappedFile = new MappedFile(file.channel)
+
+        then:
+        mappedFile.length() == 8
+        new ByteInput(mappedFile).start(4).readInt() == 321
+    }
+
+    def "does not change file when opening it"() {
+        given:
+        mappedFile.close()
+        file.seek(0)
+        file.writeInt(123)
+        file.writeInt(321)
+
+        when:
+        mappedFile = new MappedFile(file.channel)
+
+        then:
+        file.length() == 8
+
+        when:
+        mappedFile.close()
+
+        then:
+        file.length() == 8
+    }
+
+    def "recovers length of data when file was not closed"() {
+        given:
+        mappedFile.setLength(10)
+        new ByteOutput(mappedFile).start(0).write([1, 2, 3, 4, 5, 6, 7, 8, 9, 10] as byte[])
+
+        expect:
+        file.length() > 10
+        MappedFile.dataLength(file.channel) == 10
+
+        when:
+        def reopened = new MappedFile(file.channel)
+
+        then:
+        reopened.length() == 10
+        new ByteInput(reopened).start(6).readInt() == 0x0708090a
+
+        when:
+        reopened.setLength(20)
+        reopened.close()
+
+        then:
+        file.length() == 20
+        MappedFile.dataLength(file.channel) == 20
+    }
+
+    def "cannot write beyond length of data"() {
+        when:
+        mappedFile.setLength(10)
+        def stream = new ByteOutput(mappedFile).start(MappedFile.REGION_SIZE)
+        stream.writeInt(1)
+
+        then:
+        thrown(IOException)
+    }
+
+    def "discards contents when length set to zero"() {
+        given:
+        mappedFile.setLength(100)
+
+        when:
+        mappedFile.setLength(0)
+
+        then:
+        mappedFile.length() == 0
+        file.length() == 0
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.gradle.cache.internal.locklistener
 
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.concurrent.ManagedExecutor
 import org.gradle.internal.remote.internal.inet.InetAddressFactory
@@ -53,6 +55,52 @@ class DefaultFileLockContentionHandlerTest extends ConcurrentSpecification {
         }
     }
 
+    def "runs contended action for shared lock when polling finds a request"() {
+        def pollingExecutorFactory = new DefaultExecutorFactory()
+        handler = new DefaultFileLockContentionHandler(pollingExecutorFactory, addressFactory)
+        def requested = new AtomicBoolean()
+        def action = new AtomicBoolean()
+
+        when:
+        handler.reservePort()
+        handler.startPolling(10, { action.set(true) } as Runnable, { requested.get() } as Factory)
+        Thread.sleep(300)
+
+        then:
+        !action.get()
+
+        when:
+        requested.set(true)
+
+        then:
+        poll {
+            assert action.get()
+        }
+
+        cleanup:
+        handler.stop()
+        pollingExecutorFactory.stop()
+    }
+
+    def "does not run contended action for shared lock that was stopped"() {
+        def pollingExecutorFactory = new DefaultExecutorFactory()
+        handler = new DefaultFileLockContentionHandler(pollingExecutorFactory, addressFactory)
+        def action = new AtomicBoolean()
+
+        when:
+        handler.reservePort()
+        handler.startPolling(10, { action.set(true) } as Runnable, { true } as Factory)
+        handler.stop(10)
+        Thread.sleep(300)
+
+        then:
+        !action.get()
+
+        cleanup:
+        handler.stop()
+        pollingExecutorFactory.stop()
+    }
+
     def "there are only two executors: one lock request listener and one release lock action executor"() {
         def factory = Mock(ExecutorFactory)
         handler = new DefaultFileLockContentionHandler(factory, addressFactory)
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.compile
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.CompilationOutputsFixture
+
+class SourceIncrementalGroovyCompilationIntegrationTest extends AbstractIntegrationSpec {
+
+    CompilationOutputsFixture outputs
+
+    def setup() {
+        executer.requireOwnGradleUserHomeDir()
+        outputs = new CompilationOutputsFixture(file("build/classes/groovy/main"))
+
+        buildFile << """
+            apply plugin: 'groovy'
+
+            dependencies {
+                compile localGroovy()
+            }
+
+            compileGroovy.options.incremental = true
+        """
+    }
+
+    private File source(String path, String text) {
+        def sourceFile = file("src/main/groovy/${path}")
+        sourceFile.write(text)
+        sourceFile
+    }
+
+    def "recompiles all the classes of a changed source file and only them"() {
+        source "A.groovy", "class A {}\nclass Helper {}"
+        source "B.groovy", "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "A.groovy", "class A { /* change */ }\nclass Helper { String name }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'Helper'
+    }
+
+    def "deletes the classes of a source file that are no longer declared"() {
+        source "A.groovy", "class A {}\nclass Helper {}"
+        source "B.groovy", "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "A.groovy", "class A { /* change */ }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A'
+        outputs.deletedClasses 'Helper'
+    }
+
+    def "recompiles the source files of dependent classes"() {
+        source "A.groovy", "class A {}"
+        source "B.groovy", "class B extends A {}\nclass OtherB {}"
+        source "C.groovy", "class C {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "A.groovy", "class A { String name }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'B', 'OtherB'
+    }
+
+    def "deletes all the classes of a deleted source file"() {
+        def a = source "A.groovy", "class A {}\nclass Helper {}"
+        source "B.groovy", "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        assert a.delete()
+        run "compileGroovy"
+
+        then:
+        outputs.noneRecompiled()
+        outputs.deletedClasses 'A', 'Helper'
+    }
+
+    def "recompiles the source files of dependent classes declared in a directory that does not match their package"() {
+        source "A.groovy", "package p; class A {}"
+        source "other/B.groovy", "package p; class B extends A {}\nclass OtherB {}"
+        source "C.groovy", "package p; class C {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "A.groovy", "package p; class A { String name }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'B', 'OtherB'
+    }
+
+    def "recompiles Groovy classes that depend on a changed Java class"() {
+        source "JavaThing.java", "public class JavaThing {}"
+        source "Thing.groovy", "class Thing extends JavaThing {}"
+        source "Other.groovy", "class Other {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "JavaThing.java", "public class JavaThing { public String name; }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'JavaThing', 'Thing'
+    }
+
+    def "recompiles Java classes that depend on a changed Groovy class"() {
+        source "Thing.groovy", "class Thing {}"
+        source "JavaThing.java", "public class JavaThing extends Thing {}"
+        source "Other.groovy", "class Other {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "Thing.groovy", "class Thing { String name }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'Thing', 'JavaThing'
+    }
+
+    def "recompiles all sources when a jar containing AST transformations changes"() {
+        settingsFile << "include 'transform'"
+        buildFile << """
+            project(':transform') {
+                apply plugin: 'groovy'
+                dependencies {
+                    compile localGroovy()
+                }
+            }
+
+            dependencies {
+                compile project(':transform')
+            }
+        """
+        def transformation = file("transform/src/main/groovy/transform/NoOpTransformation.groovy")
+        transformation.text = astTransformation("")
+        source "A.groovy", "class A {}"
+        source "B.groovy", "class B {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        transformation.text = astTransformation("void unused() {}")
+        executer.withArgument("--info")
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'A', 'B'
+        outputContains("Full recompilation is required because a jar containing AST transformations has changed")
+    }
+
+    private static String astTransformation(String extraMember) {
+        """
+            package transform
+
+            import org.codehaus.groovy.ast.ASTNode
+            import org.codehaus.groovy.control.CompilePhase
+            import org.codehaus.groovy.control.SourceUnit
+            import org.codehaus.groovy.transform.ASTTransformation
+            import org.codehaus.groovy.transform.GroovyASTTransformation
+
+            @GroovyASTTransformation(phase = CompilePhase.SEMANTIC_ANALYSIS)
+            class NoOpTransformation implements ASTTransformation {
+                void visit(ASTNode[] nodes, SourceUnit source) {}
+                ${extraMember}
+            }
+        """
+    }
+}
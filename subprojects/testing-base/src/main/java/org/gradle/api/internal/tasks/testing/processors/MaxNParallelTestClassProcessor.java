@@ -37,7 +37,9 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final boolean startAhead;
     private TestResultProcessor resultProcessor;
+    private TestClassProcessor processorStartedAhead;
     private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
@@ -46,9 +48,18 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, false);
+    }
+
+    /**
+     * @param startAhead whether to create and start the first processor when processing starts, so that it starts up while the test classes are being
+     * detected. It receives the first test class.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, boolean startAhead) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.startAhead = startAhead;
     }
 
     @Override
@@ -56,6 +67,9 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
         // Create a processor that processes events in its own thread
         resultProcessorActor = actorFactory.createActor(resultProcessor);
         this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+        if (startAhead) {
+            processorStartedAhead = createProcessor();
+        }
     }
 
     @Override
@@ -65,14 +79,11 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
         }
 
         TestClassProcessor processor;
-        if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            rawProcessors.add(processor);
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+        if (processorStartedAhead != null) {
+            processor = processorStartedAhead;
+            processorStartedAhead = null;
+        } else if (processors.size() < maxProcessors) {
+            processor = createProcessor();
         } else {
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
@@ -80,6 +91,17 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
         processor.processTestClass(testClass);
     }
 
+    private TestClassProcessor createProcessor() {
+        TestClassProcessor processor = factory.create();
+        rawProcessors.add(processor);
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        return processor;
+    }
+
     @Override
     public void stop() {
         try {
@@ -24,19 +24,37 @@ import org.gradle.internal.Factory;
 public class RestartEveryNTestClassProcessor implements TestClassProcessor {
     private final Factory<TestClassProcessor> factory;
     private final long restartEvery;
+    private final boolean startAhead;
+    private final boolean keepFullBatch;
     private long testCount;
     private TestResultProcessor resultProcessor;
     private volatile boolean stoppedNow;
     private volatile TestClassProcessor processor;
+    private volatile TestClassProcessor nextProcessor;
 
     public RestartEveryNTestClassProcessor(Factory<TestClassProcessor> factory, long restartEvery) {
+        this(factory, restartEvery, false);
+    }
+
+    /**
+     * @param startAhead whether to create and start the processor for the first batch when processing starts, instead of when the first test class is
+     * received. Also keeps a full batch running until the next test class is received, and then creates and starts the processor for the next batch
+     * before ending the full batch, so that the new processor starts up while the full batch completes. A processor is only started ahead for a later
+     * batch when a test class is waiting for it.
+     */
+    public RestartEveryNTestClassProcessor(Factory<TestClassProcessor> factory, long restartEvery, boolean startAhead) {
         this.factory = factory;
         this.restartEvery = restartEvery;
+        this.startAhead = startAhead;
+        this.keepFullBatch = startAhead && restartEvery > 0;
     }
 
     @Override
     public void startProcessing(TestResultProcessor resultProcessor) {
         this.resultProcessor = resultProcessor;
+        if (startAhead) {
+            processor = createProcessor();
+        }
     }
 
     @Override
@@ -45,13 +63,22 @@ public class RestartEveryNTestClassProcessor implements TestClassProcessor {
             return;
         }
 
+        if (keepFullBatch && processor != null && testCount == restartEvery) {
+            // Only reached when starting ahead, as the batch has ended otherwise
+            nextProcessor = createProcessor();
+            try {
+                endBatch();
+            } finally {
+                processor = nextProcessor;
+                nextProcessor = null;
+            }
+        }
         if (processor == null) {
-            processor = factory.create();
-            processor.startProcessing(resultProcessor);
+            processor = createProcessor();
         }
         processor.processTestClass(testClass);
         testCount++;
-        if (testCount == restartEvery) {
+        if (testCount == restartEvery && !keepFullBatch) {
             endBatch();
         }
     }
@@ -66,9 +93,20 @@ public class RestartEveryNTestClassProcessor implements TestClassProcessor {
     @Override
     public void stopNow() {
         stoppedNow = true;
+        TestClassProcessor processor = this.processor;
         if (processor != null) {
             processor.stopNow();
         }
+        TestClassProcessor nextProcessor = this.nextProcessor;
+        if (nextProcessor != null) {
+            nextProcessor.stopNow();
+        }
+    }
+
+    private TestClassProcessor createProcessor() {
+        TestClassProcessor processor = factory.create();
+        processor.startProcessing(resultProcessor);
+        return processor;
     }
 
     private void endBatch() {
@@ -47,15 +47,25 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final boolean forkOnStart;
     private final Lock lock = new ReentrantLock();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private DocumentationRegistry documentationRegistry;
+    private boolean leaseAcquired;
     private boolean stoppedNow;
 
     public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, documentationRegistry, false);
+    }
+
+    /**
+     * @param forkOnStart whether to start the worker process when processing starts, instead of when the first test class is received.
+     * The worker lease is still only acquired for the first test class, so that a process started ahead of time does not hold up other work.
+     */
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, boolean forkOnStart) {
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -64,11 +74,23 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.documentationRegistry = documentationRegistry;
+        this.forkOnStart = forkOnStart;
     }
 
     @Override
     public void startProcessing(TestResultProcessor resultProcessor) {
         this.resultProcessor = resultProcessor;
+        if (forkOnStart) {
+            lock.lock();
+            try {
+                if (!stoppedNow && remoteProcessor == null) {
+                    JULRedirector.checkDeprecatedProperty(options);
+                    remoteProcessor = forkProcess();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
     @Override
@@ -79,8 +101,11 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
                 return;
             }
 
-            if (remoteProcessor == null) {
+            if (!leaseAcquired) {
                 completion = currentWorkerLease.startChild();
+                leaseAcquired = true;
+            }
+            if (remoteProcessor == null) {
                 JULRedirector.checkDeprecatedProperty(options);
                 remoteProcessor = forkProcess();
             }
@@ -158,7 +183,9 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
                         + documentationRegistry.getDocumentationFor("java_plugin", "sec:test_execution"), e.getCause());
                 }
             } finally {
-                completion.leaseFinish();
+                if (leaseAcquired) {
+                    completion.leaseFinish();
+                }
             }
         }
     }
@@ -202,4 +202,44 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * processor1.stopNow()
         1 * processor2.stopNow()
     }
+
+    def startsFirstProcessorAheadWhenRequestedAndUsesItForFirstTest() {
+        TestClassRunInfo test = Mock()
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+
+        then:
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        0 * _._
+
+        when:
+        processor.processTestClass(test)
+
+        then:
+        1 * asyncProcessor1.processTestClass(test)
+        0 * _._
+
+        when:
+        processor.processTestClass(test)
+
+        then:
+        1 * factory.create() >> processor2
+        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor2.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor2.processTestClass(test)
+    }
 }
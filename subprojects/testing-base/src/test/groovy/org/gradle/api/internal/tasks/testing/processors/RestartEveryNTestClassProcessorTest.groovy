@@ -211,4 +211,133 @@ class RestartEveryNTestClassProcessorTest extends Specification {
         then:
         0 * _._
     }
+
+    def "starts processor for next batch ahead of ending full batch when requested"() {
+        given:
+        TestClassProcessor delegate2 = Mock()
+        processor = new RestartEveryNTestClassProcessor(factory, 2, true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+
+        then:
+        1 * factory.create() >> delegate
+        1 * delegate.startProcessing(resultProcessor)
+        then:
+        1 * delegate.processTestClass(test1)
+        then:
+        1 * delegate.processTestClass(test2)
+        0 * _._
+
+        when:
+        processor.processTestClass(test3)
+
+        then:
+        1 * factory.create() >> delegate2
+        1 * delegate2.startProcessing(resultProcessor)
+        then:
+        1 * delegate.stop()
+        then:
+        1 * delegate2.processTestClass(test3)
+        0 * _._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * delegate2.stop()
+        0 * _._
+    }
+
+    def "does not start processor ahead when no test class remains for it"() {
+        given:
+        processor = new RestartEveryNTestClassProcessor(factory, 2, true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.stop()
+
+        then:
+        1 * factory.create() >> delegate
+        1 * delegate.startProcessing(resultProcessor)
+        then:
+        1 * delegate.processTestClass(test1)
+        then:
+        1 * delegate.processTestClass(test2)
+        then:
+        1 * delegate.stop()
+        0 * _._
+    }
+
+    def "stopNow propagates to processor started ahead"() {
+        given:
+        TestClassProcessor delegate2 = Mock()
+        processor = new RestartEveryNTestClassProcessor(factory, 2, true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
+
+        then:
+        1 * factory.create() >> delegate
+        1 * factory.create() >> delegate2
+        1 * delegate.stop() >> { processor.stopNow() }
+        1 * delegate.stopNow()
+        1 * delegate2.stopNow()
+    }
+
+    def "starts processor for first batch when processing starts when requested"() {
+        given:
+        processor = new RestartEveryNTestClassProcessor(factory, 2, true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+
+        then:
+        1 * factory.create() >> delegate
+        1 * delegate.startProcessing(resultProcessor)
+        0 * _._
+
+        when:
+        processor.processTestClass(test1)
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass(test1)
+        then:
+        1 * delegate.stop()
+        0 * _._
+    }
+
+    def "starts only the processor for the first batch ahead when using a single batch"() {
+        given:
+        processor = new RestartEveryNTestClassProcessor(factory, 0, true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+
+        then:
+        1 * factory.create() >> delegate
+        1 * delegate.startProcessing(resultProcessor)
+        0 * _._
+
+        when:
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.stop()
+
+        then:
+        1 * delegate.processTestClass(test1)
+        then:
+        1 * delegate.processTestClass(test2)
+        then:
+        1 * delegate.stop()
+        0 * _._
+    }
 }
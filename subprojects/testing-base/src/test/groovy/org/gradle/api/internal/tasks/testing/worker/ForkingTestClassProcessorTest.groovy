@@ -21,6 +21,7 @@ import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.classpath.Module
 import org.gradle.api.internal.classpath.ModuleRegistry
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.remote.ObjectConnection
@@ -70,6 +71,44 @@ class ForkingTestClassProcessorTest extends Specification {
         0 * remoteProcessor._
     }
 
+    def "starts worker process on start and acquires worker lease on first test when forking on start"() {
+        def test1 = Mock(TestClassRunInfo)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        processor = Spy(ForkingTestClassProcessor, constructorArgs: [workerLease, workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), moduleRegistry, documentationRegistry, true])
+
+        when:
+        processor.startProcessing(Mock(TestResultProcessor))
+
+        then:
+        1 * processor.forkProcess() >> remoteProcessor
+        0 * workerLease.startChild()
+
+        when:
+        processor.processTestClass(test1)
+
+        then:
+        1 * workerLease.startChild()
+        1 * remoteProcessor.processTestClass(test1)
+        0 * processor.forkProcess()
+    }
+
+    def "stops worker process started ahead without acquiring worker lease"() {
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(workerLease, workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, true)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+
+        setup:
+        1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> remoteProcessor }
+
+        when:
+        processor.startProcessing(Mock(TestResultProcessor))
+        processor.stop()
+
+        then:
+        1 * remoteProcessor.stop()
+        1 * workerProcess.waitForStop()
+        0 * workerLease.startChild()
+    }
+
     def "starts process with a limited implementation classpath"() {
         setup:
         1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
@@ -49,6 +49,12 @@ import java.util.Set;
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
+    /**
+     * Starts test processes ahead of time when set to {@code true}. The first test process of a task starts while the test classes are being
+     * detected, and with {@code forkEvery} the process that replaces a retired fork starts while the retired fork is still running tests.
+     * The processes are not shared between tasks, as a test process has the test runtime classpath of its task on its system classpath.
+     */
+    public static final String START_FORKS_AHEAD_PROPERTY = "org.gradle.test.startForksAhead";
 
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
 
@@ -61,11 +67,18 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    private final boolean startForksAhead;
     private TestClassProcessor processor;
 
     public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
                                WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount,
                                Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter) {
+        this(workerFactory, actorFactory, moduleRegistry, workerLeaseRegistry, buildOperationExecutor, maxWorkerCount, clock, documentationRegistry, testFilter, Boolean.getBoolean(START_FORKS_AHEAD_PROPERTY));
+    }
+
+    DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
+                        WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount,
+                        Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter, boolean startForksAhead) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
@@ -75,6 +88,7 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         this.clock = clock;
         this.documentationRegistry = documentationRegistry;
         this.testFilter = testFilter;
+        this.startForksAhead = startForksAhead;
     }
 
     @Override
@@ -86,18 +100,18 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(currentWorkerLease, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry, startForksAhead);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
-                return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery());
+                return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery(), startForksAhead);
             }
         };
         processor =
             new PatternMatchTestClassProcessor(testFilter,
                 new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory, startForksAhead)));
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 